@@ -0,0 +1,35 @@
+package org.corfudb.runtime.object;
+
+import org.corfudb.annotations.DontInstrument;
+
+/**
+ * This interface lets the object layer keep copies of past versions of an
+ * object, so that readers at an older version can read a copy rather than
+ * rolling back the object itself.
+ *
+ * @param <T> The type of the underlying object.
+ */
+public interface ICorfuSnapshotable<T> {
+
+    /**
+     * Copy the current state of the object. The copy is never modified, it is
+     * only read, possibly by several threads at once.
+     *
+     * @return A copy of the object, or null if the object can not be copied
+     */
+    @DontInstrument
+    default T getSnapshot() {
+        return null;
+    }
+
+    /**
+     * The weight of a copy of the object (e.g. its number of entries), which bounds
+     * the memory of the copies kept.
+     *
+     * @return The weight of a copy of the object
+     */
+    @DontInstrument
+    default long getSnapshotWeight() {
+        return 1;
+    }
+}
@@ -0,0 +1,179 @@
+package org.corfudb.benchmarks.infrastructure;
+
+import com.google.common.collect.ImmutableMap;
+import io.netty.channel.ChannelHandlerContext;
+import org.corfudb.infrastructure.AbstractServer;
+import org.corfudb.infrastructure.IServerRouter;
+import org.corfudb.infrastructure.SequencerServer;
+import org.corfudb.infrastructure.ServerContext;
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.SequencerRecoveryMsg;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.protocols.wireprotocol.TokenRequest;
+import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the token allocation throughput (tokens/sec) of the sequencer for
+ * transactions over a varying number of streams and conflict-set sizes.
+ * Requests are served directly by the sequencer handler, so the benchmark
+ * measures the allocation path without the network stack.
+ */
+public class SequencerServerBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+
+        String benchmarkName = SequencerServerBenchmark.class.getSimpleName();
+
+        int warmUpIterations = 1;
+        TimeValue warmUpTime = TimeValue.seconds(3);
+
+        int measurementIterations = 3;
+        TimeValue measurementTime = TimeValue.seconds(10);
+
+        int threads = 1;
+        int forks = 1;
+
+        Options opt = new OptionsBuilder()
+                .include(benchmarkName)
+
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+
+                .warmupIterations(warmUpIterations)
+                .warmupTime(warmUpTime)
+
+                .measurementIterations(measurementIterations)
+                .measurementTime(measurementTime)
+
+                .threads(threads)
+                .forks(forks)
+
+                .shouldFailOnError(true)
+
+                .resultFormat(ResultFormatType.CSV)
+                .result("target/" + benchmarkName + ".csv")
+
+                .build();
+
+        new Runner(opt).run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class SequencerState {
+
+        @Param({"1", "10", "100"})
+        public int numStreams;
+
+        @Param({"0", "16", "1024"})
+        public int conflictSetSize;
+
+        private ServerContext serverContext;
+
+        private SequencerServer sequencer;
+
+        private CorfuPayloadMsg<TokenRequest> txTokenRequest;
+
+        /**
+         * Discards the responses of the sequencer.
+         */
+        private final IServerRouter router = new IServerRouter() {
+            @Override
+            public void sendResponse(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg) {
+                // ignore
+            }
+
+            @Override
+            public long getServerEpoch() {
+                return 0;
+            }
+
+            @Override
+            public void setServerEpoch(long newEpoch) {
+                // ignore
+            }
+
+            @Override
+            public void addServer(AbstractServer server) {
+                // ignore
+            }
+
+            @Override
+            public List<AbstractServer> getServers() {
+                return Collections.emptyList();
+            }
+        };
+
+        @Setup(Level.Trial)
+        public void setup() {
+            Map<String, Object> config = ImmutableMap.<String, Object>builder()
+                    .put("--memory", true)
+                    .put("--implementation", "local")
+                    .put("--address", "localhost")
+                    .put("<port>", "9000")
+                    .put("--Prefix", "")
+                    .build();
+            serverContext = new ServerContext(config);
+            sequencer = new SequencerServer(serverContext);
+            sequencer.resetServer(new CorfuPayloadMsg<>(CorfuMsgType.BOOTSTRAP_SEQUENCER,
+                    new SequencerRecoveryMsg(0L, Collections.emptyMap(), 0L, false)), null, router);
+
+            List<UUID> streams = new ArrayList<>(numStreams);
+            Map<UUID, Set<byte[]>> conflictSet = new HashMap<>();
+            for (int i = 0; i < numStreams; i++) {
+                UUID streamId = UUID.nameUUIDFromBytes(("stream" + i).getBytes());
+                streams.add(streamId);
+                conflictSet.put(streamId, new HashSet<>());
+            }
+
+            for (int i = 0; i < conflictSetSize; i++) {
+                conflictSet.get(streams.get(i % numStreams)).add(("key" + i).getBytes());
+            }
+
+            // The snapshot is ahead of every allocated token, so that every transaction commits
+            TxResolutionInfo txInfo = new TxResolutionInfo(UUID.randomUUID(),
+                    new Token(0L, Long.MAX_VALUE), conflictSet, conflictSet);
+            txTokenRequest = new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                    new TokenRequest(1L, streams, txInfo));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            sequencer.shutdown();
+            serverContext.close();
+        }
+    }
+
+    /**
+     * Allocates a token for a transaction.
+     */
+    @Benchmark
+    public void txToken(SequencerState state) {
+        state.sequencer.tokenRequest(state.txTokenRequest, null, state.router);
+    }
+}
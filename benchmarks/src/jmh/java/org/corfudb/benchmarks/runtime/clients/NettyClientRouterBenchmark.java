@@ -0,0 +1,182 @@
+package org.corfudb.benchmarks.runtime.clients;
+
+import com.google.common.collect.ImmutableMap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.corfudb.infrastructure.BaseServer;
+import org.corfudb.infrastructure.CorfuServerNode;
+import org.corfudb.infrastructure.NettyServerRouter;
+import org.corfudb.infrastructure.ServerContext;
+import org.corfudb.runtime.CorfuRuntime.CorfuRuntimeParameters;
+import org.corfudb.runtime.clients.BaseClient;
+import org.corfudb.runtime.clients.NettyClientRouter;
+import org.corfudb.util.NodeLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the request throughput (requests/sec) of the {@link NettyClientRouter} with
+ * the default transport, which writes and flushes every request, and with the batched
+ * transport, which coalesces the concurrent requests into flush batches over a pool of
+ * channels. Every benchmark thread pings an in-process base server over a TCP connection.
+ * The throughput per core is reported at the end of the run.
+ */
+public class NettyClientRouterBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+
+        String benchmarkName = NettyClientRouterBenchmark.class.getSimpleName();
+
+        int warmUpIterations = 1;
+        TimeValue warmUpTime = TimeValue.seconds(3);
+
+        int measurementIterations = 3;
+        TimeValue measurementTime = TimeValue.seconds(10);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int threads = cores;
+        int forks = 1;
+
+        Options opt = new OptionsBuilder()
+                .include(benchmarkName)
+
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+
+                .warmupIterations(warmUpIterations)
+                .warmupTime(warmUpTime)
+
+                .measurementIterations(measurementIterations)
+                .measurementTime(measurementTime)
+
+                .threads(threads)
+                .forks(forks)
+
+                .shouldFailOnError(true)
+
+                .resultFormat(ResultFormatType.CSV)
+                .result("target/" + benchmarkName + ".csv")
+
+                .build();
+
+        Collection<RunResult> results = new Runner(opt).run();
+        for (RunResult result : results) {
+            System.out.printf("%s %s: %.0f requests/sec/core%n",
+                    result.getParams().getBenchmark(),
+                    result.getParams().getParam("transport") + "/"
+                            + result.getParams().getParam("channelPoolSize"),
+                    result.getPrimaryResult().getScore() / cores);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RouterState {
+
+        @Param({"default", "batched"})
+        public String transport;
+
+        /**
+         * The number of channels of the batched transport.
+         */
+        @Param({"1", "4"})
+        public int channelPoolSize;
+
+        private ServerContext serverContext;
+
+        private BaseServer baseServer;
+
+        private ChannelFuture serverChannel;
+
+        private EventLoopGroup clientEventLoop;
+
+        private NettyClientRouter router;
+
+        private BaseClient client;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            final int port = findFreePort();
+            Map<String, Object> config = ImmutableMap.<String, Object>builder()
+                    .put("--memory", true)
+                    .put("--implementation", "nio")
+                    .put("--address", "localhost")
+                    .put("<port>", Integer.toString(port))
+                    .put("--Prefix", "")
+                    .put("--Threads", "0")
+                    .put("--HandshakeTimeout", "10")
+                    .put("--enable-tls", false)
+                    .put("--enable-tls-mutual-auth", false)
+                    .put("--enable-sasl-plain-text-auth", false)
+                    .build();
+            serverContext = new ServerContext(config);
+            baseServer = new BaseServer(serverContext);
+            CorfuServerNode serverNode = new CorfuServerNode(serverContext,
+                    Collections.singletonMap(BaseServer.class, baseServer));
+            serverChannel = serverNode.bindServer(serverContext.getBossGroup(),
+                    serverContext.getWorkerGroup(),
+                    serverNode::configureBootstrapOptions,
+                    serverContext,
+                    new NettyServerRouter(Collections.singletonList(baseServer)),
+                    "localhost",
+                    port);
+
+            CorfuRuntimeParameters parameters = CorfuRuntimeParameters.builder()
+                    .nettyBatchedTransport(transport.equals("batched"))
+                    .nettyChannelPoolSize(channelPoolSize)
+                    .build();
+            clientEventLoop = new NioEventLoopGroup();
+            router = new NettyClientRouter(
+                    NodeLocator.builder().host("localhost").port(port).build(),
+                    clientEventLoop, parameters);
+            router.getConnectionFuture().join();
+            client = new BaseClient(router, 0L);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            router.stop();
+            clientEventLoop.shutdownGracefully().syncUninterruptibly();
+            serverChannel.channel().close().syncUninterruptibly();
+            baseServer.shutdown();
+            serverContext.close();
+        }
+
+        private static int findFreePort() {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                return socket.getLocalPort();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Sends a ping and waits for its response.
+     */
+    @Benchmark
+    public boolean ping(RouterState state) {
+        return state.client.ping().join();
+    }
+}
@@ -0,0 +1,95 @@
+package org.corfudb.common.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ *
+ * An implementation of a ZSTD codec that compresses with a dictionary. A dictionary
+ * trained on samples of similar payloads (e.g. the records of a table) lets every
+ * payload compress well on its own, however small it is.
+ *
+ */
+public class ZSTDDictionaryCompression implements Codec {
+
+    private static final int DEFAULT_COMPRESSION_LEVEL = 3;
+
+    private final byte[] dictionary;
+
+    private final ZstdDictCompress compressDictionary;
+
+    private final ZstdDictDecompress decompressDictionary;
+
+    public ZSTDDictionaryCompression(byte[] dictionary) {
+        Objects.requireNonNull(dictionary);
+        this.dictionary = dictionary;
+        this.compressDictionary = new ZstdDictCompress(dictionary, DEFAULT_COMPRESSION_LEVEL);
+        this.decompressDictionary = new ZstdDictDecompress(dictionary);
+    }
+
+    /**
+     * Train a dictionary on the given samples.
+     *
+     * @param samples        payloads representative of the ones to compress
+     * @param dictionarySize max size of the dictionary
+     * @return the dictionary, or null if the samples are not enough to train one
+     */
+    public static byte[] trainDictionary(List<byte[]> samples, int dictionarySize) {
+        checkArgument(dictionarySize > 0);
+
+        byte[] dictionary = new byte[dictionarySize];
+        long size = Zstd.trainFromBuffer(samples.toArray(new byte[0][]), dictionary);
+        if (Zstd.isError(size)) {
+            return null;
+        }
+        return Arrays.copyOf(dictionary, (int) size);
+    }
+
+    public byte[] getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     */
+    @Override
+    public ByteBuffer compress(ByteBuffer uncompressed) {
+        Objects.requireNonNull(uncompressed);
+        checkArgument(uncompressed.hasRemaining());
+
+        byte[] src = new byte[uncompressed.remaining()];
+        uncompressed.duplicate().get(src);
+        byte[] compressed = Zstd.compress(src, compressDictionary);
+
+        ByteBuffer wrappedBuf = ByteBuffer.allocate(compressed.length + Integer.BYTES);
+        wrappedBuf.putInt(src.length);
+        wrappedBuf.put(compressed);
+        wrappedBuf.flip();
+        return wrappedBuf;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     */
+    @Override
+    public ByteBuffer decompress(ByteBuffer compressed) {
+        Objects.requireNonNull(compressed);
+        checkArgument(compressed.remaining() > Integer.BYTES);
+
+        int decompressedSize = compressed.getInt();
+        byte[] src = new byte[compressed.remaining()];
+        compressed.get(src);
+
+        return ByteBuffer.wrap(Zstd.decompress(src, decompressDictionary, decompressedSize));
+    }
+}
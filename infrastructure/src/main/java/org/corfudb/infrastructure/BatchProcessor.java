@@ -1,8 +1,11 @@
 package org.corfudb.infrastructure;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -22,13 +25,18 @@ import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.PriorityLevel;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
+import org.corfudb.protocols.wireprotocol.SegmentInstallRequest;
+import org.corfudb.protocols.wireprotocol.SegmentWriteRequest;
 import org.corfudb.protocols.wireprotocol.TailsRequest;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.protocols.wireprotocol.TrimRequest;
 import org.corfudb.protocols.wireprotocol.WriteRequest;
+import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.QuotaExceededException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterruptedError;
+import org.corfudb.util.CorfuComponent;
+import org.corfudb.util.MetricsUtils;
 
 /**
  * This class manages access for operations that need ordering while executing against
@@ -37,7 +45,25 @@ import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuInterrupte
 @Slf4j
 public class BatchProcessor implements AutoCloseable {
 
-    final private int BATCH_SIZE = 50;
+    // Bounds of the number of operations that are applied before syncing the stream log
+    private static final int MIN_BATCH_SIZE = 50;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    // Weight of the latest sample in the moving averages of the apply and sync latencies
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private static final String BATCH_SIZE_METRIC = CorfuComponent.INFRA_STREAM_OPS + "batch-size";
+    private static final String GROUP_SIZE_METRIC = CorfuComponent.INFRA_STREAM_OPS + "write-group-size";
+    private static final String SYNC_METRIC = CorfuComponent.INFRA_STREAM_OPS + "sync";
+
+    private final Histogram batchSizeHistogram = ServerContext.getMetrics().histogram(BATCH_SIZE_METRIC);
+    private final Histogram groupSizeHistogram = ServerContext.getMetrics().histogram(GROUP_SIZE_METRIC);
+    private final Timer syncTimer = ServerContext.getMetrics().timer(SYNC_METRIC);
+
+    // Only accessed by the processor thread
+    private int batchSize = MIN_BATCH_SIZE;
+    private double avgOpNanos = 0;
+    private double avgSyncNanos = 0;
 
     final private boolean sync;
 
@@ -97,7 +123,9 @@ public class BatchProcessor implements AutoCloseable {
         try {
             BatchWriterOperation lastOp = null;
             int processed = 0;
+            long batchStart = 0;
             List<BatchWriterOperation> res = new LinkedList<>();
+            List<BatchWriterOperation> pendingWrites = new ArrayList<>();
 
             while (true) {
                 BatchWriterOperation currOp;
@@ -107,9 +135,12 @@ public class BatchProcessor implements AutoCloseable {
                 } else {
                     currOp = operationsQueue.poll();
 
-                    if (currOp == null || processed == BATCH_SIZE
+                    if (currOp == null || processed >= batchSize
                             || currOp == BatchWriterOperation.SHUTDOWN) {
+                        applyPendingWrites(pendingWrites);
+                        long syncStart = System.nanoTime();
                         streamLog.sync(sync);
+                        long syncEnd = System.nanoTime();
                         log.trace("Completed {} operations", processed);
 
                         for (BatchWriterOperation operation : res) {
@@ -121,86 +152,52 @@ public class BatchProcessor implements AutoCloseable {
                             }
                         }
                         res.clear();
+                        updateBatchSize(processed, syncStart - batchStart, syncEnd - syncStart);
                         processed = 0;
                     }
                 }
 
+                if (currOp != null && processed == 0) {
+                    batchStart = System.nanoTime();
+                }
+
                 if (currOp == null) {
                     lastOp = null;
                 } else if (currOp == BatchWriterOperation.SHUTDOWN) {
                     log.warn("Shutting down the write processor");
                     streamLog.sync(true);
                     break;
-                } else if (streamLog.quotaExceeded() && currOp.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
-                    currOp.getFutureResult().completeExceptionally(
-                            new QuotaExceededException("Quota of "
-                                    + streamLog.quotaLimitInBytes() + " bytes"));
-                    log.warn("batchprocessor: quota exceeded, dropping msg {}", currOp.getMsg());
-                } else if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
-                    log.info("batchWriteProcessor: updating from {} to {}", sealEpoch, currOp.getMsg().getEpoch());
-                    sealEpoch = currOp.getMsg().getEpoch();
-                    res.add(currOp);
-                    processed++;
-                    lastOp = currOp;
-                } else if (currOp.getMsg().getEpoch() != sealEpoch) {
-                    log.warn("batchWriteProcessor: wrong epoch on {} msg, seal epoch is {}, and msg epoch is {}",
-                            currOp.getType(), sealEpoch, currOp.getMsg().getEpoch());
-                    currOp.getFutureResult().completeExceptionally(new WrongEpochException(sealEpoch));
+                } else if (canCoalesce(currOp, pendingWrites)) {
+                    // The write is applied together with its neighbours once the group is complete
+                    pendingWrites.add(currOp);
                     res.add(currOp);
                     processed++;
                     lastOp = currOp;
                 } else {
-                    try {
-                        switch (currOp.getType()) {
-                            case PREFIX_TRIM:
-                                TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
-                                streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
-                                break;
-                            case WRITE:
-                                WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
-                                streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
-                                break;
-                            case RANGE_WRITE:
-                                RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
-                                streamLog.append(writeRange.getEntries());
-                                break;
-                            case RESET:
-                                streamLog.reset();
-                                break;
-                            case TAILS_QUERY:
-                                TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
-                                TailsResponse tails;
-
-                                switch (tailsRequest.getReqType()) {
-                                    case TailsRequest.LOG_TAIL:
-                                        tails = new TailsResponse(streamLog.getLogTail());
-                                        break;
-
-                                    case TailsRequest.STREAMS_TAILS:
-                                        tails = streamLog.getTails(tailsRequest.getStreams());
-                                        break;
-
-                                    default:
-                                        tails = streamLog.getAllTails();
-                                        break;
-                                }
-
-                                currOp.setResultValue(tails);
-                                break;
-                            case LOG_ADDRESS_SPACE_QUERY:
-                                // Retrieve the address space for every stream in the log.
-                                currOp.setResultValue(streamLog.getStreamsAddressSpace());
-                                break;
-                            default:
-                                log.warn("Unknown BatchWriterOperation {}", currOp);
-                        }
-                    } catch (Exception e) {
-                        log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}].",
-                                operationsQueue.size(), streamLog.getTrimMark(), e);
-                        currOp.getFutureResult().completeExceptionally(e);
+                    // Operations that can't join the group have to observe its writes
+                    applyPendingWrites(pendingWrites);
+
+                    if (canCoalesce(currOp, pendingWrites)) {
+                        pendingWrites.add(currOp);
+                    } else if (streamLog.quotaExceeded()
+                            && currOp.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
+                        currOp.getFutureResult().completeExceptionally(
+                                new QuotaExceededException("Quota of "
+                                        + streamLog.quotaLimitInBytes() + " bytes"));
+                        log.warn("batchprocessor: quota exceeded, dropping msg {}", currOp.getMsg());
+                        continue;
+                    } else if (currOp.getType() == Type.SEAL && currOp.getMsg().getEpoch() >= sealEpoch) {
+                        log.info("batchWriteProcessor: updating from {} to {}", sealEpoch, currOp.getMsg().getEpoch());
+                        sealEpoch = currOp.getMsg().getEpoch();
+                    } else if (currOp.getMsg().getEpoch() != sealEpoch) {
+                        log.warn("batchWriteProcessor: wrong epoch on {} msg, seal epoch is {}, and msg epoch is {}",
+                                currOp.getType(), sealEpoch, currOp.getMsg().getEpoch());
+                        currOp.getFutureResult().completeExceptionally(new WrongEpochException(sealEpoch));
+                    } else {
+                        applyOperation(currOp);
                     }
-                    res.add(currOp);
 
+                    res.add(currOp);
                     processed++;
                     lastOp = currOp;
                 }
@@ -210,6 +207,175 @@ public class BatchProcessor implements AutoCloseable {
         }
     }
 
+    /**
+     * Checks whether a write can join the group of pending writes. A group contains
+     * unranked writes for consecutive addresses in the current epoch, so that it can be
+     * written to the stream log with a single append.
+     *
+     * @param op            the operation to check
+     * @param pendingWrites the current group of pending writes
+     * @return true if the operation extends the group
+     */
+    private boolean canCoalesce(BatchWriterOperation op, List<BatchWriterOperation> pendingWrites) {
+        if (op.getType() != Type.WRITE || op.getMsg().getEpoch() != sealEpoch
+                || pendingWrites.size() >= MAX_BATCH_SIZE) {
+            return false;
+        }
+
+        if (streamLog.quotaExceeded() && op.getMsg().getPriorityLevel() != PriorityLevel.HIGH) {
+            return false;
+        }
+
+        LogData data = (LogData) ((WriteRequest) op.getMsg().getPayload()).getData();
+        if (data.getRank() != null || data.isTrimmed()) {
+            return false;
+        }
+
+        if (pendingWrites.isEmpty()) {
+            return true;
+        }
+
+        BatchWriterOperation lastWrite = pendingWrites.get(pendingWrites.size() - 1);
+        long lastAddress = ((WriteRequest) lastWrite.getMsg().getPayload()).getGlobalAddress();
+        return data.getGlobalAddress() == lastAddress + 1;
+    }
+
+    /**
+     * Applies the group of pending writes with a single append. If the group can't be
+     * written as a whole (i.e. one of its addresses is trimmed or already written),
+     * every write is applied on its own to resolve its individual result.
+     *
+     * @param pendingWrites the group of pending writes, cleared on return
+     */
+    private void applyPendingWrites(List<BatchWriterOperation> pendingWrites) {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+
+        if (pendingWrites.size() == 1) {
+            applyOperation(pendingWrites.get(0));
+            pendingWrites.clear();
+            return;
+        }
+
+        List<LogData> entries = new ArrayList<>(pendingWrites.size());
+        for (BatchWriterOperation op : pendingWrites) {
+            entries.add((LogData) ((WriteRequest) op.getMsg().getPayload()).getData());
+        }
+
+        try {
+            streamLog.appendGroup(entries);
+            MetricsUtils.updateConditionalHistogram(groupSizeHistogram, entries.size());
+        } catch (OverwriteException oe) {
+            log.trace("applyPendingWrites: group of {} writes rejected, cause: {}",
+                    entries.size(), oe.getOverWriteCause());
+            pendingWrites.forEach(this::applyOperation);
+        } catch (Exception e) {
+            log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}].",
+                    operationsQueue.size(), streamLog.getTrimMark(), e);
+            pendingWrites.forEach(op -> op.getFutureResult().completeExceptionally(e));
+        }
+
+        pendingWrites.clear();
+    }
+
+    /**
+     * Applies a single operation against the stream log.
+     *
+     * @param currOp the operation to apply
+     */
+    private void applyOperation(BatchWriterOperation currOp) {
+        try {
+            switch (currOp.getType()) {
+                case PREFIX_TRIM:
+                    TrimRequest prefixTrim = (TrimRequest) currOp.getMsg().getPayload();
+                    streamLog.prefixTrim(prefixTrim.getAddress().getSequence());
+                    break;
+                case WRITE:
+                    WriteRequest write = (WriteRequest) currOp.getMsg().getPayload();
+                    streamLog.append(write.getGlobalAddress(), (LogData) write.getData());
+                    break;
+                case RANGE_WRITE:
+                    RangeWriteMsg writeRange = (RangeWriteMsg) currOp.getMsg().getPayload();
+                    streamLog.append(writeRange.getEntries());
+                    break;
+                case RESET:
+                    streamLog.reset();
+                    break;
+                case TAILS_QUERY:
+                    TailsRequest tailsRequest = (TailsRequest)currOp.getMsg().getPayload();
+                    TailsResponse tails;
+
+                    switch (tailsRequest.getReqType()) {
+                        case TailsRequest.LOG_TAIL:
+                            tails = new TailsResponse(streamLog.getLogTail());
+                            break;
+
+                        case TailsRequest.COMMITTED_TAIL:
+                            tails = new TailsResponse(streamLog.getCommittedTail());
+                            break;
+
+                        case TailsRequest.STREAMS_TAILS:
+                            tails = streamLog.getTails(tailsRequest.getStreams());
+                            break;
+
+                        default:
+                            tails = streamLog.getAllTails();
+                            break;
+                    }
+
+                    currOp.setResultValue(tails);
+                    break;
+                case LOG_ADDRESS_SPACE_QUERY:
+                    // Retrieve the address space for every stream in the log.
+                    currOp.setResultValue(streamLog.getStreamsAddressSpace());
+                    break;
+                case SEGMENT_WRITE:
+                    SegmentWriteRequest segmentWrite = (SegmentWriteRequest) currOp.getMsg().getPayload();
+                    streamLog.writeSegmentFile(segmentWrite.getSegment(), segmentWrite.getOffset(),
+                            segmentWrite.getData());
+                    break;
+                case SEGMENT_INSTALL:
+                    SegmentInstallRequest segmentInstall = (SegmentInstallRequest) currOp.getMsg().getPayload();
+                    streamLog.installSegmentFile(segmentInstall.getSegment(), segmentInstall.getSegmentSize());
+                    break;
+                default:
+                    log.warn("Unknown BatchWriterOperation {}", currOp);
+            }
+        } catch (Exception e) {
+            log.error("Stream log error. Batch [queue size={}]. StreamLog: [trim mark: {}].",
+                    operationsQueue.size(), streamLog.getTrimMark(), e);
+            currOp.getFutureResult().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Sizes the next batch from the observed sync latency and the queue depth. A batch
+     * is allowed to take about as long to apply as a sync takes, so that the cost of a
+     * sync is amortized over the operations that queue up while it runs. A deep queue
+     * grows the batch further to drain the backlog with fewer syncs.
+     *
+     * @param processed  number of operations in the completed batch
+     * @param applyNanos time spent applying the completed batch
+     * @param syncNanos  time spent syncing the completed batch
+     */
+    private void updateBatchSize(int processed, long applyNanos, long syncNanos) {
+        MetricsUtils.updateConditionalHistogram(batchSizeHistogram, processed);
+        MetricsUtils.updateConditionalTimer(syncTimer, syncNanos, TimeUnit.NANOSECONDS);
+
+        if (processed == 0) {
+            return;
+        }
+
+        double opNanos = (double) applyNanos / processed;
+        avgOpNanos = avgOpNanos == 0 ? opNanos : EWMA_WEIGHT * opNanos + (1 - EWMA_WEIGHT) * avgOpNanos;
+        avgSyncNanos = avgSyncNanos == 0 ? syncNanos : EWMA_WEIGHT * syncNanos + (1 - EWMA_WEIGHT) * avgSyncNanos;
+
+        long target = avgOpNanos > 0 ? (long) (avgSyncNanos / avgOpNanos) : MIN_BATCH_SIZE;
+        target = Math.max(target, operationsQueue.size());
+        batchSize = (int) Math.max(MIN_BATCH_SIZE, Math.min(MAX_BATCH_SIZE, target));
+    }
+
     @Override
     public void close() {
         operationsQueue.add(BatchWriterOperation.SHUTDOWN);
@@ -22,7 +22,9 @@ public class BatchWriterOperation<T> {
         SEAL,
         RESET,
         TAILS_QUERY,
-        LOG_ADDRESS_SPACE_QUERY
+        LOG_ADDRESS_SPACE_QUERY,
+        SEGMENT_WRITE,
+        SEGMENT_INSTALL
     }
 
     private final Type type;
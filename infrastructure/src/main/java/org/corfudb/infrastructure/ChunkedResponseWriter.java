@@ -0,0 +1,87 @@
+package org.corfudb.infrastructure;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.CorfuChunkMsg;
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.IChunkable;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Writes the chunks of a response to a channel, one at a time.
+ *
+ * <p>The next chunk is built and written once the previous one was written to the socket,
+ * so that a slow client holds back the response rather than the server buffering it, and
+ * the other responses on the channel are written in between the chunks. The chunks are
+ * built on the chunk executor, which is the calling thread for the first one.</p>
+ *
+ * @param <T> The type of the response payload.
+ */
+@Slf4j
+class ChunkedResponseWriter<T extends IChunkable<T>> implements ChannelFutureListener {
+
+    private final ChannelHandlerContext ctx;
+
+    private final CorfuMsg inMsg;
+
+    private final CorfuMsgType type;
+
+    private final Iterator<T> chunks;
+
+    private final Executor chunkExecutor;
+
+    ChunkedResponseWriter(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsgType type, Iterator<T> chunks,
+                          Executor chunkExecutor) {
+        this.ctx = ctx;
+        this.inMsg = inMsg;
+        this.type = type;
+        this.chunks = chunks;
+        this.chunkExecutor = chunkExecutor;
+    }
+
+    /**
+     * Start writing the response. A response of a single chunk is written as a plain response.
+     */
+    void start() {
+        T chunk = chunks.next();
+        if (!chunks.hasNext()) {
+            CorfuMsg outMsg = type.payloadMsg(chunk);
+            outMsg.copyBaseFields(inMsg);
+            ctx.writeAndFlush(outMsg, ctx.voidPromise());
+            return;
+        }
+
+        write(chunk);
+    }
+
+    private void write(T chunk) {
+        CorfuMsg outMsg = new CorfuChunkMsg(type.payloadMsg(chunk), !chunks.hasNext());
+        outMsg.copyBaseFields(inMsg);
+        ChannelFuture future = ctx.writeAndFlush(outMsg);
+        if (chunks.hasNext()) {
+            future.addListener(this);
+        }
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture future) {
+        if (!future.isSuccess()) {
+            log.warn("operationComplete: failed to write a chunk of {} to request {}",
+                    type, inMsg.getRequestID(), future.cause());
+            return;
+        }
+
+        try {
+            chunkExecutor.execute(() -> write(chunks.next()));
+        } catch (RejectedExecutionException e) {
+            log.warn("operationComplete: failed to build a chunk of {} to request {}",
+                    type, inMsg.getRequestID(), e);
+        }
+    }
+}
@@ -45,13 +45,14 @@ public class CorfuServer {
                     + "\n"
                     + "Usage:\n"
                     + "\tcorfu_server (-l <path>|-m) [-nsN] [-a <address>|-q <interface-name>] "
-                    + "[-c <ratio>] [-d <level>] [-p <seconds>] "
+                    + "[-c <ratio>] [--off-heap-cache-size=<bytes>] [-d <level>] [-p <seconds>] "
                     + "[--layout-server-threads=<layout_server_threads>] [--base-server-threads=<base_server_threads>] "
-                    + "[--log-size-quota-percentage=<max_log_size_percentage>]"
+                    + "[--log-size-quota-percentage=<max_log_size_percentage>] [--mmap-reads] "
                     + "[--logunit-threads=<logunit_threads>] [--management-server-threads=<management_server_threads>]"
                     + "[-e [-u <keystore> -f <keystore_password_file>] [-r <truststore> -w <truststore_password_file>] "
                     + "[-b] [-g -o <username_file> -j <password_file>] "
                     + "[-k <seqcache>] [-T <threads>] [-B <size>] [-i <channel-implementation>] "
+                    + "[--state-transfer-parallelism=<batches>] [--state-transfer-bandwidth=<bytes>] "
                     + "[-H <seconds>] [-I <cluster-id>] [-x <ciphers>] [-z <tls-protocols>]] "
                     + "[--metrics] [--metrics-port <metrics_port>]"
                     + "[-P <prefix>] [-R <retention>] [--agent] <port>\n"
@@ -94,15 +95,28 @@ public class CorfuServer {
                     + "              If there is no log, then this will be the size of the log unit"
                     + "\n                                                                        "
                     + "                evicted entries will be auto-trimmed. [default: 0.5].\n"
+                    + " --off-heap-cache-size=<bytes>                                            "
+                    + "              The size in bytes of the off-heap cache, which keeps the "
+                    + "serialized entries\n"
+                    + "                                                                          "
+                    + "              evicted from the in-memory cache. [default: 0].\n"
                     + " -H <seconds>, --HandshakeTimeout=<seconds>                               "
                     + "              Handshake timeout in seconds [default: 10].\n               "
                     + "                                                                          "
                     + "              from the log. [default: -1].\n                              "
                     + "                                                                          "
                     + " -k <seqcache>, --sequencer-cache-size=<seqcache>                         "
-                    + "               The size of the sequencer's cache. [default: 250000].\n    "
+                    + "               The size of the sequencer's cache. [default: 1000000].\n   "
                     + " -B <size> --batch-size=<size>                                            "
                     + "              The read/write batch size used for data transfer operations [default: 100].\n"
+                    + " --state-transfer-parallelism=<batches>                                   "
+                    + "              The number of batches a state transfer reads and writes "
+                    + "concurrently [default: 4].\n"
+                    + " --state-transfer-bandwidth=<bytes>                                       "
+                    + "              The maximal rate (bytes/sec) at which a state transfer reads "
+                    + "from the cluster,\n"
+                    + "                                                                          "
+                    + "              or 0 if unlimited [default: 0].\n"
                     + " -R <retention>, --metadata-retention=<retention>                         "
                     + "              Maximum number of system reconfigurations (i.e. layouts)    "
                     + "retained for debugging purposes [default: 1000].\n"
@@ -118,6 +132,8 @@ public class CorfuServer {
                     + "              Disable checksum computation and verification.\n"
                     + " -N, --no-sync                                                            "
                     + "              Disable syncing writes to secondary storage.\n"
+                    + " --mmap-reads                                                             "
+                    + "              Serve reads on sealed log segments from memory mapped files.\n"
                     + " -e, --enable-tls                                                         "
                     + "              Enable TLS.\n"
                     + " -u <keystore>, --keystore=<keystore>                                     "
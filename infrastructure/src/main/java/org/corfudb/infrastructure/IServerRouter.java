@@ -2,8 +2,11 @@ package org.corfudb.infrastructure;
 
 import io.netty.channel.ChannelHandlerContext;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.IChunkable;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Created by mwei on 12/13/15.
@@ -11,6 +14,55 @@ import java.util.List;
 public interface IServerRouter {
     void sendResponse(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg);
 
+    /**
+     * Send a response without flushing it to the channel, so that several responses can be
+     * flushed together with {@link #flush(ChannelHandlerContext)}. Routers that can't defer
+     * the flush send the response right away.
+     */
+    default void sendResponseWithoutFlush(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg) {
+        sendResponse(ctx, inMsg, outMsg);
+    }
+
+    /**
+     * Flush the responses sent with {@link #sendResponseWithoutFlush}.
+     */
+    default void flush(ChannelHandlerContext ctx) {
+        // Responses are not deferred by default
+    }
+
+    /**
+     * Send a response whose payload may be large. Routers that can stream a response send
+     * it in chunks, as the channel drains, to clients that accepted chunks in their handshake;
+     * otherwise the response is sent as a single response.
+     *
+     * @param ctx     The context of the channel to send the response on.
+     * @param inMsg   The request to respond to.
+     * @param type    The type of the response.
+     * @param payload The payload of the response.
+     */
+    default <T extends IChunkable<T>> void sendChunkedResponse(ChannelHandlerContext ctx, CorfuMsg inMsg,
+                                                               CorfuMsgType type, T payload) {
+        sendResponse(ctx, inMsg, type.payloadMsg(payload));
+    }
+
+    /**
+     * Send a response whose payload may be large, and can only be read by the thread of an
+     * executor, e.g. because that thread keeps updating it. Routers that send the response in
+     * chunks build each chunk on that executor; the chunks themselves must not share state
+     * with the payload, see {@link IChunkable#split(int)}.
+     *
+     * @param ctx           The context of the channel to send the response on.
+     * @param inMsg         The request to respond to.
+     * @param type          The type of the response.
+     * @param payload       The payload of the response.
+     * @param chunkExecutor The executor to build the chunks on, called on its thread.
+     */
+    default <T extends IChunkable<T>> void sendChunkedResponse(ChannelHandlerContext ctx, CorfuMsg inMsg,
+                                                               CorfuMsgType type, T payload,
+                                                               Executor chunkExecutor) {
+        sendChunkedResponse(ctx, inMsg, type, payload);
+    }
+
     /**
      * Get the current epoch.
      */
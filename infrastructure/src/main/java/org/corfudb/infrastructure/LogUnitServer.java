@@ -21,6 +21,10 @@ import org.corfudb.protocols.wireprotocol.PriorityLevel;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
 import org.corfudb.protocols.wireprotocol.ReadRequest;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.protocols.wireprotocol.SegmentInstallRequest;
+import org.corfudb.protocols.wireprotocol.SegmentReadRequest;
+import org.corfudb.protocols.wireprotocol.SegmentReadResponse;
+import org.corfudb.protocols.wireprotocol.SegmentWriteRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsRequest;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
@@ -33,6 +37,7 @@ import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.exceptions.ValueAdoptedException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
+import org.corfudb.runtime.view.Layout;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.util.Utils;
 
@@ -51,6 +56,8 @@ import static org.corfudb.infrastructure.BatchWriterOperation.Type.PREFIX_TRIM;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.RANGE_WRITE;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.RESET;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.SEAL;
+import static org.corfudb.infrastructure.BatchWriterOperation.Type.SEGMENT_INSTALL;
+import static org.corfudb.infrastructure.BatchWriterOperation.Type.SEGMENT_WRITE;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.TAILS_QUERY;
 import static org.corfudb.infrastructure.BatchWriterOperation.Type.WRITE;
 
@@ -95,6 +102,7 @@ public class LogUnitServer extends AbstractServer {
      * storage.
      */
     private final LogUnitServerCache dataCache;
+    private final SequentialReadPrefetcher prefetcher;
     private final StreamLog streamLog;
     private final StreamLogCompaction logCleaner;
     private final BatchProcessor batchWriter;
@@ -123,8 +131,10 @@ public class LogUnitServer extends AbstractServer {
         } else {
             streamLog = new StreamLogFiles(serverContext, config.isNoVerify());
         }
+        updateCommittedTailTracking();
 
         dataCache = new LogUnitServerCache(config, streamLog);
+        prefetcher = new SequentialReadPrefetcher(dataCache, streamLog);
         batchWriter = new BatchProcessor(streamLog, serverContext.getServerEpoch(), !config.isNoSync());
 
         logCleaner = new StreamLogCompaction(streamLog, 10, 45, TimeUnit.MINUTES, ServerContext.SHUTDOWN_TIMER);
@@ -160,8 +170,8 @@ public class LogUnitServer extends AbstractServer {
         payloadMsg.copyBaseFields(msg);
         log.debug("handleLogAddressSpaceRequest: received a log address space request {}", msg);
         batchWriter.<StreamsAddressResponse>addTask(LOG_ADDRESS_SPACE_QUERY, payloadMsg)
-                .thenAccept(tailsResp -> r.sendResponse(ctx, msg,
-                        CorfuMsgType.LOG_ADDRESS_SPACE_RESPONSE.payloadMsg(tailsResp)))
+                .thenAccept(tailsResp -> r.sendChunkedResponse(ctx, msg,
+                        CorfuMsgType.LOG_ADDRESS_SPACE_RESPONSE, tailsResp))
                 .exceptionally(ex -> {
                     handleException(ex, ctx, payloadMsg, r);
                     return null;
@@ -273,6 +283,9 @@ public class LogUnitServer extends AbstractServer {
 
         ReadResponse rr = new ReadResponse();
         try {
+            if (cacheable) {
+                prefetcher.onRead(msg.getClientID(), address);
+            }
             ILogData logData = dataCache.get(address, cacheable);
             if (logData == null) {
                 rr.put(address, LogData.getEmpty(address));
@@ -293,15 +306,25 @@ public class LogUnitServer extends AbstractServer {
 
         ReadResponse rr = new ReadResponse();
         try {
-            for (Long address : msg.getPayload().getAddresses()) {
-                ILogData logData = dataCache.get(address, cacheable);
+            // The entries that aren't cached are read with a single batch read of the log
+            List<Long> addresses = msg.getPayload().getAddresses();
+            Map<Long, ILogData> entries = dataCache.getAll(addresses, cacheable);
+            if (cacheable) {
+                // Feed the read-ahead once the batch is read, so that it doesn't read the batch again
+                for (long address : addresses) {
+                    prefetcher.onRead(msg.getClientID(), address);
+                }
+            }
+
+            for (long address : addresses) {
+                ILogData logData = entries.get(address);
                 if (logData == null) {
                     rr.put(address, LogData.getEmpty(address));
                 } else {
                     rr.put(address, (LogData) logData);
                 }
             }
-            r.sendResponse(ctx, msg, CorfuMsgType.READ_RESPONSE.payloadMsg(rr));
+            r.sendChunkedResponse(ctx, msg, CorfuMsgType.READ_RESPONSE, rr);
         } catch (DataCorruptionException e) {
             r.sendResponse(ctx, msg, CorfuMsgType.ERROR_DATA_CORRUPTION.msg());
         }
@@ -326,6 +349,88 @@ public class LogUnitServer extends AbstractServer {
         }
     }
 
+    /**
+     * Services a read of a range of bytes of a complete segment file.
+     * This is used by state transfer to copy whole segments without parsing their records.
+     */
+    @ServerHandler(type = CorfuMsgType.LOG_SEGMENT_READ_REQUEST)
+    private void readSegment(CorfuPayloadMsg<SegmentReadRequest> msg,
+                             ChannelHandlerContext ctx, IServerRouter r) {
+        SegmentReadRequest request = msg.getPayload();
+        log.trace("readSegment: {}", request);
+
+        try {
+            long segmentSize = streamLog.getCompleteSegmentSize(request.getSegment());
+            byte[] data = segmentSize < 0 ? new byte[0]
+                    : streamLog.readSegmentFile(request.getSegment(), request.getOffset(), request.getLength());
+            r.sendResponse(ctx, msg, CorfuMsgType.LOG_SEGMENT_READ_RESPONSE.payloadMsg(
+                    new SegmentReadResponse(request.getSegment(), segmentSize, request.getOffset(), data)));
+        } catch (Exception e) {
+            handleException(e, ctx, msg, r);
+        }
+    }
+
+    /**
+     * Services a write of a range of bytes of a segment file that is being copied to this log unit.
+     */
+    @ServerHandler(type = CorfuMsgType.LOG_SEGMENT_WRITE)
+    private void writeSegment(CorfuPayloadMsg<SegmentWriteRequest> msg,
+                              ChannelHandlerContext ctx, IServerRouter r) {
+        log.debug("writeSegment: {}", msg.getPayload());
+        if (!streamLog.supportsSegmentFiles()) {
+            rejectSegmentRequest(msg, ctx, r);
+            return;
+        }
+
+        batchWriter.addTask(SEGMENT_WRITE, msg)
+                .thenRun(() -> r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg()))
+                .exceptionally(ex -> {
+                    handleException(ex, ctx, msg, r);
+                    return null;
+                });
+    }
+
+    /**
+     * Verifies and installs a segment file that has been copied to this log unit. The copy is
+     * verified on the handler thread, only the swap of the segment file runs on the batch writer.
+     */
+    @ServerHandler(type = CorfuMsgType.LOG_SEGMENT_INSTALL)
+    private void installSegment(CorfuPayloadMsg<SegmentInstallRequest> msg,
+                                ChannelHandlerContext ctx, IServerRouter r) {
+        log.info("installSegment: {}", msg.getPayload());
+        if (!streamLog.supportsSegmentFiles()) {
+            rejectSegmentRequest(msg, ctx, r);
+            return;
+        }
+
+        try {
+            SegmentInstallRequest request = msg.getPayload();
+            streamLog.verifySegmentFile(request.getSegment(), request.getSegmentSize());
+        } catch (Exception e) {
+            // Handled like the failures of the batch writer, which wraps them
+            handleException(new CompletionException(e), ctx, msg, r);
+            return;
+        }
+
+        batchWriter.addTask(SEGMENT_INSTALL, msg)
+                .thenRun(() -> r.sendResponse(ctx, msg, CorfuMsgType.ACK.msg()))
+                .exceptionally(ex -> {
+                    handleException(ex, ctx, msg, r);
+                    return null;
+                });
+    }
+
+    /**
+     * Rejects a segment file request up front when the log doesn't support segment files,
+     * so that the request never reaches the batch writer. The requester (i.e. state transfer)
+     * then transfers the entries of the segment instead.
+     */
+    private void rejectSegmentRequest(CorfuPayloadMsg<?> msg, ChannelHandlerContext ctx, IServerRouter r) {
+        log.debug("rejectSegmentRequest: segment files are not supported, rejecting {}", msg);
+        r.sendResponse(ctx, msg, CorfuMsgType.ERROR_SERVER_EXCEPTION.payloadMsg(new ExceptionMsg(
+                new UnsupportedOperationException("Segment files are not supported"))));
+    }
+
     @ServerHandler(type = CorfuMsgType.COMPACT_REQUEST)
     private void handleCompactRequest(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
         log.debug("handleCompactRequest: received a compact request {}", msg);
@@ -354,6 +459,7 @@ public class LogUnitServer extends AbstractServer {
         msg.setPriorityLevel(PriorityLevel.HIGH);
         try {
             batchWriter.addTask(SEAL, msg).join();
+            updateCommittedTailTracking();
         } catch (CompletionException ce) {
             if (ce.getCause() instanceof WrongEpochException) {
                 // The BaseServer expects to observe this exception,
@@ -364,6 +470,22 @@ public class LogUnitServer extends AbstractServer {
         log.info("LogUnit sealServerWithEpoch: sealed and flushed with epoch {}", epoch);
     }
 
+    /**
+     * The committed tail is a gap-free prefix of the global addresses. A log unit of a striped
+     * segment only holds the addresses of its own stripe, so its committed tail would never pass
+     * the first address of another stripe. It is only tracked when no segment of the current
+     * layout stripes this log unit, which is checked again whenever the epoch changes.
+     */
+    private void updateCommittedTailTracking() {
+        Layout layout = serverContext.getCurrentLayout();
+        if (layout == null) {
+            return;
+        }
+        boolean striped = layout.getSegmentsForEndpoint(serverContext.getLocalEndpoint()).stream()
+                .anyMatch(segment -> segment.getNumberOfStripes() > 1);
+        streamLog.setCommittedTailTracked(!striped);
+    }
+
     @Override
     public boolean isServerReadyToHandleMsg(CorfuMsg msg) {
         return getState() == ServerState.READY;
@@ -413,7 +535,10 @@ public class LogUnitServer extends AbstractServer {
         super.shutdown();
         executor.shutdown();
         logCleaner.shutdown();
+        prefetcher.shutdown();
         batchWriter.close();
+        // Release the off-heap buffers
+        dataCache.invalidateAll();
     }
 
     @VisibleForTesting
@@ -449,6 +574,7 @@ public class LogUnitServer extends AbstractServer {
     public static class LogUnitServerConfig {
         private final double cacheSizeHeapRatio;
         private final long maxCacheSize;
+        private final long maxOffHeapCacheSize;
         private final boolean memoryMode;
         private final boolean noVerify;
         private final boolean noSync;
@@ -461,10 +587,13 @@ public class LogUnitServer extends AbstractServer {
          */
         public static LogUnitServerConfig parse(Map<String, Object> opts) {
             double cacheSizeHeapRatio = Double.parseDouble((String) opts.get("--cache-heap-ratio"));
+            long maxOffHeapCacheSize = opts.get("--off-heap-cache-size") != null
+                    ? Long.parseLong((String) opts.get("--off-heap-cache-size")) : 0L;
 
             return LogUnitServerConfig.builder()
                     .cacheSizeHeapRatio(cacheSizeHeapRatio)
                     .maxCacheSize((long) (Runtime.getRuntime().maxMemory() * cacheSizeHeapRatio))
+                    .maxOffHeapCacheSize(maxOffHeapCacheSize)
                     .memoryMode(Boolean.valueOf(opts.get("--memory").toString()))
                     .noVerify((Boolean) opts.get("--no-verify"))
                     .noSync((Boolean) opts.get("--no-sync"))
@@ -1,14 +1,33 @@
 package org.corfudb.infrastructure;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.LogUnitServer.LogUnitServerConfig;
 import org.corfudb.infrastructure.log.StreamLog;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.util.CorfuComponent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * LogUnit server cache.
@@ -16,6 +35,12 @@ import org.corfudb.protocols.wireprotocol.LogData;
  * All reads and writes go through this cache. But in some cases, messages can
  * specify non-cacheable read/write, then they will not go through this cache.
  * <p>
+ * If an off-heap cache size is configured, the entries evicted from the heap cache
+ * are kept in their serialized form in pooled direct buffers, which are not scanned
+ * by the garbage collector. The off-heap cache is bounded by its size in bytes, and
+ * uses the same admission/eviction policy (W-TinyLFU) as the heap cache. An off-heap
+ * hit is served from a copy of the serialized bytes, without deserializing the data.
+ * <p>
  * Created by WenbinZhu on 5/30/19.
  */
 @Slf4j
@@ -24,13 +49,66 @@ public class LogUnitServerCache {
     private final LoadingCache<Long, ILogData> dataCache;
     private final StreamLog streamLog;
 
+    /**
+     * Serialized entries evicted from the heap cache, or null if there is no off-heap cache.
+     */
+    private final Cache<Long, ByteBuf> offHeapCache;
+
+    private final ByteBufAllocator offHeapAllocator = PooledByteBufAllocator.DEFAULT;
+
+    /**
+     * Incremented whenever the cache is invalidated, so that an entry that
+     * was being moved off-heap or prefetched meanwhile is discarded.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Addresses that were prefetched into the cache and haven't been read yet.
+     */
+    private final Set<Long> prefetchedAddresses = ConcurrentHashMap.newKeySet();
+
+    private final Meter prefetched = new Meter();
+    private final Meter prefetchHits = new Meter();
+    private final Meter prefetchWaste = new Meter();
+
     public LogUnitServerCache(LogUnitServerConfig config, StreamLog streamLog) {
         this.streamLog = streamLog;
         this.dataCache = Caffeine.newBuilder()
                 .<Long, ILogData>weigher((addr, logData) -> logData.getSizeEstimate())
                 .maximumWeight(config.getMaxCacheSize())
                 .removalListener(this::handleEviction)
-                .build(this::handleRetrieval);
+                .recordStats()
+                .build(this::handleLoad);
+
+        if (config.getMaxOffHeapCacheSize() > 0) {
+            this.offHeapCache = Caffeine.newBuilder()
+                    .<Long, ByteBuf>weigher((addr, buf) -> buf.readableBytes())
+                    .maximumWeight(config.getMaxOffHeapCacheSize())
+                    .removalListener((Long addr, ByteBuf buf, RemovalCause cause) -> buf.release())
+                    .build();
+        } else {
+            this.offHeapCache = null;
+        }
+
+        final String pfx = CorfuComponent.INFRA_LOG_UNIT + "cache.";
+        registerMetric(pfx + "size", (Gauge<Long>) dataCache::estimatedSize);
+        registerMetric(pfx + "off-heap-size", (Gauge<Integer>) this::getOffHeapSize);
+        registerMetric(pfx + "evictions", (Gauge<Long>) () -> dataCache.stats().evictionCount());
+        registerMetric(pfx + "hit-rate", (Gauge<Double>) () -> dataCache.stats().hitRate());
+        registerMetric(pfx + "hits", (Gauge<Long>) () -> dataCache.stats().hitCount());
+        registerMetric(pfx + "misses", (Gauge<Long>) () -> dataCache.stats().missCount());
+        registerMetric(pfx + "prefetched", prefetched);
+        registerMetric(pfx + "prefetch-hits", prefetchHits);
+        registerMetric(pfx + "prefetch-waste", prefetchWaste);
+    }
+
+    /**
+     * Registers a metric, replacing the metric of a previous cache instance.
+     */
+    private static void registerMetric(String name, Metric metric) {
+        MetricRegistry metrics = ServerContext.getMetrics();
+        metrics.remove(name);
+        metrics.register(name, metric);
     }
 
     /**
@@ -49,8 +127,71 @@ public class LogUnitServerCache {
         return entry;
     }
 
-    private void handleEviction(long address, ILogData entry, RemovalCause cause) {
+    /**
+     * Loads an entry into the heap cache, from the off-heap cache if present (which
+     * then no longer needs to hold it), or from disk otherwise.
+     */
+    private ILogData handleLoad(long address) {
+        ILogData entry = getOffHeap(address);
+        if (entry != null) {
+            offHeapCache.invalidate(address);
+            return entry;
+        }
+
+        return handleRetrieval(address);
+    }
+
+    private void handleEviction(Long address, ILogData entry, RemovalCause cause) {
         log.trace("handleEviction: Eviction[{}]: {}", address, cause);
+
+        if (address != null && prefetchedAddresses.remove(address) && cause.wasEvicted()) {
+            // The entry was prefetched, but evicted before it was read
+            prefetchWaste.mark();
+        }
+
+        if (offHeapCache == null || address == null || entry == null || !cause.wasEvicted()) {
+            return;
+        }
+
+        long evictionGeneration = generation.get();
+        ByteBuf buf = offHeapAllocator.directBuffer();
+        try {
+            ((LogData) entry).doSerialize(buf);
+        } catch (RuntimeException e) {
+            log.warn("handleEviction: failed to move entry {} off-heap", address, e);
+            buf.release();
+            return;
+        }
+
+        offHeapCache.put(address, buf);
+        if (generation.get() != evictionGeneration) {
+            offHeapCache.invalidate(address);
+        }
+    }
+
+    /**
+     * Returns the log entry from the off-heap cache, if present.
+     *
+     * @param address the address of the log entry
+     * @return the log entry backed by a heap copy of its serialized form, or null
+     */
+    private ILogData getOffHeap(long address) {
+        if (offHeapCache == null) {
+            return null;
+        }
+
+        // Retain the buffer atomically with the lookup, so that a concurrent
+        // eviction can't release it before it's copied.
+        ByteBuf buf = offHeapCache.asMap().computeIfPresent(address, (addr, cached) -> cached.retain());
+        if (buf == null) {
+            return null;
+        }
+
+        try {
+            return LogData.fromSerializedBuffer(Unpooled.copiedBuffer(buf.duplicate()));
+        } finally {
+            buf.release();
+        }
     }
 
     /**
@@ -64,8 +205,15 @@ public class LogUnitServerCache {
      * @return the log entry read from cache or retrieved the underlying storage
      */
     public ILogData get(long address, boolean cacheable) {
+        if (prefetchedAddresses.remove(address)) {
+            prefetchHits.mark();
+        }
+
         if (!cacheable) {
             ILogData ld = dataCache.getIfPresent(address);
+            if (ld == null) {
+                ld = getOffHeap(address);
+            }
             return ld != null ? ld : handleRetrieval(address);
         }
 
@@ -82,6 +230,60 @@ public class LogUnitServerCache {
         return get(address, true);
     }
 
+    /**
+     * Returns the log entries of a batch of addresses from the cache, and retrieves all the
+     * entries that aren't cached with a single batch read of the underlying storage.
+     * <p>
+     * If the log entries are not cacheable, the entries retrieved from the underlying
+     * storage are not cached.
+     *
+     * @param addresses the addresses of the log entries to retrieve
+     * @param cacheable if the log entries should be cached when retrieved from underlying storage
+     * @return the log entries that exist, keyed by their addresses
+     */
+    public Map<Long, ILogData> getAll(List<Long> addresses, boolean cacheable) {
+        Map<Long, ILogData> entries = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (long address : addresses) {
+            if (prefetchedAddresses.remove(address)) {
+                prefetchHits.mark();
+            }
+
+            ILogData entry = dataCache.getIfPresent(address);
+            if (entry == null && offHeapCache != null) {
+                entry = getOffHeap(address);
+                if (entry != null && cacheable) {
+                    offHeapCache.invalidate(address);
+                    dataCache.put(address, entry);
+                }
+            }
+
+            if (entry != null) {
+                entries.put(address, entry);
+            } else {
+                missing.add(address);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return entries;
+        }
+
+        long readGeneration = generation.get();
+        Map<Long, LogData> retrieved = streamLog.readAll(missing);
+        log.trace("getAll: retrieved {} of {} addresses", retrieved.size(), missing.size());
+        entries.putAll(retrieved);
+
+        if (cacheable) {
+            retrieved.forEach(dataCache.asMap()::putIfAbsent);
+            if (generation.get() != readGeneration) {
+                dataCache.invalidateAll(retrieved.keySet());
+            }
+        }
+
+        return entries;
+    }
+
     /**
      * Puts the log entry into the cache.
      * {@link LoadingCache#put(Object, Object)}
@@ -94,16 +296,80 @@ public class LogUnitServerCache {
         dataCache.put(address, entry);
     }
 
+    /**
+     * Loads the entries of a batch of addresses that aren't cached yet into the cache,
+     * ahead of their reads.
+     *
+     * @param addresses the addresses to prefetch
+     */
+    public void prefetch(List<Long> addresses) {
+        long prefetchGeneration = generation.get();
+        List<Long> missing = addresses.stream()
+                .filter(address -> !dataCache.asMap().containsKey(address)
+                        && (offHeapCache == null || !offHeapCache.asMap().containsKey(address)))
+                .collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, LogData> entries = streamLog.readAll(missing);
+        if (generation.get() != prefetchGeneration) {
+            return;
+        }
+
+        entries.forEach((address, entry) -> {
+            prefetchedAddresses.add(address);
+            if (dataCache.asMap().putIfAbsent(address, entry) == null) {
+                prefetched.mark();
+            } else {
+                prefetchedAddresses.remove(address);
+            }
+        });
+
+        if (generation.get() != prefetchGeneration) {
+            dataCache.invalidateAll(entries.keySet());
+        }
+        log.trace("prefetch: prefetched {} of {} addresses", entries.size(), addresses.size());
+    }
+
+    /**
+     * Whether more of the recently prefetched entries were evicted before they were read
+     * than were read, i.e. prefetching only adds pressure on the cache.
+     *
+     * @return true if prefetching is wasteful
+     */
+    public boolean isPrefetchWasteful() {
+        return prefetchWaste.getOneMinuteRate() > prefetchHits.getOneMinuteRate();
+    }
+
     /**
      * Discards all the entries in the cache.
      * {@link LoadingCache#invalidateAll()}
      */
     public void invalidateAll() {
+        generation.incrementAndGet();
         dataCache.invalidateAll();
+        prefetchedAddresses.clear();
+        if (offHeapCache != null) {
+            offHeapCache.invalidateAll();
+        }
     }
 
     @VisibleForTesting
     public int getSize() {
         return dataCache.asMap().size();
     }
+
+    @VisibleForTesting
+    public int getOffHeapSize() {
+        return offHeapCache == null ? 0 : offHeapCache.asMap().size();
+    }
+
+    @VisibleForTesting
+    void cleanUp() {
+        dataCache.cleanUp();
+        if (offHeapCache != null) {
+            offHeapCache.cleanUp();
+        }
+    }
 }
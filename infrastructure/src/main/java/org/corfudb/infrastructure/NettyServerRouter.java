@@ -1,6 +1,7 @@
 package org.corfudb.infrastructure;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
@@ -9,6 +10,7 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -17,6 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.IChunkable;
 
 
 /**
@@ -28,6 +31,11 @@ import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 @ChannelHandler.Sharable
 public class NettyServerRouter extends ChannelInboundHandlerAdapter implements IServerRouter {
 
+    /**
+     * The approximate size of a chunk of a chunked response, in bytes.
+     */
+    private static final int RESPONSE_CHUNK_SIZE = 1024 * 1024;
+
     /**
      * This map stores the mapping from message type to netty server handler.
      */
@@ -90,6 +98,34 @@ public class NettyServerRouter extends ChannelInboundHandlerAdapter implements I
         log.trace("Sent response: {}", outMsg);
     }
 
+    @Override
+    public void sendResponseWithoutFlush(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg) {
+        outMsg.copyBaseFields(inMsg);
+        ctx.write(outMsg, ctx.voidPromise());
+        log.trace("Wrote response: {}", outMsg);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        ctx.flush();
+    }
+
+    @Override
+    public <T extends IChunkable<T>> void sendChunkedResponse(ChannelHandlerContext ctx, CorfuMsg inMsg,
+                                                              CorfuMsgType type, T payload) {
+        sendChunkedResponse(ctx, inMsg, type, payload, MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public <T extends IChunkable<T>> void sendChunkedResponse(ChannelHandlerContext ctx, CorfuMsg inMsg,
+                                                              CorfuMsgType type, T payload,
+                                                              Executor chunkExecutor) {
+        // A client that doesn't accept chunks gets the response as a single chunk
+        int chunkSize = Boolean.TRUE.equals(ctx.channel().attr(ServerHandshakeHandler.chunkedResponsesAttrKey).get())
+                ? RESPONSE_CHUNK_SIZE : Integer.MAX_VALUE;
+        new ChunkedResponseWriter<>(ctx, inMsg, type, payload.split(chunkSize), chunkExecutor).start();
+    }
+
     /**
      * Validate the epoch of a CorfuMsg, and send a WRONG_EPOCH response if
      * the server is in the wrong epoch. Ignored if the message type is reset (which
@@ -3,6 +3,7 @@ package org.corfudb.infrastructure;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
 import io.netty.channel.ChannelHandlerContext;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Builder.Default;
 import lombok.Getter;
@@ -14,7 +15,7 @@ import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
-import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
+import org.corfudb.protocols.wireprotocol.ConflictFingerprint;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
@@ -33,14 +34,22 @@ import org.corfudb.util.MetricsUtils;
 import org.corfudb.util.Utils;
 
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This server implements the sequencer functionality of Corfu.
@@ -78,6 +87,13 @@ import java.util.concurrent.Executors;
  * commits, the sequencer updates the tails of all the streams and the cache
  * of conflict parameters.
  *
+ * <p>Requests are served by a single thread, which keeps the global tail a single
+ * serialization point. Two parts of the work are taken off that critical path:
+ * the conflict keys of large conflict-sets are looked up by multiple threads, each
+ * one over a partition of the keys, and token responses are written to the
+ * channel without a flush while more requests are queued, so that a burst of
+ * responses is flushed at once.
+ *
  * <p>Created by mwei on 12/8/15.
  */
 @Slf4j
@@ -138,6 +154,59 @@ public class SequencerServer extends AbstractServer {
 
     private final ExecutorService executor;
 
+    /**
+     * Requests queued for the sequencer thread.
+     */
+    private final BlockingQueue<Runnable> requestQueue = new LinkedBlockingQueue<>();
+
+    /**
+     * Channels with token responses that were written but not flushed yet.
+     * Only accessed by the sequencer thread.
+     */
+    private final Set<ChannelHandlerContext> unflushedChannels = new HashSet<>();
+
+    /**
+     * Maximal number of token responses written before they're flushed, even if more requests are queued.
+     */
+    static final int MAX_UNFLUSHED_RESPONSES = 64;
+
+    /**
+     * Maximal time the first of the written token responses waits to be flushed, even if more
+     * requests are queued.
+     */
+    static final long MAX_FLUSH_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    /**
+     * Number of token responses written but not flushed yet, and the time the first of them was written.
+     * Only accessed by the sequencer thread.
+     */
+    private int unflushedResponses = 0;
+
+    private long firstUnflushedResponseNanos;
+
+    /**
+     * Minimal number of conflict keys in a conflict-set for it to be checked in parallel.
+     */
+    private static final int PARALLEL_CONFLICT_CHECK_THRESHOLD = 512;
+
+    private final int conflictCheckParallelism = Runtime.getRuntime().availableProcessors();
+
+    private final ExecutorService conflictCheckExecutor;
+
+    /**
+     * Maximal time a streams wait request is held for, before it's responded with empty address spaces.
+     * Kept well under the client request timeout.
+     */
+    private static final long STREAMS_WAIT_TIMEOUT_MS = 1000;
+
+    /**
+     * Streams wait requests held until one of their streams is allocated an address, per stream.
+     * Only accessed by the sequencer thread.
+     */
+    private final Map<UUID, Set<StreamsWait>> streamsWaits = new HashMap<>();
+
+    private final ScheduledExecutorService streamsWaitScheduler;
+
 
     /**
      * Returns a new SequencerServer.
@@ -149,8 +218,12 @@ public class SequencerServer extends AbstractServer {
         Config config = Config.parse(serverContext.getServerConfig());
 
         // Sequencer server is single threaded by current design
-        this.executor = Executors.newSingleThreadExecutor(
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, requestQueue,
                 new ServerThreadFactory("sequencer-", new ServerThreadFactory.ExceptionHandler()));
+        this.conflictCheckExecutor = Executors.newFixedThreadPool(conflictCheckParallelism,
+                new ServerThreadFactory("sequencer-conflict-", new ServerThreadFactory.ExceptionHandler()));
+        this.streamsWaitScheduler = Executors.newSingleThreadScheduledExecutor(
+                new ServerThreadFactory("sequencer-wait-", new ServerThreadFactory.ExceptionHandler()));
 
 
         globalLogTail = Address.getMinAddress();
@@ -163,13 +236,87 @@ public class SequencerServer extends AbstractServer {
 
     @Override
     protected void processRequest(CorfuMsg msg, ChannelHandlerContext ctx, IServerRouter r) {
-        executor.submit(() -> getHandler().handle(msg, ctx, r));
+        runOnSequencerThread(() -> getHandler().handle(msg, ctx, r), r);
+    }
+
+    /**
+     * Run a task on the sequencer thread, and flush the token responses that were deferred
+     * once no more tasks are queued.
+     *
+     * @param task the task to run
+     * @param r    server router
+     */
+    private void runOnSequencerThread(Runnable task, IServerRouter r) {
+        executor.submit(() -> {
+            try {
+                task.run();
+            } finally {
+                if (requestQueue.isEmpty() || isFlushDue()) {
+                    flushResponses(r);
+                }
+            }
+        });
     }
 
     @Override
     public void shutdown() {
         super.shutdown();
         executor.shutdown();
+        conflictCheckExecutor.shutdown();
+        streamsWaitScheduler.shutdown();
+    }
+
+    /**
+     * Send a token response. While more requests are queued, the response is only written
+     * to the channel, and it's flushed along with the responses of the queued requests.
+     * Under sustained load the queue may never drain, so the written responses are also
+     * flushed once there are {@link #MAX_UNFLUSHED_RESPONSES} of them, or once the first
+     * one has waited for {@link #MAX_FLUSH_DELAY_NANOS}.
+     *
+     * @param ctx      netty ChannelHandlerContext
+     * @param msg      request to respond to
+     * @param response token response
+     * @param r        server router
+     */
+    private void sendTokenResponse(ChannelHandlerContext ctx, CorfuMsg msg,
+                                   TokenResponse response, IServerRouter r) {
+        CorfuMsg responseMsg = CorfuMsgType.TOKEN_RES.payloadMsg(response);
+        if (requestQueue.isEmpty()) {
+            r.sendResponse(ctx, msg, responseMsg);
+            flushResponses(r);
+        } else {
+            r.sendResponseWithoutFlush(ctx, msg, responseMsg);
+            unflushedChannels.add(ctx);
+            if (unflushedResponses++ == 0) {
+                firstUnflushedResponseNanos = System.nanoTime();
+            }
+
+            if (isFlushDue()) {
+                flushResponses(r);
+            }
+        }
+    }
+
+    /**
+     * Check if the written token responses waited long enough to be flushed, regardless of
+     * the queued requests.
+     */
+    private boolean isFlushDue() {
+        return unflushedResponses >= MAX_UNFLUSHED_RESPONSES || (unflushedResponses > 0
+                && System.nanoTime() - firstUnflushedResponseNanos >= MAX_FLUSH_DELAY_NANOS);
+    }
+
+    /**
+     * Flush the token responses that were written but not flushed yet.
+     */
+    private void flushResponses(IServerRouter r) {
+        unflushedResponses = 0;
+        if (unflushedChannels.isEmpty()) {
+            return;
+        }
+
+        unflushedChannels.forEach(r::flush);
+        unflushedChannels.clear();
     }
 
     @Override
@@ -242,13 +389,18 @@ public class SequencerServer extends AbstractServer {
             return new TxResolutionResponse(TokenType.TX_ABORT_SEQ_TRIM);
         }
 
-        for (Map.Entry<UUID, Set<byte[]>> conflictStream : txInfo.getConflictSet().entrySet()) {
+        // The conflict keys of a large conflict-set are looked up in parallel, then
+        // checked in the same order as they would be looked up sequentially.
+        long[] keyAddresses = lookupConflictKeys(txInfo.getConflictSet());
+        int keyIndex = 0;
+
+        for (Map.Entry<UUID, long[]> conflictStream : txInfo.getConflictSet().entrySet()) {
 
             // if conflict-parameters are present, check for conflict based on conflict-parameter
             // updates
-            Set<byte[]> conflictParamSet = conflictStream.getValue();
+            long[] fingerprints = conflictStream.getValue();
             //check for conflict based on streams updates
-            if (conflictParamSet == null || conflictParamSet.isEmpty()) {
+            if (fingerprints.length == 0) {
                 UUID streamId = conflictStream.getKey();
                 Long sequence = streamTailToGlobalTailMap.get(streamId);
                 if (sequence != null && sequence > txSnapshotTimestamp.getSequence()) {
@@ -258,19 +410,28 @@ public class SequencerServer extends AbstractServer {
                 continue;
             }
 
-            // for each key pair, check for conflict; if not present, check against the wildcard
-            for (byte[] conflictParam : conflictParamSet) {
+            // for each key fingerprint, check for conflict; if not present, check against the wildcard
+            for (int i = 0; i < fingerprints.length; i += ConflictFingerprint.LONGS) {
+                final long high = fingerprints[i];
+                final long low = fingerprints[i + 1];
 
-                Long keyAddress = cache.getIfPresent(new ConflictTxStream(conflictStream.getKey(), conflictParam));
+                long keyAddress = keyAddresses != null ? keyAddresses[keyIndex++] :
+                        cache.getIfPresent(high, low);
 
-                log.trace("Commit-ck[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
+                if (log.isTraceEnabled()) {
+                    log.trace("Commit-ck[{}] conflict-key[{}{}](ts={})", txInfo,
+                            Long.toHexString(high), Long.toHexString(low), keyAddress);
+                }
 
-                if (keyAddress != null && keyAddress > txSnapshotTimestamp.getSequence()) {
-                    log.debug("ABORT[{}] conflict-key[{}](ts={})", txInfo, conflictParam, keyAddress);
+                if (Address.isAddress(keyAddress) && keyAddress > txSnapshotTimestamp.getSequence()) {
+                    byte[] conflictKey = ConflictFingerprint.toBytes(high, low);
+                    log.debug("ABORT[{}] conflict-key[{}](ts={})", txInfo,
+                            Utils.bytesToHex(conflictKey), keyAddress);
+                    // A txn encoded as conflict params is reported its conflict param
                     return new TxResolutionResponse(
                             TokenType.TX_ABORT_CONFLICT,
                             keyAddress,
-                            conflictParam,
+                            txInfo.getConflictParam(conflictStream.getKey(), conflictKey),
                             conflictStream.getKey()
                     );
                 }
@@ -302,6 +463,51 @@ public class SequencerServer extends AbstractServer {
         return new TxResolutionResponse(TokenType.NORMAL);
     }
 
+    /**
+     * Looks up the latest update of every conflict key of a conflict-set, if the conflict-set
+     * is large enough to be split into partitions that are looked up by multiple threads.
+     * The sequencer thread waits for the lookups, so the cache isn't updated meanwhile.
+     *
+     * @param conflictSet conflict-set of a transaction
+     * @return the latest update of every conflict key ({@link Address#NON_ADDRESS} if the key
+     * is not cached), in the iteration order of the conflict-set, or null if the conflict-set is small
+     */
+    private long[] lookupConflictKeys(Map<UUID, long[]> conflictSet) {
+        int numKeys = 0;
+        for (long[] fingerprints : conflictSet.values()) {
+            numKeys += fingerprints.length / ConflictFingerprint.LONGS;
+        }
+
+        if (numKeys < PARALLEL_CONFLICT_CHECK_THRESHOLD) {
+            return null;
+        }
+
+        // The fingerprints of all the streams, packed in a single array
+        long[] keys = new long[numKeys * ConflictFingerprint.LONGS];
+        int offset = 0;
+        for (long[] fingerprints : conflictSet.values()) {
+            System.arraycopy(fingerprints, 0, keys, offset, fingerprints.length);
+            offset += fingerprints.length;
+        }
+
+        long[] keyAddresses = new long[numKeys];
+        int partitionSize = (numKeys + conflictCheckParallelism - 1) / conflictCheckParallelism;
+        List<CompletableFuture<Void>> partitions = new ArrayList<>(conflictCheckParallelism);
+        for (int start = 0; start < numKeys; start += partitionSize) {
+            final int partitionStart = start;
+            final int partitionEnd = Math.min(start + partitionSize, numKeys);
+            partitions.add(CompletableFuture.runAsync(() -> {
+                for (int i = partitionStart; i < partitionEnd; i++) {
+                    keyAddresses[i] = cache.getIfPresent(keys[i * ConflictFingerprint.LONGS],
+                            keys[i * ConflictFingerprint.LONGS + 1]);
+                }
+            }, conflictCheckExecutor));
+        }
+
+        CompletableFuture.allOf(partitions.toArray(new CompletableFuture[0])).join();
+        return keyAddresses;
+    }
+
     /**
      * Service a query request.
      *
@@ -332,9 +538,9 @@ public class SequencerServer extends AbstractServer {
             }
         }
 
-        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
+        sendTokenResponse(ctx, msg, new TokenResponse(
                 TokenType.NORMAL, TokenResponse.NO_CONFLICT_KEY,
-                TokenResponse.NO_CONFLICT_STREAM, token, Collections.emptyMap(), streamTails)));
+                TokenResponse.NO_CONFLICT_STREAM, token, Collections.emptyMap(), streamTails), r);
 
     }
 
@@ -406,7 +612,7 @@ public class SequencerServer extends AbstractServer {
         // Note, this is correct, but conservative (may lead to false abort).
         // It is necessary because we reset the sequencer.
         if (!bootstrapWithoutTailsUpdate) {
-            // Evict all entries from the cache. This eviction triggers the callback modifying the maxConflictWildcard.
+            // Evict all entries from the cache. This eviction raises the maxConflictWildcard.
             cache.invalidateAll();
             globalLogTail = initialToken;
             cache.updateMaxConflictAddress(initialToken - 1);
@@ -526,8 +732,7 @@ public class SequencerServer extends AbstractServer {
         // so return the new token with current global tail and then update it.
         Token token = new Token(sequencerEpoch, globalLogTail);
         globalLogTail += req.getNumTokens();
-        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
-                new TokenResponse(token, Collections.emptyMap())));
+        sendTokenResponse(ctx, msg, new TokenResponse(token, Collections.emptyMap()), r);
     }
 
     /**
@@ -553,11 +758,11 @@ public class SequencerServer extends AbstractServer {
         if (txResolutionResponse.getTokenType() != TokenType.NORMAL) {
             // If the txn aborts, then DO NOT hand out a token.
             Token newToken = new Token(sequencerEpoch, txResolutionResponse.getAddress());
-            r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(new TokenResponse(
+            sendTokenResponse(ctx, msg, new TokenResponse(
                     txResolutionResponse.getTokenType(),
                     txResolutionResponse.getConflictingKey(),
                     txResolutionResponse.getConflictingStream(),
-                    newToken, Collections.emptyMap(), Collections.emptyMap())));
+                    newToken, Collections.emptyMap(), Collections.emptyMap()), r);
             return;
         }
 
@@ -603,27 +808,21 @@ public class SequencerServer extends AbstractServer {
             });
 
             // step 3. add allocated addresses to each stream's address map (to keep track of all updates to this stream)
-            streamsAddressMap.compute(id, (streamId, addressMap) -> {
-                if (addressMap == null) {
-                    addressMap = new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap());
-                }
-
-                for (long i = globalLogTail; i < newTail; i++) {
-                    addressMap.addAddress(i);
-                }
-                return addressMap;
-            });
+            streamsAddressMap.computeIfAbsent(id,
+                    streamId -> new StreamAddressSpace(Address.NON_ADDRESS, new Roaring64NavigableMap()))
+                    .addAddresses(globalLogTail, newTail);
         }
 
         // update the cache of conflict parameters
         if (req.getTxnResolution() != null) {
             req.getTxnResolution()
                     .getWriteConflictParams()
-                    .forEach((key, value) -> {
+                    .forEach((key, fingerprints) -> {
                         // insert an entry with the new timestamp using the
-                        // hash code based on the param and the stream id.
-                        value.forEach(conflictParam ->
-                                cache.put(new ConflictTxStream(key, conflictParam), newTail - 1));
+                        // fingerprint of the param and the stream id.
+                        for (int i = 0; i < fingerprints.length; i += ConflictFingerprint.LONGS) {
+                            cache.put(fingerprints[i], fingerprints[i + 1], newTail - 1);
+                        }
                     });
         }
 
@@ -632,16 +831,28 @@ public class SequencerServer extends AbstractServer {
         // return the token response with the global tail and the streams backpointers
         Token token = new Token(sequencerEpoch, globalLogTail);
         globalLogTail = newTail;
-        r.sendResponse(ctx, msg, CorfuMsgType.TOKEN_RES.payloadMsg(
-                new TokenResponse(token, backPointerMap.build())));
+        sendTokenResponse(ctx, msg, new TokenResponse(token, backPointerMap.build()), r);
+
+        // respond to the streams wait requests held for the allocated streams
+        if (!streamsWaits.isEmpty()) {
+            for (UUID id : req.getStreams()) {
+                Set<StreamsWait> waits = streamsWaits.get(id);
+                if (waits != null) {
+                    new ArrayList<>(waits).forEach(this::completeStreamsWait);
+                }
+            }
+        }
     }
 
     /**
      * This method handles the request of streams addresses.
      *
-     * The request of address spaces can be of two types:
+     * The request of address spaces can be of three types:
      *      - For specific streams (and specific ranges for each stream).
      *      - For all streams (complete range).
+     *      - For specific streams, once they have an address in range. If none of them has,
+     *        the request is held until one of them is allocated an address, or until
+     *        {@link SequencerServer#STREAMS_WAIT_TIMEOUT_MS} elapses.
      *
      * The response contains the requested streams address maps and the global log tail.
      */
@@ -653,28 +864,98 @@ public class SequencerServer extends AbstractServer {
 
         switch (req.getReqType()) {
             case StreamsAddressRequest.STREAMS:
-                streamsAddressMap = getStreamsAddresses(req.getStreamsRanges());
+                streamsAddressMap = getStreamsAddresses(req.getStreamsRanges(), true);
+                break;
+
+            case StreamsAddressRequest.STREAMS_WAIT:
+                // Waiting on streams that were never written to is expected, i.e. empty tables
+                streamsAddressMap = getStreamsAddresses(req.getStreamsRanges(), false);
+                if (!req.getStreamsRanges().isEmpty() && streamsAddressMap.values().stream()
+                        .allMatch(addressSpace -> addressSpace.getAddressMap().isEmpty())) {
+                    addStreamsWait(new StreamsWait(msg, ctx, r));
+                    return;
+                }
                 break;
 
             default:
-                // Retrieve address space for all streams
+                // Retrieve address space for all streams. Only the references to the address spaces are
+                // copied, so that the streams added while the response is sent don't disturb it. The address
+                // spaces themselves are copied chunk by chunk, on the sequencer thread, as the response is sent.
                 streamsAddressMap = new HashMap<>(this.streamsAddressMap);
-                break;
+                log.trace("handleStreamsAddressRequest: return address space for all streams");
+                r.sendChunkedResponse(ctx, msg, CorfuMsgType.STREAMS_ADDRESS_RESPONSE,
+                        new StreamsAddressResponse(getGlobalLogTail(), streamsAddressMap),
+                        task -> runOnSequencerThread(task, r));
+                return;
         }
 
         log.trace("handleStreamsAddressRequest: return address space for streams [{}]",
                 streamsAddressMap.keySet());
-        r.sendResponse(ctx, msg, CorfuMsgType.STREAMS_ADDRESS_RESPONSE.payloadMsg(
-                new StreamsAddressResponse(getGlobalLogTail(), streamsAddressMap)));
+        r.sendChunkedResponse(ctx, msg, CorfuMsgType.STREAMS_ADDRESS_RESPONSE,
+                new StreamsAddressResponse(getGlobalLogTail(), streamsAddressMap));
+    }
+
+    /**
+     * Hold a streams wait request until one of its streams is allocated an address, or until it times out.
+     *
+     * @param wait streams wait request.
+     */
+    private void addStreamsWait(StreamsWait wait) {
+        for (StreamAddressRange range : wait.msg.getPayload().getStreamsRanges()) {
+            streamsWaits.computeIfAbsent(range.getStreamID(), k -> new HashSet<>()).add(wait);
+        }
+
+        streamsWaitScheduler.schedule(() -> runOnSequencerThread(() -> completeStreamsWait(wait), wait.r),
+                STREAMS_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Respond to a held streams wait request with the address spaces of its streams, unless
+     * it was already responded to.
+     *
+     * @param wait streams wait request.
+     */
+    private void completeStreamsWait(StreamsWait wait) {
+        boolean pending = false;
+        for (StreamAddressRange range : wait.msg.getPayload().getStreamsRanges()) {
+            Set<StreamsWait> waits = streamsWaits.get(range.getStreamID());
+            if (waits != null && waits.remove(wait)) {
+                pending = true;
+                if (waits.isEmpty()) {
+                    streamsWaits.remove(range.getStreamID());
+                }
+            }
+        }
+
+        if (pending) {
+            Map<UUID, StreamAddressSpace> streamsAddressMap =
+                    getStreamsAddresses(wait.msg.getPayload().getStreamsRanges(), false);
+            log.trace("completeStreamsWait: return address space for streams [{}]",
+                    streamsAddressMap.keySet());
+            wait.r.sendChunkedResponse(wait.ctx, wait.msg, CorfuMsgType.STREAMS_ADDRESS_RESPONSE,
+                    new StreamsAddressResponse(getGlobalLogTail(), streamsAddressMap));
+        }
+    }
+
+    /**
+     * A streams wait request held by the sequencer, along with the channel to respond on.
+     */
+    @AllArgsConstructor
+    private static class StreamsWait {
+        private final CorfuPayloadMsg<StreamsAddressRequest> msg;
+        private final ChannelHandlerContext ctx;
+        private final IServerRouter r;
     }
 
     /**
      * Return the address space for each stream in the requested ranges.
      *
      * @param addressRanges list of requested a stream and ranges.
+     * @param warnMissing   whether to warn about requested streams that have no address space.
      * @return map of stream to address space.
      */
-    private Map<UUID, StreamAddressSpace> getStreamsAddresses(List<StreamAddressRange> addressRanges) {
+    private Map<UUID, StreamAddressSpace> getStreamsAddresses(List<StreamAddressRange> addressRanges,
+                                                              boolean warnMissing) {
         Map<UUID, StreamAddressSpace> requestedAddressSpaces = new HashMap<>();
         Roaring64NavigableMap addressMap;
 
@@ -685,9 +966,12 @@ public class SequencerServer extends AbstractServer {
                 addressMap = streamsAddressMap.get(streamId).getAddressesInRange(streamAddressRange);
                 requestedAddressSpaces.put(streamId,
                         new StreamAddressSpace(streamsAddressMap.get(streamId).getTrimMark(), addressMap));
-            } else {
+            } else if (warnMissing) {
                 log.warn("handleStreamsAddressRequest: address space map is not present for stream {}. " +
                         "Verify this is a valid stream.", streamId);
+            } else {
+                log.trace("handleStreamsAddressRequest: address space map is not present for stream {}",
+                        streamId);
             }
         }
 
@@ -700,7 +984,7 @@ public class SequencerServer extends AbstractServer {
     @Builder
     @Getter
     public static class Config {
-        private static final long DEFAULT_CACHE_SIZE = 250_000L;
+        private static final long DEFAULT_CACHE_SIZE = 1_000_000L;
 
         @Default
         private final long cacheSize = DEFAULT_CACHE_SIZE;
@@ -1,40 +1,81 @@
 package org.corfudb.infrastructure;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.CacheWriter;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.RemovalCause;
-import com.google.common.annotations.VisibleForTesting;
-import lombok.EqualsAndHashCode;
+import com.google.common.base.Preconditions;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.ConflictFingerprint;
 import org.corfudb.runtime.view.Address;
 
-import javax.annotation.Nonnull;
+import java.util.Arrays;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Sequencer server cache.
  * Contains transaction conflict-resolution data structures.
  * <p>
  * The SequencerServer use its own thread/s. To guarantee correct tx conflict-resolution,
- * the {@link SequencerServerCache#conflictCache} must be updated
- * along with {@link SequencerServerCache#maxConflictWildcard} at the same time (atomically) to prevent race condition
- * when the conflict stream is already evicted from the cache but `maxConflictWildcard` is not updated yet,
- * which can cause situation when sequencer let the transaction go but the tx has to be cancelled.
+ * the conflict table must be updated along with {@link SequencerServerCache#maxConflictWildcard}
+ * at the same time (atomically) to prevent race condition when the conflict key is already evicted
+ * from the cache but `maxConflictWildcard` is not updated yet, which can cause situation when
+ * sequencer let the transaction go but the tx has to be cancelled.
  * <p>
- * SequencerServerCache achieves consistency by using single threaded cache. It's done by following code:
- * `.executor(Runnable::run)`
+ * SequencerServerCache achieves consistency by being updated by the sequencer thread only;
+ * evictions happen inside {@link SequencerServerCache#put}. Lookups may run on other threads
+ * as long as the sequencer thread waits for them.
+ * <p>
+ * A conflict key (stream id and conflict param) is stored as its 128-bit
+ * {@link ConflictFingerprint} in an open-addressing (linear probing) table of primitive longs, so neither puts nor lookups
+ * allocate. Two keys sharing a fingerprint share a single entry, which holds the latest
+ * update of both: a collision may cause a false abort, but never a missed conflict.
+ * <p>
+ * When the cache is full, the oldest updates are evicted in batches and the
+ * {@link SequencerServerCache#maxConflictWildcard} is raised to the latest evicted update.
  */
 @Slf4j
 public class SequencerServerCache {
+
+    /**
+     * Marks an empty slot of the table. Conflict keys are always mapped to a valid address.
+     */
+    private static final long EMPTY = Address.NON_ADDRESS;
+
+    /**
+     * The maximal load factor of the table.
+     */
+    private static final double LOAD_FACTOR = 0.75;
+
+    private static final int MAX_TABLE_SIZE = 1 << 30;
+
+    /**
+     * The number of addresses sampled to pick the eviction threshold.
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * A full cache evicts about 1/EVICTION_RATIO of its entries, which amortizes
+     * the cost of an eviction over many puts.
+     */
+    private static final int EVICTION_RATIO = 8;
+
     /**
      * TX conflict-resolution information:
      * <p>
-     * a cache of recent conflict keys and their latest global-log position.
+     * a table of recent conflict key fingerprints and their latest global-log position.
      */
-    private final Cache<ConflictTxStream, Long> conflictCache;
+    private final long[] fingerprintHighs;
+    private final long[] fingerprintLows;
+    private final long[] addresses;
+
+    private final int mask;
+
+    private final long[] samples;
+
+    /**
+     * The maximal number of conflict keys in the cache.
+     */
+    private final long cacheSize;
+
+    private int size = 0;
 
     /**
      * A "wildcard" representing the maximal update timestamp of
@@ -52,81 +93,53 @@ public class SequencerServerCache {
     @Getter
     private long maxConflictNewSequencer = Address.NOT_FOUND;
 
-    @VisibleForTesting
-    public SequencerServerCache(long cacheSize, CacheWriter<ConflictTxStream, Long> writer) {
-        this.conflictCache = Caffeine.newBuilder()
-                .maximumSize(cacheSize)
-                .writer(writer)
-                //Performing periodic maintenance using current thread (synchronously)
-                .executor(Runnable::run)
-                .recordStats()
-                .build();
-    }
-
     /**
      * The cache limited by size.
-     * For a synchronous cache we are using a same-thread executor (Runnable::run)
-     * https://github.com/ben-manes/caffeine/issues/90
      *
      * @param cacheSize cache size
      */
     public SequencerServerCache(long cacheSize) {
-        this.conflictCache = Caffeine.newBuilder()
-                .maximumSize(cacheSize)
-                //Performing periodic maintenance using current thread (synchronously)
-                .executor(Runnable::run)
-                .writer(getDefaultCacheWriter())
-                .recordStats()
-                .build();
-    }
+        Preconditions.checkArgument(cacheSize > 0 && cacheSize < MAX_TABLE_SIZE * LOAD_FACTOR,
+                "Invalid sequencer cache size: %s", cacheSize);
 
-    private CacheWriter<ConflictTxStream, Long> getDefaultCacheWriter() {
-        return new CacheWriter<ConflictTxStream, Long>() {
-            /**
-             * Don't do any additional actions during the write operation. Let caffeine write the record into the cache
-             * @param key a key
-             * @param value a value
-             */
-            @Override
-            public void write(@Nonnull ConflictTxStream key, @Nonnull Long value) {
-                //ignore
-            }
+        // The table always has an empty slot, which bounds the probe sequences
+        int tableSize = Integer.highestOneBit((int) Math.ceil(cacheSize / LOAD_FACTOR));
+        if (tableSize <= cacheSize / LOAD_FACTOR) {
+            tableSize <<= 1;
+        }
 
-            /**
-             * Eviction policy https://github.com/ben-manes/caffeine/wiki/Writer
-             * @param key  conflict stream
-             * @param globalAddress global address
-             * @param cause a removal cause
-             */
-            @Override
-            public void delete(@Nonnull ConflictTxStream key, Long globalAddress, @Nonnull RemovalCause cause) {
-                if (cause == RemovalCause.REPLACED) {
-                    String errMsg = String.format("Override error. Conflict key: %s, address: %s", key, globalAddress);
-                    throw new IllegalStateException(errMsg);
-                }
-
-                log.trace(
-                        "Updating maxConflictWildcard. Old = '{}', new ='{}' conflictParam = '{}'. Cause = '{}'",
-                        maxConflictWildcard, globalAddress, key, cause
-                );
-
-                if (globalAddress == null) {
-                    globalAddress = Address.NOT_FOUND;
-                }
-                maxConflictWildcard = Math.max(globalAddress, maxConflictWildcard);
-            }
-        };
+        this.cacheSize = cacheSize;
+        this.mask = tableSize - 1;
+        this.fingerprintHighs = new long[tableSize];
+        this.fingerprintLows = new long[tableSize];
+        this.addresses = new long[tableSize];
+        this.samples = new long[Math.min(SAMPLE_SIZE, tableSize)];
+        Arrays.fill(addresses, EMPTY);
     }
 
     /**
-     * Returns the value associated with the {@code key} in this cache,
-     * or {@code null} if there is no cached value for the {@code key}.
+     * Returns the address associated with the conflict key in this cache,
+     * or {@link Address#NON_ADDRESS} if there is no cached value for the key.
      *
-     * @param conflictKey conflict stream
+     * @param streamId      stream id
+     * @param conflictParam conflict param
      * @return global address
      */
-    public Long getIfPresent(ConflictTxStream conflictKey) {
-        return conflictCache.getIfPresent(conflictKey);
+    public long getIfPresent(UUID streamId, byte[] conflictParam) {
+        return getIfPresent(ConflictFingerprint.high(streamId, conflictParam),
+                ConflictFingerprint.low(streamId, conflictParam));
+    }
+
+    /**
+     * Returns the address associated with the conflict key fingerprint in this cache,
+     * or {@link Address#NON_ADDRESS} if there is no cached value for the key.
+     *
+     * @param high high half of the fingerprint
+     * @param low  low half of the fingerprint
+     * @return global address
+     */
+    public long getIfPresent(long high, long low) {
+        return addresses[findSlot(high, low)];
     }
 
     /**
@@ -136,19 +149,8 @@ public class SequencerServerCache {
      */
     public void invalidateUpTo(long trimMark) {
         log.debug("Invalidate sequencer cache. Trim mark: {}", trimMark);
-
-        AtomicLong entries = new AtomicLong();
-
-        conflictCache.asMap().forEach((key, txVersion) -> {
-            if (txVersion == null || txVersion >= trimMark) {
-                return;
-            }
-
-            conflictCache.invalidate(key);
-            entries.incrementAndGet();
-        });
-
-        log.info("Invalidated entries: {}", entries.get());
+        int entries = removeUpTo(trimMark - 1);
+        log.info("Invalidated entries: {}", entries);
     }
 
     /**
@@ -157,17 +159,42 @@ public class SequencerServerCache {
      * @return cache size
      */
     public long size() {
-        return conflictCache.estimatedSize();
+        return size;
     }
 
     /**
-     * Put a value in the cache
+     * Put a value in the cache. If the cache is full, the oldest updates are evicted first.
      *
-     * @param conflictStream conflict stream
-     * @param newTail        global tail
+     * @param streamId      stream id
+     * @param conflictParam conflict param
+     * @param newTail       global tail
      */
-    public void put(ConflictTxStream conflictStream, long newTail) {
-        conflictCache.put(conflictStream, newTail);
+    public void put(UUID streamId, byte[] conflictParam, long newTail) {
+        put(ConflictFingerprint.high(streamId, conflictParam),
+                ConflictFingerprint.low(streamId, conflictParam), newTail);
+    }
+
+    /**
+     * Put a value in the cache. If the cache is full, the oldest updates are evicted first.
+     *
+     * @param high    high half of the conflict key fingerprint
+     * @param low     low half of the conflict key fingerprint
+     * @param newTail global tail
+     */
+    public void put(long high, long low, long newTail) {
+        int slot = findSlot(high, low);
+        if (addresses[slot] == EMPTY) {
+            if (size == cacheSize) {
+                evict();
+                slot = findSlot(high, low);
+            }
+
+            fingerprintHighs[slot] = high;
+            fingerprintLows[slot] = low;
+            size++;
+        }
+
+        addresses[slot] = newTail;
     }
 
     /**
@@ -175,7 +202,7 @@ public class SequencerServerCache {
      */
     public void invalidateAll() {
         log.info("Invalidate sequencer server cache");
-        conflictCache.invalidateAll();
+        removeUpTo(Long.MAX_VALUE);
     }
 
     /**
@@ -190,21 +217,101 @@ public class SequencerServerCache {
     }
 
     /**
-     * Contains the conflict hash code for a stream ID and conflict param.
+     * Find the slot of a fingerprint, or the empty slot where it should be inserted.
+     */
+    private int findSlot(long high, long low) {
+        int slot = (int) high & mask;
+        while (addresses[slot] != EMPTY
+                && (fingerprintHighs[slot] != high || fingerprintLows[slot] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Evict the oldest updates from a full cache. The eviction threshold is picked
+     * from a sample of the cached addresses, and it is one of them, so at least one
+     * entry is evicted.
      */
-    @EqualsAndHashCode
-    public static class ConflictTxStream {
-        private final UUID streamId;
-        private final byte[] conflictParam;
+    private void evict() {
+        int stride = addresses.length / samples.length;
+        int numSamples = 0;
+        for (int slot = 0; slot < addresses.length && numSamples < samples.length; slot += stride) {
+            if (addresses[slot] != EMPTY) {
+                samples[numSamples++] = addresses[slot];
+            }
+        }
 
-        public ConflictTxStream(UUID streamId, byte[] conflictParam) {
-            this.streamId = streamId;
-            this.conflictParam = conflictParam;
+        for (int slot = 0; numSamples == 0; slot++) {
+            if (addresses[slot] != EMPTY) {
+                samples[numSamples++] = addresses[slot];
+            }
         }
 
-        @Override
-        public String toString() {
-            return streamId.toString() + conflictParam;
+        Arrays.sort(samples, 0, numSamples);
+        long threshold = samples[numSamples / EVICTION_RATIO];
+        int entries = removeUpTo(threshold);
+
+        log.trace("evict: evicted {} entries up to {}, maxConflictWildcard = {}",
+                entries, threshold, maxConflictWildcard);
+    }
+
+    /**
+     * Remove all the entries updated up to an address (inclusive) and raise the
+     * maxConflictWildcard to the latest removed update.
+     *
+     * @param maxAddress the latest update to remove
+     * @return the number of removed entries
+     */
+    private int removeUpTo(long maxAddress) {
+        int removed = 0;
+        for (int slot = 0; slot < addresses.length; slot++) {
+            long address = addresses[slot];
+            if (address != EMPTY && address <= maxAddress) {
+                maxConflictWildcard = Math.max(address, maxConflictWildcard);
+                addresses[slot] = EMPTY;
+                removed++;
+            }
+        }
+
+        if (removed > 0) {
+            size -= removed;
+            rehash();
+        }
+
+        return removed;
+    }
+
+    /**
+     * Re-insert the remaining entries after a removal, so that no entry is separated
+     * from its home slot by an empty slot. Re-insertion starts after an empty slot,
+     * hence every run of entries is processed from its beginning.
+     */
+    private void rehash() {
+        if (size == 0) {
+            return;
+        }
+
+        int start = 0;
+        while (addresses[start] != EMPTY) {
+            start++;
+        }
+
+        for (int i = 1; i < addresses.length; i++) {
+            int slot = (start + i) & mask;
+            long address = addresses[slot];
+            if (address == EMPTY) {
+                continue;
+            }
+
+            long high = fingerprintHighs[slot];
+            long low = fingerprintLows[slot];
+            addresses[slot] = EMPTY;
+
+            int target = findSlot(high, low);
+            fingerprintHighs[target] = high;
+            fingerprintLows[target] = low;
+            addresses[target] = address;
         }
     }
 }
@@ -0,0 +1,172 @@
+package org.corfudb.infrastructure;
+
+import com.codahale.metrics.Meter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.infrastructure.log.StreamLog;
+import org.corfudb.util.CorfuComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detects clients that read the log sequentially, or with a constant stride (e.g. stream
+ * rebuilds and checkpoint readers), and prefetches the next addresses they will read into
+ * the {@link LogUnitServerCache} in the background. The addresses of a prefetch are read
+ * from the {@link StreamLog} as a batch, i.e. with one read per segment.
+ * <p>
+ * Prefetching is throttled when the cache evicts more prefetched entries than are read,
+ * and when the prefetch queue is full.
+ */
+@Slf4j
+class SequentialReadPrefetcher {
+
+    /**
+     * The number of consecutive reads with the same stride that make an access sequential.
+     */
+    private static final int SEQUENTIAL_READS_THRESHOLD = 3;
+
+    /**
+     * The largest stride between two reads that is considered as a sequential access.
+     */
+    private static final long MAX_STRIDE = 16;
+
+    /**
+     * The number of addresses prefetched ahead of the reads of a client.
+     */
+    private static final int PREFETCH_WINDOW = 128;
+
+    private static final int MAX_PENDING_PREFETCHES = 32;
+
+    private static final int MAX_TRACKED_CLIENTS = 1024;
+
+    private final LogUnitServerCache cache;
+
+    private final StreamLog streamLog;
+
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    /**
+     * The access pattern of each client that recently read from this log unit.
+     */
+    private final Cache<UUID, AccessPattern> accessPatterns = Caffeine.newBuilder()
+            .maximumSize(MAX_TRACKED_CLIENTS)
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build();
+
+    private final Meter prefetchThrottled = ServerContext.getMetrics()
+            .meter(CorfuComponent.INFRA_LOG_UNIT + "cache.prefetch-throttled");
+
+    SequentialReadPrefetcher(LogUnitServerCache cache, StreamLog streamLog) {
+        this.cache = cache;
+        this.streamLog = streamLog;
+        this.prefetchExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_PREFETCHES),
+                new ServerThreadFactory("LogUnit-prefetch-", new ServerThreadFactory.ExceptionHandler()));
+    }
+
+    /**
+     * Records a read of a client, and prefetches the addresses that follow it
+     * if the client reads sequentially.
+     *
+     * @param clientId the client that reads
+     * @param address  the address it reads
+     */
+    void onRead(UUID clientId, long address) {
+        if (clientId == null) {
+            return;
+        }
+
+        List<Long> window = accessPatterns.get(clientId, id -> new AccessPattern()).next(address);
+        if (window.isEmpty()) {
+            return;
+        }
+
+        if (cache.isPrefetchWasteful()) {
+            prefetchThrottled.mark();
+            return;
+        }
+
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    cache.prefetch(window);
+                } catch (RuntimeException e) {
+                    log.warn("onRead: failed to prefetch [{}-{}]",
+                            window.get(0), window.get(window.size() - 1), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            prefetchThrottled.mark();
+        }
+    }
+
+    void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * The recent reads of a client.
+     */
+    private class AccessPattern {
+        private long lastAddress = -1;
+        private long stride = 0;
+        private int sequentialReads = 0;
+
+        /**
+         * The last address that was prefetched for this client.
+         */
+        private long prefetchedUpTo = -1;
+
+        /**
+         * Records a read, and returns the addresses to prefetch, if any.
+         *
+         * @param address the address that is read
+         * @return the addresses to prefetch
+         */
+        synchronized List<Long> next(long address) {
+            long delta = address - lastAddress;
+            lastAddress = address;
+
+            if (delta <= 0 || delta > MAX_STRIDE) {
+                stride = 0;
+                sequentialReads = 0;
+                return new ArrayList<>();
+            }
+
+            if (delta == stride) {
+                sequentialReads++;
+            } else {
+                stride = delta;
+                sequentialReads = 1;
+                prefetchedUpTo = address;
+            }
+
+            // Prefetch the next window once the reads are half-way through the current one
+            long windowEnd = address + stride * PREFETCH_WINDOW;
+            if (sequentialReads < SEQUENTIAL_READS_THRESHOLD
+                    || prefetchedUpTo - address > stride * PREFETCH_WINDOW / 2) {
+                return new ArrayList<>();
+            }
+
+            long windowStart = Math.max(address, prefetchedUpTo) + stride;
+            windowEnd = Math.min(windowEnd, streamLog.getLogTail());
+
+            List<Long> window = new ArrayList<>();
+            for (long next = windowStart; next <= windowEnd; next += stride) {
+                window.add(next);
+            }
+
+            if (!window.isEmpty()) {
+                prefetchedUpTo = window.get(window.size() - 1);
+            }
+            return window;
+        }
+    }
+}
@@ -284,6 +284,10 @@ public class ServerContext implements AutoCloseable {
                 .usernameFile((String) serverConfig.get("--sasl-plain-text-username-file"))
                 .passwordFile((String) serverConfig.get("--sasl-plain-text-password-file"))
                 .bulkReadSize(Integer.parseInt((String) serverConfig.get("--batch-size")))
+                .stateTransferParallelism(Integer.parseInt(
+                        (String) serverConfig.get("--state-transfer-parallelism")))
+                .stateTransferBandwidth(Long.parseLong(
+                        (String) serverConfig.get("--state-transfer-bandwidth")))
                 .build();
     }
 
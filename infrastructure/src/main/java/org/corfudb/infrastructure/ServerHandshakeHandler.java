@@ -37,6 +37,8 @@ public class ServerHandshakeHandler extends ChannelDuplexHandler {
     private final int timeoutInSeconds;
     private final Queue<CorfuMsg> messages = new LinkedList<>();
     private static final  AttributeKey<UUID> clientIdAttrKey = AttributeKey.valueOf("ClientID");
+    // Whether the client of the channel accepts responses sent in chunks
+    static final AttributeKey<Boolean> chunkedResponsesAttrKey = AttributeKey.valueOf("ChunkedResponses");
     private static final String READ_TIMEOUT_HANDLER = "readTimeoutHandler";
 
     /**
@@ -117,6 +119,7 @@ public class ServerHandshakeHandler extends ChannelDuplexHandler {
 
         // Store clientID as a channel attribute.
         ctx.channel().attr(clientIdAttrKey).set(clientId);
+        ctx.channel().attr(chunkedResponsesAttrKey).set(handshake.getPayload().isChunkedResponses());
         log.info("channelRead: Handshake validated by Server.");
         log.debug("channelRead: Sending handshake response: Node Id: {} Corfu Version: {}",
                 this.nodeId, this.corfuVersion);
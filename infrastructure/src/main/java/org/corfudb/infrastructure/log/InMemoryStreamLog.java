@@ -29,6 +29,7 @@ public class InMemoryStreamLog implements StreamLog, StreamLogWithRankedAddressS
     private final Set<Long> trimmed;
     private volatile long startingAddress;
     private volatile LogMetadata logMetadata;
+    private volatile boolean committedTailTracked = true;
 
     /**
      * Returns an object that stores a stream log in memory.
@@ -95,6 +96,17 @@ public class InMemoryStreamLog implements StreamLog, StreamLogWithRankedAddressS
         return logMetadata.getGlobalTail();
     }
 
+    @Override
+    public synchronized long getCommittedTail() {
+        return logMetadata.getCommittedTail();
+    }
+
+    @Override
+    public synchronized void setCommittedTailTracked(boolean tracked) {
+        committedTailTracked = tracked;
+        logMetadata.setCommittedTailTracked(tracked);
+    }
+
     @Override
     public synchronized TailsResponse getAllTails() {
         Map<UUID, Long> tails = new HashMap<>(logMetadata.getStreamTails().size());
@@ -189,6 +201,7 @@ public class InMemoryStreamLog implements StreamLog, StreamLogWithRankedAddressS
     public void reset() {
         startingAddress = 0;
         logMetadata = new LogMetadata();
+        logMetadata.setCommittedTailTracked(committedTailTracked);
         // Clear the trimmed addresses record.
         trimmed.clear();
         // Clearing all data from the cache.
@@ -1,5 +1,6 @@
 package org.corfudb.infrastructure.log;
 
+import com.google.common.annotations.VisibleForTesting;
 import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -28,9 +29,35 @@ import java.util.UUID;
 @Slf4j
 public class LogMetadata {
 
+    /**
+     * The maximal number of addresses written above the committed tail. A gap that is never
+     * filled would grow the set without bound, so the tracking is disabled beyond it.
+     */
+    @VisibleForTesting
+    static final long MAX_ADDRESSES_ABOVE_COMMITTED_TAIL = 1L << 20;
+
     @Getter
     private volatile long globalTail;
 
+    /**
+     * The highest address such that every address up to it has been written (or trimmed).
+     * On the last log unit of a chain, every address up to it is written on the whole chain.
+     */
+    @Getter
+    private volatile long committedTail;
+
+    /**
+     * The addresses written above the committed tail, which wait for a gap to be filled.
+     */
+    private final Roaring64NavigableMap addressesAboveCommittedTail;
+
+    /**
+     * Whether the committed tail follows the written addresses. When it doesn't, the committed
+     * tail stays where it is (it only moves with prefix trims), which is always safe for readers.
+     */
+    @Getter
+    private volatile boolean committedTailTracked = true;
+
     @Getter
     private final Map<UUID, StreamAddressSpace> streamsAddressSpaceMap;
 
@@ -39,6 +66,8 @@ public class LogMetadata {
 
     public LogMetadata() {
         this.globalTail = Address.NON_ADDRESS;
+        this.committedTail = Address.NON_ADDRESS;
+        this.addressesAboveCommittedTail = new Roaring64NavigableMap();
         this.streamTails = new HashMap<>();
         this.streamsAddressSpaceMap = new HashMap<>();
     }
@@ -57,6 +86,7 @@ public class LogMetadata {
         long entryAddress = entry.getGlobalAddress();
         // Update log tail
         updateGlobalTail(entryAddress);
+        updateCommittedTail(entryAddress);
         // For every stream present in entry update stream tail
         for (UUID streamId : entry.getStreams()) {
             updateStreamSpace(streamId, entryAddress);
@@ -152,8 +182,70 @@ public class LogMetadata {
         globalTail = Math.max(globalTail, newTail);
     }
 
+    /**
+     * Enable or disable the tracking of the committed tail. This can be called from any thread,
+     * the addresses waiting above the committed tail are released by the next update.
+     *
+     * @param tracked true if the committed tail should follow the written addresses.
+     */
+    public void setCommittedTailTracked(boolean tracked) {
+        if (committedTailTracked != tracked) {
+            log.info("setCommittedTailTracked: {} committed tail tracking at {}",
+                    tracked ? "enable" : "disable", committedTail);
+        }
+        committedTailTracked = tracked;
+    }
+
+    /**
+     * Move the committed tail past a newly written address, if it fills the gap above the committed tail.
+     *
+     * @param address the address written.
+     */
+    private void updateCommittedTail(long address) {
+        if (!committedTailTracked) {
+            if (addressesAboveCommittedTail.getLongCardinality() > 0) {
+                addressesAboveCommittedTail.clear();
+            }
+            return;
+        }
+
+        if (address <= committedTail) {
+            return;
+        }
+
+        if (address > committedTail + 1) {
+            addressesAboveCommittedTail.addLong(address);
+            if (addressesAboveCommittedTail.getLongCardinality() > MAX_ADDRESSES_ABOVE_COMMITTED_TAIL) {
+                log.warn("updateCommittedTail: {} addresses written above committed tail {}, "
+                                + "the gap is never filled", MAX_ADDRESSES_ABOVE_COMMITTED_TAIL, committedTail);
+                setCommittedTailTracked(false);
+                addressesAboveCommittedTail.clear();
+            }
+            return;
+        }
+
+        advanceCommittedTail(address);
+    }
+
+    private void advanceCommittedTail(long newCommittedTail) {
+        long tail = newCommittedTail;
+        while (addressesAboveCommittedTail.contains(tail + 1)) {
+            tail++;
+            addressesAboveCommittedTail.removeLong(tail);
+        }
+        committedTail = tail;
+    }
+
     public void prefixTrim(long address) {
         log.info("prefixTrim: trim stream address maps up to address {}", address);
+        // Trimmed addresses are never read again, so they count as written
+        if (address > committedTail) {
+            Roaring64NavigableMap trimmed = new Roaring64NavigableMap();
+            trimmed.addRange(committedTail + 1, address + 1);
+            addressesAboveCommittedTail.andNot(trimmed);
+            advanceCommittedTail(address);
+        }
+
         for (Map.Entry<UUID, StreamAddressSpace> streamAddressMap : streamsAddressSpaceMap.entrySet()) {
             log.trace("prefixTrim: trim address space for stream {} up to trim mark {}",
                     streamAddressMap.getKey(), address);
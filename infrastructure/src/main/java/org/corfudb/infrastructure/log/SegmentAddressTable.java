@@ -0,0 +1,197 @@
+package org.corfudb.infrastructure.log;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Tracks the known addresses of a segment and the metadata of their records. Addresses
+ * within a segment are dense, so the metadata is kept in parallel primitive arrays that
+ * are indexed by the distance of an address from the first address of the segment.
+ *
+ * <p>Reads are lock-free. A new address is published by writing its offset last, while
+ * the metadata of an address that gets overwritten (i.e. by a ranked write) is guarded
+ * by a version counter, so readers never observe the metadata of two different records.
+ */
+class SegmentAddressTable {
+
+    private static final long NO_OFFSET = -1L;
+
+    // Number of times a reader retries right away when it races with an overwrite,
+    // before it yields, and then parks, between retries
+    private static final int SPIN_RETRIES = 64;
+
+    private static final int YIELD_RETRIES = 128;
+
+    private static final long PARK_NANOS = 1_000L;
+
+    private final long firstAddress;
+
+    private final AtomicLongArray offsets;
+
+    private final AtomicIntegerArray lengths;
+
+    private final AtomicIntegerArray checksums;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    // Odd while the metadata of a known address is being overwritten
+    private volatile long version = 0;
+
+    /**
+     * Returns an empty address table for a segment.
+     *
+     * @param firstAddress the first address of the segment
+     * @param capacity     the number of addresses in the segment
+     */
+    SegmentAddressTable(long firstAddress, int capacity) {
+        this.firstAddress = firstAddress;
+        this.offsets = new AtomicLongArray(capacity);
+        this.lengths = new AtomicIntegerArray(capacity);
+        this.checksums = new AtomicIntegerArray(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            offsets.lazySet(i, NO_OFFSET);
+        }
+    }
+
+    private int indexOf(long address) {
+        long index = address - firstAddress;
+        if (index < 0 || index >= offsets.length()) {
+            throw new IllegalArgumentException("Address " + address
+                    + " doesn't belong to the segment starting at " + firstAddress);
+        }
+        return (int) index;
+    }
+
+    /**
+     * Checks if an address is known.
+     *
+     * @param address the address to check
+     * @return true if a record has been written for the address
+     */
+    boolean contains(long address) {
+        return offsets.get(indexOf(address)) != NO_OFFSET;
+    }
+
+    /**
+     * Checks if any address in a range is known.
+     *
+     * @param start first address of the range (inclusive)
+     * @param end   last address of the range (inclusive)
+     * @return true if a record has been written for any address in the range
+     */
+    boolean containsAny(long start, long end) {
+        for (int index = indexOf(start); index <= indexOf(end); index++) {
+            if (offsets.get(index) != NO_OFFSET) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the metadata of the record written for an address.
+     *
+     * @param address the address to look up
+     * @return the record metadata, or null if the address is unknown
+     */
+    @Nullable
+    AddressMetaData get(long address) {
+        int index = indexOf(address);
+
+        for (int retries = 0; ; retries++) {
+            long startVersion = version;
+            if ((startVersion & 1) == 0) {
+                long offset = offsets.get(index);
+                if (offset == NO_OFFSET) {
+                    return null;
+                }
+
+                AddressMetaData metaData = new AddressMetaData(checksums.get(index),
+                        lengths.get(index), offset);
+                if (version == startVersion) {
+                    return metaData;
+                }
+            }
+
+            backOff(retries);
+        }
+    }
+
+    /**
+     * Waits before a reader retries, after it raced with an overwrite. Overwrites are rare
+     * and short, so readers first retry right away, then yield, and only then park.
+     *
+     * @param retries the number of retries so far
+     */
+    private static void backOff(int retries) {
+        if (retries < SPIN_RETRIES) {
+            return;
+        }
+
+        if (retries < YIELD_RETRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+
+    /**
+     * Records the metadata of the record written for an address.
+     *
+     * @param address  the address of the record
+     * @param metaData the record metadata
+     */
+    synchronized void put(long address, AddressMetaData metaData) {
+        int index = indexOf(address);
+        boolean overwrite = offsets.get(index) != NO_OFFSET;
+
+        if (overwrite) {
+            version++;
+        }
+
+        lengths.set(index, metaData.length);
+        checksums.set(index, metaData.checksum);
+        offsets.set(index, metaData.offset);
+
+        if (overwrite) {
+            version++;
+        } else {
+            size.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the metadata of a set of records.
+     *
+     * @param records the record metadata by address
+     */
+    void putAll(Map<Long, AddressMetaData> records) {
+        records.forEach(this::put);
+    }
+
+    /**
+     * Performs an action for every known address, in ascending order.
+     *
+     * @param action the action to perform
+     */
+    void forEach(LongConsumer action) {
+        for (int index = 0; index < offsets.length(); index++) {
+            if (offsets.get(index) != NO_OFFSET) {
+                action.accept(firstAddress + index);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of known addresses.
+     */
+    int size() {
+        return size.get();
+    }
+}
@@ -1,11 +1,16 @@
 package org.corfudb.infrastructure.log;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
+import org.corfudb.format.Types.LogEntry;
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.Collections;
@@ -14,6 +19,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static org.corfudb.infrastructure.log.StreamLogFiles.RECORDS_PER_LOG_FILE;
+
 /**
  * The global log is partition into segments, each segment contains a range of consecutive
  * addresses. Accessing the address space for a particular segment happens through this class.
@@ -34,11 +41,64 @@ class SegmentHandle {
     @NonNull
     String fileName;
 
-    private final Map<Long, AddressMetaData> knownAddresses = new ConcurrentHashMap<>();
+    private final SegmentAddressTable knownAddresses;
     private final Set<Long> trimmedAddresses = Collections.newSetFromMap(new ConcurrentHashMap<>());
     private final Set<Long> pendingTrims = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    // Records of the known addresses without their payload, kept until the index of the
+    // segment is written (or, on startup, until the log metadata is loaded from them)
+    private final Map<Long, LogEntry> indexRecords = new ConcurrentHashMap<>();
+
     private volatile int refCount = 0;
 
+    // Whether the segment has been replaced, it is closed once it is no longer referenced
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean retired = false;
+
+    // Read-only mapping of the segment file, only created for reads on sealed segments
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile MappedByteBuffer readMapping;
+
+    /**
+     * Returns a read-only mapping of the segment file that covers at least minSize bytes.
+     * Sealed segments can still receive writes (i.e. hole fills), in that case the file is
+     * remapped to cover its current size.
+     *
+     * @param minSize the minimum number of bytes the mapping should cover
+     * @return the mapping, or null if the segment file is too large to be mapped
+     * @throws IOException IO exception
+     */
+    MappedByteBuffer getReadMapping(long minSize) throws IOException {
+        MappedByteBuffer mapping = readMapping;
+        if (mapping != null && mapping.capacity() >= minSize) {
+            return mapping;
+        }
+
+        synchronized (this) {
+            mapping = readMapping;
+            if (mapping == null || mapping.capacity() < minSize) {
+                long size = readChannel.size();
+                if (size > Integer.MAX_VALUE || size < minSize) {
+                    return null;
+                }
+                mapping = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                readMapping = mapping;
+            }
+            return mapping;
+        }
+    }
+
+    SegmentHandle(long segment, @NonNull FileChannel writeChannel,
+                  @NonNull FileChannel readChannel, @NonNull String fileName) {
+        this.segment = segment;
+        this.writeChannel = writeChannel;
+        this.readChannel = readChannel;
+        this.fileName = fileName;
+        this.knownAddresses = new SegmentAddressTable(segment * RECORDS_PER_LOG_FILE,
+                RECORDS_PER_LOG_FILE);
+    }
 
     public synchronized void retain() {
         refCount++;
@@ -49,9 +109,26 @@ class SegmentHandle {
             throw new IllegalStateException("refCount cannot be less than 0, segment " + segment);
         }
         refCount--;
+        if (retired && refCount == 0) {
+            close();
+        }
+    }
+
+    /**
+     * Retire a segment handle that has been replaced, i.e. removed from the open segments.
+     * It is closed once the readers that still reference it release it.
+     */
+    public synchronized void retire() {
+        retired = true;
+        if (refCount == 0) {
+            close();
+        }
     }
 
     public void close() {
+        // The mapping is released once it becomes unreachable, since readers
+        // of a closed segment might still hold a reference to it
+        readMapping = null;
         Set<FileChannel> channels = new HashSet<>(
                 Arrays.asList(writeChannel, readChannel)
         );
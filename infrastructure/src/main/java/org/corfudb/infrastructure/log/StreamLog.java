@@ -1,7 +1,9 @@
 package org.corfudb.infrastructure.log;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -9,6 +11,7 @@ import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.runtime.exceptions.OverwriteCause;
+import org.corfudb.runtime.exceptions.OverwriteException;
 
 /**
  * An interface definition that specifies an api to interact with a StreamLog.
@@ -34,6 +37,29 @@ public interface StreamLog {
      */
     void append(List<LogData> entries);
 
+    /**
+     * Append a group of consecutive entries that were received as individual writes.
+     * Unlike {@link #append(List)}, the group is written all-or-nothing: if any of the
+     * addresses is trimmed or has already been written, nothing is written and an
+     * OverwriteException is thrown, so that the caller can fall back to appending
+     * every entry individually and resolve the cause of each overwrite.
+     *
+     * @param entries consecutive entries, ordered by their addresses
+     */
+    default void appendGroup(List<LogData> entries) {
+        for (LogData entry : entries) {
+            if (entry.getGlobalAddress() < getTrimMark()) {
+                throw new OverwriteException(OverwriteCause.TRIM);
+            }
+
+            if (read(entry.getGlobalAddress()) != null) {
+                throw new OverwriteException(OverwriteCause.SAME_DATA);
+            }
+        }
+
+        append(entries);
+    }
+
     /**
      * Given an address, read the corresponding stream entry.
      * @param address  address to read from the log
@@ -41,6 +67,93 @@ public interface StreamLog {
      */
     LogData read(long address);
 
+    /**
+     * Read a batch of addresses. Implementations may group the addresses that belong
+     * to the same segment and read them with fewer, larger reads.
+     *
+     * @param addresses addresses to read from the log
+     * @return the entries that exist, keyed by their addresses
+     */
+    default Map<Long, LogData> readAll(List<Long> addresses) {
+        Map<Long, LogData> entries = new HashMap<>();
+        for (long address : addresses) {
+            LogData entry = read(address);
+            if (entry != null) {
+                entries.put(address, entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Returns whether this log stores its segments in files that can be copied as a whole
+     * between log units, i.e. whether the segment file operations below are supported.
+     *
+     * @return true if the segment files can be read, written and installed
+     */
+    default boolean supportsSegmentFiles() {
+        return false;
+    }
+
+    /**
+     * Returns the size of the file of a segment that can be copied as a whole to another
+     * log unit, i.e. a segment that is sealed, untrimmed and has all its addresses written.
+     * Always -1 if the log doesn't {@link #supportsSegmentFiles() support segment files}.
+     *
+     * @param segment the segment
+     * @return the size of the segment file in bytes, or -1 if the segment can't be copied
+     */
+    default long getCompleteSegmentSize(long segment) {
+        return -1L;
+    }
+
+    /**
+     * Read a range of bytes of the file of a complete segment.
+     *
+     * @param segment the segment
+     * @param offset  offset of the first byte to read
+     * @param length  the maximal number of bytes to read
+     * @return the bytes read, which are fewer than length at the end of the file
+     */
+    default byte[] readSegmentFile(long segment, long offset, int length) {
+        throw new UnsupportedOperationException("Segment files are not supported");
+    }
+
+    /**
+     * Write a range of bytes of a segment file that is being copied from another log unit.
+     * The copy isn't part of the log until it is installed, and the ranges have to be
+     * written in order, a copy restarts when its first range is written.
+     *
+     * @param segment the segment being copied
+     * @param offset  offset of the bytes in the segment file
+     * @param data    the bytes to write
+     */
+    default void writeSegmentFile(long segment, long offset, byte[] data) {
+        throw new UnsupportedOperationException("Segment files are not supported");
+    }
+
+    /**
+     * Verify the checksums and addresses of every record of a copied segment file. This reads
+     * the whole copy, but doesn't block writes, and has to precede {@link #installSegmentFile}.
+     *
+     * @param segment     the segment that has been copied
+     * @param segmentSize the expected size of the segment file
+     */
+    default void verifySegmentFile(long segment, long segmentSize) {
+        throw new UnsupportedOperationException("Segment files are not supported");
+    }
+
+    /**
+     * Atomically install a copied segment file that has been verified by
+     * {@link #verifySegmentFile} in place of the segment, which must not have any address written.
+     *
+     * @param segment     the segment that has been copied
+     * @param segmentSize the expected size of the segment file
+     */
+    default void installSegmentFile(long segment, long segmentSize) {
+        throw new UnsupportedOperationException("Segment files are not supported");
+    }
+
     /**
      * Prefix trim the global log.
      * @param address address to trim the log up to
@@ -62,6 +175,21 @@ public interface StreamLog {
      */
     long getLogTail();
 
+    /**
+     * Get the committed tail, i.e. the highest address such that every address up to it
+     * has been written to (or trimmed from) this log.
+     */
+    long getCommittedTail();
+
+    /**
+     * Enable or disable the tracking of the committed tail. When it is disabled, the committed
+     * tail no longer follows the writes, e.g. because the log unit only holds the addresses of
+     * its own stripe and the gaps in between are never filled.
+     *
+     * @param tracked true if the committed tail should follow the written addresses.
+     */
+    void setCommittedTailTracked(boolean tracked);
+
     /**
      * Get global and all stream tails.
      */
@@ -1,11 +1,11 @@
 package org.corfudb.infrastructure.log;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Sets;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import io.netty.buffer.Unpooled;
 import lombok.extern.slf4j.Slf4j;
@@ -15,11 +15,12 @@ import org.corfudb.format.Types;
 import org.corfudb.format.Types.LogEntry;
 import org.corfudb.format.Types.LogHeader;
 import org.corfudb.format.Types.Metadata;
+import org.corfudb.format.Types.SegmentIndex;
 import org.corfudb.infrastructure.ResourceQuota;
 import org.corfudb.infrastructure.ServerContext;
+import org.corfudb.infrastructure.ServerThreadFactory;
 import org.corfudb.common.compression.Codec;
 import org.corfudb.protocols.logprotocol.CheckpointEntry;
-import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.IMetadata;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
@@ -36,6 +37,7 @@ import java.io.FileFilter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileStore;
@@ -45,10 +47,14 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -56,11 +62,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 import static org.corfudb.infrastructure.utils.Persistence.syncDirectory;
 
@@ -83,15 +94,36 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             .getSerializedSize();
     public static final int VERSION = 2;
     public static final int RECORDS_PER_LOG_FILE = 10000;
+
+    // The maximal size of a single read that serves multiple records of a segment
+    private static final int MAX_BATCH_READ_SIZE = 4 * 1024 * 1024;
+
+    // The maximal gap between two records of a segment that are served by a single read,
+    // reading through a smaller gap is cheaper than issuing another read
+    private static final int MAX_BATCH_READ_GAP = 64 * 1024;
+
+    private static final int READ_THREADS = Runtime.getRuntime().availableProcessors();
+
+    // Reads the segments of a batch read in parallel. It's shared by all the stream logs of the
+    // process, so that instances don't each hold a pool, and its threads exit when idle.
+    private static final ThreadPoolExecutor READ_EXECUTOR = newReadExecutor();
+
     private final Path logDir;
     private final boolean verify;
 
+    // Serve reads on sealed segments (i.e. segments before the tail segment)
+    // from read-only memory mappings of the segment files
+    private final boolean mmapReads;
+
     private final StreamLogDataStore dataStore;
 
     private ConcurrentMap<String, SegmentHandle> writeChannels;
     private final Set<FileChannel> channelsToSync;
     private final MultiReadWriteLock segmentLocks = new MultiReadWriteLock();
 
+    // The indexes of the segment copies that have been verified, but not installed yet
+    private final Map<Long, SegmentIndex> verifiedCopies = new ConcurrentHashMap<>();
+
     //=================Log Metadata=================
     // TODO(Maithem) this should effectively be final, but it is used
     // by a reset API that clears the state of this class, on reset
@@ -99,6 +131,9 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     // the files of the old instance
     private LogMetadata logMetadata;
 
+    // Whether the committed tail follows the writes, kept across resets of the log metadata
+    private volatile boolean committedTailTracked = true;
+
     // Derived size in bytes that normal writes to the log unit are capped at.
     // This is derived as a percentage of the log's filesystem capacity.
     private final long logSizeLimit;
@@ -106,6 +141,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     // Resource quota to track the log size
     private ResourceQuota logSizeQuota;
 
+    private static ThreadPoolExecutor newReadExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(READ_THREADS, READ_THREADS,
+                1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                new ServerThreadFactory("LogUnit-read-", new ServerThreadFactory.ExceptionHandler()));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Returns a file-based stream log object.
      *
@@ -118,6 +161,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         writeChannels = new ConcurrentHashMap<>();
         channelsToSync = new HashSet<>();
         this.verify = !noVerify;
+        Map<String, Object> opts = serverContext.getServerConfig();
+        this.mmapReads = opts.containsKey("--mmap-reads") && (Boolean) opts.get("--mmap-reads");
         this.dataStore = StreamLogDataStore.builder().dataStore(serverContext.getDataStore()).build();
 
         String logSizeLimitPercentageParam = (String) serverContext.getServerConfig().get("--log-size-quota-percentage");
@@ -140,6 +185,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // Starting address initialization should happen before
         // initializing the tail segment (i.e. initializeMaxGlobalAddress)
         logMetadata = new LogMetadata();
+        logMetadata.setCommittedTailTracked(committedTailTracked);
+        if (getTrimMark() > 0) {
+            logMetadata.prefixTrim(getTrimMark() - 1);
+        }
         initializeLogMetadata();
 
         // This can happen if a prefix trim happens on
@@ -194,13 +243,17 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     /**
      * This method will scan the log (i.e. read all log segment files)
      * on this LU and create a map of stream offsets and the global
-     * addresses seen.
+     * addresses seen. The metadata of a segment is loaded from the
+     * records (without payload) that its handle keeps when it is opened,
+     * i.e. from the index of a sealed segment or from the scan of a
+     * segment without a valid index, so each record is parsed only once.
      *
      * consecutive segments from [startSegment, endSegment]
      */
     private void initializeLogMetadata() {
         long startingSegment = getStartingSegment();
         long tailSegment = dataStore.getTailSegment();
+        long scannedSegments = 0;
 
         long start = System.currentTimeMillis();
         // Scan the log in reverse, this will ease stream trim mark resolution (as we require the
@@ -208,17 +261,32 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // Note: if a checkpoint END record is not found (i.e., incomplete) this data is not considered
         // for stream trim mark computation.
         for (long currentSegment = tailSegment; currentSegment >= startingSegment; currentSegment--) {
-            SegmentHandle segment = getSegmentHandleForAddress(currentSegment * RECORDS_PER_LOG_FILE + 1);
+            SegmentHandle segment =
+                    getSegmentHandleForAddress(currentSegment * RECORDS_PER_LOG_FILE + 1, true);
             try {
-                for (Long address : segment.getKnownAddresses().keySet()) {
+                List<LogEntry> records = getIndexRecords(segment);
+                if (records != null) {
+                    for (LogEntry record : records) {
+                        // skip trimmed entries
+                        if (record.getGlobalAddress() < dataStore.getStartingAddress()) {
+                            continue;
+                        }
+                        logMetadata.update(getLogData(record), true);
+                    }
+                    continue;
+                }
+
+                scannedSegments++;
+                segment.getKnownAddresses().forEach(address -> {
                     // skip trimmed entries
                     if (address < dataStore.getStartingAddress()) {
-                        continue;
+                        return;
                     }
                     LogData logEntry = read(address);
                     logMetadata.update(logEntry, true);
-                }
+                });
             } finally {
+                segment.getIndexRecords().clear();
                 segment.close();
             }
         }
@@ -226,7 +294,8 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // Open segment will add entries to the writeChannels map, therefore we need to clear it
         writeChannels.clear();
         long end = System.currentTimeMillis();
-        log.info("initializeStreamTails: took {} ms to load {}, log start {}", end - start, logMetadata, getTrimMark());
+        log.info("initializeStreamTails: took {} ms to load {} ({} segments read), log start {}",
+                end - start, logMetadata, scannedSegments, getTrimMark());
     }
 
     /**
@@ -286,6 +355,17 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         return logMetadata.getGlobalTail();
     }
 
+    @Override
+    public long getCommittedTail() {
+        return logMetadata.getCommittedTail();
+    }
+
+    @Override
+    public void setCommittedTailTracked(boolean tracked) {
+        committedTailTracked = tracked;
+        logMetadata.setCommittedTailTracked(tracked);
+    }
+
     @Override
     public TailsResponse getTails(List<UUID> streams) {
         Map<UUID, Long> tails = new HashMap<>();
@@ -312,8 +392,35 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         // that case we will need to scan more than one segment
         logMetadata.updateGlobalTail(address);
         long segment = address / RECORDS_PER_LOG_FILE;
+        long prevTailSegment = dataStore.getTailSegment();
 
         dataStore.updateTailSegment(segment);
+
+        if (segment > prevTailSegment) {
+            sealSegment(prevTailSegment);
+        }
+    }
+
+    /**
+     * Persist the address space index of a segment that the tail has moved past.
+     * Failing to write the index is not fatal, the segment will be scanned instead.
+     *
+     * @param segment the segment that has been rolled over
+     */
+    private void sealSegment(long segment) {
+        SegmentHandle sh = writeChannels.get(getSegmentFilePath(segment));
+        if (sh == null) {
+            // Not open, its index is written when the segment is scanned
+            return;
+        }
+
+        try {
+            writeSegmentIndex(sh);
+        } catch (IOException e) {
+            log.warn("sealSegment: couldn't write index for segment {}", segment, e);
+        } finally {
+            sh.getIndexRecords().clear();
+        }
     }
 
     @Override
@@ -426,13 +533,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     private LogData getLogData(LogEntry entry) {
-        ByteBuffer entryData = ByteBuffer.wrap(entry.getData().toByteArray());
+        // Wrap the payload without copying it out of the parsed entry
+        ByteBuffer entryData = entry.getData().asReadOnlyByteBuffer();
 
         int ldCodecType = entry.hasCodecType() ? entry.getCodecType() : Codec.Type.NONE.getId();
 
         LogData logData = new LogData(org.corfudb.protocols.wireprotocol
                 .DataType.typeMap.get((byte) entry.getDataType().getNumber()),
-                Unpooled.wrappedBuffer(entryData.array()), ldCodecType);
+                Unpooled.wrappedBuffer(entryData), ldCodecType);
 
         logData.setBackpointerMap(getUUIDLongMap(entry.getBackpointersMap()));
         logData.setGlobalAddress(entry.getGlobalAddress());
@@ -642,11 +750,16 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     }
 
     /**
-     * Reads an address space from a log file into a SegmentHandle.
+     * Reads an address space from a log file into a SegmentHandle. The address space
+     * of a sealed segment is loaded from its index file when a valid one exists,
+     * otherwise the segment is scanned and the index of a sealed segment is rewritten.
+     * The records of a sealed segment are only kept by the handle if requested, the
+     * tail segment keeps them until its index is written.
      *
-     * @param segment Object containing state for the segment to be read
+     * @param segment          Object containing state for the segment to be read
+     * @param keepIndexRecords whether a sealed segment keeps the records of its index
      */
-    private void readAddressSpace(SegmentHandle segment) throws IOException {
+    private void readAddressSpace(SegmentHandle segment, boolean keepIndexRecords) throws IOException {
         FileChannel fileChannel = segment.getWriteChannel();
         fileChannel.position(0);
 
@@ -657,6 +770,36 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             return;
         }
 
+        if (readSegmentIndex(segment, keepIndexRecords)) {
+            // Writes are appended to the end of the segment file
+            fileChannel.position(fileChannel.size());
+            return;
+        }
+
+        scanAddressSpace(segment);
+
+        if (segment.getSegment() < dataStore.getTailSegment()) {
+            try {
+                writeSegmentIndex(segment);
+            } catch (IOException e) {
+                log.warn("readAddressSpace: couldn't write index for {}", segment.getFileName(), e);
+            }
+
+            if (!keepIndexRecords) {
+                segment.getIndexRecords().clear();
+            }
+        }
+    }
+
+    /**
+     * Scans every record of a log file into a SegmentHandle, the file
+     * channel has to be positioned after the log header.
+     *
+     * @param segment Object containing state for the segment to be read
+     */
+    private void scanAddressSpace(SegmentHandle segment) throws IOException {
+        FileChannel fileChannel = segment.getWriteChannel();
+
         while (fileChannel.size() - fileChannel.position() > 0) {
             long channelOffset = fileChannel.position();
             Metadata metadata = parseMetadata(fileChannel, segment.getFileName());
@@ -684,6 +827,171 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             );
 
             segment.getKnownAddresses().put(entry.getGlobalAddress(), addressMetadata);
+            segment.getIndexRecords().put(entry.getGlobalAddress(), getIndexRecord(entry));
+        }
+    }
+
+    /**
+     * Returns the record of a log entry that is kept in the index of its segment,
+     * i.e. the log entry without its payload.
+     *
+     * @param entry the log entry of a record
+     * @return the log entry without its payload
+     */
+    private static LogEntry getIndexRecord(LogEntry entry) {
+        return entry.toBuilder().clearData().build();
+    }
+
+    /**
+     * Returns the index records of every known address of a segment, in address order.
+     *
+     * @param segment the segment to get the index records of
+     * @return the index records, or null if the record of some address isn't kept
+     */
+    @Nullable
+    private List<LogEntry> getIndexRecords(SegmentHandle segment) {
+        List<LogEntry> records = new ArrayList<>(segment.getKnownAddresses().size());
+        segment.getKnownAddresses().forEach(address -> records.add(segment.getIndexRecords().get(address)));
+        return records.contains(null) ? null : records;
+    }
+
+    /**
+     * Write the index of a segment's address space. The segment file is forced
+     * first, since the index must only describe records that are persisted.
+     * The index is written to a temporary file that atomically replaces the
+     * previous index. The records of the index are the ones kept by the segment
+     * handle when they were written or scanned, the segment file isn't read.
+     *
+     * @param segment the segment to write the index for
+     * @throws IOException IO exception
+     */
+    private void writeSegmentIndex(SegmentHandle segment) throws IOException {
+        List<LogEntry> records = getIndexRecords(segment);
+        if (records == null) {
+            // The segment was opened from its index after some of its records were
+            // written, it is scanned (and its index rewritten) the next time it's opened
+            log.debug("writeSegmentIndex: records of {} aren't kept", segment.getFileName());
+            return;
+        }
+
+        FileChannel segmentChannel = segment.getWriteChannel();
+        segmentChannel.force(true);
+
+        SegmentIndex.Builder indexBuilder = SegmentIndex.newBuilder()
+                .setSegmentSize(segmentChannel.size());
+
+        List<Long> addresses = new ArrayList<>(segment.getKnownAddresses().size());
+        segment.getKnownAddresses().forEach(addresses::add);
+        for (long address : addresses) {
+            AddressMetaData metaData = segment.getKnownAddresses().get(address);
+            indexBuilder.addAddresses(address)
+                    .addOffsets(metaData.offset)
+                    .addLengths(metaData.length)
+                    .addChecksums(metaData.checksum);
+        }
+        indexBuilder.addAllRecords(records);
+        writeSegmentIndex(segment.getSegment(), indexBuilder.build());
+    }
+
+    /**
+     * Write the index file of a segment, which atomically replaces the previous index.
+     *
+     * @param segment the segment to write the index for
+     * @param index   the index of the segment
+     * @throws IOException IO exception
+     */
+    private void writeSegmentIndex(long segment, SegmentIndex index) throws IOException {
+        Path indexPath = Paths.get(getSegmentIndexPath(segment));
+        Path tmpPath = Paths.get(indexPath + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmpPath, EnumSet.of(StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            writeByteBuffer(channel, getByteBufferWithMetaData(index));
+            channel.force(true);
+        }
+
+        if (indexPath.toFile().exists()) {
+            logSizeQuota.release(Files.size(indexPath));
+        }
+
+        Files.move(tmpPath, indexPath, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(logDir.toString());
+        log.debug("writeSegmentIndex: wrote {} addresses for segment {}",
+                index.getAddressesCount(), segment);
+    }
+
+    /**
+     * Load the address space of a segment from its index file.
+     *
+     * @param segment     the segment to load the address space for
+     * @param keepRecords whether the segment keeps the records of the index
+     * @return true if the address space was loaded, false if the segment has to be scanned
+     */
+    private boolean readSegmentIndex(SegmentHandle segment, boolean keepRecords) {
+        SegmentIndex index = loadSegmentIndex(segment);
+        if (index == null) {
+            return false;
+        }
+
+        for (int i = 0; i < index.getAddressesCount(); i++) {
+            AddressMetaData addressMetadata = new AddressMetaData(
+                    index.getChecksums(i),
+                    index.getLengths(i),
+                    index.getOffsets(i)
+            );
+            segment.getKnownAddresses().put(index.getAddresses(i), addressMetadata);
+            if (keepRecords) {
+                segment.getIndexRecords().put(index.getAddresses(i), index.getRecords(i));
+            }
+        }
+
+        log.debug("readSegmentIndex: loaded {} addresses for {}", index.getAddressesCount(),
+                segment.getFileName());
+        return true;
+    }
+
+    /**
+     * Read the index file of a segment. The index is rejected if it is corrupt,
+     * if the segment file has changed since it was written or if it was written
+     * before the index kept the records of the segment.
+     *
+     * @param segment the segment to read the index of
+     * @return the index, or null if the segment has no valid index
+     */
+    @Nullable
+    private SegmentIndex loadSegmentIndex(SegmentHandle segment) {
+        String indexPath = getSegmentIndexPath(segment.getSegment());
+        if (!new File(indexPath).exists()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(Paths.get(indexPath),
+                EnumSet.of(StandardOpenOption.READ))) {
+            Metadata metadata = parseMetadata(channel, indexPath);
+            ByteBuffer buffer = metadata == null ? null : getPayloadForMetadata(channel, metadata);
+
+            if (buffer == null || Checksum.getChecksum(buffer.array()) != metadata.getPayloadChecksum()) {
+                log.warn("loadSegmentIndex: ignoring partial or corrupt index {}", indexPath);
+                return null;
+            }
+
+            SegmentIndex index = SegmentIndex.parseFrom(buffer.array());
+            int numAddresses = index.getAddressesCount();
+
+            if (index.getSegmentSize() != segment.getWriteChannel().size()
+                    || index.getOffsetsCount() != numAddresses
+                    || index.getLengthsCount() != numAddresses
+                    || index.getChecksumsCount() != numAddresses
+                    || index.getRecordsCount() != numAddresses) {
+                log.info("loadSegmentIndex: ignoring stale index {}", indexPath);
+                return null;
+            }
+
+            return index;
+        } catch (IOException | DataCorruptionException e) {
+            log.warn("loadSegmentIndex: couldn't read index {}", indexPath, e);
+            return null;
         }
     }
 
@@ -695,17 +1003,39 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * @return The log unit entry at that address, or NULL if there was no entry.
      */
     private LogData readRecord(SegmentHandle segment, long address) throws IOException {
-        FileChannel fileChannel = segment.getReadChannel();
-
         AddressMetaData metaData = segment.getKnownAddresses().get(address);
         if (metaData == null) {
             return null;
         }
 
+        return getLogData(readLogEntry(segment, metaData));
+    }
+
+    /**
+     * Read and parse the log entry of a record in a file.
+     *
+     * @param segment  The file handle to use.
+     * @param metaData The metadata of the record.
+     * @return The log entry of the record.
+     */
+    private LogEntry readLogEntry(SegmentHandle segment, AddressMetaData metaData) throws IOException {
+        FileChannel fileChannel = segment.getReadChannel();
+
         try {
+            if (mmapReads && segment.getSegment() < dataStore.getTailSegment()) {
+                MappedByteBuffer mapping = segment.getReadMapping(metaData.offset + metaData.length);
+                if (mapping != null) {
+                    return parseMappedEntry(mapping, metaData);
+                }
+            }
+
             ByteBuffer entryBuf = ByteBuffer.allocate(metaData.length);
             fileChannel.read(entryBuf, metaData.offset);
-            return getLogData(LogEntry.parseFrom(entryBuf.array()));
+
+            // The buffer isn't reused, so the parsed entry can alias its bytes
+            CodedInputStream input = CodedInputStream.newInstance(entryBuf.array());
+            input.enableAliasing(true);
+            return LogEntry.parseFrom(input);
         } catch (InvalidProtocolBufferException e) {
             String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
                     fileChannel, segment.getFileName()
@@ -714,6 +1044,23 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    /**
+     * Parse a log entry directly from the memory mapped region of a segment file.
+     *
+     * @param mapping  read-only mapping of the segment file
+     * @param metaData metadata of the record to parse
+     * @return the parsed log entry
+     * @throws IOException IO exception
+     */
+    private LogEntry parseMappedEntry(MappedByteBuffer mapping, AddressMetaData metaData)
+            throws IOException {
+        // Every reader needs its own position and limit on the shared mapping
+        ByteBuffer record = mapping.duplicate();
+        record.position((int) metaData.offset);
+        record.limit((int) metaData.offset + metaData.length);
+        return LogEntry.parseFrom(CodedInputStream.newInstance(record));
+    }
+
     @Nullable
     private FileChannel getChannel(String filePath, boolean readOnly) throws IOException {
         if (readOnly) {
@@ -755,11 +1102,21 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
      * @return The FileChannel for that address.
      */
     SegmentHandle getSegmentHandleForAddress(long address) {
-        long segment = address / RECORDS_PER_LOG_FILE;
+        return getSegmentHandleForAddress(address, false);
+    }
 
-        String filePath = logDir + File.separator;
-        filePath += segment;
-        filePath += ".log";
+    /**
+     * Gets the file channel for a particular address, creating it
+     * if is not present in the map.
+     *
+     * @param address          The address to open.
+     * @param keepIndexRecords whether a segment that is opened keeps the records
+     *                         of its index, even if it is sealed
+     * @return The FileChannel for that address.
+     */
+    private SegmentHandle getSegmentHandleForAddress(long address, boolean keepIndexRecords) {
+        long segment = address / RECORDS_PER_LOG_FILE;
+        String filePath = getSegmentFilePath(segment);
 
         SegmentHandle handle = writeChannels.computeIfAbsent(filePath, a -> {
             FileChannel writeCh = null;
@@ -773,7 +1130,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 // The first time we open a file we should read to the end, to load the
                 // map of entries we already have.
                 // Once the segment address space is loaded, it should be ready to accept writes.
-                readAddressSpace(sh);
+                readAddressSpace(sh, keepIndexRecords);
                 return sh;
             } catch (IOException e) {
                 log.error("Error opening file {}", a, e);
@@ -787,6 +1144,18 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         return handle;
     }
 
+    private String getSegmentFilePath(long segment) {
+        return logDir + File.separator + segment + ".log";
+    }
+
+    private String getSegmentIndexPath(long segment) {
+        return logDir + File.separator + segment + ".index";
+    }
+
+    private String getSegmentCopyPath(long segment) {
+        return logDir + File.separator + segment + ".copy";
+    }
+
     private Map<String, Long> getStrLongMap(Map<UUID, Long> uuidLongMap) {
         Map<String, Long> stringLongMap = new HashMap<>();
 
@@ -901,9 +1270,11 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         int totalBytes = 0;
 
         List<Metadata> metadataList = new ArrayList<>();
+        List<LogEntry> logEntries = new ArrayList<>();
 
         for (LogData curr : entries) {
             LogEntry logEntry = getLogEntry(curr.getGlobalAddress(), curr);
+            logEntries.add(logEntry);
             Metadata metadata = getMetadata(logEntry);
             metadataList.add(metadata);
             ByteBuffer record = getByteBuffer(metadata, logEntry);
@@ -915,6 +1286,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         try (MultiReadWriteLock.AutoCloseableLock ignored =
                      segmentLocks.acquireWriteLock(segment.getSegment())) {
+            boolean keepIndexRecords = segment.getSegment() >= dataStore.getTailSegment();
             for (int ind = 0; ind < entryBuffs.size(); ind++) {
                 long channelOffset = segment.getWriteChannel().position()
                         + allRecordsBuf.position() + METADATA_SIZE;
@@ -923,6 +1295,10 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
                 recordsMap.put(entries.get(ind).getGlobalAddress(),
                         new AddressMetaData(metadata.getPayloadChecksum(),
                                 metadata.getLength(), channelOffset));
+                if (keepIndexRecords) {
+                    segment.getIndexRecords().put(entries.get(ind).getGlobalAddress(),
+                            getIndexRecord(logEntries.get(ind)));
+                }
             }
 
             allRecordsBuf.flip();
@@ -976,6 +1352,9 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
             channelOffset = segment.getWriteChannel().position() + METADATA_SIZE;
             writeByteBuffer(segment.getWriteChannel(), record);
             channelsToSync.add(segment.getWriteChannel());
+            if (segment.getSegment() >= dataStore.getTailSegment()) {
+                segment.getIndexRecords().put(address, getIndexRecord(logEntry));
+            }
             syncTailSegment(address);
             logMetadata.update(entry, false);
         }
@@ -1059,14 +1438,38 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
     public Set<Long> getKnownAddressesInRange(long rangeStart, long rangeEnd) {
 
         Set<Long> result = new HashSet<>();
-        for (long address = rangeStart; address <= rangeEnd; address++) {
-            if (getSegmentHandleForAddress(address).getKnownAddresses().containsKey(address)) {
-                result.add(address);
+        long address = rangeStart;
+        while (address <= rangeEnd) {
+            SegmentHandle segment = getSegmentHandleForAddress(address);
+            long segmentEnd = Math.min(rangeEnd, (segment.getSegment() + 1) * RECORDS_PER_LOG_FILE - 1);
+            try {
+                for (; address <= segmentEnd; address++) {
+                    if (segment.getKnownAddresses().contains(address)) {
+                        result.add(address);
+                    }
+                }
+            } finally {
+                segment.release();
             }
         }
         return result;
     }
 
+    /**
+     * Checks if any address of a range that falls into a segment is already known.
+     *
+     * @param segment segment handle
+     * @param start   first address of the range
+     * @param end     last address of the range
+     * @return true if the range overlaps with written entries of the segment
+     */
+    private boolean overlaps(SegmentHandle segment, long start, long end) {
+        long segmentStart = segment.getSegment() * RECORDS_PER_LOG_FILE;
+        long segmentEnd = segmentStart + RECORDS_PER_LOG_FILE - 1;
+        return segment.getKnownAddresses().containsAny(Math.max(start, segmentStart),
+                Math.min(end, segmentEnd));
+    }
+
     @Override
     public void append(List<LogData> range) {
         // Remove trimmed entries
@@ -1088,17 +1491,14 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         SegmentHandle firstSh = getSegmentHandleForAddress(first.getGlobalAddress());
         SegmentHandle lastSh = getSegmentHandleForAddress(last.getGlobalAddress());
 
-        // Extract all addresses associated with the provided write range.
-        Set<Long> pendingWrites = range.stream()
-                .map(ILogData::getGlobalAddress).collect(Collectors.toSet());
-
         // See if the provided range overlaps with any of the previously written entries.
-        Set<Long> segOneOverlap = Sets.intersection(pendingWrites,
-                firstSh.getKnownAddresses().keySet());
-        Set<Long> segTwoOverlap = Sets.intersection(pendingWrites,
-                lastSh.getKnownAddresses().keySet());
-        if (!segOneOverlap.isEmpty() || !segTwoOverlap.isEmpty()) {
-            log.error("Overlapping addresses detected: {}, {}", segOneOverlap, segTwoOverlap);
+        // Entries are consecutive, so this can be checked over the address range.
+        if (overlaps(firstSh, first.getGlobalAddress(), last.getGlobalAddress())
+                || overlaps(lastSh, first.getGlobalAddress(), last.getGlobalAddress())) {
+            firstSh.release();
+            lastSh.release();
+            log.error("Overlapping addresses detected in range [{}-{}]", first.getGlobalAddress(),
+                    last.getGlobalAddress());
             throw new OverwriteException(OverwriteCause.SAME_DATA);
         }
 
@@ -1106,25 +1506,70 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         List<LogData> segTwoEntries = new ArrayList<>();
 
         for (LogData curr : entries) {
-            if (getSegment(curr) == firstSh.getSegment() &&
-                    !firstSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+            if (getSegment(curr) == firstSh.getSegment()) {
                 segOneEntries.add(curr);
-            } else if (getSegment(curr) == lastSh.getSegment() &&
-                    !lastSh.getKnownAddresses().containsKey(curr.getGlobalAddress())) {
+            } else {
                 segTwoEntries.add(curr);
             }
         }
 
         try {
-            if (!segOneEntries.isEmpty()) {
-                Map<Long, AddressMetaData> firstSegAddresses = writeRecords(firstSh, segOneEntries);
-                firstSh.getKnownAddresses().putAll(firstSegAddresses);
-            }
+            writeSegmentEntries(firstSh, segOneEntries);
+            writeSegmentEntries(lastSh, segTwoEntries);
+        } catch (IOException e) {
+            log.error("Disk_write[{}-{}]: Exception", first.getGlobalAddress(),
+                    last.getGlobalAddress(), e);
+            throw new RuntimeException(e);
+        } finally {
+            firstSh.release();
+            lastSh.release();
+        }
+    }
+
+    @Override
+    public void appendGroup(List<LogData> entries) {
+        if (!verify(entries)) {
+            // Group overlaps more than two segments
+            throw new IllegalArgumentException("Write group too large: " + entries.size());
+        }
+
+        LogData first = entries.get(0);
+        LogData last = entries.get(entries.size() - 1);
+
+        // Addresses are consecutive, so checking the first one covers the whole group
+        if (isTrimmed(first.getGlobalAddress())) {
+            throw new OverwriteException(OverwriteCause.TRIM);
+        }
+
+        SegmentHandle firstSh = getSegmentHandleForAddress(first.getGlobalAddress());
+        SegmentHandle lastSh = getSegmentHandleForAddress(last.getGlobalAddress());
+
+        try {
+            List<LogData> segOneEntries = new ArrayList<>();
+            List<LogData> segTwoEntries = new ArrayList<>();
+
+            for (LogData curr : entries) {
+                boolean inFirstSegment = getSegment(curr) == firstSh.getSegment();
+                SegmentHandle sh = inFirstSegment ? firstSh : lastSh;
+
+                // Reject the whole group before anything is written, the caller
+                // is expected to retry every entry on its own.
+                if (sh.getKnownAddresses().contains(curr.getGlobalAddress())
+                        || sh.getTrimmedAddresses().contains(curr.getGlobalAddress())) {
+                    throw new OverwriteException(OverwriteCause.SAME_DATA);
+                }
 
-            if (!segTwoEntries.isEmpty()) {
-                Map<Long, AddressMetaData> lastSegAddresses = writeRecords(lastSh, segTwoEntries);
-                lastSh.getKnownAddresses().putAll(lastSegAddresses);
+                if (inFirstSegment) {
+                    segOneEntries.add(curr);
+                } else {
+                    segTwoEntries.add(curr);
+                }
             }
+
+            writeSegmentEntries(firstSh, segOneEntries);
+            writeSegmentEntries(lastSh, segTwoEntries);
+            log.trace("Disk_write[{}-{}]: Written to disk.", first.getGlobalAddress(),
+                    last.getGlobalAddress());
         } catch (IOException e) {
             log.error("Disk_write[{}-{}]: Exception", first.getGlobalAddress(),
                     last.getGlobalAddress(), e);
@@ -1135,6 +1580,23 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    /**
+     * Write entries that belong to a single segment and record their
+     * metadata in the segment's address space.
+     *
+     * @param segment segment handle to the logfile
+     * @param entries entries to write, can be empty
+     * @throws IOException IO exception
+     */
+    private void writeSegmentEntries(SegmentHandle segment, List<LogData> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<Long, AddressMetaData> segAddresses = writeRecords(segment, entries);
+        segment.getKnownAddresses().putAll(segAddresses);
+    }
+
     @Override
     public void append(long address, LogData entry) {
         if (isTrimmed(address)) {
@@ -1146,7 +1608,7 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         try {
             // make sure the entry doesn't currently exist...
             // (probably need a faster way to do this - high watermark?)
-            if (segment.getKnownAddresses().containsKey(address)
+            if (segment.getKnownAddresses().contains(address)
                     || segment.getTrimmedAddresses().contains(address)) {
                 if (entry.getRank() == null) {
                     OverwriteCause overwriteCause = getOverwriteCauseForAddress(address, entry);
@@ -1190,6 +1652,398 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
         }
     }
 
+    @Override
+    public Map<Long, LogData> readAll(List<Long> addresses) {
+        Map<Long, LogData> entries = new HashMap<>();
+        Map<Long, List<Long>> segmentAddresses = new TreeMap<>();
+        for (long address : addresses) {
+            if (isTrimmed(address)) {
+                entries.put(address, LogData.getTrimmed(address));
+            } else {
+                segmentAddresses.computeIfAbsent(address / RECORDS_PER_LOG_FILE, s -> new ArrayList<>())
+                        .add(address);
+            }
+        }
+
+        // The segments other than the first one are read in parallel with it
+        List<CompletableFuture<Map<Long, LogData>>> segmentReads = new ArrayList<>();
+        List<Long> firstBatch = null;
+        for (List<Long> batch : segmentAddresses.values()) {
+            if (firstBatch == null) {
+                firstBatch = batch;
+            } else {
+                segmentReads.add(CompletableFuture.supplyAsync(() -> readSegment(batch), READ_EXECUTOR));
+            }
+        }
+
+        try {
+            if (firstBatch != null) {
+                entries.putAll(readSegment(firstBatch));
+            }
+            for (CompletableFuture<Map<Long, LogData>> segmentRead : segmentReads) {
+                entries.putAll(segmentRead.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        return entries;
+    }
+
+    /**
+     * Read a batch of log entries that all belong to the same segment.
+     *
+     * @param addresses The addresses of the entries.
+     * @return The entries that exist, keyed by their addresses.
+     */
+    private Map<Long, LogData> readSegment(List<Long> addresses) {
+        Map<Long, LogData> entries = new HashMap<>();
+        SegmentHandle segment = getSegmentHandleForAddress(addresses.get(0));
+        try {
+            readRecords(segment, addresses, entries);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            segment.release();
+        }
+        return entries;
+    }
+
+    /**
+     * Read a batch of log entries of a segment. The records are read in the order of their
+     * offsets in the segment file, and the records that are close enough to each other are
+     * served by a single read of the file region that spans them.
+     *
+     * @param segment   The file handle to use.
+     * @param addresses The addresses of the entries, which all belong to the segment.
+     * @param entries   The map to add the entries that exist to.
+     */
+    private void readRecords(SegmentHandle segment, List<Long> addresses, Map<Long, LogData> entries)
+            throws IOException {
+        List<Map.Entry<Long, AddressMetaData>> records = new ArrayList<>(addresses.size());
+        for (long address : addresses) {
+            if (segment.getPendingTrims().contains(address)) {
+                entries.put(address, LogData.getTrimmed(address));
+                continue;
+            }
+
+            AddressMetaData metaData = segment.getKnownAddresses().get(address);
+            if (metaData != null) {
+                records.add(new AbstractMap.SimpleImmutableEntry<>(address, metaData));
+            }
+        }
+
+        boolean mapped = mmapReads && segment.getSegment() < dataStore.getTailSegment();
+        if (mapped || records.size() < 2) {
+            for (Map.Entry<Long, AddressMetaData> record : records) {
+                entries.put(record.getKey(), readRecord(segment, record.getKey()));
+            }
+            return;
+        }
+
+        records.sort(Comparator.comparingLong(record -> record.getValue().offset));
+
+        int runStart = 0;
+        long runEnd = 0;
+        for (int i = 0; i < records.size(); i++) {
+            AddressMetaData metaData = records.get(i).getValue();
+            long regionStart = records.get(runStart).getValue().offset;
+            if (i > runStart && (metaData.offset - runEnd > MAX_BATCH_READ_GAP
+                    || metaData.offset + metaData.length - regionStart > MAX_BATCH_READ_SIZE)) {
+                readRun(segment, records.subList(runStart, i), runEnd, entries);
+                runStart = i;
+                runEnd = 0;
+            }
+            runEnd = Math.max(runEnd, metaData.offset + metaData.length);
+        }
+        readRun(segment, records.subList(runStart, records.size()), runEnd, entries);
+    }
+
+    /**
+     * Read a run of records, sorted by offset, with a single read of the file region
+     * that spans them.
+     *
+     * @param segment   The file handle to use.
+     * @param records   The addresses of the records, and their metadata.
+     * @param regionEnd The end of the last record of the run in the segment file.
+     * @param entries   The map to add the entries to.
+     */
+    private void readRun(SegmentHandle segment, List<Map.Entry<Long, AddressMetaData>> records,
+                         long regionEnd, Map<Long, LogData> entries) throws IOException {
+        if (records.size() == 1) {
+            long address = records.get(0).getKey();
+            entries.put(address, readRecord(segment, address));
+            return;
+        }
+
+        FileChannel fileChannel = segment.getReadChannel();
+        long regionStart = records.get(0).getValue().offset;
+        ByteBuffer regionBuf = ByteBuffer.allocate((int) (regionEnd - regionStart));
+        while (regionBuf.hasRemaining()) {
+            if (fileChannel.read(regionBuf, regionStart + regionBuf.position()) < 0) {
+                break;
+            }
+        }
+
+        for (Map.Entry<Long, AddressMetaData> record : records) {
+            AddressMetaData metaData = record.getValue();
+            try {
+                // The region buffer isn't reused, so the parsed entries can alias its bytes
+                CodedInputStream input = CodedInputStream.newInstance(regionBuf.array(),
+                        (int) (metaData.offset - regionStart), metaData.length);
+                input.enableAliasing(true);
+                entries.put(record.getKey(), getLogData(LogEntry.parseFrom(input)));
+            } catch (InvalidProtocolBufferException e) {
+                String errorMessage = getDataCorruptionErrorMessage("Invalid entry",
+                        fileChannel, segment.getFileName()
+                );
+                throw new DataCorruptionException(errorMessage, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsSegmentFiles() {
+        return true;
+    }
+
+    @Override
+    public long getCompleteSegmentSize(long segment) {
+        // Only sealed segments are complete, and only their files
+        // can be opened without creating them
+        if (segment * RECORDS_PER_LOG_FILE < getTrimMark()
+                || segment >= dataStore.getTailSegment()
+                || !new File(getSegmentFilePath(segment)).exists()) {
+            return -1L;
+        }
+
+        SegmentHandle sh = getSegmentHandleForAddress(segment * RECORDS_PER_LOG_FILE);
+        try {
+            if (sh.getKnownAddresses().size() != RECORDS_PER_LOG_FILE
+                    || !sh.getPendingTrims().isEmpty()) {
+                return -1L;
+            }
+            return sh.getReadChannel().size();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            sh.release();
+        }
+    }
+
+    @Override
+    public byte[] readSegmentFile(long segment, long offset, int length) {
+        if (getCompleteSegmentSize(segment) < 0) {
+            throw new IllegalArgumentException("Segment " + segment + " isn't complete");
+        }
+
+        SegmentHandle sh = getSegmentHandleForAddress(segment * RECORDS_PER_LOG_FILE);
+        try {
+            FileChannel fileChannel = sh.getReadChannel();
+            long remaining = Math.max(0L, fileChannel.size() - offset);
+            ByteBuffer buf = ByteBuffer.allocate((int) Math.min(remaining,
+                    Math.min(length, MAX_BATCH_READ_SIZE)));
+            while (buf.hasRemaining()) {
+                if (fileChannel.read(buf, offset + buf.position()) < 0) {
+                    break;
+                }
+            }
+            return buf.position() == buf.capacity() ? buf.array()
+                    : Arrays.copyOf(buf.array(), buf.position());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            sh.release();
+        }
+    }
+
+    @Override
+    public void writeSegmentFile(long segment, long offset, byte[] data) {
+        if (isTrimmed(segment * RECORDS_PER_LOG_FILE)) {
+            throw new OverwriteException(OverwriteCause.TRIM);
+        }
+
+        // The copy changes, so it has to be verified again
+        verifiedCopies.remove(segment);
+
+        Path copyPath = Paths.get(getSegmentCopyPath(segment));
+        try (FileChannel channel = FileChannel.open(copyPath, EnumSet.of(StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE))) {
+            long copySize = channel.size();
+            if (offset == 0 && copySize > 0) {
+                // The copy is restarted
+                channel.truncate(0);
+                logSizeQuota.release(copySize);
+                copySize = 0;
+            }
+
+            if (offset != copySize) {
+                throw new IllegalStateException(String.format("Copy of segment %s has %s bytes, "
+                        + "can't write at offset %s", segment, copySize, offset));
+            }
+
+            channel.position(offset);
+            writeByteBuffer(channel, ByteBuffer.wrap(data));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void verifySegmentFile(long segment, long segmentSize) {
+        if (isTrimmed(segment * RECORDS_PER_LOG_FILE)) {
+            throw new OverwriteException(OverwriteCause.TRIM);
+        }
+
+        Path copyPath = Paths.get(getSegmentCopyPath(segment));
+        try (FileChannel channel = FileChannel.open(copyPath, EnumSet.of(StandardOpenOption.READ,
+                StandardOpenOption.WRITE))) {
+            if (channel.size() != segmentSize) {
+                throw new DataCorruptionException(String.format("Copy of segment %s has %s bytes, "
+                        + "expected %s", segment, channel.size(), segmentSize));
+            }
+            SegmentIndex index = verifySegmentCopy(segment, channel, copyPath.toString());
+            channel.force(true);
+            verifiedCopies.put(segment, index);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void installSegmentFile(long segment, long segmentSize) {
+        long segmentStart = segment * RECORDS_PER_LOG_FILE;
+        if (isTrimmed(segmentStart)) {
+            throw new OverwriteException(OverwriteCause.TRIM);
+        }
+
+        Path copyPath = Paths.get(getSegmentCopyPath(segment));
+        Path segmentPath = Paths.get(getSegmentFilePath(segment));
+        Path indexPath = Paths.get(getSegmentIndexPath(segment));
+
+        SegmentIndex index = verifiedCopies.remove(segment);
+        if (index == null || index.getSegmentSize() != segmentSize) {
+            throw new IllegalStateException("Copy of segment " + segment + " hasn't been verified");
+        }
+
+        // The copy can only replace a segment that has no address written
+        SegmentHandle sh = getSegmentHandleForAddress(segmentStart);
+        try {
+            if (sh.getKnownAddresses().size() > 0) {
+                throw new OverwriteException(OverwriteCause.SAME_DATA);
+            }
+
+            try (MultiReadWriteLock.AutoCloseableLock ignored = segmentLocks.acquireWriteLock(segment)) {
+                // The replaced segment is closed once its readers release it
+                writeChannels.remove(sh.getFileName());
+                channelsToSync.remove(sh.getWriteChannel());
+                sh.retire();
+
+                long replacedBytes = Files.size(segmentPath);
+                if (indexPath.toFile().exists()) {
+                    replacedBytes += Files.size(indexPath);
+                    Files.delete(indexPath);
+                }
+
+                Files.move(copyPath, segmentPath, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                syncDirectory(logDir.toString());
+                logSizeQuota.release(replacedBytes);
+
+                // The installed segment is opened from the index of the verified copy
+                try {
+                    writeSegmentIndex(segment, index);
+                } catch (IOException e) {
+                    log.warn("installSegmentFile: couldn't write index for segment {}", segment, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            sh.release();
+        }
+
+        index.getRecordsList().forEach(record -> logMetadata.update(getLogData(record), true));
+        syncTailSegment(segmentStart + RECORDS_PER_LOG_FILE - 1);
+        log.info("installSegmentFile: installed segment {}, {} bytes", segment, segmentSize);
+    }
+
+    /**
+     * Verify that a copy of a segment file has a valid header, that the checksums of all its
+     * records are valid, and that its records are the complete address space of the segment.
+     * The checksums are verified even if this log unit doesn't verify its reads. The index of
+     * the copy is built while its records are verified.
+     *
+     * @param segment  the segment that has been copied
+     * @param channel  channel of the copy
+     * @param fileName name of the copy
+     * @return the index of the copy
+     * @throws IOException IO exception
+     */
+    private SegmentIndex verifySegmentCopy(long segment, FileChannel channel, String fileName)
+            throws IOException {
+        channel.position(0);
+        LogHeader header = parseHeader(channel, fileName);
+        if (header == null || header.getVersion() != VERSION
+                || (verify && !header.getVerifyChecksum())) {
+            throw new DataCorruptionException("Invalid header in copy of segment " + segment
+                    + ": " + header);
+        }
+
+        long segmentStart = segment * RECORDS_PER_LOG_FILE;
+        // A record that is overwritten (i.e. by a higher rank) is superseded by the last one
+        Map<Long, AddressMetaData> addresses = new TreeMap<>();
+        Map<Long, LogEntry> records = new HashMap<>();
+        while (channel.size() - channel.position() > 0) {
+            long channelOffset = channel.position();
+            Metadata metadata = parseMetadata(channel, fileName);
+            ByteBuffer buffer = metadata == null ? null : getPayloadForMetadata(channel, metadata);
+            if (buffer == null) {
+                throw new DataCorruptionException(getDataCorruptionErrorMessage(
+                        "Partially written record", channel, fileName));
+            }
+
+            if (metadata.getPayloadChecksum() != Checksum.getChecksum(buffer.array())) {
+                throw new DataCorruptionException(getDataCorruptionErrorMessage(
+                        "Checksum mismatch detected while verifying segment copy", channel, fileName));
+            }
+
+            LogEntry entry;
+            try {
+                entry = LogEntry.parseFrom(buffer.array());
+            } catch (InvalidProtocolBufferException e) {
+                throw new DataCorruptionException(getDataCorruptionErrorMessage(
+                        "Invalid entry", channel, fileName), e);
+            }
+
+            long address = entry.getGlobalAddress();
+            if (address < segmentStart || address >= segmentStart + RECORDS_PER_LOG_FILE) {
+                throw new DataCorruptionException(getDataCorruptionErrorMessage(
+                        "Address " + address + " out of segment", channel, fileName));
+            }
+            addresses.put(address, new AddressMetaData(metadata.getPayloadChecksum(),
+                    metadata.getLength(), channelOffset + METADATA_SIZE));
+            records.put(address, getIndexRecord(entry));
+        }
+
+        if (addresses.size() != RECORDS_PER_LOG_FILE) {
+            throw new DataCorruptionException(String.format("Copy of segment %s has %s addresses, "
+                    + "expected %s", segment, addresses.size(), RECORDS_PER_LOG_FILE));
+        }
+
+        SegmentIndex.Builder indexBuilder = SegmentIndex.newBuilder()
+                .setSegmentSize(channel.size());
+        addresses.forEach((address, metaData) -> indexBuilder.addAddresses(address)
+                .addOffsets(metaData.offset)
+                .addLengths(metaData.length)
+                .addChecksums(metaData.checksum)
+                .addRecords(records.get(address)));
+        return indexBuilder.build();
+    }
+
     @Override
     public void close() {
         for (SegmentHandle fh : writeChannels.values()) {
@@ -1278,7 +2132,9 @@ public class StreamLogFiles implements StreamLog, StreamLogWithRankedAddressSpac
 
         dataStore.resetStartingAddress();
         dataStore.resetTailSegment();
+        verifiedCopies.clear();
         logMetadata = new LogMetadata();
+        logMetadata.setCommittedTailTracked(committedTailTracked);
         writeChannels.clear();
         logSizeQuota = new ResourceQuota("LogSizeQuota", logSizeLimit);
         log.info("reset: Completed, end segment {}", endSegment);
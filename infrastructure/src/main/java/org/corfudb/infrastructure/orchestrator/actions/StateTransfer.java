@@ -1,31 +1,63 @@
 package org.corfudb.infrastructure.orchestrator.actions;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 import org.corfudb.common.compression.Codec;
+import org.corfudb.infrastructure.ServerContext;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.protocols.wireprotocol.SegmentReadResponse;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.CorfuRuntime.CorfuRuntimeParameters;
+import org.corfudb.runtime.clients.LogUnitClient;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.RetryExhaustedException;
+import org.corfudb.runtime.exceptions.TrimmedException;
 import org.corfudb.runtime.view.Layout;
 import org.corfudb.runtime.view.ReadOptions;
+import org.corfudb.runtime.view.RuntimeLayout;
 import org.corfudb.util.CFUtils;
+import org.corfudb.util.CorfuComponent;
 import org.corfudb.util.retry.ExponentialBackoffRetry;
 import org.corfudb.util.retry.IRetry;
 import org.corfudb.util.retry.RetryNeededException;
 
+import static org.corfudb.infrastructure.log.StreamLogFiles.RECORDS_PER_LOG_FILE;
+
 /**
  * State transfer utility.
+ * <p>
+ * A segment is transferred in chunks of bulkReadSize addresses, which are pipelined: up to
+ * stateTransferParallelism chunks are read concurrently, while the chunks already read are
+ * written to the destination. The chunks of a chain replicated segment are read directly
+ * from its replicas, in a round robin, and the writes are sent in the order of the chunks.
+ * The complete log segment files of a chain replicated segment are copied as a whole instead.
  * Created by zlokhandwala on 2019-02-06.
  */
 @Slf4j
@@ -51,6 +83,29 @@ public class StateTransfer {
             .serverCacheable(false)
             .build();
 
+    // Minimal interval between two progress reports of a transfer.
+    private static final Duration PROGRESS_LOG_INTERVAL = Duration.ofSeconds(10);
+
+    private static final String METRICS_PREFIX = CorfuComponent.INFRA_ORCHESTRATOR + "state-transfer.";
+
+    // Entries and bytes written to the destination log units.
+    private static final Meter transferredEntries = ServerContext.getMetrics()
+            .meter(METRICS_PREFIX + "entries");
+    private static final Meter transferredBytes = ServerContext.getMetrics()
+            .meter(METRICS_PREFIX + "bytes");
+
+    // Addresses that the ongoing transfers haven't processed yet.
+    private static final Counter remainingAddresses = ServerContext.getMetrics()
+            .counter(METRICS_PREFIX + "remaining");
+
+    // Size of the chunks of a segment file copy.
+    private static final int SEGMENT_COPY_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("StateTransfer-%d")
+            .build();
+
     /**
      * Fetch and propagate the trimMark to the new/healing nodes. Else, a FastLoader reading from
      * them will have to mark all the already trimmed entries as holes.
@@ -67,7 +122,6 @@ public class StateTransfer {
                                 CorfuRuntime runtime,
                                 Layout.LayoutSegment segment) throws InterruptedException {
 
-        int chunkSize = runtime.getParameters().getBulkReadSize();
         final AtomicInteger overwriteRetries = new AtomicInteger();
 
         IRetry.build(ExponentialBackoffRetry.class, RetryExhaustedException.class, () -> {
@@ -90,19 +144,7 @@ public class StateTransfer {
                 log.info("stateTransfer: Total address range to transfer: [{}-{}] to node {}",
                         segmentStart, segmentEnd, endpoint);
 
-                // Transfer non-written chunks of addresses.
-                for (long chunkStart = segmentStart; chunkStart <= segmentEnd
-                        ; chunkStart += chunkSize) {
-
-                    long chunkEnd = Math.min(segmentEnd, chunkStart + chunkSize - 1);
-
-                    // Fetch all missing entries in this range [chunkStart - chunkEnd].
-                    List<Long> chunk = getMissingEntriesChunk(layout, runtime, endpoint,
-                            chunkStart, chunkEnd);
-
-                    // Read and write in chunks of chunkSize.
-                    transferChunk(layout, runtime, endpoint, chunk);
-                }
+                transferAddresses(layout, endpoint, runtime, segment, segmentStart, segmentEnd);
             } catch (OverwriteException oe) {
 
                 log.error("stateTransfer: Overwrite Exception: retried: {} times",
@@ -112,6 +154,13 @@ public class StateTransfer {
                     throw new RetryExhaustedException("StateTransfer: Retries exhausted.");
                 }
                 throw new RetryNeededException();
+            } catch (TrimmedException te) {
+
+                // The log was trimmed during the transfer, set the new trim mark on the
+                // destination and transfer the rest of the segment from it.
+                log.warn("stateTransfer: Addresses trimmed during transfer, retrying from "
+                        + "the new trim mark", te);
+                throw new RetryNeededException();
             }
 
             return true;
@@ -121,6 +170,254 @@ public class StateTransfer {
         }).run();
     }
 
+    /**
+     * Transfer a range of addresses of a segment to the destination log unit. The log segment
+     * files that the range fully covers are copied as a whole from a replica, if possible, and
+     * the rest of the range is transferred entry by entry.
+     *
+     * @param layout     Current layout.
+     * @param endpoint   Endpoint to transfer data to.
+     * @param runtime    Corfu runtime instance.
+     * @param segment    Segment of the range.
+     * @param rangeStart First address to transfer.
+     * @param rangeEnd   Last address to transfer (inclusive).
+     * @throws InterruptedException if interrupted while waiting for the chunks in flight.
+     */
+    private static void transferAddresses(Layout layout,
+                                          String endpoint,
+                                          CorfuRuntime runtime,
+                                          Layout.LayoutSegment segment,
+                                          long rangeStart,
+                                          long rangeEnd) throws InterruptedException {
+
+        CorfuRuntimeParameters parameters = runtime.getParameters();
+        final RateLimiter rateLimiter = parameters.getStateTransferBandwidth() > 0
+                ? RateLimiter.create(parameters.getStateTransferBandwidth()) : null;
+
+        long remainingStart = rangeStart;
+
+        // Only the log units of a chain replicated segment with a single stripe have complete
+        // segment files, the log units of the other segments only have a subset of the addresses.
+        if (segment.getReplicationMode() == Layout.ReplicationMode.CHAIN_REPLICATION
+                && segment.getNumberOfStripes() == 1) {
+            long fileSegment = (rangeStart + RECORDS_PER_LOG_FILE - 1) / RECORDS_PER_LOG_FILE;
+            for (; (fileSegment + 1) * RECORDS_PER_LOG_FILE - 1 <= rangeEnd; fileSegment++) {
+                try {
+                    if (!copySegmentFile(layout, endpoint, runtime, segment, fileSegment, rateLimiter)) {
+                        continue;
+                    }
+                } catch (UnsupportedOperationException e) {
+                    // The destination can't install segment files, transfer the rest of the
+                    // range entry by entry rather than copying (and discarding) every file.
+                    log.info("stateTransfer: {} doesn't support segment files, transferring "
+                            + "the entries of [{}-{}]", endpoint, remainingStart, rangeEnd);
+                    break;
+                }
+
+                long fileSegmentStart = fileSegment * RECORDS_PER_LOG_FILE;
+                if (remainingStart < fileSegmentStart) {
+                    transferRange(layout, endpoint, runtime, segment, remainingStart,
+                            fileSegmentStart - 1, rateLimiter);
+                }
+                remainingStart = fileSegmentStart + RECORDS_PER_LOG_FILE;
+            }
+        }
+
+        if (remainingStart <= rangeEnd) {
+            transferRange(layout, endpoint, runtime, segment, remainingStart, rangeEnd, rateLimiter);
+        }
+    }
+
+    /**
+     * Copy a complete log segment file from a replica to the destination log unit. The file is
+     * read and written in chunks of raw bytes, without parsing its records, and the destination
+     * verifies the checksum of every record before it atomically installs the file. The read of
+     * a chunk overlaps with the write of the previous chunk.
+     * <p>
+     * The file isn't copied if it isn't complete on the replica (i.e. it is not sealed, or some
+     * of its addresses are missing or trimmed), or if the destination has any of its addresses.
+     *
+     * @param layout      Current layout.
+     * @param endpoint    Endpoint to transfer data to.
+     * @param runtime     Corfu runtime instance.
+     * @param segment     Segment of the addresses of the file.
+     * @param fileSegment Index of the log segment file.
+     * @param rateLimiter Limits the rate of the reads in bytes/sec, or null.
+     * @return true if the file has been copied, false if its entries have to be transferred.
+     * @throws UnsupportedOperationException if the destination doesn't support segment files.
+     */
+    private static boolean copySegmentFile(Layout layout,
+                                           String endpoint,
+                                           CorfuRuntime runtime,
+                                           Layout.LayoutSegment segment,
+                                           long fileSegment,
+                                           RateLimiter rateLimiter) {
+
+        final long start = fileSegment * RECORDS_PER_LOG_FILE;
+        final long end = start + RECORDS_PER_LOG_FILE - 1;
+
+        List<String> sources = segment.getStripes().get(0).getLogServers().stream()
+                .filter(server -> !server.equals(endpoint))
+                .collect(Collectors.toList());
+        if (sources.isEmpty()) {
+            return false;
+        }
+
+        String source = sources.get((int) (fileSegment % sources.size()));
+        RuntimeLayout runtimeLayout = runtime.getLayoutView().getRuntimeLayout(layout);
+        LogUnitClient sourceClient = runtimeLayout.getLogUnitClient(source);
+        LogUnitClient destinationClient = runtimeLayout.getLogUnitClient(endpoint);
+        long ts1 = System.currentTimeMillis();
+
+        try {
+            CompletableFuture<SegmentReadResponse> read = sourceClient
+                    .readSegment(fileSegment, 0, SEGMENT_COPY_CHUNK_SIZE);
+            long segmentSize = -1;
+            long offset = 0;
+
+            do {
+                SegmentReadResponse chunk = CFUtils.getUninterruptibly(read);
+                if (chunk.getSegmentSize() < 0) {
+                    log.debug("stateTransfer: Segment file of [{}-{}] isn't complete on {}",
+                            start, end, source);
+                    return false;
+                }
+
+                if (segmentSize < 0) {
+                    segmentSize = chunk.getSegmentSize();
+                    Set<Long> knownAddresses = CFUtils.getUninterruptibly(
+                            destinationClient.requestKnownAddresses(start, end)).getKnownAddresses();
+                    if (!knownAddresses.isEmpty()) {
+                        return false;
+                    }
+                } else if (chunk.getSegmentSize() != segmentSize) {
+                    throw new IllegalStateException("Segment file changed during the copy");
+                }
+
+                byte[] data = chunk.getData();
+                if (data.length == 0) {
+                    throw new IllegalStateException("Segment file truncated at " + offset);
+                }
+
+                long nextOffset = offset + data.length;
+                if (nextOffset < segmentSize) {
+                    read = sourceClient.readSegment(fileSegment, nextOffset, SEGMENT_COPY_CHUNK_SIZE);
+                }
+
+                if (rateLimiter != null) {
+                    rateLimiter.acquire(data.length);
+                }
+
+                // The chunks are written one at a time, in order.
+                CFUtils.getUninterruptibly(destinationClient.writeSegment(fileSegment, offset, data));
+                offset = nextOffset;
+            } while (offset < segmentSize);
+
+            CFUtils.getUninterruptibly(destinationClient.installSegment(fileSegment, segmentSize));
+
+            transferredEntries.mark(RECORDS_PER_LOG_FILE);
+            transferredBytes.mark(segmentSize);
+            log.info("stateTransfer: Copied segment file of [{}-{}] ({} bytes) from {} to {} in {} ms",
+                    start, end, segmentSize, source, endpoint, System.currentTimeMillis() - ts1);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.warn("stateTransfer: Failed to copy segment file of [{}-{}] from {} to {}, "
+                    + "transferring its entries", start, end, source, endpoint, e);
+            return false;
+        }
+    }
+
+    /**
+     * Transfer a range of addresses of a segment to the destination log unit, chunk by chunk.
+     * Up to stateTransferParallelism chunks are in flight, i.e. being read or written, at
+     * any time. A chunk is written once it's read and the write of the previous chunk is
+     * sent, so that the destination is filled in the order of the addresses.
+     *
+     * @param layout      Current layout.
+     * @param endpoint    Endpoint to transfer data to.
+     * @param runtime     Corfu runtime instance.
+     * @param segment     Segment of the range.
+     * @param rangeStart  First address to transfer.
+     * @param rangeEnd    Last address to transfer (inclusive).
+     * @param rateLimiter Limits the rate of the reads in bytes/sec, or null.
+     * @throws InterruptedException if interrupted while waiting for the chunks in flight.
+     */
+    private static void transferRange(Layout layout,
+                                      String endpoint,
+                                      CorfuRuntime runtime,
+                                      Layout.LayoutSegment segment,
+                                      long rangeStart,
+                                      long rangeEnd,
+                                      RateLimiter rateLimiter) throws InterruptedException {
+
+        CorfuRuntimeParameters parameters = runtime.getParameters();
+        final int chunkSize = parameters.getBulkReadSize();
+        final int parallelism = Math.max(1, parameters.getStateTransferParallelism());
+
+        final TransferProgress progress = new TransferProgress(endpoint, rangeEnd - rangeStart + 1);
+        final Semaphore inFlight = new Semaphore(parallelism);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final ExecutorService readExecutor = Executors.newFixedThreadPool(parallelism, threadFactory);
+
+        try {
+            // Completes once the write of the previous chunk is sent.
+            CompletableFuture<Void> previousWriteSent = CompletableFuture.completedFuture(null);
+            long chunkIndex = 0;
+
+            for (long chunkStart = rangeStart; chunkStart <= rangeEnd; chunkStart += chunkSize) {
+
+                inFlight.acquire();
+                if (failure.get() != null) {
+                    inFlight.release();
+                    break;
+                }
+
+                final long start = chunkStart;
+                final long end = Math.min(rangeEnd, chunkStart + chunkSize - 1);
+                final long sourceIndex = chunkIndex++;
+
+                // Fetch all missing entries in this range [start - end] and read them.
+                CompletableFuture<List<LogData>> read = CompletableFuture.supplyAsync(() -> {
+                    List<Long> chunk = getMissingEntriesChunk(layout, runtime, endpoint, start, end);
+                    return readChunk(layout, runtime, endpoint, segment, chunk, sourceIndex, rateLimiter);
+                }, readExecutor);
+
+                CompletableFuture<CompletableFuture<List<LogData>>> writeSent = previousWriteSent
+                        .thenCombine(read, (sent, entries) -> writeChunk(layout, runtime, endpoint, entries));
+                previousWriteSent = writeSent.thenApply(write -> null);
+
+                writeSent.thenCompose(Function.identity()).whenComplete((entries, ex) -> {
+                    if (ex != null) {
+                        failure.compareAndSet(null, ex);
+                    } else {
+                        progress.update(end - start + 1, entries);
+                    }
+                    inFlight.release();
+                });
+            }
+
+            // Wait for the chunks in flight.
+            inFlight.acquire(parallelism);
+        } finally {
+            readExecutor.shutdownNow();
+            progress.close();
+        }
+
+        Throwable ex = failure.get();
+        if (ex != null) {
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                    ? ex.getCause() : ex;
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+
+        progress.report(true);
+    }
+
     /**
      * Send the trimMark to the new/healing nodes.
      * If this times out or fails, the Action performing the stateTransfer
@@ -188,33 +485,102 @@ public class StateTransfer {
     }
 
     /**
-     * Read the chunk of data from the cluster and write to the destination log unit.
+     * Read a chunk of data from the cluster.
+     * <p>
+     * In chain replication, every entry written to a replica is already the committed value
+     * of its address, as hole fills and recoveries adopt the value at the chain head. So the
+     * chunk is read directly from one of the replicas of each stripe, picked round robin by
+     * the index of the chunk, which spreads the reads of a transfer across all the replicas.
+     * The addresses not written to that replica or trimmed on it, or of a segment with another
+     * replication mode, are read through the replication protocol, which also fills holes.
      *
-     * @param layout   Current layout.
-     * @param runtime  Corfu runtime instance.
-     * @param endpoint Endpoint ot transfer data to.
-     * @param chunk    List of addresses to be read and transferred.
+     * @param layout      Current layout.
+     * @param runtime     Corfu runtime instance.
+     * @param endpoint    Endpoint to transfer data to, which is never read from.
+     * @param segment     Segment of the chunk.
+     * @param chunk       List of addresses to be read.
+     * @param sourceIndex Index of the chunk, which selects the replicas to read from.
+     * @param rateLimiter Limits the rate of the reads in bytes/sec, or null.
+     * @return The entries of the chunk, in the order of the addresses.
+     * @throws TrimmedException if some of the addresses are trimmed.
      */
-    private static void transferChunk(Layout layout,
-                                      CorfuRuntime runtime,
-                                      String endpoint,
-                                      List<Long> chunk) {
+    private static List<LogData> readChunk(Layout layout,
+                                           CorfuRuntime runtime,
+                                           String endpoint,
+                                           Layout.LayoutSegment segment,
+                                           List<Long> chunk,
+                                           long sourceIndex,
+                                           RateLimiter rateLimiter) {
 
         if (chunk.isEmpty()) {
-            return;
+            return new ArrayList<>();
         }
 
         long ts1 = System.currentTimeMillis();
 
-        // Don't cache the read results on server for state transfer.
-        Map<Long, ILogData> dataMap = runtime.getAddressSpaceView().read(chunk, readOptions);
+        Map<Long, ILogData> dataMap = new HashMap<>();
+        List<Long> unread = new ArrayList<>();
+
+        if (segment.getReplicationMode() == Layout.ReplicationMode.CHAIN_REPLICATION) {
+            RuntimeLayout runtimeLayout = runtime.getLayoutView().getRuntimeLayout(layout);
+            Map<Integer, List<Long>> stripeAddresses = chunk.stream()
+                    .collect(Collectors.groupingBy(
+                            address -> (int) (address % segment.getNumberOfStripes())));
+
+            Map<Integer, CompletableFuture<ReadResponse>> reads = new HashMap<>();
+            stripeAddresses.forEach((stripeIndex, addresses) -> {
+                List<String> sources = segment.getStripes().get(stripeIndex).getLogServers()
+                        .stream()
+                        .filter(server -> !server.equals(endpoint))
+                        .collect(Collectors.toList());
+                if (sources.isEmpty()) {
+                    unread.addAll(addresses);
+                    return;
+                }
+
+                String source = sources.get((int) (sourceIndex % sources.size()));
+                // Don't cache the read results on server for state transfer.
+                reads.put(stripeIndex, runtimeLayout.getLogUnitClient(source).readAll(addresses, false));
+            });
+
+            reads.forEach((stripeIndex, read) -> {
+                List<Long> addresses = stripeAddresses.get(stripeIndex);
+                Map<Long, LogData> readResult;
+                try {
+                    readResult = CFUtils.getUninterruptibly(read).getAddresses();
+                } catch (RuntimeException e) {
+                    log.warn("stateTransfer: Failed to read [{}-{}] from a replica",
+                            addresses.get(0), addresses.get(addresses.size() - 1), e);
+                    unread.addAll(addresses);
+                    return;
+                }
+
+                for (long address : addresses) {
+                    LogData ld = readResult.get(address);
+                    // Trimmed entries are read again through the address space view, which
+                    // throws a TrimmedException so the transfer restarts from the new trim mark.
+                    if (ld == null || ld.isEmpty() || ld.isTrimmed()) {
+                        unread.add(address);
+                    } else {
+                        dataMap.put(address, ld);
+                    }
+                }
+            });
+        } else {
+            unread.addAll(chunk);
+        }
+
+        if (!unread.isEmpty()) {
+            dataMap.putAll(runtime.getAddressSpaceView().read(unread, readOptions));
+        }
 
         long ts2 = System.currentTimeMillis();
 
-        log.info("stateTransfer: read [{}-{}] in {} ms",
+        log.debug("stateTransfer: read [{}-{}] in {} ms",
                 chunk.get(0), chunk.get(chunk.size() - 1), (ts2 - ts1));
 
         List<LogData> entries = new ArrayList<>();
+        long bytes = 0;
         for (long address : chunk) {
             if (!dataMap.containsKey(address)) {
                 log.error("Missing address {} in batch {}", address, chunk);
@@ -222,30 +588,133 @@ public class StateTransfer {
             }
             LogData ld = (LogData) dataMap.get(address);
             entries.add(ld);
+            bytes += ld.getSizeEstimate();
         }
 
-        try {
-            // Write segment chunk to the new log unit
-            ts1 = System.currentTimeMillis();
-            boolean transferSuccess = CFUtils.getUninterruptibly(runtime.getLayoutView()
-                    .getRuntimeLayout(layout)
-                    .getLogUnitClient(endpoint)
-                    .writeRange(entries), OverwriteException.class);
-
-            ts2 = System.currentTimeMillis();
-
-            if (!transferSuccess) {
-                log.error("stateTransfer: Failed to transfer {} to {}",
-                        chunk, endpoint);
-                throw new IllegalStateException("Failed to transfer!");
+        if (rateLimiter != null && bytes > 0) {
+            rateLimiter.acquire((int) Math.min(bytes, Integer.MAX_VALUE));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Write a chunk of data to the destination log unit.
+     *
+     * @param layout   Current layout.
+     * @param runtime  Corfu runtime instance.
+     * @param endpoint Endpoint to transfer data to.
+     * @param entries  Entries to be written.
+     * @return A future which completes with the entries once they're written.
+     */
+    private static CompletableFuture<List<LogData>> writeChunk(Layout layout,
+                                                               CorfuRuntime runtime,
+                                                               String endpoint,
+                                                               List<LogData> entries) {
+
+        if (entries.isEmpty()) {
+            return CompletableFuture.completedFuture(entries);
+        }
+
+        final long first = entries.get(0).getGlobalAddress();
+        final long last = entries.get(entries.size() - 1).getGlobalAddress();
+        final long ts1 = System.currentTimeMillis();
+
+        // Write segment chunk to the new log unit
+        return runtime.getLayoutView()
+                .getRuntimeLayout(layout)
+                .getLogUnitClient(endpoint)
+                .writeRange(entries)
+                .handle((transferSuccess, ex) -> {
+                    if (ex != null) {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                                ? ex.getCause() : ex;
+                        if (cause instanceof OverwriteException) {
+                            log.error("stateTransfer: Overwrite Exception on transfer of chunk: [{}-{}]",
+                                    first, last);
+                        }
+                        throw new CompletionException(cause);
+                    }
+
+                    if (!transferSuccess) {
+                        log.error("stateTransfer: Failed to transfer [{}-{}] to {}",
+                                first, last, endpoint);
+                        throw new IllegalStateException("Failed to transfer!");
+                    }
+
+                    log.debug("stateTransfer: Transferred address chunk [{}-{}] to {} in {} ms",
+                            first, last, endpoint, System.currentTimeMillis() - ts1);
+                    return entries;
+                });
+    }
+
+    /**
+     * The progress of a transfer, which is reported in the logs and in the state transfer
+     * metrics of the orchestrator.
+     */
+    private static class TransferProgress {
+
+        private final String endpoint;
+
+        private final long totalAddresses;
+
+        private final long startTime = System.currentTimeMillis();
+
+        private final AtomicLong processedAddresses = new AtomicLong();
+
+        private final AtomicLong entries = new AtomicLong();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final AtomicLong lastLogTime = new AtomicLong(startTime);
+
+        TransferProgress(String endpoint, long totalAddresses) {
+            this.endpoint = endpoint;
+            this.totalAddresses = totalAddresses;
+            remainingAddresses.inc(totalAddresses);
+        }
+
+        /**
+         * Record a processed chunk.
+         *
+         * @param addresses   The number of addresses in the chunk.
+         * @param transferred The entries written to the destination.
+         */
+        void update(long addresses, List<LogData> transferred) {
+            long chunkBytes = transferred.stream().mapToLong(LogData::getSizeEstimate).sum();
+            transferredEntries.mark(transferred.size());
+            transferredBytes.mark(chunkBytes);
+            remainingAddresses.dec(addresses);
+
+            processedAddresses.addAndGet(addresses);
+            entries.addAndGet(transferred.size());
+            bytes.addAndGet(chunkBytes);
+            report(false);
+        }
+
+        /**
+         * Report the progress, at most once per PROGRESS_LOG_INTERVAL unless forced.
+         */
+        void report(boolean force) {
+            long now = System.currentTimeMillis();
+            long last = lastLogTime.get();
+            if (!force && (now - last < PROGRESS_LOG_INTERVAL.toMillis()
+                    || !lastLogTime.compareAndSet(last, now))) {
+                return;
             }
 
-        } catch (OverwriteException oe) {
-            log.error("stateTransfer: Overwrite Exception on transfer of chunk: {}", chunk);
-            throw oe;
+            long elapsedMs = Math.max(1, now - startTime);
+            log.info("stateTransfer: Processed {}/{} addresses for {}, transferred {} entries "
+                            + "({} bytes) in {} ms, {} bytes/sec",
+                    processedAddresses.get(), totalAddresses, endpoint, entries.get(),
+                    bytes.get(), elapsedMs, bytes.get() * 1000 / elapsedMs);
         }
 
-        log.info("stateTransfer: Transferred address chunk [{}-{}] to {} in {} ms",
-                chunk.get(0), chunk.get(chunk.size() - 1), endpoint, (ts2 - ts1));
+        /**
+         * Remove the addresses that weren't processed from the remaining addresses metric.
+         */
+        void close() {
+            remainingAddresses.dec(totalAddresses - processedAddresses.get());
+        }
     }
 }
@@ -1,7 +1,11 @@
 package org.corfudb.protocols.logprotocol;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -14,17 +18,36 @@ import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import lombok.Value;
+import org.corfudb.common.compression.ZSTDDictionaryCompression;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.Address;
 
 
 /**
  * Object & serialization methods for in-stream checkpoint
  * summarization of SMR object state.
  */
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = {"compressionCodec", "compressedSmrEntries", "compressionDictionary"})
 @NoArgsConstructor
 public class CheckpointEntry extends LogEntry {
 
+    /** Kinds of payload that follow the metadata of a record.
+     */
+    private static final byte NO_SMR_ENTRIES = 0;
+    private static final byte SMR_ENTRIES = 1;
+    private static final byte COMPRESSED_SMR_ENTRIES = 2;
+    private static final byte COMPRESSION_DICTIONARY = 3;
+
+    private static final int MAX_CACHED_DICTIONARIES = 1024;
+
+    /** Codecs of the compressed checkpoints, keyed by checkpoint and address of their START record.
+     */
+    private static final Cache<DictionaryId, ZSTDDictionaryCompression> compressionCodecs =
+            Caffeine.newBuilder()
+                    .maximumSize(MAX_CACHED_DICTIONARIES)
+                    .build();
+
     @RequiredArgsConstructor
     public enum CheckpointEntryType {
         START(0),           // Mandatory: 1st record in checkpoint
@@ -97,16 +120,37 @@ public class CheckpointEntry extends LogEntry {
      *  May be present in any CheckpointEntryType, but typically
      *  used by CONTINUATION entries.
      */
-    @Getter
     @Setter
     MultiSMREntry smrEntries;
 
     /** Byte count of smrEntries in serialized form, zero
      *  if smrEntries.size() is zero or if value is unknown.
+     *  For compressed smrEntries, this is the compressed size.
      */
     @Getter
     int smrEntriesBytes = 0;
 
+    /** Optional: ZSTD dictionary shared by the compressed records of
+     *  this checkpoint. Only present in START records.
+     */
+    @Getter
+    @Setter
+    byte[] compressionDictionary;
+
+    /** Address of the START record that carries the dictionary
+     *  of compressed smrEntries.
+     */
+    @Getter
+    long startAddress = Address.NON_ADDRESS;
+
+    /** Codec to compress smrEntries with when serializing.
+     */
+    private ZSTDDictionaryCompression compressionCodec;
+
+    /** Compressed smrEntries, until they are first accessed.
+     */
+    private byte[] compressedSmrEntries;
+
     public CheckpointEntry(CheckpointEntryType type, String authorId, UUID checkpointId,
                            UUID streamId, Map<CheckpointDictKey,String> dict, MultiSMREntry smrEntries) {
         super(LogEntryType.CHECKPOINT);
@@ -142,12 +186,75 @@ public class CheckpointEntry extends LogEntry {
         }
         smrEntries = null;
         byte hasSmrEntries = b.readByte();
-        if (hasSmrEntries > 0) {
+        if (hasSmrEntries == SMR_ENTRIES) {
             smrEntries = (MultiSMREntry) MultiSMREntry.deserialize(b, runtime);
+        } else if (hasSmrEntries == COMPRESSED_SMR_ENTRIES) {
+            // The entries are decompressed when they are first accessed, which lets a reader
+            // scan the checkpoint records before it meets the START record with the dictionary.
+            startAddress = b.readLong();
+            compressedSmrEntries = new byte[b.readInt()];
+            b.readBytes(compressedSmrEntries);
+        } else if (hasSmrEntries == COMPRESSION_DICTIONARY) {
+            compressionDictionary = new byte[b.readInt()];
+            b.readBytes(compressionDictionary);
         }
         smrEntriesBytes = b.readInt();
     }
 
+    /** SMREntry objects of this record, decompressed on first access.
+     */
+    public synchronized MultiSMREntry getSmrEntries() {
+        if (compressedSmrEntries != null) {
+            ByteBuffer restored = getCompressionCodec(checkpointId, startAddress, runtime)
+                    .decompress(ByteBuffer.wrap(compressedSmrEntries));
+            smrEntries = (MultiSMREntry) MultiSMREntry.deserialize(Unpooled.wrappedBuffer(restored), runtime);
+            compressedSmrEntries = null;
+        }
+        return smrEntries;
+    }
+
+    /** Compress the smrEntries of this record when it is serialized.
+     *
+     * @param codec        codec of the dictionary of the checkpoint
+     * @param startAddress address of the START record that carries the dictionary
+     */
+    public void compressSmrEntries(ZSTDDictionaryCompression codec, long startAddress) {
+        this.compressionCodec = codec;
+        this.startAddress = startAddress;
+    }
+
+    /** Make the dictionary of a checkpoint available to the readers of its compressed records.
+     *
+     * @param checkpointId checkpoint the dictionary belongs to
+     * @param startAddress address of the START record that carries the dictionary
+     * @param dictionary   ZSTD dictionary
+     */
+    public static void registerCompressionDictionary(UUID checkpointId, long startAddress, byte[] dictionary) {
+        compressionCodecs.get(new DictionaryId(checkpointId, startAddress),
+                id -> new ZSTDDictionaryCompression(dictionary));
+    }
+
+    /** Get the codec of a checkpoint, reading its START record if its dictionary
+     *  wasn't registered yet.
+     */
+    private static ZSTDDictionaryCompression getCompressionCodec(UUID checkpointId, long startAddress,
+                                                                 CorfuRuntime rt) {
+        return compressionCodecs.get(new DictionaryId(checkpointId, startAddress), id -> {
+            if (rt == null) {
+                throw new IllegalStateException("No dictionary for checkpoint " + checkpointId
+                        + " at " + startAddress);
+            }
+            CheckpointEntry start = (CheckpointEntry) rt.getAddressSpaceView()
+                    .read(startAddress).getPayload(rt);
+            if (start.getCompressionDictionary() == null
+                    || !checkpointId.equals(start.getCheckpointId())) {
+                throw new IllegalStateException("No dictionary for checkpoint " + checkpointId
+                        + " at " + startAddress);
+            }
+            return new ZSTDDictionaryCompression(start.getCompressionDictionary());
+        });
+    }
+
     /**
      * Serialize the given LogEntry into a given byte buffer.
      *
@@ -179,18 +286,41 @@ public class CheckpointEntry extends LogEntry {
                         serializeString(x.getValue(), b);
                     });
         }
-        if (smrEntries != null) {
-            b.writeByte(1);
+        if (compressedSmrEntries != null) {
+            // The entries were never accessed, keep them as they were read.
+            serializeCompressedSmrEntries(compressedSmrEntries, b);
+        } else if (smrEntries != null && compressionCodec != null) {
+            ByteBuf serialized = Unpooled.buffer();
+            smrEntries.serialize(serialized);
+            ByteBuffer compressed = compressionCodec.compress(serialized.nioBuffer());
+            byte[] bytes = new byte[compressed.remaining()];
+            compressed.get(bytes);
+            serializeCompressedSmrEntries(bytes, b);
+        } else if (smrEntries != null) {
+            b.writeByte(SMR_ENTRIES);
             int byteStart = b.readableBytes();
             smrEntries.serialize(b);
             smrEntriesBytes = b.readableBytes() - byteStart;
+        } else if (compressionDictionary != null) {
+            b.writeByte(COMPRESSION_DICTIONARY);
+            b.writeInt(compressionDictionary.length);
+            b.writeBytes(compressionDictionary);
+            smrEntriesBytes = 0;
         } else {
-            b.writeShort(0);
+            b.writeShort(NO_SMR_ENTRIES);
             smrEntriesBytes = 0;
         }
         b.writeInt(smrEntriesBytes);
     }
 
+    private void serializeCompressedSmrEntries(byte[] compressed, ByteBuf b) {
+        b.writeByte(COMPRESSED_SMR_ENTRIES);
+        b.writeLong(startAddress);
+        b.writeInt(compressed.length);
+        b.writeBytes(compressed);
+        smrEntriesBytes = compressed.length;
+    }
+
     /** Helper function to deserialize a String.
      *
      * @param b Source buffer
@@ -211,4 +341,12 @@ public class CheckpointEntry extends LogEntry {
         b.writeShort(s.length());
         b.writeBytes(s.getBytes());
     }
+
+    /** Identifies the dictionary of a compressed checkpoint.
+     */
+    @Value
+    private static class DictionaryId {
+        UUID checkpointId;
+        long startAddress;
+    }
 }
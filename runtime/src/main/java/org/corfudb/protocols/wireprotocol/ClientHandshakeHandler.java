@@ -29,6 +29,7 @@ public class ClientHandshakeHandler extends ChannelDuplexHandler {
     private final UUID clientId;
     private final UUID nodeId;
     private final int handshakeTimeout;
+    private final boolean chunkedResponses;
     private final HandshakeState handshakeState;
     private final Queue<CorfuMsg> messages = new LinkedList<>();
     private static final String READ_TIMEOUT_HANDLER = "readTimeoutHandler";
@@ -47,8 +48,10 @@ public class ClientHandshakeHandler extends ChannelDuplexHandler {
      *
      * @param clientId Current Client Identifier.
      * @param serverId Remote Server Identifier to connect to.
+     * @param chunkedResponses Whether the client accepts responses sent in chunks.
      */
-    public ClientHandshakeHandler(@NonNull UUID clientId, UUID serverId, int handshakeTimeout) {
+    public ClientHandshakeHandler(@NonNull UUID clientId, UUID serverId, int handshakeTimeout,
+                                  boolean chunkedResponses) {
         this.clientId = clientId;
         if (serverId == null) {
             // A null identifier, indicates node ID matching is not required. Send a default
@@ -58,6 +61,7 @@ public class ClientHandshakeHandler extends ChannelDuplexHandler {
             this.nodeId = serverId;
         }
         this.handshakeTimeout = handshakeTimeout;
+        this.chunkedResponses = chunkedResponses;
         this.handshakeState = new HandshakeState();
     }
 
@@ -154,7 +158,7 @@ public class ClientHandshakeHandler extends ChannelDuplexHandler {
 
         // Write the handshake & add a timeout listener.
         CorfuMsg handshake = CorfuMsgType.HANDSHAKE_INITIATE
-            .payloadMsg(new HandshakeMsg(this.clientId, this.nodeId));
+            .payloadMsg(new HandshakeMsg(this.clientId, this.nodeId, this.chunkedResponses));
 
         log.debug("channelActive: Initiate handshake. Send handshake message.");
         ctx.writeAndFlush(handshake);
@@ -0,0 +1,175 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * The 128-bit fingerprints of transaction conflict keys.
+ *
+ * <p>A conflict key (a stream id and a conflict param) is sent to the sequencer as a
+ * fixed-width fingerprint rather than as its variable-length conflict param. The fingerprints
+ * of the keys of a stream are packed in a single array of primitive longs, the high and low
+ * halves of the i-th fingerprint being at index 2i and 2i+1, so that they are written,
+ * read and looked up without any allocation per key.
+ *
+ * <p>Two keys sharing a fingerprint are indistinguishable to the sequencer: a collision may
+ * cause a false abort, but never a missed conflict.
+ */
+public final class ConflictFingerprint {
+
+    /**
+     * The number of longs of a fingerprint.
+     */
+    public static final int LONGS = 2;
+
+    /**
+     * The number of bytes of a fingerprint.
+     */
+    public static final int BYTES = LONGS * Long.BYTES;
+
+    /**
+     * An empty array of fingerprints, which stands for the whole stream.
+     */
+    public static final long[] NONE = new long[0];
+
+    private static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+
+    private static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long C1 = 0x87C37B91114253D5L;
+
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private ConflictFingerprint() {
+        // prevent instantiation
+    }
+
+    /**
+     * Fingerprint the conflict params of a stream.
+     *
+     * @param streamId       stream id
+     * @param conflictParams conflict params of the stream
+     * @return the packed fingerprints of the conflict keys
+     */
+    public static long[] of(UUID streamId, Collection<byte[]> conflictParams) {
+        if (conflictParams == null || conflictParams.isEmpty()) {
+            return NONE;
+        }
+
+        long[] fingerprints = new long[conflictParams.size() * LONGS];
+        int index = 0;
+        for (byte[] conflictParam : conflictParams) {
+            fingerprints[index++] = high(streamId, conflictParam);
+            fingerprints[index++] = low(streamId, conflictParam);
+        }
+        return fingerprints;
+    }
+
+    /**
+     * The high half of the fingerprint of a conflict key.
+     */
+    public static long high(UUID streamId, byte[] conflictParam) {
+        return hash(streamId, conflictParam, SEED_HIGH);
+    }
+
+    /**
+     * The low half of the fingerprint of a conflict key.
+     */
+    public static long low(UUID streamId, byte[] conflictParam) {
+        return hash(streamId, conflictParam, SEED_LOW);
+    }
+
+    /**
+     * The bytes of a fingerprint, as reported back to the client with a conflict.
+     */
+    public static byte[] toBytes(long high, long low) {
+        return ByteBuffer.allocate(BYTES).putLong(high).putLong(low).array();
+    }
+
+    /**
+     * Whether the given bytes are the bytes of the fingerprint of a conflict key.
+     */
+    public static boolean matches(byte[] fingerprint, UUID streamId, byte[] conflictParam) {
+        if (fingerprint == null || fingerprint.length != BYTES) {
+            return false;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(fingerprint);
+        return buffer.getLong() == high(streamId, conflictParam)
+                && buffer.getLong() == low(streamId, conflictParam);
+    }
+
+    /**
+     * Write packed fingerprints into a buffer.
+     */
+    public static void serialize(ByteBuf buf, long[] fingerprints) {
+        buf.writeInt(fingerprints.length / LONGS);
+        for (long half : fingerprints) {
+            buf.writeLong(half);
+        }
+    }
+
+    /**
+     * Read packed fingerprints from a buffer.
+     */
+    public static long[] fromBuffer(ByteBuf buf) {
+        int numKeys = buf.readInt();
+        if (numKeys == 0) {
+            return NONE;
+        }
+
+        long[] fingerprints = new long[numKeys * LONGS];
+        for (int i = 0; i < fingerprints.length; i++) {
+            fingerprints[i] = buf.readLong();
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Hash a conflict key into one half of its fingerprint.
+     *
+     * @param streamId      stream id
+     * @param conflictParam conflict param
+     * @param seed          selects the half of the fingerprint
+     * @return 64 bits of the fingerprint
+     */
+    private static long hash(UUID streamId, byte[] conflictParam, long seed) {
+        long hash = seed ^ (conflictParam.length * C2);
+        hash = mix(hash, streamId.getMostSignificantBits());
+        hash = mix(hash, streamId.getLeastSignificantBits());
+
+        int offset = 0;
+        for (; offset + Long.BYTES <= conflictParam.length; offset += Long.BYTES) {
+            long block = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                block = (block << Byte.SIZE) | (conflictParam[offset + i] & 0xFF);
+            }
+            hash = mix(hash, block);
+        }
+
+        long tail = 0;
+        for (; offset < conflictParam.length; offset++) {
+            tail = (tail << Byte.SIZE) | (conflictParam[offset] & 0xFF);
+        }
+        hash = mix(hash, tail);
+
+        // Final avalanche (MurmurHash3 fmix64)
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static long mix(long hash, long block) {
+        block *= C1;
+        block = Long.rotateLeft(block, 31);
+        block *= C2;
+        hash ^= block;
+        return Long.rotateLeft(hash, 27) * 5 + 0x52DCE729;
+    }
+}
@@ -0,0 +1,58 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk of a response which is sent as a sequence of messages.
+ *
+ * <p>A large response is split into chunks of its {@link IChunkable} payload, which are sent
+ * one after the other, so that the response is never serialized into a single buffer and the
+ * other responses on the channel are sent in between its chunks. The chunks of a response carry
+ * the request id of the request, and the receiver merges them back into the response once it
+ * receives the last one.</p>
+ */
+@NoArgsConstructor
+public class CorfuChunkMsg extends CorfuMsg {
+
+    /**
+     * The response message which holds this chunk of the response payload.
+     */
+    @Getter
+    private CorfuMsg chunk;
+
+    /**
+     * Whether this is the last chunk of the response.
+     */
+    @Getter
+    private boolean last;
+
+    public CorfuChunkMsg(CorfuMsg chunk, boolean last) {
+        super(CorfuMsgType.RESPONSE_CHUNK);
+        this.chunk = chunk;
+        this.last = last;
+    }
+
+    @Override
+    public void copyBaseFields(CorfuMsg msg) {
+        super.copyBaseFields(msg);
+        chunk.copyBaseFields(msg);
+    }
+
+    @Override
+    public void serialize(ByteBuf buffer) {
+        super.serialize(buffer);
+        buffer.writeBoolean(last);
+        chunk.serialize(buffer);
+    }
+
+    @Override
+    public void fromBuffer(ByteBuf buffer) {
+        last = buffer.readBoolean();
+        chunk = CorfuMsg.deserialize(buffer);
+        // The buffer is released with this message
+        chunk.buf = null;
+    }
+}
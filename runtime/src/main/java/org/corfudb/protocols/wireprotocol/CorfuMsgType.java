@@ -110,6 +110,13 @@ public enum CorfuMsgType {
     KNOWN_ADDRESS_REQUEST(86, new TypeToken<CorfuPayloadMsg<KnownAddressRequest>>() {}),
     KNOWN_ADDRESS_RESPONSE(87, new TypeToken<CorfuPayloadMsg<KnownAddressResponse>>() {}),
 
+    LOG_SEGMENT_READ_REQUEST(88, new TypeToken<CorfuPayloadMsg<SegmentReadRequest>>() {}),
+    LOG_SEGMENT_READ_RESPONSE(89, new TypeToken<CorfuPayloadMsg<SegmentReadResponse>>() {}),
+    LOG_SEGMENT_WRITE(90, new TypeToken<CorfuPayloadMsg<SegmentWriteRequest>>() {}),
+    LOG_SEGMENT_INSTALL(91, new TypeToken<CorfuPayloadMsg<SegmentInstallRequest>>() {}),
+
+    RESPONSE_CHUNK(92, TypeToken.of(CorfuChunkMsg.class), true),
+
     ERROR_SERVER_EXCEPTION(200, new TypeToken<CorfuPayloadMsg<ExceptionMsg>>() {}, true),
     ;
 
@@ -19,6 +19,16 @@ public class HandshakeMsg implements ICorfuPayload<HandshakeMsg> {
     private UUID clientId;
     private UUID serverId;
 
+    /**
+     * Whether the client accepts responses sent in chunks, see {@link CorfuChunkMsg}.
+     * It is only serialized if set, since servers that predate it can't decode it.
+     */
+    private boolean chunkedResponses;
+
+    public HandshakeMsg(UUID clientId, UUID serverId) {
+        this(clientId, serverId, false);
+    }
+
     /**
      * Constructor to generate an initiating Handshake Message Payload.
      *
@@ -27,11 +37,15 @@ public class HandshakeMsg implements ICorfuPayload<HandshakeMsg> {
     public HandshakeMsg(ByteBuf buf) {
         clientId = ICorfuPayload.fromBuffer(buf, UUID.class);
         serverId = ICorfuPayload.fromBuffer(buf, UUID.class);
+        chunkedResponses = buf.isReadable() && buf.readBoolean();
     }
 
     @Override
     public void doSerialize(ByteBuf buf) {
         ICorfuPayload.serialize(buf, clientId);
         ICorfuPayload.serialize(buf, serverId);
+        if (chunkedResponses) {
+            buf.writeBoolean(true);
+        }
     }
 }
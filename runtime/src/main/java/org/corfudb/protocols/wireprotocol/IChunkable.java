@@ -0,0 +1,74 @@
+package org.corfudb.protocols.wireprotocol;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * A response payload which can be sent in chunks, see {@link CorfuChunkMsg}.
+ *
+ * @param <T> The type of the payload.
+ */
+public interface IChunkable<T extends IChunkable<T>> {
+
+    /**
+     * Split this payload into chunks. The chunks are built lazily, as they are sent, and
+     * must not share mutable state with this payload, since they're serialized later, on
+     * another thread than the one building them.
+     *
+     * @param chunkSize The approximate size of a chunk, in bytes.
+     * @return The chunks of this payload, at least one.
+     */
+    Iterator<T> split(int chunkSize);
+
+    /**
+     * Merge this chunk with the chunks that follow it into the whole payload.
+     *
+     * @param chunks The chunks that follow this chunk, in order.
+     * @return The whole payload.
+     */
+    T merge(List<T> chunks);
+
+    /**
+     * Split the entries of a map into chunks.
+     *
+     * @param map       The map to split.
+     * @param chunkSize The approximate size of a chunk, in bytes.
+     * @param sizeOf    The size of a value of the map, in bytes.
+     * @param chunkOf   Builds a chunk from the entries of the map it holds.
+     * @return The chunks of the map, at least one.
+     */
+    static <K, V, T> Iterator<T> splitMap(Map<K, V> map, int chunkSize, ToLongFunction<V> sizeOf,
+                                          Function<Map<K, V>, T> chunkOf) {
+        final Iterator<Map.Entry<K, V>> entries = map.entrySet().iterator();
+        return new Iterator<T>() {
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                return first || entries.hasNext();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                first = false;
+                Map<K, V> chunk = new HashMap<>();
+                long size = 0;
+                while (entries.hasNext() && size < chunkSize) {
+                    Map.Entry<K, V> entry = entries.next();
+                    chunk.put(entry.getKey(), entry.getValue());
+                    size += sizeOf.applyAsLong(entry.getValue());
+                }
+                return chunkOf.apply(chunk);
+            }
+        };
+    }
+}
@@ -29,13 +29,17 @@ public class LogData implements ICorfuPayload<LogData>, IMetadata, ILogData {
     @Getter
     final DataType type;
 
-    @Getter
     byte[] data;
 
     private ByteBuf serializedCache = null;
 
     private int lastKnownSize = NOT_KNOWN;
 
+    /**
+     * Index of the data in the serialized cache, if the data has not been copied out of it yet.
+     */
+    private int serializedDataIndex = NOT_KNOWN;
+
     private final transient AtomicReference<Object> payload = new AtomicReference<>();
 
     public static LogData getTrimmed(long address) {
@@ -71,7 +75,7 @@ public class LogData implements ICorfuPayload<LogData>, IMetadata, ILogData {
             synchronized (this.payload) {
                 value = this.payload.get();
                 if (value == null) {
-                    if (data == null) {
+                    if (getData() == null) {
                         this.payload.set(null);
                     } else {
                         ByteBuf serializedBuf = Unpooled.wrappedBuffer(data);
@@ -114,9 +118,28 @@ public class LogData implements ICorfuPayload<LogData>, IMetadata, ILogData {
         return value;
     }
 
+    /**
+     * Return the data, copying it out of the serialized form if this entry
+     * was built with {@link LogData#fromSerializedBuffer(ByteBuf)}.
+     */
+    public synchronized byte[] getData() {
+        if (serializedDataIndex != NOT_KNOWN) {
+            if (payload.get() == null) {
+                data = ICorfuPayload.fromBuffer(
+                        serializedCache.duplicate().readerIndex(serializedDataIndex), byte[].class);
+            }
+            serializedDataIndex = NOT_KNOWN;
+        }
+        return data;
+    }
+
     @Override
     public synchronized void releaseBuffer() {
         if (serializedCache != null) {
+            if (serializedCache.refCnt() == 1) {
+                // The serialized form is the only copy of the data
+                getData();
+            }
             serializedCache.release();
             if (serializedCache.refCnt() == 0) {
                 serializedCache = null;
@@ -169,6 +192,41 @@ public class LogData implements ICorfuPayload<LogData>, IMetadata, ILogData {
         }
     }
 
+    private LogData(DataType type, EnumMap<LogUnitMetadataType, Object> metadataMap,
+                    ByteBuf serializedCache, int serializedDataIndex) {
+        this.type = type;
+        this.data = null;
+        this.metadataMap = metadataMap;
+        this.serializedCache = serializedCache;
+        this.serializedDataIndex = serializedDataIndex;
+        this.lastKnownSize = serializedCache.readableBytes();
+    }
+
+    /**
+     * Build a log entry from its serialized form, as written by {@link LogData#doSerialize(ByteBuf)},
+     * without copying the data out of the buffer. The entry is serialized again by writing the
+     * buffer as is, and the data is only copied out of the buffer if it is accessed.
+     *
+     * @param buf the serialized log entry, which is owned by the returned log entry
+     * @return the log entry
+     */
+    public static LogData fromSerializedBuffer(ByteBuf buf) {
+        ByteBuf readBuf = buf.duplicate();
+        DataType type = ICorfuPayload.fromBuffer(readBuf, DataType.class);
+
+        int dataIndex = NOT_KNOWN;
+        if (type == DataType.DATA) {
+            dataIndex = readBuf.readerIndex();
+            readBuf.skipBytes(readBuf.readInt());
+        }
+
+        EnumMap<LogUnitMetadataType, Object> metadataMap = type.isMetadataAware()
+                ? ICorfuPayload.enumMapFromBuffer(readBuf, IMetadata.LogUnitMetadataType.class)
+                : new EnumMap<>(IMetadata.LogUnitMetadataType.class);
+
+        return new LogData(type, metadataMap, buf, dataIndex);
+    }
+
     /**
      * Constructor for generating LogData.
      *
@@ -257,8 +315,8 @@ public class LogData implements ICorfuPayload<LogData>, IMetadata, ILogData {
     @Override
     public void doSerialize(ByteBuf buf) {
         if (serializedCache != null) {
-            serializedCache.resetReaderIndex();
-            buf.writeBytes(serializedCache);
+            // Don't move the reader index, the entry can be serialized by several writes at once
+            buf.writeBytes(serializedCache, serializedCache.readerIndex(), serializedCache.readableBytes());
         } else {
             doSerializeInternal(buf);
         }
@@ -3,6 +3,8 @@ package org.corfudb.protocols.wireprotocol;
 import io.netty.buffer.ByteBuf;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import lombok.AllArgsConstructor;
@@ -14,7 +16,7 @@ import lombok.Getter;
  */
 @Data
 @AllArgsConstructor
-public class ReadResponse implements ICorfuPayload<ReadResponse> {
+public class ReadResponse implements ICorfuPayload<ReadResponse>, IChunkable<ReadResponse> {
 
     @Getter
     Map<Long, LogData> addresses;
@@ -35,4 +37,18 @@ public class ReadResponse implements ICorfuPayload<ReadResponse> {
     public void doSerialize(ByteBuf buf) {
         ICorfuPayload.serialize(buf, addresses);
     }
+
+    @Override
+    public Iterator<ReadResponse> split(int chunkSize) {
+        // The size estimate doesn't copy the data out of the serialized form of an entry
+        return IChunkable.splitMap(addresses, chunkSize,
+                data -> data.isData() ? data.getSizeEstimate() : 0, ReadResponse::new);
+    }
+
+    @Override
+    public ReadResponse merge(List<ReadResponse> chunks) {
+        Map<Long, LogData> merged = new HashMap<>(addresses);
+        chunks.forEach(chunk -> merged.putAll(chunk.addresses));
+        return new ReadResponse(merged);
+    }
 }
@@ -0,0 +1,34 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Request to verify a log segment file that has been copied to the log unit,
+ * and to install it in the log.
+ */
+@Data
+@AllArgsConstructor
+public class SegmentInstallRequest implements ICorfuPayload<SegmentInstallRequest> {
+
+    private final Long segment;
+    private final Long segmentSize;
+
+    /**
+     * Deserialization Constructor from Bytebuf to SegmentInstallRequest.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public SegmentInstallRequest(ByteBuf buf) {
+        segment = ICorfuPayload.fromBuffer(buf, Long.class);
+        segmentSize = ICorfuPayload.fromBuffer(buf, Long.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, segment);
+        ICorfuPayload.serialize(buf, segmentSize);
+    }
+}
@@ -0,0 +1,37 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Request for a range of bytes of a complete log segment file, which is used
+ * by state transfer to copy whole segments between log unit servers.
+ */
+@Data
+@AllArgsConstructor
+public class SegmentReadRequest implements ICorfuPayload<SegmentReadRequest> {
+
+    private final Long segment;
+    private final Long offset;
+    private final Integer length;
+
+    /**
+     * Deserialization Constructor from Bytebuf to SegmentReadRequest.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public SegmentReadRequest(ByteBuf buf) {
+        segment = ICorfuPayload.fromBuffer(buf, Long.class);
+        offset = ICorfuPayload.fromBuffer(buf, Long.class);
+        length = ICorfuPayload.fromBuffer(buf, Integer.class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, segment);
+        ICorfuPayload.serialize(buf, offset);
+        ICorfuPayload.serialize(buf, length);
+    }
+}
@@ -0,0 +1,44 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * A range of bytes of a log segment file. The segment size is negative if the
+ * segment can't be copied as a whole, i.e. it is incomplete, or still open
+ * for writes, or the log unit doesn't persist its log in segment files.
+ */
+@Data
+@AllArgsConstructor
+@ToString(exclude = {"data"})
+public class SegmentReadResponse implements ICorfuPayload<SegmentReadResponse> {
+
+    private final Long segment;
+    private final Long segmentSize;
+    private final Long offset;
+
+    private final byte[] data;
+
+    /**
+     * Deserialization Constructor from Bytebuf to SegmentReadResponse.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public SegmentReadResponse(ByteBuf buf) {
+        segment = ICorfuPayload.fromBuffer(buf, Long.class);
+        segmentSize = ICorfuPayload.fromBuffer(buf, Long.class);
+        offset = ICorfuPayload.fromBuffer(buf, Long.class);
+        data = ICorfuPayload.fromBuffer(buf, byte[].class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, segment);
+        ICorfuPayload.serialize(buf, segmentSize);
+        ICorfuPayload.serialize(buf, offset);
+        ICorfuPayload.serialize(buf, data);
+    }
+}
@@ -0,0 +1,40 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.ToString;
+
+/**
+ * Request to write a range of bytes of a log segment file that is being copied
+ * to the log unit. The segment isn't visible until it is installed.
+ */
+@Data
+@AllArgsConstructor
+@ToString(exclude = {"data"})
+public class SegmentWriteRequest implements ICorfuPayload<SegmentWriteRequest> {
+
+    private final Long segment;
+    private final Long offset;
+
+    private final byte[] data;
+
+    /**
+     * Deserialization Constructor from Bytebuf to SegmentWriteRequest.
+     *
+     * @param buf The buffer to deserialize
+     */
+    public SegmentWriteRequest(ByteBuf buf) {
+        segment = ICorfuPayload.fromBuffer(buf, Long.class);
+        offset = ICorfuPayload.fromBuffer(buf, Long.class);
+        data = ICorfuPayload.fromBuffer(buf, byte[].class);
+    }
+
+    @Override
+    public void doSerialize(ByteBuf buf) {
+        ICorfuPayload.serialize(buf, segment);
+        ICorfuPayload.serialize(buf, offset);
+        ICorfuPayload.serialize(buf, data);
+    }
+}
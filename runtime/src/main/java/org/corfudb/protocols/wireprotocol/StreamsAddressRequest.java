@@ -22,6 +22,8 @@ public class StreamsAddressRequest implements ICorfuPayload<StreamsAddressReques
 
     public static final byte ALL_STREAMS = 1; /*To request all streams*/
 
+    public static final byte STREAMS_WAIT = 2; /*To request specific streams, once they have an address in range*/
+
     /** The type of request, one of the above. */
     final byte reqType;
 
@@ -4,6 +4,9 @@ import io.netty.buffer.ByteBuf;
 import lombok.Value;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -15,7 +18,8 @@ import java.util.UUID;
  * (composed of the addresses of this stream and trim mark)
  */
 @Value
-public class StreamsAddressResponse implements ICorfuPayload<StreamsAddressResponse>{
+public class StreamsAddressResponse implements ICorfuPayload<StreamsAddressResponse>,
+        IChunkable<StreamsAddressResponse> {
 
     private long logTail;
 
@@ -41,4 +45,27 @@ public class StreamsAddressResponse implements ICorfuPayload<StreamsAddressRespo
         ICorfuPayload.serialize(buf, this.logTail);
         ICorfuPayload.serialize(buf, this.addressMap);
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The chunks hold copies of the address spaces, taken as each chunk is built, so that
+     * they can be serialized while the address spaces of the response keep being updated.</p>
+     */
+    @Override
+    public Iterator<StreamsAddressResponse> split(int chunkSize) {
+        return IChunkable.splitMap(addressMap, chunkSize,
+                addressSpace -> addressSpace.getAddressMap().serializedSizeInBytes(),
+                chunk -> {
+                    chunk.replaceAll((id, addressSpace) -> addressSpace.copy());
+                    return new StreamsAddressResponse(logTail, chunk);
+                });
+    }
+
+    @Override
+    public StreamsAddressResponse merge(List<StreamsAddressResponse> chunks) {
+        Map<UUID, StreamAddressSpace> merged = new HashMap<>(addressMap);
+        chunks.forEach(chunk -> merged.putAll(chunk.getAddressMap()));
+        return new StreamsAddressResponse(logTail, merged);
+    }
 }
@@ -13,6 +13,7 @@ import java.util.UUID;
  * - Global log tail.
  * - Tails for specific streams (uniquely identified).
  * - Tails for all available streams.
+ * - Committed tail, i.e. the highest address up to which the log has no gap.
  *
  * Whenever tails are requested for streams (specific or all),
  * the global log tail is sent along the response.
@@ -25,6 +26,7 @@ public class TailsRequest implements ICorfuPayload<TailsRequest>  {
     public static final byte STREAMS_TAILS = 1;     /* Log tail is also provided when tails are requested for
                                                     specific streams or all streams*/
     public static final byte ALL_STREAMS_TAIL = 2;
+    public static final byte COMMITTED_TAIL = 3;
 
     /** The type of the tail request, one of the above. */
     private final byte reqType;
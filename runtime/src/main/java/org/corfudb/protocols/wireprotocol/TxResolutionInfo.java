@@ -5,6 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import io.netty.buffer.ByteBuf;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -28,13 +29,43 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
     @Setter
     Token snapshotTimestamp;
 
-    /** A set of poisoned streams, which have a conflict against all updates. */
+    /**
+     * Marks a conflict-set encoded as packed fingerprints, in place of the number of streams
+     * of a conflict-set encoded as conflict params.
+     */
+    private static final int FINGERPRINTS_ENCODING = -1;
 
-    @Getter
-    final Map<UUID, Set<byte[]>> conflictSet;
+    /**
+     * The conflict params read by the txn, arranged by stream IDs. It is empty on the
+     * sequencer if the txn was encoded as fingerprints.
+     */
+    final Map<UUID, Set<byte[]>> conflictParams;
 
+    /**
+     * The conflict params written by the txn, arranged by stream IDs. It is empty on the
+     * sequencer if the txn was encoded as fingerprints.
+     */
+    final Map<UUID, Set<byte[]>> writeParams;
+
+    /**
+     * The packed {@link ConflictFingerprint}s of the conflict params read by the txn,
+     * arranged by stream IDs. A stream with no fingerprint conflicts against all its updates.
+     */
+    Map<UUID, long[]> conflictSet;
+
+    /**
+     * The packed {@link ConflictFingerprint}s of the conflict params written by the txn,
+     * arranged by stream IDs.
+     */
+    Map<UUID, long[]> writeConflictParams;
+
+    /**
+     * Whether the conflict keys are sent to the sequencer as packed fingerprints rather than
+     * as conflict params. Sequencers that predate the fingerprint encoding can't decode it.
+     */
     @Getter
-    final Map<UUID, Set<byte[]>>  writeConflictParams;
+    @Setter
+    boolean fingerprintsEnabled = false;
 
     /**
      * Constructor for TxResolutionInfo.
@@ -43,10 +74,7 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
      * @param snapshotTimestamp transaction snapshot timestamp
      */
     public TxResolutionInfo(UUID txId, Token snapshotTimestamp) {
-        this.TXid = txId;
-        this.snapshotTimestamp = snapshotTimestamp;
-        this.conflictSet = Collections.emptyMap();
-        this.writeConflictParams = Collections.emptyMap();
+        this(txId, snapshotTimestamp, Collections.emptyMap(), Collections.emptyMap());
     }
 
     /**
@@ -61,8 +89,61 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
             conflictMap, Map<UUID, Set<byte[]>> writeConflictParams) {
         this.TXid = txId;
         this.snapshotTimestamp = snapshotTimestamp;
-        this.conflictSet = conflictMap;
-        this.writeConflictParams = writeConflictParams;
+        this.conflictParams = conflictMap;
+        this.writeParams = writeConflictParams;
+    }
+
+    /**
+     * Returns the fingerprints of the conflict-set, which are computed from the
+     * conflict params the first time they are needed.
+     *
+     * @return the packed fingerprints of the conflict params read by the txn
+     */
+    public Map<UUID, long[]> getConflictSet() {
+        if (conflictSet == null) {
+            conflictSet = fingerprint(conflictParams);
+        }
+        return conflictSet;
+    }
+
+    /**
+     * Returns the fingerprints of the write-set, which are computed from the
+     * conflict params the first time they are needed.
+     *
+     * @return the packed fingerprints of the conflict params written by the txn
+     */
+    public Map<UUID, long[]> getWriteConflictParams() {
+        if (writeConflictParams == null) {
+            writeConflictParams = fingerprint(writeParams);
+        }
+        return writeConflictParams;
+    }
+
+    private static Map<UUID, long[]> fingerprint(Map<UUID, Set<byte[]>> conflictMap) {
+        Map<UUID, long[]> fingerprints = new HashMap<>(conflictMap.size());
+        conflictMap.forEach((streamId, conflictParams) ->
+                fingerprints.put(streamId, ConflictFingerprint.of(streamId, conflictParams)));
+        return fingerprints;
+    }
+
+    /**
+     * Map a conflict key fingerprint back to the conflict param of the conflict-set it
+     * was fingerprinted from.
+     *
+     * @param streamId    the stream of the conflict
+     * @param conflictKey the fingerprint of the conflict key
+     * @return the conflict param, or the conflict key if it matches no conflict param
+     */
+    public byte[] getConflictParam(UUID streamId, byte[] conflictKey) {
+        Set<byte[]> params = conflictParams.get(streamId);
+        if (params != null) {
+            for (byte[] conflictParam : params) {
+                if (ConflictFingerprint.matches(conflictKey, streamId, conflictParam)) {
+                    return conflictParam;
+                }
+            }
+        }
+        return conflictKey;
     }
 
     /**
@@ -73,6 +154,10 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
      * Next, entries are serialized one by one, first the key, then each value,
      * itself a set of objects.</p>
      *
+     * <p>If the conflict keys are encoded as fingerprints, the size of the map is preceded
+     * by {@link #FINGERPRINTS_ENCODING}, and the value of each entry is the number of
+     * fingerprints of the stream, followed by the fingerprints as raw longs.</p>
+     *
      * @param buf        The buffer to deserialize.
      */
     public TxResolutionInfo(ByteBuf buf) {
@@ -81,26 +166,35 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
         final long sequence = buf.readLong();
         snapshotTimestamp = new Token(epoch, sequence);
 
-        // conflictSet
         int numEntries = buf.readInt();
-        ImmutableMap.Builder<UUID, Set<byte[]>> conflictMapBuilder = new ImmutableMap.Builder<>();
+        if (numEntries == FINGERPRINTS_ENCODING) {
+            fingerprintsEnabled = true;
+            conflictParams = Collections.emptyMap();
+            writeParams = Collections.emptyMap();
+            conflictSet = fingerprintsFromBuffer(buf, buf.readInt());
+            writeConflictParams = fingerprintsFromBuffer(buf, buf.readInt());
+        } else {
+            conflictParams = conflictParamsFromBuffer(buf, numEntries);
+            writeParams = conflictParamsFromBuffer(buf, buf.readInt());
+        }
+    }
+
+    private static Map<UUID, Set<byte[]>> conflictParamsFromBuffer(ByteBuf buf, int numEntries) {
+        ImmutableMap.Builder<UUID, Set<byte[]>> builder = ImmutableMap.builder();
         for (int i = 0; i < numEntries; i++) {
             UUID k = ICorfuPayload.fromBuffer(buf, UUID.class);
-            Set<byte[]> v = ICorfuPayload.setFromBuffer(buf, byte[].class);
-            conflictMapBuilder.put(k, v);
+            builder.put(k, ICorfuPayload.setFromBuffer(buf, byte[].class));
         }
-        conflictSet = conflictMapBuilder.build();
+        return builder.build();
+    }
 
-        // writeConflictParams
-        numEntries = buf.readInt();
-        ImmutableMap.Builder<UUID, Set<byte[]>> writeMapBuilder = new ImmutableMap.Builder<>();
+    private static Map<UUID, long[]> fingerprintsFromBuffer(ByteBuf buf, int numEntries) {
+        ImmutableMap.Builder<UUID, long[]> builder = ImmutableMap.builder();
         for (int i = 0; i < numEntries; i++) {
             UUID k = ICorfuPayload.fromBuffer(buf, UUID.class);
-            Set<byte[]> v = ICorfuPayload.setFromBuffer(buf, byte[].class);
-            writeMapBuilder.put(k, v);
+            builder.put(k, ConflictFingerprint.fromBuffer(buf));
         }
-
-        writeConflictParams = writeMapBuilder.build();
+        return builder.build();
     }
 
     /**
@@ -114,18 +208,29 @@ public class TxResolutionInfo implements ICorfuPayload<TxResolutionInfo> {
         buf.writeLong(snapshotTimestamp.getEpoch());
         buf.writeLong(snapshotTimestamp.getSequence());
 
-        // conflictSet
-        buf.writeInt(conflictSet.size());
-        conflictSet.entrySet().stream().forEach(x -> {
-            ICorfuPayload.serialize(buf, x.getKey());
-            ICorfuPayload.serialize(buf, x.getValue());
+        if (fingerprintsEnabled) {
+            buf.writeInt(FINGERPRINTS_ENCODING);
+            serializeFingerprints(buf, getConflictSet());
+            serializeFingerprints(buf, getWriteConflictParams());
+        } else {
+            serializeConflictParams(buf, conflictParams);
+            serializeConflictParams(buf, writeParams);
+        }
+    }
+
+    private static void serializeConflictParams(ByteBuf buf, Map<UUID, Set<byte[]>> params) {
+        buf.writeInt(params.size());
+        params.forEach((streamId, streamParams) -> {
+            ICorfuPayload.serialize(buf, streamId);
+            ICorfuPayload.serialize(buf, streamParams);
         });
+    }
 
-        // writeConflictParams
-        buf.writeInt(writeConflictParams.size());
-        writeConflictParams.entrySet().stream().forEach(x -> {
-            ICorfuPayload.serialize(buf, x.getKey());
-            ICorfuPayload.serialize(buf, x.getValue());
+    private static void serializeFingerprints(ByteBuf buf, Map<UUID, long[]> fingerprints) {
+        buf.writeInt(fingerprints.size());
+        fingerprints.forEach((streamId, streamFingerprints) -> {
+            ICorfuPayload.serialize(buf, streamId);
+            ConflictFingerprint.serialize(buf, streamFingerprints);
         });
     }
 
@@ -1,13 +1,20 @@
 package org.corfudb.runtime;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.Streams;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.common.compression.Codec;
+import org.corfudb.common.compression.ZSTDDictionaryCompression;
 import org.corfudb.protocols.logprotocol.CheckpointEntry;
 import org.corfudb.protocols.logprotocol.MultiSMREntry;
 import org.corfudb.protocols.logprotocol.SMREntry;
@@ -25,10 +32,19 @@ import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -51,15 +67,55 @@ public class CheckpointWriter<T extends StreamingMap> {
     private LocalDateTime startTime;
     private long startAddress;
     private long endAddress;
+
+    /** Number of records appended by the last checkpoint.
+     */
+    @Getter
     private long numEntries = 0;
+
+    /** Number of serialized bytes of the SMR entries appended by the last checkpoint.
+     */
+    @Getter
     private long numBytes = 0;
 
+    /** Duration in milliseconds of the last checkpoint.
+     */
+    @Getter
+    private long duration = 0;
+
     // Registry and Timer used for measuring append checkpoint
     private static final MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
     private static final String CHECKPOINT_TIMER_NAME = CorfuComponent.GARBAGE_COLLECTION +
             "append-checkpoint";
+    private static final String CHECKPOINT_BYTES_NAME = CorfuComponent.GARBAGE_COLLECTION +
+            "checkpoint-bytes";
     private final Timer appendCheckpointTimer = metricRegistry.timer(CHECKPOINT_TIMER_NAME);
 
+    // Per table Timer and Histogram, named after the checkpointed stream
+    private final Timer tableCheckpointTimer;
+    private final Histogram tableCheckpointBytes;
+
+    /** Number of entries of the first CONTINUATION records, which are cut before the
+     *  serialized size of the entries is known.
+     */
+    private static final int INITIAL_BATCH_SIZE = 50;
+
+    /** Bounds of the sample of entries the compression dictionary is trained on.
+     */
+    private static final int MIN_DICTIONARY_SAMPLES = 512;
+    private static final int MAX_DICTIONARY_SAMPLES = 8192;
+    private static final int MAX_DICTIONARY_SAMPLE_BYTES = 1 << 20;
+    private static final int DICTIONARY_SIZE = 16 << 10;
+
+    public static final int DEFAULT_BATCH_BYTES = 1 << 20;
+
+    public static final int DEFAULT_MAX_IN_FLIGHT_APPENDS = 4;
+
+    /** Serialized bytes and number of the entries appended so far, used to size the batches.
+     */
+    private final AtomicLong appendedEntryBytes = new AtomicLong();
+    private final AtomicLong appendedEntries = new AtomicLong();
+
     @SuppressWarnings("checkstyle:abbreviation")
     private final UUID checkpointStreamID;
     private final Map<CheckpointEntry.CheckpointDictKey, String> mdkv = new HashMap<>();
@@ -78,11 +134,44 @@ public class CheckpointWriter<T extends StreamingMap> {
     @Setter
     Function<Object,Object> valueMutator = (x) -> x;
 
-    /** Batch size: number of SMREntry in a single CONTINUATION.
+    /** Batch size: max number of SMREntry in a single CONTINUATION.
+     */
+    @Getter
+    @Setter
+    private int batchSize = Integer.MAX_VALUE;
+
+    /** Byte budget of a single CONTINUATION: the number of SMREntry of a batch
+     *  is estimated from the serialized size of the entries already appended.
      */
     @Getter
     @Setter
-    private int batchSize = 50;
+    private int batchBytes = DEFAULT_BATCH_BYTES;
+
+    /** Executor that serializes and appends the CONTINUATION records. The default
+     *  executor appends every record on the calling thread before the next batch is cut.
+     */
+    @Getter
+    @Setter
+    private Executor appendExecutor = MoreExecutors.directExecutor();
+
+    /** Max number of CONTINUATION records being appended at the same time.
+     */
+    @Getter
+    @Setter
+    private int maxInFlightAppends = DEFAULT_MAX_IN_FLIGHT_APPENDS;
+
+    /** Compress the CONTINUATION records with a dictionary trained on a sample
+     *  of the object's entries, which the START record carries. Off by default:
+     *  clients that predate compressed records can't read them, so only enable it
+     *  once every client of the cluster has been upgraded.
+     */
+    @Getter
+    @Setter
+    private boolean compressionEnabled = false;
+
+    /** Codec of the CONTINUATION records of the current checkpoint, if any.
+     */
+    private ZSTDDictionaryCompression compressionCodec;
 
     /** BiConsumer to run after every CheckpointEntry is appended to the stream.
      */
@@ -121,6 +210,8 @@ public class CheckpointWriter<T extends StreamingMap> {
         checkpointId = UUID.randomUUID();
         checkpointStreamID = CorfuRuntime.getCheckpointStreamIdFromId(streamId);
         sv = rt.getStreamsView();
+        tableCheckpointTimer = metricRegistry.timer(CHECKPOINT_TIMER_NAME + "." + streamId);
+        tableCheckpointBytes = metricRegistry.histogram(CHECKPOINT_BYTES_NAME + "." + streamId);
     }
 
     /**
@@ -154,23 +245,28 @@ public class CheckpointWriter<T extends StreamingMap> {
                 .snapshot(snapshotTimestamp)
                 .build()
                 .begin();
+        Timer.Context tableContext = MetricsUtils.getConditionalContext(tableCheckpointTimer);
         try (Timer.Context context = MetricsUtils.getConditionalContext(appendCheckpointTimer)) {
             // A checkpoint writer will do two accesses one to obtain the object
             // vlo version and to get a shallow copy of the entry set
             log.info("appendCheckpoint: Started checkpoint for {} at snapshot {}", streamId, snapshotTimestamp);
-            Stream<Map.Entry> entries = this.map.entryStream();
+            Iterator<Map.Entry> entries = this.map.entryStream().iterator();
+            // The entries used to train the dictionary are checkpointed first.
+            List<Map.Entry> sample = trainCompressionDictionary(entries);
             // The vloVersion which will determine the checkpoint START_LOG_ADDRESS (last observed update for this
             // stream by the time of checkpointing) is defined by the stream's tail instead of the stream's version,
             // as the latter discards holes for resolution, hence if last address is a hole it would diverge
             // from the stream address space maintained by the sequencer.
             startCheckpoint(snapshotTimestamp);
-            int entryCount = appendObjectState(entries);
+            int entryCount = appendObjectState(Stream.concat(sample.stream(), Streams.stream(entries)));
             finishCheckpoint();
-            long cpDuration = System.currentTimeMillis() - start;
+            duration = System.currentTimeMillis() - start;
+            MetricsUtils.updateConditionalHistogram(tableCheckpointBytes, numBytes);
             log.info("appendCheckpoint: completed checkpoint for {}, entries({}), " +
                             "cpSize({}) bytes at snapshot {} in {} ms",
-                    streamId, entryCount, numBytes, snapshotTimestamp, cpDuration);
+                    streamId, entryCount, numBytes, snapshotTimestamp, duration);
         } finally {
+            MetricsUtils.stopConditionalContext(tableContext);
             rt.getObjectsView().TXEnd();
         }
 
@@ -178,7 +274,60 @@ public class CheckpointWriter<T extends StreamingMap> {
     }
 
     private Token forceNoOpEntry() {
-        TokenResponse writeToken = rt.getSequencerView().next(streamId);
+        return forceNoOpEntry(rt, streamId);
+    }
+
+    /**
+     * Train the dictionary of the CONTINUATION records on the first entries of the
+     * object, if compression is enabled and the object has enough entries.
+     *
+     * @param entries entries of the object, the sampled ones are consumed
+     * @return The sampled entries.
+     */
+    private List<Map.Entry> trainCompressionDictionary(Iterator<Map.Entry> entries) {
+        compressionCodec = null;
+        if (!compressionEnabled) {
+            return Collections.emptyList();
+        }
+
+        List<Map.Entry> sample = new ArrayList<>();
+        List<byte[]> serializedSample = new ArrayList<>();
+        long sampleBytes = 0;
+        ByteBuf buf = Unpooled.buffer();
+        while (sample.size() < MAX_DICTIONARY_SAMPLES && sampleBytes < MAX_DICTIONARY_SAMPLE_BYTES
+                && entries.hasNext()) {
+            Map.Entry entry = entries.next();
+            sample.add(entry);
+            buf.clear();
+            new SMREntry("put", new Object[]{keyMutator.apply(entry.getKey()),
+                    valueMutator.apply(entry.getValue())}, serializer).serialize(buf);
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+            serializedSample.add(bytes);
+            sampleBytes += bytes.length;
+        }
+
+        if (sample.size() >= MIN_DICTIONARY_SAMPLES) {
+            byte[] dictionary = ZSTDDictionaryCompression.trainDictionary(serializedSample, DICTIONARY_SIZE);
+            if (dictionary != null) {
+                compressionCodec = new ZSTDDictionaryCompression(dictionary);
+            }
+        }
+        log.debug("trainCompressionDictionary: {} for {} from {} entries", compressionCodec != null
+                ? "trained a dictionary" : "no dictionary", streamId, sample.size());
+        return sample;
+    }
+
+    /**
+     * Write a NO_OP entry, i.e., a hole with backpointers, to all the given streams.
+     * Its address is a snapshot at which all of these streams can be checkpointed.
+     *
+     * @param rt        runtime to write with
+     * @param streamIds streams to materialize
+     * @return Token of the NO_OP entry.
+     */
+    static Token forceNoOpEntry(CorfuRuntime rt, UUID... streamIds) {
+        TokenResponse writeToken = rt.getSequencerView().next(streamIds);
         LogData logData = new LogData(DataType.HOLE);
         rt.getAddressSpaceView().write(writeToken, logData, CacheOption.WRITE_AROUND);
         return writeToken.getToken();
@@ -192,6 +341,8 @@ public class CheckpointWriter<T extends StreamingMap> {
      * @return Global log address of the START record.
      */
     public void startCheckpoint(Token txnSnapshot) {
+        numEntries = 0;
+        numBytes = 0;
         long vloVersion = txnSnapshot.getSequence();
         startTime = LocalDateTime.now();
         this.mdkv.put(CheckpointEntry.CheckpointDictKey.START_TIME, startTime.toString());
@@ -204,7 +355,14 @@ public class CheckpointWriter<T extends StreamingMap> {
                 ImmutableMap.copyOf(this.mdkv);
         CheckpointEntry cp = new CheckpointEntry(CheckpointEntry.CheckpointEntryType.START,
                 author, checkpointId, streamId, mdkv, null);
+        if (compressionCodec != null) {
+            cp.setCompressionDictionary(compressionCodec.getDictionary());
+        }
         startAddress = nonCachedAppend(cp, checkpointStreamID);
+        if (compressionCodec != null) {
+            CheckpointEntry.registerCompressionDictionary(checkpointId, startAddress,
+                    compressionCodec.getDictionary());
+        }
 
         postAppendFunc.accept(cp, startAddress);
     }
@@ -216,18 +374,35 @@ public class CheckpointWriter<T extends StreamingMap> {
         return sv.append(object, null, CacheOption.WRITE_AROUND, streamIDs);
     }
 
+    /**
+     *  Append a CONTINUATION record without caching it. Compressed
+     *  records are not compressed a second time by the runtime's codec.
+     */
+    private long nonCachedAppend(CheckpointEntry cp, boolean compressed, UUID ... streamIDs) {
+        if (compressed) {
+            return sv.append(cp, null, CacheOption.WRITE_AROUND, Codec.Type.NONE, streamIDs);
+        }
+        return nonCachedAppend(cp, streamIDs);
+    }
+
     /** Append zero or more CONTINUATION records to this
      *  object's stream.  Each will contain a fraction of
      *  the state of the object that we're checkpointing
-     *  (up to batchSize items at a time).
+     *  (about batchBytes of serialized entries, and up to
+     *  batchSize items at a time).
+     *
+     *  <p>The batches are cut on the current thread, while the
+     *  records are serialized and appended by the appendExecutor,
+     *  up to maxInFlightAppends at a time. The records of a single
+     *  checkpoint can therefore land in the log in any order, but
+     *  all of them are written before this method returns.</p>
      *
      *  <p>Corfu client transaction management, if desired, is the
      *  caller's responsibility.</p>
      *
-     *  <p>The Iterators class appears to preserve the laziness
-     *  of Stream processing; we don't wish to use more
-     *  memory than strictly necessary to generate the
-     *  checkpoint.  NOTE: It would be even more useful if
+     *  <p>The entries are pulled lazily from the stream; we don't
+     *  wish to use more memory than strictly necessary to generate
+     *  the checkpoint.  NOTE: It would be even more useful if
      *  the map had a lazy iterator: the eagerness of
      *  map.keySet().stream() is not ideal, but at least
      *  it should be much smaller than the entire map.</p>
@@ -238,50 +413,132 @@ public class CheckpointWriter<T extends StreamingMap> {
      *  at the end of this function.  Any Corfu data
      *  modifying ops will be undone by the TXAbort().</p>
      *
-     * @return Stream of global log addresses of the CONTINUATION records written.
+     * @return Number of entries written in the CONTINUATION records.
      */
     public int appendObjectState(Stream<Map.Entry> entryStream) {
+        Preconditions.checkArgument(batchSize > 0, "batchSize must be positive");
+        Preconditions.checkArgument(maxInFlightAppends > 0, "maxInFlightAppends must be positive");
+
         long totalReadTime = 0; // includes read and compaction
-        long totalWriteTime = 0;
+        final long writeStart = System.currentTimeMillis();
 
         ImmutableMap<CheckpointEntry.CheckpointDictKey, String> mdkv =
                 ImmutableMap.copyOf(this.mdkv);
 
-        final Iterable<List<Map.Entry>> partitions =
-                Iterables.partition(entryStream::iterator, batchSize);
+        final Iterator<Map.Entry> entries = entryStream.iterator();
+        final Deque<CompletableFuture<ContinuationAppend>> inFlight = new ArrayDeque<>();
         int entryCount = 0;
 
-        for (List<Map.Entry> partition : partitions) {
-            final long readStart = System.currentTimeMillis();
-            MultiSMREntry smrEntries = new MultiSMREntry();
-            for (Map.Entry entry : partition) {
-                smrEntries.addTo(new SMREntry("put",
-                        new Object[]{keyMutator.apply(entry.getKey()),
-                                valueMutator.apply(entry.getValue())},
-                        serializer));
-                entryCount++;
+        try {
+            while (entries.hasNext()) {
+                final long readStart = System.currentTimeMillis();
+                final int limit = nextBatchSize();
+                MultiSMREntry smrEntries = new MultiSMREntry();
+                int batchCount = 0;
+                while (batchCount < limit && entries.hasNext()) {
+                    Map.Entry entry = entries.next();
+                    smrEntries.addTo(new SMREntry("put",
+                            new Object[]{keyMutator.apply(entry.getKey()),
+                                    valueMutator.apply(entry.getValue())},
+                            serializer));
+                    batchCount++;
+                }
+                entryCount += batchCount;
+                totalReadTime += System.currentTimeMillis() - readStart;
+
+                CheckpointEntry cp = new CheckpointEntry(CheckpointEntry
+                        .CheckpointEntryType.CONTINUATION,
+                        author, checkpointId, streamId, mdkv, smrEntries);
+                if (compressionCodec != null) {
+                    cp.compressSmrEntries(compressionCodec, startAddress);
+                }
+
+                while (inFlight.size() >= maxInFlightAppends) {
+                    completeAppend(inFlight.poll());
+                }
+                final int appendedCount = batchCount;
+                inFlight.add(CompletableFuture.supplyAsync(
+                        () -> appendContinuation(cp, appendedCount), appendExecutor));
+
+                // Complete the appends in order as soon as they are done, so that a
+                // synchronous appendExecutor runs postAppendFunc right after each append.
+                while (!inFlight.isEmpty() && inFlight.peek().isDone()) {
+                    completeAppend(inFlight.poll());
+                }
             }
-            totalReadTime += System.currentTimeMillis() - readStart;
-
-            CheckpointEntry cp = new CheckpointEntry(CheckpointEntry
-                    .CheckpointEntryType.CONTINUATION,
-                    author, checkpointId, streamId, mdkv, smrEntries);
-            final long writeStart = System.currentTimeMillis();
-            long pos = nonCachedAppend(cp, checkpointStreamID);
-            totalWriteTime += System.currentTimeMillis() - writeStart;
-
-            postAppendFunc.accept(cp, pos);
-            numEntries++;
-            // CheckpointEntry::serialize() has a side-effect we use
-            // for an accurate count of serialized bytes of SRMEntries.
-            numBytes += cp.getSmrEntriesBytes();
+
+            while (!inFlight.isEmpty()) {
+                completeAppend(inFlight.poll());
+            }
+        } finally {
+            // Don't let the appends of a failed checkpoint outlive it.
+            inFlight.forEach(append -> append.handle((result, ex) -> null).join());
         }
 
         log.info("Total read time: {}, total write time: {}",
-                totalReadTime, totalWriteTime);
+                totalReadTime, System.currentTimeMillis() - writeStart - totalReadTime);
         return entryCount;
     }
 
+    /** Number of entries of the next CONTINUATION record, estimated from the
+     *  average serialized size of the entries appended so far.
+     */
+    private int nextBatchSize() {
+        final long entries = appendedEntries.get();
+        if (entries == 0) {
+            return Math.min(batchSize, INITIAL_BATCH_SIZE);
+        }
+
+        long budget = batchBytes;
+        final int maxWriteSize = rt.getParameters().getMaxWriteSize();
+        if (maxWriteSize > 0) {
+            budget = Math.min(budget, maxWriteSize);
+        }
+        final long entryBytes = Math.max(1, appendedEntryBytes.get() / entries);
+        return (int) Math.max(1, Math.min(batchSize, budget / entryBytes));
+    }
+
+    /** Serialize and append a CONTINUATION record, on the appendExecutor.
+     */
+    private ContinuationAppend appendContinuation(CheckpointEntry cp, int batchCount) {
+        long pos = nonCachedAppend(cp, compressionCodec != null, checkpointStreamID);
+        // CheckpointEntry::serialize() has a side-effect we use
+        // for an accurate count of serialized bytes of SRMEntries.
+        appendedEntryBytes.addAndGet(cp.getSmrEntriesBytes());
+        appendedEntries.addAndGet(batchCount);
+        return new ContinuationAppend(cp, pos);
+    }
+
+    /** Wait for a CONTINUATION record to be appended and account for it, on the current thread.
+     */
+    private void completeAppend(CompletableFuture<ContinuationAppend> append) {
+        final ContinuationAppend result;
+        try {
+            result = append.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        }
+
+        postAppendFunc.accept(result.cp, result.address);
+        numEntries++;
+        numBytes += result.cp.getSmrEntriesBytes();
+    }
+
+    /** A CONTINUATION record and the address it was appended at.
+     */
+    private static class ContinuationAppend {
+        final CheckpointEntry cp;
+        final long address;
+
+        ContinuationAppend(CheckpointEntry cp, long address) {
+            this.cp = cp;
+            this.address = address;
+        }
+    }
+
     /** Append a checkpoint END record to this object's stream.
      *
      *  <p>Corfu client transaction management, if desired, is the
@@ -60,7 +60,10 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -100,6 +103,19 @@ public class CorfuRuntime {
         @Default
         int bulkReadSize = 10;
 
+        /**
+         * The number of batches a state transfer reads and writes concurrently.
+         */
+        @Default
+        int stateTransferParallelism = 4;
+
+        /**
+         * The maximal rate (bytes/sec) at which a state transfer reads from the
+         * cluster, or 0 if unlimited.
+         */
+        @Default
+        long stateTransferBandwidth = 0;
+
         /**
          * How much time the Fast Loader has to get the maps up to date.
          *
@@ -108,6 +124,21 @@ public class CorfuRuntime {
          */
         @Default
         Duration fastLoaderTimeout = Duration.ofMinutes(30);
+
+        /**
+         * The max total weight (number of entries) of the copies of past object versions
+         * that are kept for snapshot transactions, so that they can read an object at an
+         * older version without rolling it back. A copy is made under the write lock of the
+         * object, so keeping copies is opt-in: 0 (the default) keeps no copy.
+         */
+        @Default
+        long maxObjectSnapshotWeight = 0;
+
+        /**
+         * The max number of copies of past versions kept for a single object.
+         */
+        @Default
+        int maxObjectSnapshotVersions = 4;
         // endregion
 
         // region Address Space Parameters
@@ -126,6 +157,26 @@ public class CorfuRuntime {
          */
         @Default Duration holeFillTimeout = Duration.ofSeconds(10);
 
+        /**
+         * Whether reads of committed addresses are spread across every log unit of a chain,
+         * rather than sent to the last log unit of the chain.
+         */
+        @Default
+        boolean replicaReadsEnabled = false;
+
+        /**
+         * The minimum time between two requests for the committed tail of a chain.
+         */
+        @Default
+        Duration committedTailRefreshInterval = Duration.ofMillis(100);
+
+        /**
+         * Whether writes are propagated to the log units after the head of a chain in parallel,
+         * rather than one after the other.
+         */
+        @Default
+        boolean fanOutWritesEnabled = false;
+
         /**
          * Whether or not to disable the cache.
          */
@@ -166,6 +217,14 @@ public class CorfuRuntime {
          */
         @Default
         int handshakeTimeout = 10;
+
+        /**
+         * Whether the client accepts large responses sent in chunks. Servers that predate
+         * chunked responses can't decode the handshake of a client that accepts them, so it
+         * should only be enabled once every server supports them.
+         */
+        @Default
+        boolean chunkedResponsesEnabled = false;
         // endregion
 
         // region Stream Parameters
@@ -182,6 +241,14 @@ public class CorfuRuntime {
         @Default
         boolean holeFillingDisabled = false;
 
+        /**
+         * Whether the conflict keys of a transaction are sent to the sequencer as packed
+         * fingerprints rather than as conflict params. Sequencers that predate the fingerprint
+         * encoding can't decode it, so it should only be enabled once every sequencer supports it.
+         */
+        @Default
+        boolean conflictFingerprintsEnabled = false;
+
         /**
          * Number of times to retry on an
          * {@link org.corfudb.runtime.exceptions.OverwriteException} before giving up.
@@ -210,6 +277,21 @@ public class CorfuRuntime {
         @Default
         int streamBatchSize = 10;
 
+        /**
+         * Stream Prefetch Window: max number of stream batches ({@code streamBatchSize} addresses each)
+         * that are read ahead of a stream's consumer, while the entries of the current batch are applied.
+         * The number of batches actually read ahead scales with the observed read latency.
+         * 0 disables reading ahead. It only applies when followBackpointersEnabled = false.
+         */
+        @Default
+        int streamPrefetchWindow = 8;
+
+        /**
+         * The number of threads which read stream batches ahead of the stream consumers.
+         */
+        @Default
+        int streamPrefetchThreads = 4;
+
         /**
          * Checkpoint read Batch Size: number of checkpoint addresses to fetch in batch when stream
          * address discovery mechanism relies on address maps instead of follow backpointers;
@@ -376,6 +458,23 @@ public class CorfuRuntime {
         @Default
         boolean shutdownNettyEventLoop = true;
 
+        /**
+         * True, if {@link NettyClientRouter}s should coalesce the messages written by
+         * concurrent callers into batches which the event loop flushes once, and expire
+         * requests with a shared timer instead of a timeout future per request.
+         * False by default.
+         */
+        @Default
+        boolean nettyBatchedTransport = false;
+
+        /**
+         * The number of channels a {@link NettyClientRouter} keeps open to its endpoint,
+         * if {@code nettyBatchedTransport} is enabled. Requests are spread over the
+         * connected channels round-robin.
+         */
+        @Default
+        int nettyChannelPoolSize = 1;
+
         /**
          * Netty channel options, if provided. If no options are set, we default to
          * the defaults in {@link this#DEFAULT_CHANNEL_OPTIONS}.
@@ -577,6 +676,13 @@ public class CorfuRuntime {
             .setNameFormat("CorfuRuntime-%d")
             .build());
 
+    /**
+     * The threads which read stream batches ahead of the stream consumers. They are
+     * only kept alive while there are batches to read.
+     */
+    @Getter
+    private final ExecutorService streamPrefetchExecutor;
+
     /**
      * Latest layout seen by the runtime.
      */
@@ -665,6 +771,15 @@ public class CorfuRuntime {
         // Set the local parameters field
         this.parameters = parameters;
 
+        final int prefetchThreads = Math.max(parameters.getStreamPrefetchThreads(), 1);
+        ThreadPoolExecutor prefetchExecutor = new ThreadPoolExecutor(prefetchThreads, prefetchThreads,
+                1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("StreamPrefetch-%d")
+                .build());
+        prefetchExecutor.allowCoreThreadTimeOut(true);
+        this.streamPrefetchExecutor = prefetchExecutor;
+
         // Populate the initial set of layout servers
         bootstrapLayoutServers = parameters.getLayoutServers().stream()
                 .map(NodeLocator::toString)
@@ -740,6 +855,7 @@ public class CorfuRuntime {
         isShutdown = true;
         garbageCollector.stop();
         runtimeExecutor.shutdownNow();
+        streamPrefetchExecutor.shutdownNow();
         if (layout != null) {
             try {
                 layout.cancel(true);
@@ -2,7 +2,10 @@ package org.corfudb.runtime;
 
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.collections.StreamingMap;
@@ -17,15 +20,50 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
- * Checkpoint multiple CorfuTables serially as a prerequisite for a later log trim.
+ * Checkpoint multiple CorfuTables as a prerequisite for a later log trim.
+ *
+ * <p>All the tables are checkpointed at a shared snapshot, up to parallelism
+ * tables at a time, and every table keeps several CONTINUATION records in flight.</p>
  */
 @Slf4j
 public class MultiCheckpointWriter<T extends StreamingMap> {
     @Getter
     private List<ICorfuSMR<T>> maps = new ArrayList<>();
 
+    /** Number of tables checkpointed at the same time.
+     */
+    @Getter
+    @Setter
+    private int parallelism = Math.min(Runtime.getRuntime().availableProcessors(), 4);
+
+    /** Max number of CONTINUATION records being appended at the same time, per table.
+     */
+    @Getter
+    @Setter
+    private int maxInFlightAppends = CheckpointWriter.DEFAULT_MAX_IN_FLIGHT_APPENDS;
+
+    /** Byte budget of a single CONTINUATION record.
+     */
+    @Getter
+    @Setter
+    private int batchBytes = CheckpointWriter.DEFAULT_BATCH_BYTES;
+
+    /** Compress the CONTINUATION records with a dictionary trained on each table.
+     *  Off by default, for the same rolling upgrade reason as in {@link CheckpointWriter}.
+     */
+    @Getter
+    @Setter
+    private boolean compressionEnabled = false;
+
     // Registry and Timer used for measuring append checkpoints
     private static final MetricRegistry metricRegistry = CorfuRuntime.getDefaultMetrics();
     private static final String MULTI_CHECKPOINT_TIMER_NAME = CorfuComponent.GARBAGE_COLLECTION +
@@ -54,51 +92,72 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
      * @return Global log address of the first record of
      */
     public Token appendCheckpoints(CorfuRuntime rt, String author) {
-        int numRetries = rt.getParameters().getCheckpointRetries();
-        int retry = 0;
+        Preconditions.checkArgument(parallelism > 0, "parallelism must be positive");
+        final int numRetries = rt.getParameters().getCheckpointRetries();
+        final AtomicInteger retry = new AtomicInteger();
         log.info("appendCheckpoints: appending checkpoints for {} maps", maps.size());
 
         Token minSnapshot = Token.UNINITIALIZED;
+        if (maps.isEmpty()) {
+            return minSnapshot;
+        }
+
+        final ExecutorService tableExecutor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("CheckpointWriter-%d")
+                        .build());
+        final ExecutorService appendExecutor = Executors.newFixedThreadPool(
+                parallelism * maxInFlightAppends,
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("CheckpointAppender-%d")
+                        .build());
 
         final long cpStart = System.currentTimeMillis();
         try (Timer.Context context = MetricsUtils.getConditionalContext(appendCheckpointsTimer)) {
+            // A single NO_OP entry materializes all the streams, its address is the shared
+            // snapshot at which every table is checkpointed.
+            final UUID[] streamIds = maps.stream()
+                    .map(ICorfuSMR::getCorfuStreamID)
+                    .toArray(UUID[]::new);
+            final Token sharedSnapshot = retryOnWrongEpoch(
+                    () -> CheckpointWriter.forceNoOpEntry(rt, streamIds), retry, numRetries);
+
+            List<CompletableFuture<CheckpointWriter<T>>> checkpoints = new ArrayList<>();
             for (ICorfuSMR<T> map : maps) {
-                UUID streamId = map.getCorfuStreamID();
-
-                CheckpointWriter<T> cpw = new CheckpointWriter(rt, streamId, author, (T) map);
-                ISerializer serializer = ((CorfuCompileProxy) map.getCorfuSMRProxy())
-                                .getSerializer();
-                cpw.setSerializer(serializer);
-
-                Token minCPSnapshot = Token.UNINITIALIZED;
-                while (retry < numRetries) {
-                    try {
-                        minCPSnapshot = cpw.appendCheckpoint();
-                        break;
-                    } catch (WrongEpochException wee) {
-                        log.info("Epoch changed to {} during append checkpoint snapshot resolution. Sequencer" +
-                                " failover can lead to potential epoch regression, retry {}/{}", wee.getCorrectEpoch(),
-                                retry, numRetries);
-                        retry++;
-                        if (retry == numRetries) {
-                            String msg = String.format("Epochs changed during checkpoint cycle, " +
-                                    "over more than %s times. Potential sequencer regressions can lead to data loss. " +
-                                    "Aborting.", numRetries);
-                            throw new IllegalStateException(msg);
-                        }
+                checkpoints.add(CompletableFuture.supplyAsync(() -> {
+                    CheckpointWriter<T> cpw = newCheckpointWriter(rt, author, map);
+                    cpw.setAppendExecutor(appendExecutor);
+
+                    // Once the shared snapshot failed, the table needs a snapshot of its own.
+                    AtomicBoolean firstAttempt = new AtomicBoolean(true);
+                    Token cpSnapshot = retryOnWrongEpoch(() -> firstAttempt.getAndSet(false)
+                            ? cpw.appendCheckpoint(sharedSnapshot)
+                            : cpw.appendCheckpoint(), retry, numRetries);
+
+                    if (cpSnapshot.compareTo(sharedSnapshot) < 0) {
+                        // Given that the snapshot returned by appendCheckpoint is a global snapshot that
+                        // shouldn't regress.
+                        String msg = String.format("Potential epoch regression. Checkpoint of %s returned a " +
+                                "smaller snapshot %s than the shared snapshot %s.", map.getCorfuStreamID(),
+                                cpSnapshot, sharedSnapshot);
+                        throw new IllegalStateException(msg);
                     }
-                }
+                    return cpw;
+                }, tableExecutor));
+            }
 
-                if (minSnapshot == Token.UNINITIALIZED) {
-                    minSnapshot = minCPSnapshot;
-                } else if (minCPSnapshot.compareTo(minSnapshot) < 0) {
-                    // Given that the snapshot returned by appendCheckpoint is a global snapshot that shouldn't regress.
-                    String msg = String.format("Potential epoch regression. Subsequent checkpoint returned a greater" +
-                            "snapshot {} than previous {}.", minCPSnapshot, minSnapshot);
-                    throw new IllegalStateException(msg);
-                }
+            minSnapshot = sharedSnapshot;
+            for (int i = 0; i < maps.size(); i++) {
+                CheckpointWriter<T> cpw = join(checkpoints.get(i));
+                log.info("appendCheckpoints: checkpoint of {} took {} ms, entries({}), cpSize({}) bytes",
+                        maps.get(i).getCorfuStreamID(), cpw.getDuration(), cpw.getNumEntries(),
+                        cpw.getNumBytes());
             }
         } finally {
+            tableExecutor.shutdownNow();
+            appendExecutor.shutdownNow();
             // TODO(Maithem): print cp id?
             log.trace("appendCheckpoints: finished, author '{}' at min globalAddress {}",
                     author, minSnapshot);
@@ -111,4 +170,49 @@ public class MultiCheckpointWriter<T extends StreamingMap> {
         return minSnapshot;
     }
 
+    @SuppressWarnings("unchecked")
+    private CheckpointWriter<T> newCheckpointWriter(CorfuRuntime rt, String author, ICorfuSMR<T> map) {
+        CheckpointWriter<T> cpw = new CheckpointWriter(rt, map.getCorfuStreamID(), author, (T) map);
+        ISerializer serializer = ((CorfuCompileProxy) map.getCorfuSMRProxy())
+                .getSerializer();
+        cpw.setSerializer(serializer);
+        cpw.setBatchBytes(batchBytes);
+        cpw.setMaxInFlightAppends(maxInFlightAppends);
+        cpw.setCompressionEnabled(compressionEnabled);
+        return cpw;
+    }
+
+    /**
+     * Run an action, retrying it whenever the epoch changes. The retries are counted
+     * across all the tables of a checkpoint cycle.
+     */
+    private static Token retryOnWrongEpoch(Supplier<Token> action, AtomicInteger retry, int numRetries) {
+        while (true) {
+            try {
+                return action.get();
+            } catch (WrongEpochException wee) {
+                int retries = retry.getAndIncrement();
+                log.info("Epoch changed to {} during append checkpoint snapshot resolution. Sequencer" +
+                                " failover can lead to potential epoch regression, retry {}/{}", wee.getCorrectEpoch(),
+                        retries, numRetries);
+                if (retries + 1 >= numRetries) {
+                    String msg = String.format("Epochs changed during checkpoint cycle, " +
+                            "over more than %s times. Potential sequencer regressions can lead to data loss. " +
+                            "Aborting.", numRetries);
+                    throw new IllegalStateException(msg);
+                }
+            }
+        }
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        }
+    }
 }
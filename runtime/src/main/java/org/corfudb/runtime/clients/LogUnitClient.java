@@ -24,6 +24,10 @@ import org.corfudb.protocols.wireprotocol.MultipleReadRequest;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
 import org.corfudb.protocols.wireprotocol.ReadRequest;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.protocols.wireprotocol.SegmentInstallRequest;
+import org.corfudb.protocols.wireprotocol.SegmentReadRequest;
+import org.corfudb.protocols.wireprotocol.SegmentReadResponse;
+import org.corfudb.protocols.wireprotocol.SegmentWriteRequest;
 import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.protocols.wireprotocol.TailsRequest;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
@@ -197,6 +201,17 @@ public class LogUnitClient extends AbstractClient {
         return sendMessageWithFuture(CorfuMsgType.TAIL_REQUEST.payloadMsg(new TailsRequest(TailsRequest.LOG_TAIL)));
     }
 
+    /**
+     * Get the committed tail, i.e. the highest address such that the log unit has written every
+     * address up to it. The committed tail is returned as the log tail of the response.
+     *
+     * @return a CompletableFuture which will complete with the committed tail once received.
+     */
+    public CompletableFuture<TailsResponse> getCommittedTail() {
+        return sendMessageWithFuture(CorfuMsgType.TAIL_REQUEST.payloadMsg(
+                new TailsRequest(TailsRequest.COMMITTED_TAIL)));
+    }
+
     /**
      * Get all stream tails (i.e., maximum address written to every stream) and global tail.
      *
@@ -238,6 +253,46 @@ public class LogUnitClient extends AbstractClient {
                 .payloadMsg(new KnownAddressRequest(startRange, endRange)));
     }
 
+    /**
+     * Read a range of bytes of a complete segment file.
+     *
+     * @param segment the segment to read
+     * @param offset  offset of the first byte to read in the segment file
+     * @param length  the maximal number of bytes to read
+     * @return a completable future which returns the bytes read, and the size of the segment
+     * file, which is negative if the segment can't be copied as a whole.
+     */
+    public CompletableFuture<SegmentReadResponse> readSegment(long segment, long offset, int length) {
+        return sendMessageWithFuture(CorfuMsgType.LOG_SEGMENT_READ_REQUEST
+                .payloadMsg(new SegmentReadRequest(segment, offset, length)));
+    }
+
+    /**
+     * Write a range of bytes of a segment file that is being copied to the log unit.
+     * The ranges have to be written in order.
+     *
+     * @param segment the segment being copied
+     * @param offset  offset of the bytes in the segment file
+     * @param data    the bytes to write
+     * @return a completable future which returns true on success.
+     */
+    public CompletableFuture<Boolean> writeSegment(long segment, long offset, byte[] data) {
+        return sendMessageWithFuture(CorfuMsgType.LOG_SEGMENT_WRITE
+                .payloadMsg(new SegmentWriteRequest(segment, offset, data)));
+    }
+
+    /**
+     * Verify a segment file that has been copied to the log unit, and install it in the log.
+     *
+     * @param segment     the segment that has been copied
+     * @param segmentSize the size of the segment file
+     * @return a completable future which returns true on success.
+     */
+    public CompletableFuture<Boolean> installSegment(long segment, long segmentSize) {
+        return sendMessageWithFuture(CorfuMsgType.LOG_SEGMENT_INSTALL
+                .payloadMsg(new SegmentInstallRequest(segment, segmentSize)));
+    }
+
     /**
      * Send a prefix trim request that will trim the log up to a certain address
      *
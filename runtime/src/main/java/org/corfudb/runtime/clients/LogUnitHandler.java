@@ -12,6 +12,7 @@ import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.KnownAddressResponse;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
+import org.corfudb.protocols.wireprotocol.SegmentReadResponse;
 import org.corfudb.protocols.wireprotocol.TailsResponse;
 import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.DataOutrankedException;
@@ -229,4 +230,18 @@ public class LogUnitHandler implements IClient, IHandler<LogUnitClient> {
                                                        ChannelHandlerContext ctx, IClientRouter r) {
         return msg.getPayload();
     }
+
+    /**
+     * Handle a LOG_SEGMENT_READ_RESPONSE message.
+     *
+     * @param msg Incoming Message
+     * @param ctx Context
+     * @param r   Router
+     * @return SegmentReadResponse payload with the bytes read from the segment file.
+     */
+    @ClientHandler(type = CorfuMsgType.LOG_SEGMENT_READ_RESPONSE)
+    private static Object handleSegmentReadResponse(CorfuPayloadMsg<SegmentReadResponse> msg,
+                                                    ChannelHandlerContext ctx, IClientRouter r) {
+        return msg.getPayload();
+    }
 }
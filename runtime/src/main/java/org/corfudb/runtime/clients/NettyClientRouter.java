@@ -1,6 +1,8 @@
 package org.corfudb.runtime.clients;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
@@ -19,18 +21,28 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AttributeKey;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.annotation.Nonnull;
 import javax.net.ssl.SSLException;
@@ -42,8 +54,11 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.corfudb.protocols.wireprotocol.ClientHandshakeHandler;
 import org.corfudb.protocols.wireprotocol.ClientHandshakeHandler.ClientHandshakeEvent;
+import org.corfudb.protocols.wireprotocol.CorfuChunkMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.IChunkable;
 import org.corfudb.protocols.wireprotocol.InboundMsgFilterHandler;
 import org.corfudb.protocols.wireprotocol.NettyCorfuMessageDecoder;
 import org.corfudb.protocols.wireprotocol.NettyCorfuMessageEncoder;
@@ -65,6 +80,12 @@ import org.corfudb.util.Sleep;
 /**
  * A client router which multiplexes operations over the Netty transport.
  *
+ * <p>If {@link CorfuRuntimeParameters#isNettyBatchedTransport()} is set, the router keeps
+ * a pool of channels to its endpoint. The messages written to a channel by concurrent
+ * callers are queued, and the channel's event loop writes all the queued messages and
+ * flushes them once. Request timeouts are then tracked by a single {@link HashedWheelTimer}
+ * shared by all the routers, and the future of a request is its only allocation.
+ *
  * <p>Created by mwei on 12/8/15.
  */
 @Slf4j
@@ -72,6 +93,27 @@ import org.corfudb.util.Sleep;
 public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         implements IClientRouter {
 
+    /**
+     * The tick duration of the request timeout timer (milliseconds).
+     */
+    private static final long TIMEOUT_TICK_MS = 10;
+
+    /**
+     * Expires the requests of all the routers that use the batched transport.
+     */
+    private static final HashedWheelTimer REQUEST_TIMER = new HashedWheelTimer(
+            new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("request-timeout-%d")
+                    .build(),
+            TIMEOUT_TICK_MS, TimeUnit.MILLISECONDS);
+
+    /**
+     * The slot of a channel in the channel pool.
+     */
+    private static final AttributeKey<Integer> CHANNEL_SLOT =
+            AttributeKey.valueOf("corfu.channel-slot");
+
     /**
      * New connection timeout (milliseconds).
      */
@@ -113,11 +155,26 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
      */
     public final Map<Long, CompletableFuture> outstandingRequests;
 
+    /**
+     * The chunks received so far of the chunked responses to the outstanding requests.
+     */
+    private final Map<Long, List<CorfuMsg>> partialResponses;
+
     /**
      * The currently registered channel.
      */
     private volatile Channel channel = null;
 
+    /**
+     * The writers of the connected channels, by their slot in the channel pool.
+     */
+    private final AtomicReferenceArray<ChannelWriter> channelWriters;
+
+    /**
+     * The slot of the next channel to send a request on.
+     */
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
     /**
      * Whether or not this router is shutdown.
      */
@@ -143,6 +200,7 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
 
     private SslContext sslContext;
     private final Map<CorfuMsgType, String> timerNameCache;
+    private final Histogram flushBatchSize;
 
     /**
      * Creates a new NettyClientRouter connected to the specified host and port with the
@@ -167,6 +225,8 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         }
 
         timerNameCache = mapBuilder.build();
+        flushBatchSize = CorfuRuntime.getDefaultMetrics()
+                .histogram(CorfuComponent.CLIENT_ROUTER + "flush-batch-size");
 
         timeoutConnect = parameters.getConnectionTimeout().toMillis();
         timeoutResponse = parameters.getRequestTimeout().toMillis();
@@ -178,8 +238,14 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         clientList = new ArrayList<>();
         requestID = new AtomicLong();
         outstandingRequests = new ConcurrentHashMap<>();
+        partialResponses = new ConcurrentHashMap<>();
         shutdown = true;
 
+        Preconditions.checkArgument(parameters.getNettyChannelPoolSize() > 0,
+                "Invalid channel pool size: %s", parameters.getNettyChannelPoolSize());
+        channelWriters = new AtomicReferenceArray<>(parameters.isNettyBatchedTransport()
+                ? parameters.getNettyChannelPoolSize() : 1);
+
         if (parameters.isTlsEnabled()) {
             try {
                 sslContext = SslContextConstructor.constructSslContext(false,
@@ -206,7 +272,14 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
 
         // Asynchronously connect, retrying until shut down.
         // Once connected, connectionFuture will be completed.
-        connectAsync(b);
+        if (parameters.isNettyBatchedTransport()) {
+            // Each channel of the pool reconnects with its own bootstrap, to keep its slot
+            for (int slot = 0; slot < channelWriters.length(); slot++) {
+                connectAsync(b.clone().attr(CHANNEL_SLOT, slot));
+            }
+        } else {
+            connectAsync(b);
+        }
     }
 
     /**
@@ -284,7 +357,8 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
                 ch.pipeline().addLast(new NettyCorfuMessageDecoder());
                 ch.pipeline().addLast(new NettyCorfuMessageEncoder());
                 ch.pipeline().addLast(new ClientHandshakeHandler(parameters.getClientId(),
-                    node.getNodeId(), parameters.getHandshakeTimeout()));
+                    node.getNodeId(), parameters.getHandshakeTimeout(),
+                    parameters.isChunkedResponsesEnabled()));
 
                 // If parameters include message filters, add corresponding filter handler
                 if (parameters.getNettyClientInboundMsgFilters() != null) {
@@ -306,15 +380,29 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
             @Nonnull Bootstrap bootstrap) {
         channel.closeFuture().addListener((r) -> {
             log.debug("addReconnectionOnCloseFuture[{}]: disconnected", node);
-            // Remove the current completion future, forcing clients to wait for reconnection.
-            connectionFuture = new CompletableFuture<>();
-            // Exceptionally complete all requests that were waiting for a completion.
+            int slot = getSlot(channel);
+            ChannelWriter writer = channelWriters.get(slot);
+            if (writer != null && writer.channel == channel) {
+                channelWriters.compareAndSet(slot, writer, null);
+            }
+            // If no other channel is connected, remove the current completion future,
+            // forcing clients to wait for reconnection.
+            if (!hasConnectedChannel()) {
+                connectionFuture = new CompletableFuture<>();
+            }
+            // Exceptionally complete all requests that were waiting for a completion
+            // on this channel.
             outstandingRequests.forEach((reqId, reqCompletableFuture) -> {
+                if (reqCompletableFuture instanceof OutstandingRequest
+                        && ((OutstandingRequest) reqCompletableFuture).channel != channel) {
+                    return;
+                }
                 reqCompletableFuture.completeExceptionally(
                         new NetworkException("Disconnected", node));
             // And also remove them.
             outstandingRequests.remove(reqId);
             });
+            partialResponses.keySet().removeIf(reqId -> !outstandingRequests.containsKey(reqId));
             // If we aren't shutdown, reconnect.
             if (!shutdown) {
                 Sleep.sleepUninterruptibly(parameters.getConnectionRetryRate());
@@ -376,6 +464,49 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         if (channel != null && channel.isOpen()) {
             channel.close();
         }
+        for (int slot = 0; slot < channelWriters.length(); slot++) {
+            ChannelWriter writer = channelWriters.get(slot);
+            if (writer != null && writer.channel.isOpen()) {
+                writer.channel.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of a channel in the channel pool.
+     */
+    private static int getSlot(@Nonnull Channel channel) {
+        Integer slot = channel.attr(CHANNEL_SLOT).get();
+        return slot == null ? 0 : slot;
+    }
+
+    /**
+     * Whether any channel of the pool is connected.
+     */
+    private boolean hasConnectedChannel() {
+        for (int slot = 0; slot < channelWriters.length(); slot++) {
+            if (channelWriters.get(slot) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the writer of the next connected channel, round-robin.
+     *
+     * @return a channel writer, or null if no channel is connected
+     */
+    private ChannelWriter nextChannelWriter() {
+        final int poolSize = channelWriters.length();
+        final int start = Math.floorMod(nextSlot.getAndIncrement(), poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            ChannelWriter writer = channelWriters.get((start + i) % poolSize);
+            if (writer != null && writer.channel.isActive()) {
+                return writer;
+            }
+        }
+        return null;
     }
 
     /** {@inheritDoc}
@@ -417,6 +548,10 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
             return f;
         }
 
+        if (parameters.isNettyBatchedTransport() && ctx == null) {
+            return sendBatchedMessage(nextChannelWriter(), message);
+        }
+
         // Set up the timer and context to measure request
         final Timer roundTripMsgTimer = CorfuRuntime.getDefaultMetrics()
                 .timer(timerNameCache.get(message.getMsgType()));
@@ -468,6 +603,43 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         return cfTimeout;
     }
 
+    /**
+     * Send a message through the batched transport, and get a completable future to be
+     * fulfilled by the reply.
+     *
+     * @param writer  The writer of the channel to send the message on, or null if no
+     *                channel is connected.
+     * @param message The message to send.
+     * @param <T>     The type of completable to return.
+     * @return A completable future which will be fulfilled by the reply,
+     *     or a timeout in the case there is no response.
+     */
+    private <T> CompletableFuture<T> sendBatchedMessage(ChannelWriter writer,
+                                                        @NonNull CorfuMsg message) {
+        if (writer == null) {
+            // All the channels were disconnected since the connection future completed
+            CompletableFuture<T> f = new CompletableFuture<>();
+            f.completeExceptionally(new NetworkException("Disconnected", node));
+            return f;
+        }
+
+        final Timer.Context roundTripMsgContext = MetricsUtils.getConditionalContext(
+                CorfuRuntime.getDefaultMetrics().timer(timerNameCache.get(message.getMsgType())));
+
+        final long thisRequest = requestID.getAndIncrement();
+        message.setClientID(parameters.getClientId());
+        message.setRequestID(thisRequest);
+
+        final OutstandingRequest<T> request =
+                new OutstandingRequest<>(thisRequest, writer.channel, roundTripMsgContext);
+        outstandingRequests.put(thisRequest, request);
+        request.timeout = REQUEST_TIMER.newTimeout(request, timeoutResponse, TimeUnit.MILLISECONDS);
+
+        writer.write(message);
+        log.trace("Sent message: {}", message);
+        return request;
+    }
+
     /**
      * Send a one way message, without adding a completable future.
      *
@@ -481,7 +653,16 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         message.setClientID(parameters.getClientId());
         message.setRequestID(thisRequest);
         // Write this message out on the channel.
-        channel.writeAndFlush(message, channel.voidPromise());
+        if (parameters.isNettyBatchedTransport()) {
+            ChannelWriter writer = nextChannelWriter();
+            if (writer == null) {
+                log.debug("sendMessage: no channel connected to {}, dropping {}", node, message);
+                return;
+            }
+            writer.write(message);
+        } else {
+            channel.writeAndFlush(message, channel.voidPromise());
+        }
         log.trace("Sent one-way message: {}", message);
     }
 
@@ -549,9 +730,53 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
         return true;
     }
 
+    /**
+     * Assemble a chunked response from its chunks.
+     *
+     * @param chunkMsg The incoming chunk.
+     * @return The whole response if this is its last chunk, or null otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    private CorfuMsg assembleChunk(CorfuChunkMsg chunkMsg) {
+        final long requestId = chunkMsg.getRequestID();
+        if (!outstandingRequests.containsKey(requestId)) {
+            // The request timed out or failed, so the rest of its response is of no use.
+            partialResponses.remove(requestId);
+            log.debug("assembleChunk: Dropping a chunk of request {}, request not outstanding",
+                    requestId);
+            return null;
+        }
+
+        List<CorfuMsg> chunks = partialResponses.computeIfAbsent(requestId, id -> new ArrayList<>());
+        chunks.add(chunkMsg.getChunk());
+        if (!chunkMsg.isLast()) {
+            return null;
+        }
+
+        partialResponses.remove(requestId);
+        CorfuPayloadMsg<IChunkable> first = (CorfuPayloadMsg<IChunkable>) chunks.get(0);
+        List<IChunkable> rest = new ArrayList<>(chunks.size() - 1);
+        for (CorfuMsg chunk : chunks.subList(1, chunks.size())) {
+            rest.add(((CorfuPayloadMsg<IChunkable>) chunk).getPayload());
+        }
+
+        CorfuMsg response = first.getMsgType().payloadMsg(first.getPayload().merge(rest));
+        response.copyBaseFields(first);
+        return response;
+    }
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, CorfuMsg m) throws Exception {
         try {
+            if (m instanceof CorfuChunkMsg) {
+                if (!validateClientId(m)) {
+                    return;
+                }
+                m = assembleChunk((CorfuChunkMsg) m);
+                if (m == null) {
+                    return;
+                }
+            }
             // We get the handler for this message from the map
             IClient handler = handlerMap.get(m.getMsgType());
             if (handler == null) {
@@ -583,7 +808,19 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
      * the channel active in order to avoid a ReadTimeout exception that will
      * close the channel.
      */
-    private void keepAlive() {
+    private void keepAlive(ChannelHandlerContext ctx) {
+        if (parameters.isNettyBatchedTransport()) {
+            // Keep alive the idle channel of the pool, rather than the next one
+            ChannelWriter writer = channelWriters.get(getSlot(ctx.channel()));
+            if (writer == null || writer.channel != ctx.channel()) {
+                log.info("keepAlive: channel not established, skipping sending keep alive.");
+                return;
+            }
+            sendBatchedMessage(writer, CorfuMsgType.KEEP_ALIVE.msg());
+            log.trace("keepAlive: sent keep alive to {}", ctx.channel().remoteAddress());
+            return;
+        }
+
         if (channel == null || !channel.isOpen()) {
             log.info("keepAlive: channel not established or not open, skipping sending keep alive.");
             return;
@@ -599,8 +836,10 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
             // Handshake successful. Complete the connection future to allow
             // clients to proceed.
             channel = ctx.channel();
+            channelWriters.set(getSlot(channel), new ChannelWriter(channel));
             connectionFuture.complete(null);
-        } else if (evt.equals(ClientHandshakeEvent.FAILED) && connectionFuture.isDone()) {
+        } else if (evt.equals(ClientHandshakeEvent.FAILED) && connectionFuture.isDone()
+                && !hasConnectedChannel()) {
             // Handshake failed. If the current completion future is complete,
             // create a new one to unset it, causing future requests
             // to wait.
@@ -610,13 +849,113 @@ public class NettyClientRouter extends SimpleChannelInboundHandler<CorfuMsg>
             if (e.state() == IdleState.READER_IDLE) {
                 ctx.close();
             } else if (e.state() == IdleState.WRITER_IDLE) {
-                keepAlive();
+                keepAlive(ctx);
             }
         } else {
             log.warn("userEventTriggered: unhandled event {}", evt);
         }
     }
 
+    /**
+     * Coalesces the messages written to a channel: the messages are queued, and the
+     * first writer of a batch schedules a task on the event loop of the channel, which
+     * writes all the queued messages and flushes them once.
+     */
+    private class ChannelWriter implements Runnable {
+        private final Channel channel;
+        private final Queue<CorfuMsg> pendingMessages = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+        ChannelWriter(@Nonnull Channel channel) {
+            this.channel = channel;
+        }
+
+        void write(@Nonnull CorfuMsg message) {
+            // The message is queued before the flush is scheduled, so either a scheduled
+            // flush that hasn't cleared the flag yet writes it, or this writer schedules one.
+            pendingMessages.add(message);
+            if (flushScheduled.compareAndSet(false, true)) {
+                try {
+                    channel.eventLoop().execute(this);
+                } catch (RejectedExecutionException e) {
+                    // The event loop is shut down, the request fails or times out.
+                    log.debug("write[{}]: event loop rejected flush", node, e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            int batchSize = 0;
+            CorfuMsg message;
+            while ((message = pendingMessages.poll()) != null) {
+                channel.write(message, channel.voidPromise());
+                batchSize++;
+            }
+
+            if (batchSize > 0) {
+                channel.flush();
+                MetricsUtils.updateConditionalHistogram(flushBatchSize, batchSize);
+            }
+        }
+    }
+
+    /**
+     * The future of a request sent through the batched transport, which also expires the
+     * request if it isn't completed before the response timeout.
+     *
+     * @param <T> The type of the completion.
+     */
+    private class OutstandingRequest<T> extends CompletableFuture<T> implements TimerTask {
+        private final long requestId;
+        private final Channel channel;
+        private final Timer.Context roundTripMsgContext;
+        private volatile Timeout timeout;
+
+        OutstandingRequest(long requestId, @Nonnull Channel channel,
+                           Timer.Context roundTripMsgContext) {
+            this.requestId = requestId;
+            this.channel = channel;
+            this.roundTripMsgContext = roundTripMsgContext;
+        }
+
+        @Override
+        public boolean complete(T value) {
+            if (!super.complete(value)) {
+                return false;
+            }
+            MetricsUtils.stopConditionalContext(roundTripMsgContext);
+            cancelTimeout();
+            return true;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable cause) {
+            if (!super.completeExceptionally(cause)) {
+                return false;
+            }
+            cancelTimeout();
+            return true;
+        }
+
+        private void cancelTimeout() {
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+
+        @Override
+        public void run(Timeout t) {
+            if (outstandingRequests.remove(requestId, this)) {
+                completeExceptionally(new TimeoutException());
+                log.debug("sendBatchedMessage: Remove request {} to {} due to timeout!",
+                        requestId, node);
+            }
+        }
+    }
+
     // region Deprecated Methods
     // The methods below are deprecated and may be removed in a future release.
     /**
@@ -59,6 +59,20 @@ public class SequencerClient extends AbstractClient {
                 new StreamsAddressRequest(streamsAddressesRange)));
     }
 
+    /**
+     * Retrieves from the sequencer the address space for the specified streams in the given ranges,
+     * once one of the streams has an address in its range. If none of them gets one for a while,
+     * the sequencer responds with the (empty) address spaces anyway.
+     *
+     * @param streamsAddressesRange requested streams and ranges.
+     * @return streams address maps in the given range.
+     */
+    public CompletableFuture<StreamsAddressResponse> waitForStreamsAddressSpace(
+            List<StreamAddressRange> streamsAddressesRange) {
+        return sendMessageWithFuture(CorfuMsgType.STREAMS_ADDRESS_REQUEST.payloadMsg(
+                new StreamsAddressRequest(StreamsAddressRequest.STREAMS_WAIT, streamsAddressesRange)));
+    }
+
     /**
      * Fetches the next available token from the sequencer.
      *
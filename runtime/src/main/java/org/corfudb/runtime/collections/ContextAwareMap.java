@@ -24,6 +24,15 @@ public interface ContextAwareMap<K, V> extends StreamingMap<K, V>, AutoCloseable
         return this;
     }
 
+    /**
+     * Return a copy of this map, which is only read from then on.
+     *
+     * @return a copy of this map, or null if this map can not be copied
+     */
+    default ContextAwareMap<K, V> getSnapshot() {
+        return null;
+    }
+
     /**
      * Relinquish any resources associated with this object.
      */
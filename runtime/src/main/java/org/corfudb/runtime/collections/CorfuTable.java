@@ -12,8 +12,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
@@ -23,6 +25,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -37,6 +40,7 @@ import org.corfudb.annotations.TransactionalMethod;
 import org.corfudb.runtime.object.ICorfuSMR;
 import org.corfudb.util.ImmutableListSetWrapper;
 import org.corfudb.runtime.object.ICorfuExecutionContext;
+import org.corfudb.runtime.object.ICorfuSnapshotable;
 import org.corfudb.runtime.object.ICorfuVersionPolicy;
 
 /** The CorfuTable implements a simple key-value store.
@@ -53,13 +57,17 @@ import org.corfudb.runtime.object.ICorfuVersionPolicy;
  * that can be done on a retrieval on the index. A common projection is to emit only the
  * values.
  *
+ * <p>An index can be declared as sorted (see {@link Index.Spec#isSorted()}), in which case
+ * its index values are kept in a navigable map and the table can be queried by a range of
+ * index values with {@link #getByIndexRange}, rather than by scanning all of its entries.
+ *
  * @param <K>   The type of the primary key.
  * @param <V>   The type of the values to be mapped.
  */
 @Slf4j
 @CorfuObject
 public class CorfuTable<K ,V> implements
-        ICorfuTable<K, V>, ICorfuSMR<CorfuTable<K, V>> {
+        ICorfuTable<K, V>, ICorfuSMR<CorfuTable<K, V>>, ICorfuSnapshotable<CorfuTable<K, V>> {
 
     // The "main" map which contains the primary key-value mappings.
     private final ContextAwareMap<K,V> mainMap;
@@ -96,7 +104,8 @@ public class CorfuTable<K ,V> implements
                 this.secondaryIndexes, null);
 
         indices.forEach(index -> {
-            secondaryIndexes.put(index.getName().get(), new HashMap<>());
+            secondaryIndexes.put(index.getName().get(),
+                    index.isSorted() ? new TreeMap<>() : new HashMap<>());
             indexSpec.add(index);
         });
 
@@ -230,6 +239,87 @@ public class CorfuTable<K ,V> implements
         throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
     }
 
+    /**
+     * Get the mappings whose index values fall within a range, using the specified
+     * sorted index. The entries are returned in the order of their index values.
+     *
+     * @param indexName Name of the sorted secondary index to query.
+     * @param fromKey   Lowest index value of the range (inclusive), or null if unbounded.
+     * @param toKey     Highest index value of the range (exclusive), or null if unbounded.
+     * @return A collection of Map.Entry<K, V>
+     */
+    @Accessor
+    public @Nonnull
+    <I extends Comparable<I>>
+    Collection<Entry<K, V>> getByIndexRange(@Nonnull Index.Name indexName,
+                                            @Nullable I fromKey,
+                                            @Nullable I toKey) {
+        return indexRange(indexName, fromKey, toKey, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get a page of the mappings whose index values fall within a range, using the
+     * specified sorted index. The entries are returned in the order of their index values,
+     * so consecutive pages can be fetched by advancing the offset.
+     *
+     * @param indexName Name of the sorted secondary index to query.
+     * @param fromKey   Lowest index value of the range (inclusive), or null if unbounded.
+     * @param toKey     Highest index value of the range (exclusive), or null if unbounded.
+     * @param offset    Number of matching entries to skip.
+     * @param limit     Maximum number of entries to return.
+     * @return A collection of Map.Entry<K, V>
+     */
+    @Accessor
+    public @Nonnull
+    <I extends Comparable<I>>
+    Collection<Entry<K, V>> getByIndexRange(@Nonnull Index.Name indexName,
+                                            @Nullable I fromKey,
+                                            @Nullable I toKey,
+                                            int offset,
+                                            int limit) {
+        return indexRange(indexName, fromKey, toKey, offset, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <I extends Comparable<I>>
+    Collection<Entry<K, V>> indexRange(Index.Name indexName, I fromKey, I toKey,
+                                       int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Invalid page offset " + offset
+                    + " or limit " + limit);
+        }
+
+        String secondaryIndex = indexName.get();
+        Map<Comparable, Map<K, V>> secondaryMap = secondaryIndexes.get(secondaryIndex);
+        if (secondaryMap == null) {
+            log.error("CorfuTable: secondary index " + secondaryIndex + " does not exist for this table, cannot complete the get by index range.");
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not defined.");
+        }
+
+        if (!(secondaryMap instanceof NavigableMap)) {
+            log.error("CorfuTable: secondary index " + secondaryIndex + " is not sorted, cannot complete the get by index range.");
+            throw new IllegalArgumentException("Secondary Index " + secondaryIndex + " is not sorted.");
+        }
+
+        NavigableMap<Comparable, Map<K, V>> range = (NavigableMap<Comparable, Map<K, V>>) secondaryMap;
+        if (fromKey != null && toKey != null) {
+            if (fromKey.compareTo(toKey) >= 0) {
+                return Collections.emptyList();
+            }
+            range = range.subMap(fromKey, true, toKey, false);
+        } else if (fromKey != null) {
+            range = range.tailMap(fromKey, true);
+        } else if (toKey != null) {
+            range = range.headMap(toKey, false);
+        }
+
+        return range.values().stream()
+                .flatMap(slot -> slot.entrySet().stream())
+                .skip(offset)
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
     /**
      * Scan and filter using the specified index function and projection.
      *
@@ -633,9 +723,16 @@ public class CorfuTable<K ,V> implements
                 String indexName = index.getName().get();
                 Map<Comparable, Map<K, V>> secondaryIndex = secondaryIndexes.get(indexName);
                 for (Comparable indexKey : index.getMultiValueIndexFunction().apply(key, value)) {
+                    if (indexKey == null && index.isSorted()) {
+                        continue;
+                    }
                     Map<K, V> slot = secondaryIndex.get(indexKey);
                     if (slot != null) {
                         slot.remove(key, value);
+                        // Drop empty slots, so that range lookups don't visit stale index values
+                        if (slot.isEmpty()) {
+                            secondaryIndex.remove(indexKey);
+                        }
                     }
                 }
             }
@@ -671,6 +768,10 @@ public class CorfuTable<K ,V> implements
                 String indexName = index.getName().get();
                 Map<Comparable, Map<K, V>> secondaryIndex = secondaryIndexes.get(indexName);
                 for (Comparable indexKey : index.getMultiValueIndexFunction().apply(key, value)) {
+                    // Null index values can't be ordered, so they are not kept by sorted indexes
+                    if (indexKey == null && index.isSorted()) {
+                        continue;
+                    }
                     Map<K, V> slot = secondaryIndex.computeIfAbsent(indexKey, k -> new HashMap<>());
                     slot.put(key, value);
                 }
@@ -696,6 +797,41 @@ public class CorfuTable<K ,V> implements
         secondaryIndexes.clear();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The copy has its own main map and secondary indexes, and no optimistic table.
+     */
+    @DontInstrument
+    @Override
+    public CorfuTable<K, V> getSnapshot() {
+        ContextAwareMap<K, V> mainMapSnapshot = mainMap.getSnapshot();
+        if (mainMapSnapshot == null) {
+            return null;
+        }
+
+        Map<String, Map<Comparable, Map<K, V>>> secondaryIndexesSnapshot = new HashMap<>();
+        secondaryIndexes.forEach((indexName, secondaryIndex) -> {
+            Map<Comparable, Map<K, V>> secondaryIndexSnapshot =
+                    secondaryIndex instanceof TreeMap ? new TreeMap<>() : new HashMap<>();
+            secondaryIndex.forEach((indexKey, slot) ->
+                    secondaryIndexSnapshot.put(indexKey, new HashMap<>(slot)));
+            secondaryIndexesSnapshot.put(indexName, secondaryIndexSnapshot);
+        });
+
+        return new CorfuTable<>(mainMapSnapshot, new HashSet<>(indexSpec),
+                secondaryIndexesSnapshot, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @DontInstrument
+    @Override
+    public long getSnapshotWeight() {
+        return mainMap.size();
+    }
+
     /**
      * {@inheritDoc}
      */
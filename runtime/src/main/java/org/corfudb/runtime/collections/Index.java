@@ -47,16 +47,33 @@ public class Index {
     public static class Spec<K, V, I extends Comparable<?>> {
         private final Name name;
         private final MultiValueFunction<K, V, I> indexFunction;
+        private final boolean sorted;
 
         public Spec(Name name, Function<K, V, I> indexFunction) {
-            this.name = name;
-            this.indexFunction =
-                    (k, v) -> Collections.singletonList(indexFunction.apply(k, v));
+            this(name, indexFunction, false);
         }
 
         public Spec(Name name, MultiValueFunction<K, V, I> indexFunction) {
+            this(name, indexFunction, false);
+        }
+
+        /**
+         * Descriptor of an index that can optionally keep its index values sorted.
+         * A sorted index supports range lookups, at the cost of O(log n) updates.
+         *
+         * @param name          name of the index.
+         * @param indexFunction function computing the index value of a record.
+         * @param sorted        whether the index values are kept sorted.
+         */
+        public Spec(Name name, Function<K, V, I> indexFunction, boolean sorted) {
+            this(name, (MultiValueFunction<K, V, I>)
+                    (k, v) -> Collections.singletonList(indexFunction.apply(k, v)), sorted);
+        }
+
+        public Spec(Name name, MultiValueFunction<K, V, I> indexFunction, boolean sorted) {
             this.name = name;
             this.indexFunction = indexFunction;
+            this.sorted = sorted;
         }
 
         public Name getName() {
@@ -67,6 +84,10 @@ public class Index {
             return indexFunction;
         }
 
+        public boolean isSorted() {
+            return sorted;
+        }
+
 
         @Override
         public boolean equals(Object o) {
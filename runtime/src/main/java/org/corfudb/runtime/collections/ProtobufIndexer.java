@@ -36,7 +36,8 @@ public class ProtobufIndexer implements Index.Registry<Message, CorfuRecord<Mess
         return new Index.Spec<>(
                 () -> indexName,
                 (Index.Function<Message, CorfuRecord<Message, Message>, T>)
-                        (key, val) -> ClassUtils.cast(val.getPayload().getField(fieldDescriptor)));
+                        (key, val) -> ClassUtils.cast(val.getPayload().getField(fieldDescriptor)),
+                fieldDescriptor.getOptions().getExtension(CorfuOptions.schema).getSorted());
     }
 
     void registerIndices(final Descriptors.FieldDescriptor fieldDescriptor) {
@@ -46,6 +47,12 @@ public class ProtobufIndexer implements Index.Registry<Message, CorfuRecord<Mess
             if (fieldDescriptor.getType() == FieldDescriptor.Type.GROUP) {
                 throw new IllegalArgumentException("group is a deprecated, unsupported type");
             }
+            if (fieldDescriptor.getOptions().getExtension(CorfuOptions.schema).getSorted()
+                    && (fieldDescriptor.isRepeated()
+                    || fieldDescriptor.getJavaType() == FieldDescriptor.JavaType.MESSAGE)) {
+                throw new IllegalArgumentException("sorted secondary key " + indexName
+                        + " must be a non-repeated scalar field");
+            }
             indices.put(indexName, getIndex(indexName, fieldDescriptor));
         }
     }
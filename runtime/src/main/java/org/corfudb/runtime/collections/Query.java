@@ -6,9 +6,13 @@ import com.google.protobuf.Message;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
@@ -17,10 +21,15 @@ import java.util.function.BiPredicate;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
 import org.corfudb.runtime.object.transactions.Transaction.TransactionBuilder;
@@ -32,6 +41,10 @@ import org.corfudb.runtime.view.TableRegistry;
  * Query class provides methods to query the CorfuStore tables.
  * It has several methods to query by secondary index, to perform predicate joins and apply merge filters.
  * <p>
+ * Queries are executed as streams over a snapshot of the tables: entries are filtered in parallel
+ * and only the matching results are materialized, once. Joins on the equality of keys extracted
+ * from both sides are executed as hash joins.
+ * <p>
  * Created by zlokhandwala on 2019-08-09.
  */
 public class Query {
@@ -170,15 +183,20 @@ public class Query {
         }
     }
 
+    /**
+     * Returns a stream of the entries of a table that match a predicate, over a snapshot of the
+     * table at the specified timestamp. The snapshot is copied eagerly, the entries are filtered
+     * in parallel as the stream is consumed.
+     */
     @Nonnull
     private <K extends Message, V extends Message, M extends Message>
-    List<CorfuStoreEntry<K, V, M>> scanAndFilterByEntry(
+    Stream<CorfuStoreEntry<K, V, M>> filter(
             @Nonnull final String tableName,
             @Nullable Timestamp timestamp,
             @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> predicate) {
         try {
             txBegin(timestamp);
-            return ((Table<K, V, M>) getTable(tableName)).scanAndFilterByEntry(predicate);
+            return ((Table<K, V, M>) getTable(tableName)).entryStream().filter(predicate);
         } finally {
             txEnd();
         }
@@ -203,6 +221,54 @@ public class Query {
         return new QueryResult<>(((Table<K, V, M>) getTable(tableName)).getByIndex(indexName, indexKey));
     }
 
+    /**
+     * Query by a range of a sorted secondary index.
+     *
+     * @param tableName Table name.
+     * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param fromKey   Lowest key of the range (inclusive), or null if unbounded.
+     * @param toKey     Highest key of the range (exclusive), or null if unbounded.
+     * @param <K>       Type of Key.
+     * @param <V>       Type of Value.
+     * @param <I>       Type of index/secondary key.
+     * @return Result of the query, ordered by the secondary key.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, I extends Comparable<I>>
+    QueryResult<Entry<K, V>> getByIndexRange(@Nonnull final String tableName,
+                                             @Nonnull final String indexName,
+                                             @Nullable final I fromKey,
+                                             @Nullable final I toKey) {
+        return getByIndexRange(tableName, indexName, fromKey, toKey, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Query a page of a range of a sorted secondary index. Consecutive pages are fetched
+     * by advancing the offset by the page size.
+     *
+     * @param tableName Table name.
+     * @param indexName Index name. In case of protobuf-defined secondary index it is the field name.
+     * @param fromKey   Lowest key of the range (inclusive), or null if unbounded.
+     * @param toKey     Highest key of the range (exclusive), or null if unbounded.
+     * @param offset    Number of matching entries to skip.
+     * @param limit     Maximum number of entries to return.
+     * @param <K>       Type of Key.
+     * @param <V>       Type of Value.
+     * @param <I>       Type of index/secondary key.
+     * @return Result of the query, ordered by the secondary key.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, I extends Comparable<I>>
+    QueryResult<Entry<K, V>> getByIndexRange(@Nonnull final String tableName,
+                                             @Nonnull final String indexName,
+                                             @Nullable final I fromKey,
+                                             @Nullable final I toKey,
+                                             final int offset,
+                                             final int limit) {
+        return new QueryResult<>(((Table<K, V, M>) getTable(tableName))
+                .getByIndexRange(indexName, fromKey, toKey, offset, limit));
+    }
+
     private <K extends Message, V extends Message, M extends Message, R>
     Collection<R> initializeResultCollection(QueryOptions<K, V, M, R> queryOptions) {
         if (!queryOptions.isDistinct()) {
@@ -211,18 +277,50 @@ public class Query {
         if (queryOptions.getComparator() != null) {
             return new TreeSet<>(queryOptions.getComparator());
         }
-        return new HashSet<>();
+        // Keep the encounter order, so that pages of distinct results follow the same order as
+        // pages of non-distinct results.
+        return new LinkedHashSet<>();
     }
 
     private <K extends Message, V extends Message, M extends Message, R>
-    Collection<R> transform(Collection<CorfuStoreEntry<K, V, M>> queryResult,
-                            Collection<R> resultCollection,
-                            Function<CorfuStoreEntry<K, V, M>, R> projection) {
-        return queryResult.stream()
+    Stream<R> transform(Stream<CorfuStoreEntry<K, V, M>> queryResult,
+                        Function<CorfuStoreEntry<K, V, M>, R> projection) {
+        return queryResult
                 .map(v -> Optional.ofNullable(projection)
                         .map(function -> function.apply(v))
-                        .orElse((R) v))
-                .collect(Collectors.toCollection(() -> resultCollection));
+                        .orElse((R) v));
+    }
+
+    private <R> Stream<R> page(Stream<R> results, QueryOptions<?, ?, ?, R> queryOptions) {
+        if (!queryOptions.isPaged()) {
+            return results;
+        }
+        return results.skip(queryOptions.getOffset()).limit(queryOptions.getLimit());
+    }
+
+    /**
+     * Filters the entries of a table and projects the matching entries into the result
+     * collection defined by the query options.
+     */
+    private <K extends Message, V extends Message, M extends Message, R>
+    Collection<R> collect(@Nonnull final String tableName,
+                          @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> query,
+                          @Nonnull final QueryOptions<K, V, M, R> queryOptions) {
+        Stream<R> results = transform(filter(tableName, queryOptions.getTimestamp(), query),
+                queryOptions.getProjection());
+
+        if (!queryOptions.isDistinct()) {
+            return page(results, queryOptions).collect(Collectors.toCollection(ArrayList::new));
+        }
+
+        // Distinct results are only known once all of them have been collected.
+        Collection<R> distinctResults = results.collect(
+                Collectors.toCollection(() -> initializeResultCollection(queryOptions)));
+        if (!queryOptions.isPaged()) {
+            return distinctResults;
+        }
+        return page(distinctResults.stream(), queryOptions)
+                .collect(Collectors.toCollection(() -> initializeResultCollection(queryOptions)));
     }
 
     /**
@@ -262,10 +360,41 @@ public class Query {
                                 @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> query,
                                 @Nonnull final QueryOptions<K, V, M, R> queryOptions) {
 
-        List<CorfuStoreEntry<K, V, M>> filterResult
-                = scanAndFilterByEntry(tableName, queryOptions.getTimestamp(), query);
-        Collection<R> result = initializeResultCollection(queryOptions);
-        return new QueryResult<>(transform(filterResult, result, queryOptions.getProjection()));
+        return new QueryResult<>(collect(tableName, query, queryOptions));
+    }
+
+    /**
+     * Execute a scan and filter query, returning its results as a stream instead of
+     * materializing them. The stream operates over a snapshot of the table copied at the
+     * timestamp of the query options, so it can be consumed after this method returns.
+     * Entries are filtered and projected as the stream is consumed, and the stream can be
+     * made parallel to do so over multiple threads.
+     *
+     * @param tableName    Table name.
+     * @param query        Predicate to filter the values.
+     * @param queryOptions Query options. Distinct results are compared with equals, so a
+     *                     custom comparator is not supported.
+     * @param <K>          Type of Key.
+     * @param <V>          Type of Value.
+     * @param <R>          Type of returned projected values.
+     * @return Ordered stream of the results of the query.
+     */
+    @Nonnull
+    public <K extends Message, V extends Message, M extends Message, R>
+    Stream<R> executeQueryStream(@Nonnull final String tableName,
+                                 @Nonnull final Predicate<CorfuStoreEntry<K, V, M>> query,
+                                 @Nonnull final QueryOptions<K, V, M, R> queryOptions) {
+        if (queryOptions.isDistinct() && queryOptions.getComparator() != null) {
+            throw new IllegalArgumentException("Query::executeQueryStream does not support "
+                    + "distinct results with a comparator");
+        }
+
+        Stream<R> results = transform(filter(tableName, queryOptions.getTimestamp(), query)
+                .sequential(), queryOptions.getProjection());
+        if (queryOptions.isDistinct()) {
+            results = results.distinct();
+        }
+        return page(results, queryOptions);
     }
 
     /**
@@ -275,7 +404,8 @@ public class Query {
      * @param tableName2     Table name 2.
      * @param query1         Predicate to filter entries in table 1.
      * @param query2         Predicate to filter entries in table 2.
-     * @param joinPredicate  Predicate to filter entries during the join.
+     * @param joinPredicate  Predicate to filter entries during the join. The join is executed
+     *                       as a hash join if it is created by {@link #joinOnKeys}.
      * @param joinFunction   Function to merge entries.
      * @param joinProjection Project the merged entries.
      * @param <V1>           Type of Value in table 1.
@@ -317,7 +447,8 @@ public class Query {
      * @param query2         Predicate to filter entries in table 2.
      * @param queryOptions1  Query options to transform table 1 filtered values.
      * @param queryOptions2  Query options to transform table 2 filtered values.
-     * @param joinPredicate  Predicate to filter entries during the join.
+     * @param joinPredicate  Predicate to filter entries during the join. The join is executed
+     *                       as a hash join if it is created by {@link #joinOnKeys}.
      * @param joinFunction   Function to merge entries.
      * @param joinProjection Project the merged entries.
      * @param <V1>           Type of Value in table 1.
@@ -344,19 +475,14 @@ public class Query {
             @Nonnull final BiFunction<R, S, T> joinFunction,
             final Function<T, U> joinProjection) {
 
-        List<CorfuStoreEntry<K1, V1, M1>> filterResult1
-                = scanAndFilterByEntry(tableName1, queryOptions1.getTimestamp(), query1);
-        Collection<R> queryResult1 = transform(
-                filterResult1,
-                initializeResultCollection(queryOptions1),
-                queryOptions1.getProjection());
+        if (joinPredicate instanceof KeyJoinPredicate) {
+            return executeKeyJoinQuery(tableName1, tableName2, query1, query2,
+                    queryOptions1, queryOptions2, (KeyJoinPredicate<R, S, ?>) joinPredicate,
+                    joinFunction, joinProjection);
+        }
 
-        List<CorfuStoreEntry<K2, V2, M2>> filterResult2
-                = scanAndFilterByEntry(tableName2, queryOptions2.getTimestamp(), query2);
-        Collection<S> queryResult2 = transform(
-                filterResult2,
-                initializeResultCollection(queryOptions2),
-                queryOptions2.getProjection());
+        Collection<R> queryResult1 = collect(tableName1, query1, queryOptions1);
+        Collection<S> queryResult2 = collect(tableName2, query2, queryOptions2);
 
         Collection<T> joinResult = new ArrayList<>();
 
@@ -378,6 +504,128 @@ public class Query {
                 .collect(Collectors.toList()));
     }
 
+    /**
+     * Execute a join of 2 tables on a {@link KeyJoinPredicate} as a hash join.
+     */
+    private <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, S, J, T, U>
+    QueryResult<U> executeKeyJoinQuery(
+            @Nonnull final String tableName1,
+            @Nonnull final String tableName2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final QueryOptions<K2, V2, M2, S> queryOptions2,
+            @Nonnull final KeyJoinPredicate<R, S, J> joinPredicate,
+            @Nonnull final BiFunction<R, S, T> joinFunction,
+            final Function<T, U> joinProjection) {
+        return executeHashJoinQuery(tableName1, tableName2, query1, query2,
+                queryOptions1, queryOptions2, joinPredicate.getJoinKey1(), joinPredicate.getJoinKey2(),
+                joinFunction, joinProjection);
+    }
+
+    /**
+     * Execute an equality join of 2 tables as a hash join: the results of table 2 are
+     * hashed by their join key, and the results of table 1 probe them in parallel. The
+     * results are the same, and in the same order, as the ones of a nested loop join
+     * with the predicate {@code Objects.equals(joinKey1(r), joinKey2(s))}, but the join
+     * takes O(n + m) instead of O(n * m).
+     *
+     * @param tableName1     Table name 1.
+     * @param tableName2     Table name 2.
+     * @param query1         Predicate to filter entries in table 1.
+     * @param query2         Predicate to filter entries in table 2.
+     * @param queryOptions1  Query options to transform table 1 filtered values.
+     * @param queryOptions2  Query options to transform table 2 filtered values.
+     * @param joinKey1       Function to extract the join key of table 1 values.
+     * @param joinKey2       Function to extract the join key of table 2 values.
+     * @param joinFunction   Function to merge entries.
+     * @param joinProjection Project the merged entries.
+     * @param <V1>           Type of Value in table 1.
+     * @param <V2>           Type of Value in table 2.
+     * @param <R>            Type of projected values from table 1 from type V.
+     * @param <S>            Type of projected values from table 2 from type W.
+     * @param <J>            Type of the join key.
+     * @param <T>            Type of resultant value after merging type R and type S.
+     * @param <U>            Type of value projected from T.
+     * @return Result of query.
+     */
+    @Nonnull
+    public <K1 extends Message, K2 extends Message,
+            V1 extends Message, V2 extends Message,
+            M1 extends Message, M2 extends Message,
+            R, S, J, T, U>
+    QueryResult<U> executeHashJoinQuery(
+            @Nonnull final String tableName1,
+            @Nonnull final String tableName2,
+            @Nonnull final Predicate<CorfuStoreEntry<K1, V1, M1>> query1,
+            @Nonnull final Predicate<CorfuStoreEntry<K2, V2, M2>> query2,
+            @Nonnull final QueryOptions<K1, V1, M1, R> queryOptions1,
+            @Nonnull final QueryOptions<K2, V2, M2, S> queryOptions2,
+            @Nonnull final Function<R, J> joinKey1,
+            @Nonnull final Function<S, J> joinKey2,
+            @Nonnull final BiFunction<R, S, T> joinFunction,
+            final Function<T, U> joinProjection) {
+
+        Collection<R> queryResult1 = collect(tableName1, query1, queryOptions1);
+        Collection<S> queryResult2 = collect(tableName2, query2, queryOptions2);
+
+        Map<J, List<S>> hashedResult2 = new HashMap<>();
+        for (S value2 : queryResult2) {
+            hashedResult2.computeIfAbsent(joinKey2.apply(value2), k -> new ArrayList<>()).add(value2);
+        }
+
+        return new QueryResult<>(queryResult1.parallelStream()
+                .flatMap(value1 -> hashedResult2
+                        .getOrDefault(joinKey1.apply(value1), Collections.emptyList())
+                        .stream()
+                        .map(value2 -> joinFunction.apply(value1, value2)))
+                .map(v -> Optional.ofNullable(joinProjection)
+                        .map(function -> function.apply(v))
+                        .orElse((U) v))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Create a join predicate which holds when the join keys extracted from both values are
+     * equal. The join queries given such a predicate are executed as hash joins.
+     *
+     * @param joinKey1 Function to extract the join key of table 1 values.
+     * @param joinKey2 Function to extract the join key of table 2 values.
+     * @param <R>      Type of values of table 1.
+     * @param <S>      Type of values of table 2.
+     * @param <J>      Type of the join key.
+     * @return The join predicate.
+     */
+    @Nonnull
+    public static <R, S, J> KeyJoinPredicate<R, S, J> joinOnKeys(@Nonnull final Function<R, J> joinKey1,
+                                                                @Nonnull final Function<S, J> joinKey2) {
+        return new KeyJoinPredicate<>(joinKey1, joinKey2);
+    }
+
+    /**
+     * Join predicate on the equality of the keys extracted from both values.
+     *
+     * @param <R> Type of values of table 1.
+     * @param <S> Type of values of table 2.
+     * @param <J> Type of the join key.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class KeyJoinPredicate<R, S, J> implements BiPredicate<R, S> {
+
+        private final Function<R, J> joinKey1;
+
+        private final Function<S, J> joinKey2;
+
+        @Override
+        public boolean test(R value1, S value2) {
+            return Objects.equals(joinKey1.apply(value1), joinKey2.apply(value2));
+        }
+    }
+
     /**
      * Merge Function which combines the result two tables at a time.
      *
@@ -447,8 +695,7 @@ public class Query {
 
         List<Collection<?>> values = new ArrayList<>();
         for (String tableName : tableNames) {
-            Collection<Message> messages = scanAndFilterByEntry(tableName, null, corfuStoreEntry -> true)
-                    .stream()
+            Collection<Message> messages = filter(tableName, null, corfuStoreEntry -> true)
                     .map(CorfuStoreEntry::getPayload)
                     .collect(Collectors.toList());
             values.add(messages);
@@ -10,6 +10,9 @@ import lombok.Getter;
 
 /**
  * QueryOptions enables querying the CorfuStore with projections and custom comparators.
+ * The offset and limit restrict the query to a page of its results. Results are paged in
+ * the order of the comparator when one is given, and otherwise in the iteration order of
+ * the table, which is only stable as long as the table is not modified between pages.
  * <p>
  * Created by zlokhandwala on 2019-08-10.
  */
@@ -22,15 +25,28 @@ public class QueryOptions<K extends Message, V extends Message, M extends Messag
     private final boolean distinct;
     private final Comparator<R> comparator;
     private final Function<CorfuStoreEntry<K, V, M>, R> projection;
+    private final long offset;
+    private final long limit;
 
     private QueryOptions(Timestamp timestamp,
                          boolean distinct,
                          Comparator<R> comparator,
-                         Function<CorfuStoreEntry<K, V, M>, R> projection) {
+                         Function<CorfuStoreEntry<K, V, M>, R> projection,
+                         long offset,
+                         long limit) {
         this.timestamp = timestamp;
         this.distinct = distinct;
         this.comparator = comparator;
         this.projection = projection;
+        this.offset = offset;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns true if the query is restricted to a page of its results.
+     */
+    public boolean isPaged() {
+        return offset > 0 || limit < Long.MAX_VALUE;
     }
 
     public static class QueryOptionsBuilder<K extends Message, V extends Message, M extends Message, R> {
@@ -39,6 +55,8 @@ public class QueryOptions<K extends Message, V extends Message, M extends Messag
         private boolean distinct;
         private Comparator<R> comparator;
         private Function<CorfuStoreEntry<K, V, M>, R> projection;
+        private long offset = 0;
+        private long limit = Long.MAX_VALUE;
 
         public static <KEY extends Message, VALUE extends Message, META extends Message, S>
         QueryOptionsBuilder<KEY, VALUE, META, S> newBuilder() {
@@ -65,12 +83,30 @@ public class QueryOptions<K extends Message, V extends Message, M extends Messag
             return this;
         }
 
+        public QueryOptionsBuilder<K, V, M, R> setOffset(long offset) {
+            if (offset < 0) {
+                throw new IllegalArgumentException("Query offset cannot be negative: " + offset);
+            }
+            this.offset = offset;
+            return this;
+        }
+
+        public QueryOptionsBuilder<K, V, M, R> setLimit(long limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Query limit cannot be negative: " + limit);
+            }
+            this.limit = limit;
+            return this;
+        }
+
         public QueryOptions<K, V, M, R> build() {
             return new QueryOptions<>(
                     timestamp,
                     distinct,
                     comparator,
-                    projection);
+                    projection,
+                    offset,
+                    limit);
         }
     }
 }
@@ -4,8 +4,11 @@ import org.corfudb.util.ImmutableListSetWrapper;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Stream;
 
 /**
@@ -131,4 +134,22 @@ public class StreamingMapDecorator<K, V> implements ContextAwareMap<K, V> {
     public Set<Entry<K, V>> entrySet() {
         return mapImpl.entrySet();
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Only the maps of the JDK that this decorator is usually built with are copied,
+     * into a map of the same kind (which keeps the same ordering).
+     */
+    @Override
+    public ContextAwareMap<K, V> getSnapshot() {
+        if (mapImpl instanceof LinkedHashMap) {
+            return new StreamingMapDecorator<>(new LinkedHashMap<>(mapImpl));
+        } else if (mapImpl instanceof HashMap) {
+            return new StreamingMapDecorator<>(new HashMap<>(mapImpl));
+        } else if (mapImpl instanceof TreeMap) {
+            return new StreamingMapDecorator<>(new TreeMap<>((SortedMap<K, V>) mapImpl));
+        }
+        return null;
+    }
 }
@@ -20,6 +20,7 @@ import javax.annotation.Nonnull;
 import org.corfudb.protocols.logprotocol.MultiObjectSMREntry;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.ObjectsView;
 
 /**
  * This is the context of one client of the streaming API.
@@ -156,54 +157,50 @@ public class StreamingSubscriptionContext {
     /**
      * Enqueue the next stream entry.
      *
-     * @param lastAddress Address of the last stream entry.
+     * Entries at or below the last read address were already processed and are ignored.
+     *
      * @param logData ILogData of the next stream entry.
+     * @return false if the entry could not be enqueued because the queue is full.
      */
-    public boolean enqueueStreamEntry(long lastAddress, ILogData logData) {
-        // Check if the logData contains the any of the streams of interest.
-        // If it does not move the lastReadAddress to indicate that this
+    public synchronized boolean enqueueStreamEntry(ILogData logData) {
+        if (logData.getGlobalAddress() <= lastReadAddress) {
+            return true;
+        }
+
+        // Check if the logData is a transaction on any of the streams of interest.
+        // If it is not, move the lastReadAddress to indicate that this
         // address has been processed.
-        Set<UUID> logDataStreams = new HashSet(logData.getStreams());
+        Set<UUID> logDataStreams = new HashSet<>(logData.getStreams());
         logDataStreams.retainAll(tablesOfInterest.keySet());
 
-        if (logDataStreams.isEmpty()) {
+        if (logDataStreams.isEmpty() || !logData.containsStream(ObjectsView.TRANSACTION_STREAM_ID)) {
             log.trace("Entry at address {} does not contain any streams of interest to listener {}",
                     logData.getGlobalAddress(), listener.toString());
             lastReadAddress = logData.getGlobalAddress();
             return true;
         }
 
-        synchronized (this) {
-            // If the lastAddress is not the same as lastReadAddress, something went wrong.
-            // Maybe multiple threads are trying to enqueue to the same StreamingSubscriptionContext.
-            if (lastReadAddress != lastAddress) {
-                log.error("Incorrect address given to enqueueStreamEntry. Given {} Expected {}",
-                        lastAddress, lastReadAddress);
-                return false;
-            }
-
-            MultiObjectSMREntry multiObjSMREntry = (MultiObjectSMREntry) logData.getPayload(runtime);
-            //Build the CorfuStreamEntries from the MultiObjectSMREntry.
-            CorfuStreamEntries update = new CorfuStreamEntries(multiObjSMREntry.getEntryMap()
-                    .entrySet()
-                    .stream()
-                    .filter(e -> tablesOfInterest.containsKey(e.getKey()))
-                    .collect(Collectors.toMap(
-                        e -> tablesOfInterest.get(e.getKey()),
-                        e -> e.getValue().getUpdates()
-                                .stream()
-                                .map(smrEntry -> CorfuStreamEntry.fromSMREntry(smrEntry,
-                                            tablesOfInterest.get(e.getKey()).getKeyClass(),
-                                            tablesOfInterest.get(e.getKey()).getPayloadClass(),
-                                            tablesOfInterest.get(e.getKey()).getMetadataClass()))
-                                .collect(Collectors.toList()))));
-
-            // Now enqueue the update. The enqueue can fail if the queue has reached its capacity.
-            // Update the lastReadAddress iff the enqueue is successful.
-            if (streamQueue.offer(update)) {
-                lastReadAddress = multiObjSMREntry.getGlobalAddress();
-                return true;
-            }
+        MultiObjectSMREntry multiObjSMREntry = (MultiObjectSMREntry) logData.getPayload(runtime);
+        //Build the CorfuStreamEntries from the MultiObjectSMREntry.
+        CorfuStreamEntries update = new CorfuStreamEntries(multiObjSMREntry.getEntryMap()
+                .entrySet()
+                .stream()
+                .filter(e -> tablesOfInterest.containsKey(e.getKey()))
+                .collect(Collectors.toMap(
+                    e -> tablesOfInterest.get(e.getKey()),
+                    e -> e.getValue().getUpdates()
+                            .stream()
+                            .map(smrEntry -> CorfuStreamEntry.fromSMREntry(smrEntry,
+                                        tablesOfInterest.get(e.getKey()).getKeyClass(),
+                                        tablesOfInterest.get(e.getKey()).getPayloadClass(),
+                                        tablesOfInterest.get(e.getKey()).getMetadataClass()))
+                            .collect(Collectors.toList()))));
+
+        // Now enqueue the update. The enqueue can fail if the queue has reached its capacity.
+        // Update the lastReadAddress iff the enqueue is successful.
+        if (streamQueue.offer(update)) {
+            lastReadAddress = logData.getGlobalAddress();
+            return true;
         }
         return false;
     }
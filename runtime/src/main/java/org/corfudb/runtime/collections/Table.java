@@ -8,6 +8,7 @@ import java.util.Map.Entry;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -279,6 +280,23 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Stream the entries of the table. The entries are copied into a snapshot when this
+     * method is called, so the stream can be consumed outside of the current transaction.
+     * The stream is parallel, and only the conversion to CorfuStoreEntry is deferred until
+     * the stream is consumed.
+     *
+     * @return Stream of entries.
+     */
+    @Nonnull
+    Stream<CorfuStoreEntry<K, V, M>> entryStream() {
+        return corfuTable.entryStream()
+                .map(entry -> new CorfuStoreEntry<>(
+                        entry.getKey(),
+                        entry.getValue().getPayload(),
+                        entry.getValue().getMetadata()));
+    }
+
     /**
      * Get by secondary index.
      *
@@ -296,6 +314,30 @@ public class Table<K extends Message, V extends Message, M extends Message> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get a page of the entries whose secondary key falls within a range, ordered by the key.
+     * The index must be declared as sorted.
+     *
+     * @param indexName Index name.
+     * @param fromKey   Lowest index key of the range (inclusive), or null if unbounded.
+     * @param toKey     Highest index key of the range (exclusive), or null if unbounded.
+     * @param offset    Number of matching entries to skip.
+     * @param limit     Maximum number of entries to return.
+     * @param <I>       Type of index key.
+     * @return Collection of entries filtered by the secondary index range.
+     */
+    @Nonnull
+    protected <I extends Comparable<I>>
+    Collection<Entry<K, V>> getByIndexRange(@Nonnull final String indexName,
+                                            @Nullable final I fromKey,
+                                            @Nullable final I toKey,
+                                            final int offset,
+                                            final int limit) {
+        return corfuTable.getByIndexRange(() -> indexName, fromKey, toKey, offset, limit).stream()
+                .map(entry -> new AbstractMap.SimpleEntry<>(entry.getKey(), entry.getValue().getPayload()))
+                .collect(Collectors.toList());
+    }
+
     private Set<Descriptors.FieldDescriptor.Type> versionTypes = new HashSet<>(Arrays.asList(
             Descriptors.FieldDescriptor.Type.INT32,
             Descriptors.FieldDescriptor.Type.INT64,
@@ -1,6 +1,7 @@
 package org.corfudb.runtime.collections;
 
 import lombok.Builder;
+import lombok.Getter;
 
 import java.nio.file.Path;
 import java.util.Optional;
@@ -18,6 +19,13 @@ public class TableOptions<K, V> {
      */
     private final Path persistentDataPath;
 
+    /**
+     * If set, the values of the table are decoded on first access rather than when the
+     * table updates are replayed, so that loading a table only decodes the values read.
+     */
+    @Getter
+    private final boolean lazyValues;
+
     public Optional<Path> getPersistentDataPath() {
         return Optional.ofNullable(persistentDataPath);
     }
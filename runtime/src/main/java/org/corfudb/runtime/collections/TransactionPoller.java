@@ -1,22 +1,36 @@
 package org.corfudb.runtime.collections;
 
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.List;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nonnull;
 
 import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.runtime.CorfuRuntime;
-import org.corfudb.runtime.view.ObjectsView;
-import org.corfudb.runtime.view.StreamOptions;
-import org.corfudb.runtime.view.stream.IStreamView;
+import org.corfudb.runtime.view.ReadOptions;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
 /**
+ * Fetches the updates to the tables of interest of a list of StreamingSubscriptionContexts
+ * and enqueues them.
+ *
+ * <p>Instead of reading the whole transaction stream, the poller asks the sequencer for the
+ * addresses of the tables of interest above the last read address. The sequencer holds the
+ * request until one of the tables is written to, so the poller learns of an update as soon
+ * as its token is issued, and only reads the addresses that are relevant to its subscribers.</p>
  *
  * Created by sneginhal on 10/22/2019.
  */
@@ -36,29 +50,33 @@ public class TransactionPoller implements Runnable {
     private final List<StreamingSubscriptionContext> streamContexts;
 
     /**
-     * A reference to the transaction stream
+     * Called for the StreamingSubscriptionContexts that got new updates enqueued.
+     */
+    private final Consumer<StreamingSubscriptionContext> notifier;
+
+    /**
+     * Whether the sequencer holds streams address requests until there are updates. It's
+     * cleared once a sequencer that predates them answers with the address space of all streams.
      */
-    @Getter
-    private final IStreamView txnStream;
+    private final AtomicBoolean streamsWaitSupported;
 
     /**
      * Constructor.
      *
      * @param streams The list of StreamingSubscriptionContexts to process.
+     * @param notifier Called for the StreamingSubscriptionContexts that got new updates enqueued.
+     * @param streamsWaitSupported Whether the sequencer holds streams address requests until there are updates.
      */
     public TransactionPoller(@Nonnull CorfuRuntime runtime,
-                             @Nonnull List<StreamingSubscriptionContext> streams) {
+                             @Nonnull List<StreamingSubscriptionContext> streams,
+                             @Nonnull Consumer<StreamingSubscriptionContext> notifier,
+                             @Nonnull AtomicBoolean streamsWaitSupported) {
         this.runtime = runtime;
         this.streamContexts = streams.stream()
                 .sorted(Comparator.comparingLong(sc -> sc.getLastReadAddress()))
                 .collect(Collectors.toList());
-
-        StreamOptions options = StreamOptions.builder()
-                .cacheEntries(false)
-                .build();
-
-        txnStream = runtime.getStreamsView()
-                .getUnsafe(ObjectsView.TRANSACTION_STREAM_ID, options);
+        this.notifier = notifier;
+        this.streamsWaitSupported = streamsWaitSupported;
     }
 
     /**
@@ -67,7 +85,11 @@ public class TransactionPoller implements Runnable {
     @Override
     public void run() {
         try {
-            pollTxStream();
+            // Keep polling while there are updates, the sequencer holds the poll when there are none.
+            // Without that, the poller returns and is scheduled again periodically.
+            while (!streamContexts.isEmpty() && pollTxStream()) {
+                log.trace("Polling again for {} StreamingSubscriptionContexts", streamContexts.size());
+            }
         } catch (Throwable t) {
             // We don't want the thread running the poller to be terminated due to
             // some unexpected exception, so catch all here.
@@ -79,33 +101,96 @@ public class TransactionPoller implements Runnable {
         }
     }
 
-    private void pollTxStream() {
- 
-        long lastReadAddress = streamContexts.get(0).getLastReadAddress();
+    /**
+     * Wait for updates to the tables of interest, and enqueue them.
+     *
+     * @return true if there were updates and the sequencer can be polled again right away,
+     *         false otherwise.
+     */
+    private boolean pollTxStream() {
+        long lastReadAddress = streamContexts.stream()
+                .mapToLong(StreamingSubscriptionContext::getLastReadAddress)
+                .min()
+                .getAsLong();
+
+        Set<UUID> streamsOfInterest = new HashSet<>();
+        streamContexts.forEach(sc -> streamsOfInterest.addAll(sc.getTablesOfInterest().keySet()));
+        List<StreamAddressRange> ranges = streamsOfInterest.stream()
+                .map(id -> new StreamAddressRange(id, Long.MAX_VALUE, lastReadAddress))
+                .collect(Collectors.toList());
 
-        log.trace("Seeking txStream to {}", lastReadAddress + 1);
-        txnStream.seek(lastReadAddress + 1);
-        log.trace("txStream current global position after seeking {}, hasNext {}",
-                txnStream.getCurrentGlobalPosition(), txnStream.hasNext());
+        Map<UUID, StreamAddressSpace> addressSpaces = null;
+        if (streamsWaitSupported.get()) {
+            log.trace("Waiting for updates to {} streams above {}", ranges.size(), lastReadAddress);
+            addressSpaces = runtime.getSequencerView().waitForStreamsAddressSpace(ranges);
+            if (!isInRange(addressSpaces, streamsOfInterest, lastReadAddress)) {
+                log.warn("pollTxStream: sequencer doesn't hold streams address requests, "
+                        + "falling back to periodic polling");
+                streamsWaitSupported.set(false);
+                addressSpaces = null;
+            }
+        }
 
-        List<ILogData> updates = txnStream.remaining();
+        if (addressSpaces == null) {
+            log.trace("Polling updates to {} streams above {}", ranges.size(), lastReadAddress);
+            addressSpaces = runtime.getSequencerView().getStreamsAddressSpace(ranges);
+        }
 
-        log.trace("{} updates remaining in the txStream", updates.size());
+        Roaring64NavigableMap addressMap = new Roaring64NavigableMap();
+        addressSpaces.values().forEach(addressSpace -> addressMap.or(addressSpace.getAddressMap()));
+        if (addressMap.isEmpty()) {
+            return false;
+        }
 
-        for (ILogData update : updates) {
+        // The updates are enqueued in the order of their addresses
+        List<Long> addresses = new ArrayList<>();
+        addressMap.forEach(addresses::add);
+        Map<Long, ILogData> updates = runtime.getAddressSpaceView().read(addresses,
+                ReadOptions.builder().clientCacheable(false).build());
+
+        log.trace("{} updates to the streams of interest", updates.size());
+
+        for (Long address : addresses) {
+            ILogData update = updates.get(address);
             List<StreamingSubscriptionContext> streamContextsNotUpdated = new LinkedList<>();
             for (StreamingSubscriptionContext sc : streamContexts) {
-                if (!sc.enqueueStreamEntry(lastReadAddress, update)) {
-                    // If enqueue fails, further enqueues will fail as the
-                    // lastReadAddress won't match.
+                if (!sc.enqueueStreamEntry(update)) {
+                    // If enqueue fails, the StreamingSubscriptionContext would miss this update
+                    // if it was given the next ones, so stop processing it.
                     streamContextsNotUpdated.add(sc);
                 }
             }
-            lastReadAddress = update.getGlobalAddress();
             // Release the lock on StreamingSubscriptionContexts that were not updated and remove
             // them from the list of StreamingSubscriptionContexts being processed.
-            streamContextsNotUpdated.forEach(sc -> sc.release());
+            streamContextsNotUpdated.forEach(sc -> {
+                sc.release();
+                notifier.accept(sc);
+            });
             streamContexts.removeAll(streamContextsNotUpdated);
         }
+
+        streamContexts.forEach(notifier);
+        return streamsWaitSupported.get();
+    }
+
+    /**
+     * Check that a response only has the address spaces of the requested streams, above the
+     * requested address. A sequencer that doesn't know of streams wait requests answers them
+     * as requests for the address space of all streams, which isn't restricted to either.
+     *
+     * @param addressSpaces     the address spaces of the response.
+     * @param requestedStreams  the requested streams.
+     * @param lastReadAddress   the address above which addresses were requested.
+     * @return true if the response is restricted to the requested streams and addresses.
+     */
+    private static boolean isInRange(Map<UUID, StreamAddressSpace> addressSpaces,
+                                     Set<UUID> requestedStreams, long lastReadAddress) {
+        if (!requestedStreams.containsAll(addressSpaces.keySet())) {
+            return false;
+        }
+
+        return addressSpaces.values().stream()
+                .map(StreamAddressSpace::getAddressMap)
+                .allMatch(addressMap -> addressMap.isEmpty() || addressMap.select(0) > lastReadAddress);
     }
 }
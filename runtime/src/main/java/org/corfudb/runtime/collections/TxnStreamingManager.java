@@ -12,6 +12,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -42,9 +43,12 @@ public class TxnStreamingManager {
     private final Map<Integer, StreamingSubscriptionContext> subscriptions = new HashMap<>();
 
     /**
-     * Executor service to run the txn stream poller.
+     * Executor service to run the txn stream pollers.
+     *
+     * A poller waits on the sequencer for updates to its tables, so the pollers of the
+     * subscriptions made while one is waiting run on other threads.
      */
-    private ExecutorService pollerExecutor = Executors.newFixedThreadPool(1, (r) -> {
+    private ExecutorService pollerExecutor = Executors.newCachedThreadPool((r) -> {
                     Thread t = Executors.defaultThreadFactory().newThread(r);
                     t.setDaemon(true);
                     t.setName("TxnStreamingManagerPoller");
@@ -71,8 +75,16 @@ public class TxnStreamingManager {
                     return t;
                 });
 
+    /**
+     * Whether the sequencer holds the streams address requests of the pollers until there are updates.
+     */
+    private final AtomicBoolean streamsWaitSupported = new AtomicBoolean(true);
+
     /**
      * Interval of polling and notification in milliseconds.
+     *
+     * Pollers notify the clients as soon as they enqueue updates, the periodic
+     * notification only picks up the updates left over by a previous run.
      */
     private static final int INTERVAL = 50;
 
@@ -149,7 +161,9 @@ public class TxnStreamingManager {
             log.trace("Locked {} StreamingSubscriptionContexts for processing",
                     lockedStreamingSubscriptionContexts.size());
 
-            pollerExecutor.submit(new TransactionPoller(runtime, lockedStreamingSubscriptionContexts));
+            pollerExecutor.submit(new TransactionPoller(runtime, lockedStreamingSubscriptionContexts,
+                    sc -> notifierExecutor.submit(() -> sc.notifyClient(MAX_NOTIFICATIONS)),
+                    streamsWaitSupported));
         }
 
 
@@ -0,0 +1,262 @@
+package org.corfudb.runtime.object;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.util.CorfuComponent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps copies of past versions of the objects of a runtime, so that snapshot transactions
+ * can read an object at an older version without rolling the object back.
+ *
+ * <p>The copies of an object are indexed by their version. A copy of version v, taken once the
+ * object was synced to timestamp t, holds the state of the object at any timestamp in [v, t]
+ * since the object has no update in between. The copies are never modified, so they are read
+ * without any lock.
+ *
+ * <p>The total weight of the copies (e.g. their number of entries) is bounded across all the
+ * objects, and the least recently read copies are evicted first. The number of copies kept for
+ * a single object is bounded as well, the oldest copies being evicted first.
+ */
+@Slf4j
+public class ObjectSnapshotCache {
+
+    /**
+     * The max total weight of the copies.
+     */
+    private final long maxWeight;
+
+    /**
+     * The max number of copies kept for a single object.
+     */
+    private final int maxVersions;
+
+    /**
+     * The weight of every copy, which bounds the memory of all the copies.
+     */
+    private final Cache<Snapshot<?>, Long> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a cache of copies of object versions.
+     *
+     * @param maxWeight   The max total weight of the copies, or 0 to keep no copy.
+     * @param maxVersions The max number of copies kept for a single object.
+     */
+    public ObjectSnapshotCache(long maxWeight, int maxVersions) {
+        this.maxWeight = maxWeight;
+        this.maxVersions = maxVersions;
+        // A single segment, so that the max weight bounds every copy rather than a share of it
+        this.cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(maxWeight)
+                .<Snapshot<?>, Long>weigher((snapshot, weight) -> (int) Math.min(weight, Integer.MAX_VALUE))
+                .<Snapshot<?>, Long>removalListener(this::handleEviction)
+                .recordStats()
+                .build();
+
+        MetricRegistry metrics = CorfuRuntime.getDefaultMetrics();
+        final String pfx = String.format("%s0x%x.snapshot-cache.", CorfuComponent.OBJECT.toString(),
+                this.hashCode());
+        metrics.register(pfx + "cache-size", (Gauge<Long>) cache::size);
+        metrics.register(pfx + "evictions", (Gauge<Long>) () -> cache.stats().evictionCount());
+        metrics.register(pfx + "hit-rate", (Gauge<Double>) this::getHitRate);
+        metrics.register(pfx + "hits", (Gauge<Long>) this::getHitCount);
+        metrics.register(pfx + "misses", (Gauge<Long>) this::getMissCount);
+    }
+
+    /**
+     * Whether copies of object versions are kept at all.
+     */
+    public boolean isEnabled() {
+        return maxWeight > 0 && maxVersions > 0;
+    }
+
+    /**
+     * Create the index of the copies of a new object.
+     */
+    public <T> Versions<T> newVersions() {
+        return new Versions<>();
+    }
+
+    /**
+     * The number of reads served by a copy.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * The number of reads that no copy could serve.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The ratio of the reads served by a copy.
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long requestCount = hitCount + getMissCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * The number of copies kept across all the objects.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    private void handleEviction(RemovalNotification<Snapshot<?>, Long> notification) {
+        Snapshot<?> snapshot = notification.getKey();
+        if (log.isTraceEnabled()) {
+            log.trace("handleEviction: evicting version {} cause {}", snapshot.version,
+                    notification.getCause());
+        }
+        snapshot.versions.snapshots.remove(snapshot.version, snapshot);
+    }
+
+    /**
+     * A copy of an object version.
+     */
+    private static class Snapshot<T> {
+
+        final Versions<T> versions;
+
+        final long version;
+
+        final T object;
+
+        /**
+         * The last timestamp at which the object is known to have the state of this version.
+         * It is only moved forward, by the thread that holds the write lock of the object.
+         */
+        volatile long validThrough;
+
+        Snapshot(Versions<T> versions, long version, long validThrough, T object) {
+            this.versions = versions;
+            this.version = version;
+            this.validThrough = validThrough;
+            this.object = object;
+        }
+    }
+
+    /**
+     * The copies of the versions of a single object.
+     *
+     * <p>Copies are added and extended under the write lock of the object, while they are
+     * read concurrently with no lock.
+     *
+     * @param <T> The type of the object.
+     */
+    public class Versions<T> {
+
+        private final ConcurrentNavigableMap<Long, Snapshot<T>> snapshots =
+                new ConcurrentSkipListMap<>();
+
+        private Versions() {
+        }
+
+        /**
+         * Get a copy of the object at the given timestamp.
+         *
+         * @param timestamp The timestamp to read the object at.
+         * @return A copy of the object, or null if no copy holds the state at the timestamp.
+         */
+        public T get(long timestamp) {
+            if (!isEnabled()) {
+                return null;
+            }
+
+            Map.Entry<Long, Snapshot<T>> entry = snapshots.floorEntry(timestamp);
+            if (entry != null && entry.getValue().validThrough >= timestamp
+                    && cache.getIfPresent(entry.getValue()) != null) {
+                hits.increment();
+                return entry.getValue().object;
+            }
+
+            misses.increment();
+            return null;
+        }
+
+        /**
+         * Record that the object still has the state of the given version at the given
+         * timestamp, if a copy of this version is kept.
+         *
+         * @param version   The version of the object.
+         * @param timestamp The timestamp the object was synced to.
+         * @return True if a copy of this version is kept, false otherwise.
+         */
+        public boolean extend(long version, long timestamp) {
+            Snapshot<T> snapshot = snapshots.get(version);
+            if (snapshot == null) {
+                return false;
+            }
+
+            if (snapshot.validThrough < timestamp) {
+                snapshot.validThrough = timestamp;
+            }
+            return true;
+        }
+
+        /**
+         * Whether a copy of the given weight may be kept.
+         */
+        public boolean accepts(long weight) {
+            return isEnabled() && weight <= maxWeight;
+        }
+
+        /**
+         * Keep a copy of a version of the object.
+         *
+         * @param version   The version of the object.
+         * @param timestamp The timestamp the object was synced to.
+         * @param object    The copy of the object.
+         * @param weight    The weight of the copy.
+         */
+        public void put(long version, long timestamp, T object, long weight) {
+            Snapshot<T> snapshot = new Snapshot<>(this, version, timestamp, object);
+            Snapshot<T> previous = snapshots.put(version, snapshot);
+            if (previous != null) {
+                cache.invalidate(previous);
+            }
+            cache.put(snapshot, weight);
+
+            while (snapshots.size() > maxVersions) {
+                Map.Entry<Long, Snapshot<T>> oldest = snapshots.pollFirstEntry();
+                if (oldest != null) {
+                    cache.invalidate(oldest.getValue());
+                }
+            }
+        }
+
+        /**
+         * Drop the copies that only hold states before the trim mark.
+         *
+         * @param trimMark The trim mark of the object's stream.
+         */
+        public void gc(long trimMark) {
+            snapshots.values().removeIf(snapshot -> {
+                if (snapshot.validThrough < trimMark) {
+                    cache.invalidate(snapshot);
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+}
@@ -45,6 +45,10 @@ import java.util.function.Supplier;
  * <p>syncObjectUnsafe() enables the user to bring the object to a given version, and the
  * VersionLockedObject manages any sync or rollback of updates necessary.
  *
+ * <p>accessVersion() lets snapshot readers read a copy of a past version of the object,
+ * when one is kept, rather than rolling the object back. A copy of a version is taken
+ * when a reader had to roll the object back to it.
+ *
  * <p>Created by mwei on 11/13/16.
  */
 @Slf4j
@@ -116,6 +120,11 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      */
     private final Supplier<T> newObjectFn;
 
+    /**
+     * The copies of the past versions of this object.
+     */
+    private final ObjectSnapshotCache.Versions<T> snapshots;
+
     /**
      * Correctness Logging
      */
@@ -127,11 +136,14 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
      *
      * @param newObjectFn       A function passed to instantiate a new instance of this object.
      * @param smrStream         Stream View backing this object.
+     * @param snapshotCache     The cache of copies of past object versions.
      */
     public VersionLockedObject(Supplier<T> newObjectFn,
                                StreamViewSMRAdapter smrStream,
-                               ICorfuSMR<T> wrapperObject) {
+                               ICorfuSMR<T> wrapperObject,
+                               ObjectSnapshotCache snapshotCache) {
         this.smrStream = smrStream;
+        this.snapshots = snapshotCache.newVersions();
 
         this.upcallTargetMap = wrapperObject.getCorfuSMRUpcallMap();
         this.undoRecordFunctionMap = wrapperObject.getCorfuUndoRecordMap();
@@ -159,6 +171,7 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
             pendingUpcalls.removeIf(e -> e < trimMark);
             upcallResults.entrySet().removeIf(e -> e.getKey() < trimMark);
             smrStream.gc(trimMark);
+            snapshots.gc(trimMark);
         } finally {
             lock.unlock(ts);
         }
@@ -262,6 +275,78 @@ public class VersionLockedObject<T extends ICorfuSMR<T>> {
         }
     }
 
+    /**
+     * Access the object at the given version. If a copy of the object at this version is
+     * kept, the copy is accessed with no lock. Otherwise the object is accessed as
+     * {@link #access} does, checking whether it is at this version and running the
+     * updateFunction to bring it to this version if it is not.
+     *
+     * <p>Once the updateFunction rolled the object back to the version, a copy of the
+     * object is kept, so that the readers of this version do not roll back the object
+     * again once newer readers moved it forward.
+     *
+     * @param timestamp      The version to access the object at.
+     * @param updateFunction A function which is executed under a write lock, which must
+     *                       bring the object to the version.
+     * @param accessFunction A function which accesses the object at the version.
+     * @param <R>            The type of the access function return.
+     * @return Returns the access function.
+     */
+    public <R> R accessVersion(long timestamp,
+                               Consumer<VersionLockedObject<T>> updateFunction,
+                               Function<T, R> accessFunction) {
+        T snapshot = snapshots.get(timestamp);
+        if (snapshot != null) {
+            log.trace("Access [{}] Snapshot access at {}", this, timestamp);
+            return accessFunction.apply(snapshot.getContext(ICorfuExecutionContext.DEFAULT));
+        }
+
+        return access(o -> o.getVersionUnsafe() == timestamp && !o.isOptimisticallyModifiedUnsafe(),
+                o -> {
+                    final long previousVersion = o.getVersionUnsafe();
+                    updateFunction.accept(o);
+                    o.snapshotUnsafe(previousVersion, timestamp);
+                },
+                accessFunction);
+    }
+
+    /**
+     * Keep a copy of the object, which was just synced to the given timestamp, if the
+     * object had to be rolled back to reach it. If a copy of the current version is
+     * already kept, only record that this copy is still current at the timestamp.
+     *
+     * <p>Unsafe, requires that the caller has acquired a write lock.
+     *
+     * @param previousVersion The version of the object before it was synced.
+     * @param timestamp       The timestamp the object was synced to.
+     */
+    @SuppressWarnings("unchecked")
+    private void snapshotUnsafe(long previousVersion, long timestamp) {
+        final long version = getVersionUnsafe();
+        if (isOptimisticallyModifiedUnsafe()
+                || object.getVersionPolicy() == ICorfuVersionPolicy.MONOTONIC
+                || !Address.isAddress(version) || version > timestamp) {
+            return;
+        }
+
+        if (snapshots.extend(version, timestamp) || previousVersion <= timestamp
+                || !(object instanceof ICorfuSnapshotable)) {
+            return;
+        }
+
+        ICorfuSnapshotable<T> snapshotable = (ICorfuSnapshotable<T>) object;
+        final long weight = snapshotable.getSnapshotWeight();
+        if (!snapshots.accepts(weight)) {
+            return;
+        }
+
+        T snapshot = snapshotable.getSnapshot();
+        if (snapshot != null) {
+            log.trace("Snapshot[{}] kept until {}", this, timestamp);
+            snapshots.put(version, timestamp, snapshot, weight);
+        }
+    }
+
     /**
      * Update the object under a write lock.
      *
@@ -43,9 +43,9 @@ public class SnapshotTransactionalContext extends AbstractTransactionalContext {
         // In snapshot transactions, there are no conflicts.
         // Hence, we do not need to add this access to a conflict set
         // do not add: addToReadSet(proxy, conflictObject);
-        return proxy.getUnderlyingObject().access(o -> o.getVersionUnsafe()
-                        == getSnapshotTimestamp().getSequence()
-                        && !o.isOptimisticallyModifiedUnsafe(),
+        // The object is read from a copy of the snapshot if one is kept, so that
+        // reads at different snapshots do not keep rolling the object back and forth.
+        return proxy.getUnderlyingObject().accessVersion(getSnapshotTimestamp().getSequence(),
                 o -> {
                     syncWithRetryUnsafe(o, getSnapshotTimestamp(), proxy, null);
                 },
@@ -13,6 +13,8 @@ import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.exceptions.QuorumUnreachableException;
 import org.corfudb.runtime.view.ClusterStatusReport.ClusterStatus;
 import org.corfudb.runtime.view.replication.ChainReplicationProtocol;
+import org.corfudb.runtime.view.replication.FanOutChainReplicationProtocol;
+import org.corfudb.runtime.view.replication.IHoleFillPolicy;
 import org.corfudb.runtime.view.replication.IReplicationProtocol;
 import org.corfudb.runtime.view.replication.NeverHoleFillPolicy;
 import org.corfudb.runtime.view.replication.QuorumReplicationProtocol;
@@ -357,13 +359,18 @@ public class Layout {
 
             @Override
             public IReplicationProtocol getReplicationProtocol(CorfuRuntime r) {
+                IHoleFillPolicy holeFillPolicy;
                 if (r.getParameters().isHoleFillingDisabled()) {
-                    return new ChainReplicationProtocol(new NeverHoleFillPolicy(100));
+                    holeFillPolicy = new NeverHoleFillPolicy(100);
                 } else {
-                    return new ChainReplicationProtocol(
-                            new ReadWaitHoleFillPolicy(r.getParameters().getHoleFillTimeout(),
-                                    r.getParameters().getHoleFillRetryThreshold()));
+                    holeFillPolicy = new ReadWaitHoleFillPolicy(r.getParameters().getHoleFillTimeout(),
+                            r.getParameters().getHoleFillRetryThreshold());
+                }
+
+                if (r.getParameters().isFanOutWritesEnabled()) {
+                    return new FanOutChainReplicationProtocol(holeFillPolicy);
                 }
+                return new ChainReplicationProtocol(holeFillPolicy);
             }
 
             @Override
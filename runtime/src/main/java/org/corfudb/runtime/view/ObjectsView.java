@@ -17,6 +17,7 @@ import org.corfudb.runtime.exceptions.WriteSizeException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
 import org.corfudb.runtime.object.CorfuCompileProxy;
 import org.corfudb.runtime.object.ICorfuSMR;
+import org.corfudb.runtime.object.ObjectSnapshotCache;
 import org.corfudb.runtime.object.transactions.AbstractTransactionalContext;
 import org.corfudb.runtime.object.transactions.Transaction;
 import org.corfudb.runtime.object.transactions.Transaction.TransactionBuilder;
@@ -53,8 +54,17 @@ public class ObjectsView extends AbstractView {
     @Getter
     Map<ObjectID, Object> objectCache = new ConcurrentHashMap<>();
 
+    /**
+     * The copies of past object versions, which snapshot transactions read.
+     */
+    @Getter
+    private final ObjectSnapshotCache snapshotCache;
+
     public ObjectsView(@Nonnull final CorfuRuntime runtime) {
         super(runtime);
+        this.snapshotCache = new ObjectSnapshotCache(
+                runtime.getParameters().getMaxObjectSnapshotWeight(),
+                runtime.getParameters().getMaxObjectSnapshotVersions());
     }
 
     /**
@@ -15,6 +15,7 @@ import org.corfudb.runtime.exceptions.QuorumUnreachableException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.exceptions.unrecoverable.UnrecoverableCorfuError;
 import org.corfudb.runtime.view.Layout.LayoutSegment;
+import org.corfudb.runtime.view.replication.ChainReadSelector;
 
 import javax.annotation.Nonnull;
 import java.lang.reflect.Constructor;
@@ -41,12 +42,19 @@ public class RuntimeLayout {
     @Getter
     private final CorfuRuntime runtime;
 
+    /**
+     * Selects the log units that chain replicated reads are sent to in this layout.
+     */
+    @Getter
+    private final ChainReadSelector chainReadSelector;
+
     /**
      * Constructor taking a reference of the layout to stamp the clients.
      */
     public RuntimeLayout(@Nonnull Layout layout, @Nonnull CorfuRuntime corfuRuntime) {
         this.layout = layout;
         this.runtime = corfuRuntime;
+        this.chainReadSelector = new ChainReadSelector(this);
     }
 
     /**
@@ -130,6 +130,20 @@ public class SequencerView extends AbstractView {
         }
     }
 
+    /**
+     * Retrieve multiple streams address space, once one of the streams has an address in its range.
+     * The sequencer holds the request until then, or until it gives up and returns empty address spaces.
+     *
+     * @param streamsAddressesRange list of streams and ranges to be requested.
+     * @return address space for each stream in the request.
+     */
+    public Map<UUID, StreamAddressSpace> waitForStreamsAddressSpace(List<StreamAddressRange> streamsAddressesRange) {
+        StreamsAddressResponse streamsAddressResponse = layoutHelper(e ->
+                CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
+                        .waitForStreamsAddressSpace(streamsAddressesRange)));
+        return streamsAddressResponse.getAddressMap();
+    }
+
     /**
      *
      * Acquire a token for a number of streams if there are no conflicts.
@@ -139,6 +153,7 @@ public class SequencerView extends AbstractView {
      * @return First token to be written for the streams if there are no conflicts
      */
     public TokenResponse next(TxResolutionInfo conflictInfo, UUID ... streamIds) {
+        conflictInfo.setFingerprintsEnabled(runtime.getParameters().isConflictFingerprintsEnabled());
         try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerNextMultipleStream)) {
             return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
                     .nextToken(Arrays.asList(streamIds), 1, conflictInfo)));
@@ -167,6 +182,7 @@ public class SequencerView extends AbstractView {
     @Deprecated
     public TokenResponse nextToken(Set<UUID> streamIDs, int numTokens,
                                    TxResolutionInfo conflictInfo) {
+        conflictInfo.setFingerprintsEnabled(runtime.getParameters().isConflictFingerprintsEnabled());
         try (Timer.Context context = MetricsUtils.getConditionalContext(sequencerDeprecatedNextMultipleStream)){
             return layoutHelper(e -> CFUtils.getUninterruptibly(e.getPrimarySequencerClient()
                     .nextToken(Lists.newArrayList(streamIDs), numTokens, conflictInfo)));
@@ -2,6 +2,7 @@ package org.corfudb.runtime.view;
 
 import com.google.common.annotations.VisibleForTesting;
 import lombok.extern.slf4j.Slf4j;
+import org.corfudb.common.compression.Codec;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
@@ -130,8 +131,28 @@ public class StreamsView extends AbstractView {
      */
     public long append(@Nonnull Object object, @Nullable TxResolutionInfo conflictInfo,
                        @Nonnull CacheOption cacheOption, @Nonnull UUID... streamIDs) {
+        return append(object, conflictInfo, cacheOption,
+                Codec.Type.valueOf(runtime.getParameters().getCodecType()), streamIDs);
+    }
 
-        final LogData ld = new LogData(DataType.DATA, object, runtime.getParameters().getCodecType());
+    /**
+     * Append to multiple streams simultaneously, encoding the payload with the
+     * given codec instead of the runtime's codec.
+     *
+     * @param streamIDs    The streams to append to.
+     * @param object       The object to append to each stream.
+     * @param conflictInfo Conflict information for the sequencer to check.
+     * @param cacheOption  The caching mode for write/append
+     * @param codecType    The codec of the payload, e.g. NONE for payloads compressed already.
+     * @return The address the entry was written to.
+     * @throws TransactionAbortedException If the transaction was aborted by
+     *                                     the sequencer.
+     */
+    public long append(@Nonnull Object object, @Nullable TxResolutionInfo conflictInfo,
+                       @Nonnull CacheOption cacheOption, @Nonnull Codec.Type codecType,
+                       @Nonnull UUID... streamIDs) {
+
+        final LogData ld = new LogData(DataType.DATA, object, codecType.toString());
 
         ld.checkMaxWriteSize(runtime.getParameters().getMaxWriteSize());
 
@@ -162,7 +183,8 @@ public class StreamsView extends AbstractView {
             if (abortCause != null) {
                 throw new TransactionAbortedException(
                         conflictInfo,
-                        tokenResponse.getConflictKey(), tokenResponse.getConflictStream(),
+                        getConflictParam(conflictInfo, tokenResponse),
+                        tokenResponse.getConflictStream(),
                         tokenResponse.getToken().getSequence(), abortCause,
                         TransactionalContext.getCurrentContext());
             }
@@ -191,7 +213,8 @@ public class StreamsView extends AbstractView {
 
                 throw new TransactionAbortedException(
                         conflictInfo,
-                        tokenResponse.getConflictKey(), tokenResponse.getConflictStream(),
+                        getConflictParam(conflictInfo, tokenResponse),
+                        tokenResponse.getConflictStream(),
                         tokenResponse.getToken().getSequence(),
                         AbortCause.NEW_SEQUENCER, // in the future perhaps define a new AbortCause?
                         TransactionalContext.getCurrentContext());
@@ -202,7 +225,7 @@ public class StreamsView extends AbstractView {
                 tokenResponse == null ? -1 : tokenResponse.getSequence(),
                 runtime.getParameters().getWriteRetry(),
                 Arrays.stream(streamIDs).map(Utils::toReadableId).collect(Collectors.toSet()),
-                ILogData.getSerializedSize(object, runtime.getParameters().getCodecType()));
+                ILogData.getSerializedSize(object, codecType.toString()));
         throw new AppendException();
     }
 
@@ -220,4 +243,17 @@ public class StreamsView extends AbstractView {
     List<IStreamView> getOpenedStreams() {
         return openedStreams;
     }
+
+    /**
+     * The sequencer reports the fingerprint of the conflict key, map it back to the
+     * conflict param of the transaction it was fingerprinted from.
+     *
+     * @param conflictInfo  transaction conflict info, or null
+     * @param tokenResponse the sequencer response
+     * @return the conflict param
+     */
+    private static byte[] getConflictParam(TxResolutionInfo conflictInfo, TokenResponse tokenResponse) {
+        return conflictInfo == null ? tokenResponse.getConflictKey()
+                : conflictInfo.getConflictParam(tokenResponse.getConflictStream(), tokenResponse.getConflictKey());
+    }
 }
@@ -28,7 +28,6 @@ import org.corfudb.runtime.collections.Table;
 import org.corfudb.runtime.collections.TableOptions;
 import org.corfudb.runtime.object.ICorfuVersionPolicy;
 import org.corfudb.runtime.object.transactions.TransactionType;
-import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.ProtobufSerializer;
 import org.corfudb.util.serializer.Serializers;
 import org.rocksdb.CompactionOptionsUniversal;
@@ -77,7 +76,7 @@ public class TableRegistry {
     /**
      * Serializer to be used for protobuf messages.
      */
-    private final ISerializer protobufSerializer;
+    private final ProtobufSerializer protobufSerializer;
 
     /**
      * This {@link CorfuTable} holds the schemas of the key, payload and metadata for every table created.
@@ -302,6 +301,9 @@ public class TableRegistry {
 
         V defaultValueMessage = (V) vClass.getMethod("getDefaultInstance").invoke(null);
         addTypeToClassMap(defaultValueMessage);
+        if (tableOptions.isLazyValues()) {
+            protobufSerializer.enableLazyDecoding(vClass);
+        }
 
         M defaultMetadataMessage = null;
         if (mClass != null) {
@@ -0,0 +1,107 @@
+package org.corfudb.runtime.view.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.RuntimeLayout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Selects the log unit of a chain to read an address from.
+ *
+ * <p>The last log unit of a chain is the last one to be written, so every address it has
+ * written is written on every log unit of the chain. The selector tracks the committed tail
+ * of the last log unit of each chain, i.e. the highest address up to which it has no gap,
+ * and spreads the reads of the addresses up to it across the chain in round-robin. Reads of
+ * the addresses above it go to the last log unit, as before.</p>
+ *
+ * <p>The committed tails are refreshed on demand, when an address above them is read, and
+ * at most once every {@code committedTailRefreshInterval}. The selector belongs to a
+ * {@link RuntimeLayout}, so the committed tails learned in an epoch are discarded when the
+ * layout changes.</p>
+ */
+@Slf4j
+public class ChainReadSelector {
+
+    private final RuntimeLayout runtimeLayout;
+
+    /**
+     * The committed tail of the last log unit of each chain.
+     */
+    private final Map<String, Long> committedTails = new ConcurrentHashMap<>();
+
+    /**
+     * The time of the last refresh of the committed tail of each chain, in nanoseconds.
+     */
+    private final Map<String, Long> lastRefreshes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextRotation = new AtomicInteger();
+
+    public ChainReadSelector(RuntimeLayout runtimeLayout) {
+        this.runtimeLayout = runtimeLayout;
+    }
+
+    /**
+     * Get the rotation of the next read, which picks the log unit of a chain it is sent to.
+     * The addresses of a batch read share a rotation, so that they are read from the same log units.
+     */
+    public int nextRotation() {
+        return nextRotation.getAndIncrement() & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Select the log unit to read an address from.
+     *
+     * @param logServers the log units of the chain of the address.
+     * @param address    the address to read.
+     * @param rotation   the rotation of the read.
+     * @return the log unit to read the address from.
+     */
+    public String select(List<String> logServers, long address, int rotation) {
+        String tail = logServers.get(logServers.size() - 1);
+        if (!runtimeLayout.getRuntime().getParameters().isReplicaReadsEnabled() || logServers.size() == 1) {
+            return tail;
+        }
+
+        if (address <= committedTails.getOrDefault(tail, Address.NON_ADDRESS)) {
+            return logServers.get(rotation % logServers.size());
+        }
+
+        refreshCommittedTail(tail);
+        return tail;
+    }
+
+    /**
+     * Request the committed tail of the last log unit of a chain, unless it was
+     * requested less than an interval ago.
+     *
+     * @param tail the last log unit of the chain.
+     */
+    private void refreshCommittedTail(String tail) {
+        long now = System.nanoTime();
+        Long lastRefresh = lastRefreshes.get(tail);
+        long refreshInterval = runtimeLayout.getRuntime().getParameters()
+                .getCommittedTailRefreshInterval().toNanos();
+        if (lastRefresh != null && now - lastRefresh < refreshInterval) {
+            return;
+        }
+
+        boolean claimed = lastRefresh == null
+                ? lastRefreshes.putIfAbsent(tail, now) == null
+                : lastRefreshes.replace(tail, lastRefresh, now);
+        if (!claimed) {
+            // Another reader is refreshing it
+            return;
+        }
+
+        runtimeLayout.getLogUnitClient(tail).getCommittedTail()
+                .thenAccept(resp -> committedTails.merge(tail, resp.getLogTail(), Math::max))
+                .exceptionally(ex -> {
+                    log.debug("refreshCommittedTail: failed to get committed tail of {}", tail, ex);
+                    return null;
+                });
+    }
+}
@@ -65,15 +65,27 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
      */
     @Override
     public ILogData peek(RuntimeLayout runtimeLayout, long globalAddress) {
-        int numUnits = runtimeLayout.getLayout().getSegmentLength(globalAddress);
-        log.trace("Read[{}]: chain {}/{}", globalAddress, numUnits, numUnits);
-        // In chain replication, we read from the last unit, though we can optimize if we
-        // know where the committed tail is.
+        List<String> logServers = runtimeLayout.getLayout().getStripe(globalAddress).getLogServers();
+        String tail = logServers.get(logServers.size() - 1);
+        // In chain replication, we read from the last unit, unless the address is below
+        // its committed tail, in which case any unit of the chain has it.
+        ChainReadSelector selector = runtimeLayout.getChainReadSelector();
+        String logServer = selector.select(logServers, globalAddress, selector.nextRotation());
+        log.trace("Read[{}]: chain {}/{}", globalAddress, logServers.indexOf(logServer) + 1, logServers.size());
         ILogData peekResult = CFUtils.getUninterruptibly(runtimeLayout
-                .getLogUnitClient(globalAddress, numUnits - 1)
+                .getLogUnitClient(logServer)
                 .read(globalAddress)).getAddresses().get(globalAddress);
 
-        return peekResult.isEmpty() ? null : peekResult;
+        if ((peekResult == null || peekResult.isEmpty()) && !logServer.equals(tail)) {
+            // The unit doesn't have a committed address (e.g. it lost its data), so read it from the last unit
+            log.debug("Read[{}]: {} has no committed address, reading from chain tail {}",
+                    globalAddress, logServer, tail);
+            peekResult = CFUtils.getUninterruptibly(runtimeLayout
+                    .getLogUnitClient(tail)
+                    .read(globalAddress)).getAddresses().get(globalAddress);
+        }
+
+        return peekResult == null || peekResult.isEmpty() ? null : peekResult;
     }
 
     /**
@@ -102,14 +114,50 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
 
         // A map of log unit server endpoint to addresses it's responsible for
         Map<String, List<Long>> serverAddressMap = new HashMap<>();
+        // The addresses read from a unit other than the last unit of their chain
+        Map<String, List<Long>> replicaAddressMap = new HashMap<>();
 
+        // The addresses of the batch share a rotation, so that a chain serves the batch from a single unit
+        ChainReadSelector selector = runtimeLayout.getChainReadSelector();
+        int rotation = selector.nextRotation();
         for (Long address : addresses) {
             List<String> logServers = runtimeLayout.getLayout().getStripe(address).getLogServers();
-            String logServer = logServers.get(logServers.size() - 1);
+            String tail = logServers.get(logServers.size() - 1);
+            String logServer = selector.select(logServers, address, rotation);
             List<Long> addressList = serverAddressMap.computeIfAbsent(logServer, s -> new ArrayList<>());
             addressList.add(address);
+            if (!logServer.equals(tail)) {
+                replicaAddressMap.computeIfAbsent(tail, s -> new ArrayList<>()).add(address);
+            }
         }
 
+        Map<Long, LogData> readResult = readAll(runtimeLayout, serverAddressMap, cacheOnServer);
+
+        // The units other than the last unit of a chain must have every committed address,
+        // read the ones they don't have (e.g. they lost their data) from the last unit
+        replicaAddressMap.values().forEach(addressList -> addressList.removeIf(
+                address -> !readResult.get(address).isEmpty()));
+        replicaAddressMap.values().removeIf(List::isEmpty);
+        if (!replicaAddressMap.isEmpty()) {
+            log.debug("readAll: reading {} committed addresses from chain tails", replicaAddressMap);
+            readResult.putAll(readAll(runtimeLayout, replicaAddressMap, cacheOnServer));
+        }
+
+        return waitOrHoleFill(runtimeLayout, readResult, waitForWrite);
+    }
+
+    /**
+     * Reads the addresses of every log unit server in parallel. An address missing from the
+     * response of a log unit server is returned as an empty entry.
+     *
+     * @param runtimeLayout    runtime layout.
+     * @param serverAddressMap map of log unit server endpoint to the addresses to read from it.
+     * @param cacheOnServer    flag whether the fetch results should be cached on log unit server.
+     * @return Map of read addresses.
+     */
+    private Map<Long, LogData> readAll(RuntimeLayout runtimeLayout,
+                                       Map<String, List<Long>> serverAddressMap,
+                                       boolean cacheOnServer) {
         // Send read requests to log unit servers in parallel
         List<CompletableFuture<ReadResponse>> futures = serverAddressMap.entrySet().stream()
                 .map(entry -> runtimeLayout.getLogUnitClient(entry.getKey())
@@ -124,7 +172,9 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
                     return map1;
                 });
 
-        return waitOrHoleFill(runtimeLayout, readResult, waitForWrite);
+        serverAddressMap.values().forEach(addressList -> addressList.forEach(address ->
+                readResult.computeIfAbsent(address, LogData::getEmpty)));
+        return readResult;
     }
 
     private Map<Long, ILogData> waitOrHoleFill(RuntimeLayout runtimeLayout,
@@ -182,9 +232,9 @@ public class ChainReplicationProtocol extends AbstractReplicationProtocol {
      * @param globalAddress the global address to start writing at.
      * @param data          the data to propagate, or NULL, if it is to be a hole.
      */
-    private void propagate(RuntimeLayout runtimeLayout,
-                           long globalAddress,
-                           @Nullable ILogData data) {
+    protected void propagate(RuntimeLayout runtimeLayout,
+                             long globalAddress,
+                             @Nullable ILogData data) {
         int numUnits = runtimeLayout.getLayout().getSegmentLength(globalAddress);
 
         for (int i = 1; i < numUnits; i++) {
@@ -0,0 +1,70 @@
+package org.corfudb.runtime.view.replication;
+
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.exceptions.OverwriteException;
+import org.corfudb.runtime.view.RuntimeLayout;
+import org.corfudb.util.CFUtils;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A chain replication protocol which propagates a write to the units after the
+ * head of the chain in parallel, rather than one after the other.
+ *
+ * <p>The head of the chain still decides the value of an address: a write (or a hole fill)
+ * is only propagated once it succeeded at the head, and a write which is overwritten at the
+ * head is recovered from the head, as in chain replication. Writing to every unit at once
+ * would let a hole fill and a write of the same address win on different units. So a write
+ * takes two round trips, whatever the length of the chain.</p>
+ *
+ * <p>The units after the head are no longer written in order, so the last unit of the chain
+ * can have an address before the units ahead of it. Readers of those units fall back to the
+ * last unit of the chain when they don't have an address.</p>
+ */
+@Slf4j
+public class FanOutChainReplicationProtocol extends ChainReplicationProtocol {
+
+    public FanOutChainReplicationProtocol(IHoleFillPolicy holeFillPolicy) {
+        super(holeFillPolicy);
+    }
+
+    /**
+     * Propagate a write to every unit after the head of the chain in parallel,
+     * ignoring any overwrite errors.
+     *
+     * @param runtimeLayout the epoch stamped client containing the layout to use for propagation.
+     * @param globalAddress the global address to start writing at.
+     * @param data          the data to propagate, or NULL, if it is to be a hole.
+     */
+    @Override
+    protected void propagate(RuntimeLayout runtimeLayout,
+                             long globalAddress,
+                             @Nullable ILogData data) {
+        int numUnits = runtimeLayout.getLayout().getSegmentLength(globalAddress);
+        ILogData entry = data;
+        if (entry == null) {
+            entry = LogData.getHole(new Token(runtimeLayout.getLayout().getEpoch(), globalAddress));
+        }
+
+        log.trace("Propagate[{}]: fan out to chain 2-{}/{}", Token.of(runtimeLayout.getLayout().getEpoch(),
+                globalAddress), numUnits, numUnits);
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>(numUnits - 1);
+        for (int i = 1; i < numUnits; i++) {
+            writes.add(runtimeLayout.getLogUnitClient(globalAddress, i).write(entry));
+        }
+
+        for (CompletableFuture<Boolean> write : writes) {
+            try {
+                CFUtils.getUninterruptibly(write, OverwriteException.class);
+            } catch (OverwriteException oe) {
+                log.info("Propagate[{}]: Completed by other writer", globalAddress);
+            }
+        }
+    }
+}
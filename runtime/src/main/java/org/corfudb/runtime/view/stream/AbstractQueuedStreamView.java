@@ -57,6 +57,11 @@ public abstract class AbstractQueuedStreamView extends
     @Getter
     private final ReadOptions readOptions;
 
+    /**
+     * Reads the stream's batches ahead of the consumer, or null if read-ahead is disabled.
+     */
+    private final StreamPrefetcher prefetcher;
+
     /** Create a new queued stream view.
      *
      * @param streamId  The ID of the stream
@@ -70,6 +75,24 @@ public abstract class AbstractQueuedStreamView extends
                 .clientCacheable(streamOptions.isCacheEntries())
                 .ignoreTrim(streamOptions.isIgnoreTrimmed())
                 .build();
+
+        final int prefetchWindow = runtime.getParameters().getStreamPrefetchWindow();
+        this.prefetcher = prefetchWindow > 0
+                ? new StreamPrefetcher(addresses -> runtime.getAddressSpaceView().read(addresses, readOptions),
+                        runtime.getStreamPrefetchExecutor(), runtime.getParameters().getStreamBatchSize(),
+                        prefetchWindow)
+                : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void reset() {
+        super.reset();
+        if (prefetcher != null) {
+            prefetcher.reset();
+        }
     }
 
     /** Add the given address to the resolved queue of the
@@ -582,6 +605,28 @@ public abstract class AbstractQueuedStreamView extends
         }
     }
 
+    /**
+     * Read 'nextRead', while the batches of addresses that follow it in 'addresses' are
+     * read ahead asynchronously, if read-ahead is enabled. Otherwise, this reads a batch
+     * of addresses on a cache miss, as {@link #read(long, NavigableSet)} does.
+     *
+     * @param nextRead current address of interest
+     * @param addresses addresses to read next (excludes nextRead)
+     * @return data for current 'address' of interest, or null if it is trimmed and trims are ignored.
+     */
+    protected ILogData readAhead(long nextRead, @Nonnull final NavigableSet<Long> addresses) {
+        if (prefetcher == null) {
+            return read(nextRead, addresses);
+        }
+
+        try {
+            return prefetcher.read(nextRead, addresses);
+        } catch (TrimmedException te) {
+            processTrimmedException(te);
+            throw te;
+        }
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -686,6 +731,12 @@ public abstract class AbstractQueuedStreamView extends
                             this, data.getGlobalAddress(), cpEntry.getCpType(),
                             Utils.toReadableId(cpEntry.getCheckpointId()),
                             cpEntry.getCheckpointAuthorId());
+                    if (cpEntry.getCompressionDictionary() != null) {
+                        // The CONTINUATION records of this checkpoint are compressed with this
+                        // dictionary, they are decompressed when their entries are first accessed.
+                        CheckpointEntry.registerCompressionDictionary(cpEntry.getCheckpointId(),
+                                data.getGlobalAddress(), cpEntry.getCompressionDictionary());
+                    }
                     return true;
                 }
             }
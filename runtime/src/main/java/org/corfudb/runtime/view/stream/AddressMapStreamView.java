@@ -82,7 +82,8 @@ public class AddressMapStreamView extends AbstractQueuedStreamView {
                 // the stream's full address map, without reading the actual data), entries can be read in
                 // batches whenever we have a cache miss. This allows next reads
                 // to be serviced immediately, rather than reading one entry at a time.
-                ld = read(currentRead, queue);
+                // The batches that follow are read ahead while this one is applied.
+                ld = readAhead(currentRead, queue);
 
                 if (queue == getCurrentContext().readQueue && ld != null) {
                     // Validate that the data entry belongs to this stream, otherwise, skip.
@@ -45,6 +45,17 @@ public class StreamAddressSpace {
         return addressMap;
     }
 
+    /**
+     * Copy this address space.
+     *
+     * @return an address space with the same trim mark and a copy of the addresses.
+     */
+    public StreamAddressSpace copy() {
+        Roaring64NavigableMap addressMapCopy = new Roaring64NavigableMap();
+        addressMapCopy.or(addressMap);
+        return new StreamAddressSpace(trimMark, addressMapCopy);
+    }
+
     /**
      * Copy this stream's addresses to a set, under a given boundary (inclusive).
      *
@@ -85,6 +96,21 @@ public class StreamAddressSpace {
         addressMap.addLong(address);
     }
 
+    /**
+     * Add a range of consecutive addresses to this address space.
+     *
+     * @param start first address of the range (inclusive).
+     * @param end   last address of the range (exclusive).
+     */
+    public void addAddresses(long start, long end) {
+        if (end - start == 1) {
+            addressMap.addLong(start);
+            return;
+        }
+
+        addressMap.addRange(start, end);
+    }
+
     /**
      * Remove addresses from the stream's address map
      * and set the new trim mark (to the greatest of all addresses to remove).
@@ -141,12 +167,18 @@ public class StreamAddressSpace {
     public Roaring64NavigableMap getAddressesInRange(StreamAddressRange range) {
         Roaring64NavigableMap addressesInRange = new Roaring64NavigableMap();
         if (range.getStart() > range.getEnd()) {
-            addressMap.forEach(address -> {
-                // Because our search is referenced to the stream's tail => (end < start]
-                if (address > range.getEnd() && address <= range.getStart()) {
-                    addressesInRange.add(address);
+            // Because our search is referenced to the stream's tail => (end < start]
+            // Skip the addresses up to the end of the range rather than scanning them, as the range
+            // is usually the tail of the stream. Note: the rank of a negative value is the cardinality.
+            long numAddressesToSkip = Address.isAddress(range.getEnd()) ? addressMap.rankLong(range.getEnd()) : 0;
+            long numAddresses = addressMap.getLongCardinality();
+            for (long i = numAddressesToSkip; i < numAddresses; i++) {
+                long address = addressMap.select(i);
+                if (address > range.getStart()) {
+                    break;
                 }
-            });
+                addressesInRange.addLong(address);
+            }
         }
 
         log.trace("getAddressesInRange[{}]: address map in range [{}-{}] has a total of {} addresses.",
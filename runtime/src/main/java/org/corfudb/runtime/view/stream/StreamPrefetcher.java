@@ -0,0 +1,250 @@
+package org.corfudb.runtime.view.stream;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.corfudb.protocols.wireprotocol.ILogData;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Reads batches of a stream's addresses ahead of the stream's consumer, so that the next
+ * batches are fetched while the entries of the current batch are deserialized and applied.
+ *
+ * <p>The batch the consumer asks for is read on the consumer's thread, as a stream read
+ * without read-ahead does, so that short syncs do not pay for a thread hand-off. The batches
+ * that follow it in the read queue are read asynchronously.
+ *
+ * <p>The number of batches kept in flight ahead of the consumer scales with the observed
+ * latency of a batch read relative to the time the consumer takes to go through a batch,
+ * up to {@code maxWindow}: a consumer which is faster than the log keeps more batches in
+ * flight.
+ *
+ * <p>The prefetcher is not thread-safe, it is driven by the stream view, under its lock.
+ */
+@Slf4j
+class StreamPrefetcher {
+
+    /**
+     * The weight of a new sample in the moving averages of the latencies.
+     */
+    private static final double SAMPLE_WEIGHT = 0.2;
+
+    /**
+     * The function which reads a batch of addresses.
+     */
+    private final Function<List<Long>, Map<Long, ILogData>> fetchFn;
+
+    private final Executor executor;
+
+    private final int batchSize;
+
+    private final int maxWindow;
+
+    /**
+     * The batches read or being read, in address order. The first one is the batch
+     * the consumer is going through.
+     */
+    private final Deque<Batch> batches = new ArrayDeque<>();
+
+    /**
+     * The queue the batches were taken from.
+     */
+    private NavigableSet<Long> queue;
+
+    /**
+     * Moving average of the time it takes to read a batch. It is updated by the threads
+     * which read the batches, and a lost update only loses a sample.
+     */
+    private volatile double fetchNanos;
+
+    /**
+     * Moving average of the time it takes the consumer to go through a batch.
+     */
+    private double consumeNanos;
+
+    /**
+     * The time the consumer started going through the first batch.
+     */
+    private long consumeStartNanos;
+
+    /**
+     * The number of batches kept in flight ahead of the consumer.
+     */
+    @Getter
+    private int window = 1;
+
+    StreamPrefetcher(@Nonnull Function<List<Long>, Map<Long, ILogData>> fetchFn,
+                     @Nonnull Executor executor, int batchSize, int maxWindow) {
+        this.fetchFn = fetchFn;
+        this.executor = executor;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxWindow = maxWindow;
+    }
+
+    /**
+     * Read an address of the stream, and read ahead the addresses that follow it in the queue.
+     *
+     * @param nextRead the address to read, which was just removed from the queue.
+     * @param queue    the queue of addresses to read next.
+     * @return the data at the address, or null if the address is trimmed and the trim is ignored.
+     */
+    ILogData read(long nextRead, @Nonnull NavigableSet<Long> queue) {
+        if (queue != this.queue
+                || (!batches.isEmpty() && nextRead < batches.peekFirst().getFirst())) {
+            // The consumer moved back, or switched to another queue
+            reset();
+            this.queue = queue;
+        }
+
+        // Drop the batches the consumer went past
+        boolean nextBatch = false;
+        while (!batches.isEmpty() && batches.peekFirst().getLast() < nextRead) {
+            batches.pollFirst().future.cancel(false);
+            nextBatch = true;
+        }
+
+        if (batches.isEmpty()) {
+            List<Long> addresses = new ArrayList<>(batchSize);
+            addresses.add(nextRead);
+            addAddresses(addresses, queue.tailSet(nextRead, false).iterator());
+
+            Batch batch = new Batch(addresses);
+            batch.fetch();
+            batches.addLast(batch);
+            nextBatch = true;
+        }
+
+        if (nextBatch) {
+            startConsuming();
+        }
+
+        Batch batch = batches.peekFirst();
+        prefetch();
+
+        try {
+            if (Collections.binarySearch(batch.addresses, nextRead) < 0) {
+                // The address was discovered after the batch was read
+                return fetchFn.apply(Collections.singletonList(nextRead)).get(nextRead);
+            }
+
+            boolean waited = !batch.future.isDone();
+            Map<Long, ILogData> data = batch.future.join();
+            if (waited) {
+                // Do not count the wait as time spent going through the batch
+                consumeStartNanos = System.nanoTime();
+            }
+            return data.get(nextRead);
+        } catch (CompletionException ce) {
+            reset();
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        } catch (RuntimeException re) {
+            reset();
+            throw re;
+        }
+    }
+
+    /**
+     * Drop the batches in flight.
+     */
+    void reset() {
+        batches.forEach(batch -> batch.future.cancel(false));
+        batches.clear();
+        queue = null;
+        consumeStartNanos = 0;
+    }
+
+    /**
+     * Record the time the consumer went through the previous batch, and adapt the window.
+     */
+    private void startConsuming() {
+        final long now = System.nanoTime();
+        if (consumeStartNanos != 0) {
+            consumeNanos = average(consumeNanos, now - consumeStartNanos);
+        }
+        consumeStartNanos = now;
+
+        if (fetchNanos > 0 && consumeNanos > 0) {
+            int batchesPerFetch = (int) Math.ceil(fetchNanos / consumeNanos);
+            window = Math.max(1, Math.min(maxWindow, batchesPerFetch));
+        }
+    }
+
+    /**
+     * Start reading the batches that follow the last batch, until the window is full.
+     */
+    private void prefetch() {
+        while (batches.size() - 1 < window) {
+            List<Long> addresses = new ArrayList<>(batchSize);
+            addAddresses(addresses, queue.tailSet(batches.peekLast().getLast(), false).iterator());
+            if (addresses.isEmpty()) {
+                return;
+            }
+
+            Batch batch = new Batch(addresses);
+            batch.fetchAsync();
+            batches.addLast(batch);
+        }
+    }
+
+    private void addAddresses(List<Long> addresses, Iterator<Long> it) {
+        while (it.hasNext() && addresses.size() < batchSize) {
+            addresses.add(it.next());
+        }
+    }
+
+    private static double average(double average, long sample) {
+        return average == 0 ? sample : average + SAMPLE_WEIGHT * (sample - average);
+    }
+
+    /**
+     * A batch of addresses, in ascending order, and their data once read.
+     */
+    private class Batch {
+
+        final List<Long> addresses;
+
+        CompletableFuture<Map<Long, ILogData>> future;
+
+        Batch(List<Long> addresses) {
+            this.addresses = addresses;
+        }
+
+        long getFirst() {
+            return addresses.get(0);
+        }
+
+        long getLast() {
+            return addresses.get(addresses.size() - 1);
+        }
+
+        void fetch() {
+            future = CompletableFuture.completedFuture(timedFetch());
+        }
+
+        void fetchAsync() {
+            future = CompletableFuture.supplyAsync(this::timedFetch, executor);
+        }
+
+        private Map<Long, ILogData> timedFetch() {
+            final long start = System.nanoTime();
+            Map<Long, ILogData> data = fetchFn.apply(addresses);
+            fetchNanos = average(fetchNanos, System.nanoTime() - start);
+            return data;
+        }
+    }
+}
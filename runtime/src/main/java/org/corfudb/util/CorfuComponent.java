@@ -16,7 +16,9 @@ public enum CorfuComponent {
     CLIENT_SEQUENCER("corfu.runtime.sequencer."),
 
     // Infrastructure components
+    INFRA_LOG_UNIT("corfu.infrastructure.log-unit."),
     INFRA_MSG_HANDLER("corfu.infrastructure.message-handler."),
+    INFRA_ORCHESTRATOR("corfu.infrastructure.orchestrator."),
     INFRA_SEQUENCER("corfu.infrastructure.sequencer."),
     INFRA_STREAM_OPS("corfu.infrastructure.stream-ops.");
 
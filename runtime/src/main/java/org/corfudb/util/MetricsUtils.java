@@ -3,6 +3,7 @@ package org.corfudb.util;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.CsvReporter;
 import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.jmx.JmxReporter;
 import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
@@ -280,6 +281,18 @@ public class MetricsUtils {
         }
     }
 
+    public static void updateConditionalHistogram(@NonNull Histogram histogram, long value) {
+        if (metricsCollectionEnabled) {
+            histogram.update(value);
+        }
+    }
+
+    public static void updateConditionalTimer(@NonNull Timer timer, long duration, TimeUnit unit) {
+        if (metricsCollectionEnabled) {
+            timer.update(duration, unit);
+        }
+    }
+
     /**
      * return a gauge on direct memory used by netty's PooledByteBufAllocator
      */
@@ -1,15 +1,22 @@
 package org.corfudb.util.serializer;
 
-import com.google.protobuf.Any;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.google.protobuf.WireFormat;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.corfudb.runtime.CorfuRuntime;
 import org.corfudb.runtime.CorfuStoreMetadata.Record;
@@ -27,6 +34,16 @@ import org.corfudb.runtime.exceptions.SerializerException;
  * Any type carries with it a typeUrl which helps identify the class uniquely.
  * This typeUrl is then used to index the classMap to retrieve the actual Protobuf message
  * while deserializing.
+ * <p>
+ * An object is serialized as a {@link Record}, but the record and its Any fields are encoded
+ * by this serializer directly into the target buffer, and decoded from the source buffer, so
+ * that neither the intermediate protobuf messages nor copies of their bytes are allocated.
+ * The parsers of the decoded types are cached in a table keyed by the hash of their typeUrl.
+ * <p>
+ * The records whose payload type is registered with {@link #enableLazyDecoding(Class)} are
+ * deserialized lazily: the returned {@link CorfuRecord} keeps a copy of the serialized record,
+ * and decodes it on the first access to its payload or metadata. Replaying the updates of a
+ * table then only decodes the values which are read, rather than every value written.
  */
 @Slf4j
 public class ProtobufSerializer implements ISerializer {
@@ -35,8 +52,33 @@ public class ProtobufSerializer implements ISerializer {
 
     public static final byte PROTOBUF_SERIALIZER_CODE = (byte) 25;
 
+    private static final String TYPE_URL_PREFIX = "type.googleapis.com/";
+
+    /**
+     * Record and Any field numbers.
+     */
+    private static final int PAYLOAD_FIELD = 1;
+    private static final int METADATA_FIELD = 2;
+    private static final int TYPE_URL_FIELD = 1;
+    private static final int VALUE_FIELD = 2;
+
     private final Map<String, Class<? extends Message>> classMap;
 
+    /**
+     * The typeUrls of the serialized classes, encoded in UTF-8.
+     */
+    private final Map<Class<?>, byte[]> typeUrls = new ConcurrentHashMap<>();
+
+    /**
+     * The parsers of the deserialized types. Copied on write, as a type is added once.
+     */
+    private volatile ParserTable parsers = new ParserTable(new ParserTable.Entry[0]);
+
+    /**
+     * The payload types of the records which are decoded on first access.
+     */
+    private final Set<Class<? extends Message>> lazyTypes = ConcurrentHashMap.newKeySet();
+
     public ProtobufSerializer(Map<String, Class<? extends Message>> classMap) {
         this.type = PROTOBUF_SERIALIZER_CODE;
         this.classMap = classMap;
@@ -70,6 +112,16 @@ public class ProtobufSerializer implements ISerializer {
         return type;
     }
 
+    /**
+     * Deserialize the records whose payload is of the given type lazily, i.e. decode
+     * their payload and metadata on first access.
+     *
+     * @param payloadClass The type of the record payloads.
+     */
+    public void enableLazyDecoding(Class<? extends Message> payloadClass) {
+        lazyTypes.add(payloadClass);
+    }
+
     /**
      * Deserialize an object from a given byte buffer.
      *
@@ -79,31 +131,170 @@ public class ProtobufSerializer implements ISerializer {
     @Override
     public Object deserialize(ByteBuf b, CorfuRuntime rt) {
 
-        try (ByteBufInputStream bbis = new ByteBufInputStream(b)) {
-            MessageType type = MessageType.valueOf(bbis.readInt());
-            int size = bbis.readInt();
-            byte[] data = new byte[size];
-            bbis.readFully(data);
-            Record record = Record.parseFrom(data);
-            Any payload = record.getPayload();
-            Message value = payload.unpack(classMap.get(payload.getTypeUrl()));
-
-            if (type.equals(MessageType.KEY)) {
-                return value;
-            } else {
-                Message metadata = null;
-                if (record.hasMetadata()) {
-                    Any anyMetadata = record.getMetadata();
-                    metadata = anyMetadata.unpack(classMap.get(anyMetadata.getTypeUrl()));
-                }
-                return new CorfuRecord(value, metadata);
+        try {
+            MessageType type = MessageType.valueOf(b.readInt());
+            int size = b.readInt();
+
+            if (type.equals(MessageType.VALUE) && !lazyTypes.isEmpty()
+                    && lazyTypes.contains(getPayloadEntry(b, b.readerIndex() + size).messageClass)) {
+                byte[] record = new byte[size];
+                b.readBytes(record);
+                return new LazyRecord(record);
             }
-        } catch (IOException ie) {
+
+            return readRecord(b, b.readerIndex() + size, type);
+        } catch (IOException | IndexOutOfBoundsException ie) {
             log.error("Exception during deserialization!", ie);
             throw new SerializerException(ie);
         }
     }
 
+    /**
+     * Decode a {@link Record} from a buffer.
+     *
+     * @param b    The bytebuf to read the record from.
+     * @param end  The end index of the record in the buffer.
+     * @param type The type of the record.
+     * @return The payload of a key, or a {@link CorfuRecord} of a value.
+     */
+    private Object readRecord(ByteBuf b, int end, MessageType type) throws IOException {
+        Message value = null;
+        Message metadata = null;
+        while (b.readerIndex() < end) {
+            int tag = readRawVarint32(b);
+            int field = WireFormat.getTagFieldNumber(tag);
+            if (field == PAYLOAD_FIELD || field == METADATA_FIELD) {
+                int length = readRawVarint32(b);
+                Message message = readAny(b, b.readerIndex() + length);
+                if (field == PAYLOAD_FIELD) {
+                    value = message;
+                } else {
+                    metadata = message;
+                }
+            } else {
+                skipField(b, tag);
+            }
+        }
+
+        if (value == null) {
+            throw new SerializerException("Record without payload");
+        }
+
+        if (type.equals(MessageType.KEY)) {
+            return value;
+        } else {
+            return new CorfuRecord(value, metadata);
+        }
+    }
+
+    /**
+     * Find the entry of the payload type of a {@link Record}, without moving the reader index.
+     *
+     * @param b   The bytebuf which contains the record.
+     * @param end The end index of the record in the buffer.
+     * @return The entry of the payload type.
+     */
+    private ParserTable.Entry getPayloadEntry(ByteBuf b, int end) throws IOException {
+        int readerIndex = b.readerIndex();
+        try {
+            while (b.readerIndex() < end) {
+                int tag = readRawVarint32(b);
+                if (WireFormat.getTagFieldNumber(tag) != PAYLOAD_FIELD) {
+                    skipField(b, tag);
+                    continue;
+                }
+
+                int anyEnd = readRawVarint32(b) + b.readerIndex();
+                while (b.readerIndex() < anyEnd) {
+                    int anyTag = readRawVarint32(b);
+                    if (WireFormat.getTagFieldNumber(anyTag) == TYPE_URL_FIELD) {
+                        int length = readRawVarint32(b);
+                        return getEntry(b, b.readerIndex(), length);
+                    }
+                    skipField(b, anyTag);
+                }
+            }
+            throw new SerializerException("Record without payload typeUrl");
+        } finally {
+            b.readerIndex(readerIndex);
+        }
+    }
+
+    /**
+     * Decode an Any from a buffer, and unpack its value.
+     *
+     * @param b   The bytebuf to read the Any from.
+     * @param end The end index of the Any in the buffer.
+     * @return The message packed in the Any.
+     */
+    private Message readAny(ByteBuf b, int end) throws IOException {
+        int typeUrlIndex = -1;
+        int typeUrlLength = 0;
+        int valueIndex = b.readerIndex();
+        int valueLength = 0;
+
+        while (b.readerIndex() < end) {
+            int tag = readRawVarint32(b);
+            int field = WireFormat.getTagFieldNumber(tag);
+            if (field == TYPE_URL_FIELD) {
+                typeUrlLength = readRawVarint32(b);
+                typeUrlIndex = b.readerIndex();
+                b.skipBytes(typeUrlLength);
+            } else if (field == VALUE_FIELD) {
+                valueLength = readRawVarint32(b);
+                valueIndex = b.readerIndex();
+                b.skipBytes(valueLength);
+            } else {
+                skipField(b, tag);
+            }
+        }
+
+        if (typeUrlIndex < 0) {
+            throw new SerializerException("Any without typeUrl");
+        }
+
+        Parser<? extends Message> parser = getEntry(b, typeUrlIndex, typeUrlLength).parser;
+        return parser.parseFrom(CodedInputStream.newInstance(b.nioBuffer(valueIndex, valueLength)));
+    }
+
+    /**
+     * Returns the entry of the type identified by a typeUrl.
+     *
+     * @param b      The bytebuf which contains the typeUrl.
+     * @param index  The index of the typeUrl in the buffer.
+     * @param length The length of the typeUrl.
+     * @return The entry of the type.
+     */
+    private ParserTable.Entry getEntry(ByteBuf b, int index, int length) {
+        long hash = hash(b, index, length);
+        ParserTable.Entry entry = parsers.get(hash, b, index, length);
+        if (entry != null) {
+            return entry;
+        }
+
+        String typeUrl = b.toString(index, length, StandardCharsets.UTF_8);
+        Class<? extends Message> messageClass = classMap.get(typeUrl);
+        if (messageClass == null) {
+            throw new SerializerException("Unknown typeUrl " + typeUrl);
+        }
+
+        try {
+            Message defaultInstance = (Message) messageClass.getMethod("getDefaultInstance")
+                    .invoke(null);
+            entry = new ParserTable.Entry(hash, typeUrl.getBytes(StandardCharsets.UTF_8),
+                    messageClass, defaultInstance.getParserForType());
+        } catch (ReflectiveOperationException e) {
+            throw new SerializerException(e);
+        }
+
+        synchronized (this) {
+            if (parsers.get(hash, b, index, length) == null) {
+                parsers = parsers.add(entry);
+            }
+        }
+        return entry;
+    }
+
     /**
      * Serialize an object into a given byte buffer.
      *
@@ -113,36 +304,309 @@ public class ProtobufSerializer implements ISerializer {
     @Override
     public void serialize(Object o, ByteBuf b) {
 
-        Record record;
-        MessageType type;
+        final Message payload;
+        final Message metadata;
+        final MessageType type;
+
+        if (o instanceof LazyRecord) {
+            // A record that wasn't decoded is written as it was read
+            byte[] record = ((LazyRecord) o).serializedRecord;
+            if (record != null) {
+                b.writeInt(MessageType.VALUE.val);
+                b.writeInt(record.length);
+                b.writeBytes(record);
+                return;
+            }
+        }
 
         if (o instanceof CorfuRecord) {
             CorfuRecord corfuRecord = (CorfuRecord) o;
-            Any message = Any.pack(corfuRecord.getPayload());
-            Record.Builder recordBuilder = Record.newBuilder()
-                    .setPayload(message);
-            if (corfuRecord.getMetadata() != null) {
-                Any metadata = Any.pack(corfuRecord.getMetadata());
-                recordBuilder.setMetadata(metadata);
-            }
-            record = recordBuilder.build();
+            payload = corfuRecord.getPayload();
+            metadata = corfuRecord.getMetadata();
             type = MessageType.VALUE;
         } else {
-            Any message = Any.pack(((Message) o));
-            record = Record.newBuilder()
-                    .setPayload(message)
-                    .build();
+            payload = (Message) o;
+            metadata = null;
             type = MessageType.KEY;
         }
-        byte[] data = record.toByteArray();
 
-        try (ByteBufOutputStream bbos = new ByteBufOutputStream(b)) {
-            bbos.writeInt(type.val);
-            bbos.writeInt(data.length);
-            bbos.write(data);
+        final byte[] payloadTypeUrl = getTypeUrl(payload);
+        final int payloadSize = computeAnySize(payloadTypeUrl, payload);
+        int size = computeFieldSize(PAYLOAD_FIELD, payloadSize);
+
+        final byte[] metadataTypeUrl = metadata == null ? null : getTypeUrl(metadata);
+        final int metadataSize = metadata == null ? 0 : computeAnySize(metadataTypeUrl, metadata);
+        if (metadata != null) {
+            size += computeFieldSize(METADATA_FIELD, metadataSize);
+        }
+
+        b.ensureWritable(Integer.BYTES * 2 + size);
+        b.writeInt(type.val);
+        b.writeInt(size);
+
+        try {
+            final CodedOutputStream output;
+            if (b.hasArray()) {
+                output = CodedOutputStream.newInstance(b.array(),
+                        b.arrayOffset() + b.writerIndex(), size);
+            } else if (b.nioBufferCount() == 1) {
+                output = CodedOutputStream.newInstance(b.nioBuffer(b.writerIndex(), size));
+            } else {
+                output = null;
+            }
+
+            if (output == null) {
+                // The buffer isn't contiguous, encode through a stream
+                CodedOutputStream stream = CodedOutputStream.newInstance(new ByteBufOutputStream(b), size);
+                writeRecord(stream, payloadTypeUrl, payload, payloadSize,
+                        metadataTypeUrl, metadata, metadataSize);
+                stream.flush();
+            } else {
+                writeRecord(output, payloadTypeUrl, payload, payloadSize,
+                        metadataTypeUrl, metadata, metadataSize);
+                output.flush();
+                b.writerIndex(b.writerIndex() + size);
+            }
         } catch (IOException ie) {
             log.error("Exception during serialization!", ie);
             throw new SerializerException(ie);
         }
     }
+
+    /**
+     * Returns the typeUrl the Any of a message is packed with, encoded in UTF-8.
+     */
+    private byte[] getTypeUrl(Message message) {
+        byte[] typeUrl = typeUrls.get(message.getClass());
+        if (typeUrl == null) {
+            typeUrl = (TYPE_URL_PREFIX + message.getDescriptorForType().getFullName())
+                    .getBytes(StandardCharsets.UTF_8);
+            typeUrls.put(message.getClass(), typeUrl);
+        }
+        return typeUrl;
+    }
+
+    /**
+     * Write a {@link Record}, the same as {@link Record#writeTo(CodedOutputStream)}.
+     */
+    private static void writeRecord(CodedOutputStream output,
+                                    byte[] payloadTypeUrl, Message payload, int payloadSize,
+                                    byte[] metadataTypeUrl, Message metadata, int metadataSize)
+            throws IOException {
+        writeAny(output, PAYLOAD_FIELD, payloadTypeUrl, payload, payloadSize);
+        if (metadata != null) {
+            writeAny(output, METADATA_FIELD, metadataTypeUrl, metadata, metadataSize);
+        }
+    }
+
+    /**
+     * Write a message packed in an Any field, the same as {@code Any.pack(message)}.
+     */
+    private static void writeAny(CodedOutputStream output, int field, byte[] typeUrl,
+                                 Message message, int anySize) throws IOException {
+        output.writeTag(field, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(anySize);
+        output.writeByteArray(TYPE_URL_FIELD, typeUrl);
+
+        // Like all proto3 fields, an empty value is omitted
+        int messageSize = message.getSerializedSize();
+        if (messageSize > 0) {
+            output.writeTag(VALUE_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(messageSize);
+            message.writeTo(output);
+        }
+    }
+
+    private static int computeAnySize(byte[] typeUrl, Message message) {
+        int messageSize = message.getSerializedSize();
+        int size = CodedOutputStream.computeByteArraySize(TYPE_URL_FIELD, typeUrl);
+        if (messageSize > 0) {
+            size += computeFieldSize(VALUE_FIELD, messageSize);
+        }
+        return size;
+    }
+
+    /**
+     * The size of a length-delimited field, including its tag and length.
+     */
+    private static int computeFieldSize(int field, int length) {
+        return CodedOutputStream.computeTagSize(field)
+                + CodedOutputStream.computeUInt32SizeNoTag(length)
+                + length;
+    }
+
+    private static int readRawVarint32(ByteBuf b) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < Integer.SIZE + Byte.SIZE - 1; shift += 7) {
+            byte next = b.readByte();
+            result |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Skip an unknown field, e.g. written by a newer schema.
+     */
+    private static void skipField(ByteBuf b, int tag) throws IOException {
+        switch (WireFormat.getTagWireType(tag)) {
+            case WireFormat.WIRETYPE_VARINT:
+                while (b.readByte() < 0) {
+                    // skip the varint
+                }
+                break;
+            case WireFormat.WIRETYPE_FIXED64:
+                b.skipBytes(Long.BYTES);
+                break;
+            case WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                b.skipBytes(readRawVarint32(b));
+                break;
+            case WireFormat.WIRETYPE_FIXED32:
+                b.skipBytes(Integer.BYTES);
+                break;
+            default:
+                throw new IOException("Unexpected wire type in tag " + tag);
+        }
+    }
+
+    /**
+     * FNV-1a hash of the bytes of a typeUrl.
+     */
+    private static long hash(ByteBuf b, int index, int length) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = index; i < index + length; i++) {
+            hash ^= b.getByte(i) & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * An immutable open-addressing (linear probing) table of parsers, keyed by the
+     * hash of their typeUrl. A hit is confirmed by comparing the typeUrl itself.
+     */
+    private static class ParserTable {
+
+        private static final int MIN_TABLE_SIZE = 16;
+
+        private final long[] hashes;
+        private final Entry[] entries;
+        private final Entry[] slots;
+        private final int mask;
+
+        ParserTable(Entry[] entries) {
+            this.entries = entries;
+            int tableSize = MIN_TABLE_SIZE;
+            while (tableSize < entries.length * 2) {
+                tableSize <<= 1;
+            }
+            this.mask = tableSize - 1;
+            this.hashes = new long[tableSize];
+            this.slots = new Entry[tableSize];
+
+            for (Entry entry : entries) {
+                int slot = (int) entry.hash & mask;
+                while (slots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = entry.hash;
+                slots[slot] = entry;
+            }
+        }
+
+        Entry get(long hash, ByteBuf b, int index, int length) {
+            for (int slot = (int) hash & mask; slots[slot] != null; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash && slots[slot].matches(b, index, length)) {
+                    return slots[slot];
+                }
+            }
+            return null;
+        }
+
+        ParserTable add(Entry entry) {
+            Entry[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+            newEntries[entries.length] = entry;
+            return new ParserTable(newEntries);
+        }
+
+        private static class Entry {
+            private final long hash;
+            private final byte[] typeUrl;
+            private final Class<? extends Message> messageClass;
+            private final Parser<? extends Message> parser;
+
+            Entry(long hash, byte[] typeUrl, Class<? extends Message> messageClass,
+                  Parser<? extends Message> parser) {
+                this.hash = hash;
+                this.typeUrl = typeUrl;
+                this.messageClass = messageClass;
+                this.parser = parser;
+            }
+
+            boolean matches(ByteBuf b, int index, int length) {
+                if (typeUrl.length != length) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (typeUrl[i] != b.getByte(index + i)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * A {@link CorfuRecord} which decodes its payload and metadata on first access.
+     */
+    private class LazyRecord extends CorfuRecord<Message, Message> {
+
+        /**
+         * The serialized record, until it is decoded.
+         */
+        private volatile byte[] serializedRecord;
+
+        private volatile CorfuRecord<Message, Message> decoded;
+
+        LazyRecord(byte[] serializedRecord) {
+            super(null, null);
+            this.serializedRecord = serializedRecord;
+        }
+
+        @Override
+        public Message getPayload() {
+            return decode().getPayload();
+        }
+
+        @Override
+        public Message getMetadata() {
+            return decode().getMetadata();
+        }
+
+        @SuppressWarnings("unchecked")
+        private CorfuRecord<Message, Message> decode() {
+            CorfuRecord<Message, Message> record = decoded;
+            if (record != null) {
+                return record;
+            }
+
+            synchronized (this) {
+                if (decoded == null) {
+                    byte[] bytes = serializedRecord;
+                    try {
+                        decoded = (CorfuRecord<Message, Message>) readRecord(
+                                Unpooled.wrappedBuffer(bytes), bytes.length, MessageType.VALUE);
+                    } catch (IOException | IndexOutOfBoundsException ie) {
+                        log.error("Exception during deserialization!", ie);
+                        throw new SerializerException(ie);
+                    }
+                    serializedRecord = null;
+                }
+                return decoded;
+            }
+        }
+    }
 }
@@ -2,19 +2,26 @@ package org.corfudb.infrastructure;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import org.corfudb.infrastructure.LogUnitServer.LogUnitServerConfig;
+import org.corfudb.infrastructure.log.InMemoryStreamLog;
+import org.corfudb.infrastructure.log.StreamLog;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.protocols.wireprotocol.MultipleReadRequest;
 import org.corfudb.protocols.wireprotocol.RangeWriteMsg;
+import org.corfudb.protocols.wireprotocol.ReadRequest;
 import org.corfudb.protocols.wireprotocol.ReadResponse;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
@@ -81,12 +88,131 @@ public class LogUnitCacheTest extends AbstractServerTest {
         assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(size);
     }
 
+    /**
+     * Test that sequential cacheable reads prefetch the following addresses into the server cache.
+     */
+    @Test
+    public void checkSequentialReadsArePrefetched() throws Exception {
+        final int size = 100;
+        final int numReads = 4;
+        final long waitMs = 10;
+
+        LogUnitServer logUnitServer = (LogUnitServer) getDefaultServer();
+        setServer(logUnitServer);
+
+        List<LogData> payloads = new ArrayList<>();
+        for (long i = 0; i < size; i++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize("hello".getBytes(), payload);
+            LogData logData = new LogData(DataType.DATA, payload);
+            logData.setGlobalAddress(i);
+            payloads.add(logData);
+        }
+
+        // Range write is not cached on server.
+        sendRequest(CorfuMsgType.RANGE_WRITE.payloadMsg(new RangeWriteMsg(payloads))).join();
+        assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(0);
+
+        for (long i = 0; i < numReads; i++) {
+            CompletableFuture<ReadResponse> future = sendRequest(CorfuMsgType.READ_REQUEST
+                    .payloadMsg(new ReadRequest(i, true)));
+            checkReadResponse(future.join(), 1);
+        }
+
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW && logUnitServer.getDataCache().getSize() < size; i++) {
+            TimeUnit.MILLISECONDS.sleep(waitMs);
+        }
+        assertThat(logUnitServer.getDataCache().getSize()).isEqualTo(size);
+    }
+
     private void checkReadResponse(ReadResponse readResponse, int size) {
         assertThat(readResponse.getAddresses().size()).isEqualTo(size);
 
         readResponse.getAddresses().forEach((addr, ld) -> assertThat(ld.getType()).isEqualTo(DataType.DATA));
     }
 
+    /**
+     * Test that entries evicted from the heap cache are served from the off-heap cache.
+     */
+    @Test
+    public void checkOffHeapCacheReads() throws Exception {
+        final int size = 10;
+        final int offHeapCacheSize = 1 << 20;
+        final long waitMs = 10;
+
+        StreamLog streamLog = new InMemoryStreamLog();
+        List<byte[]> payloads = new ArrayList<>();
+        for (long i = 0; i < size; i++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize(("hello" + i).getBytes(), payload);
+            LogData logData = new LogData(DataType.DATA, payload);
+            logData.setGlobalAddress(i);
+            streamLog.append(i, logData);
+            payloads.add(logData.getData());
+        }
+
+        // The heap cache can't hold any entry, so every entry is moved off-heap.
+        LogUnitServerCache cache = new LogUnitServerCache(LogUnitServerConfig.builder()
+                .maxCacheSize(1)
+                .maxOffHeapCacheSize(offHeapCacheSize)
+                .build(), streamLog);
+
+        for (long i = 0; i < size; i++) {
+            assertThat(cache.get(i).getGlobalAddress()).isEqualTo(i);
+        }
+
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW && cache.getOffHeapSize() < size; i++) {
+            cache.cleanUp();
+            TimeUnit.MILLISECONDS.sleep(waitMs);
+        }
+        assertThat(cache.getOffHeapSize()).isEqualTo(size);
+
+        for (long i = 0; i < size; i++) {
+            LogData logData = (LogData) cache.get(i, false);
+            assertThat(logData.getType()).isEqualTo(DataType.DATA);
+            assertThat(logData.getGlobalAddress()).isEqualTo(i);
+            assertThat(logData.getData()).isEqualTo(payloads.get((int) i));
+        }
+
+        cache.invalidateAll();
+        cache.cleanUp();
+        assertThat(cache.getOffHeapSize()).isZero();
+    }
+
+    /**
+     * Test that a batch read serves the cached entries from the cache, and retrieves the others.
+     */
+    @Test
+    public void checkBatchReads() {
+        final int size = 10;
+        final long hole = size - 1;
+
+        StreamLog streamLog = new InMemoryStreamLog();
+        for (long i = 0; i < hole; i++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize("hello".getBytes(), payload);
+            LogData logData = new LogData(DataType.DATA, payload);
+            logData.setGlobalAddress(i);
+            streamLog.append(i, logData);
+        }
+
+        LogUnitServerCache cache = new LogUnitServerCache(LogUnitServerConfig.builder()
+                .maxCacheSize(Long.MAX_VALUE)
+                .build(), streamLog);
+        for (long i = 0; i < size / 2; i++) {
+            cache.get(i);
+        }
+
+        List<Long> addresses = LongStream.range(0, size).boxed().collect(Collectors.toList());
+        Map<Long, ILogData> entries = cache.getAll(addresses, false);
+        assertThat(entries).hasSize(size - 1).doesNotContainKey(hole);
+        entries.forEach((address, ld) -> assertThat(ld.getGlobalAddress()).isEqualTo(address));
+        assertThat(cache.getSize()).isEqualTo(size / 2);
+
+        assertThat(cache.getAll(addresses, true)).hasSize(size - 1);
+        assertThat(cache.getSize()).isEqualTo(size - 1);
+    }
+
     /**
      * Test maximum server cache size is correctly set.
      */
@@ -80,6 +80,28 @@ public class LogUnitServerTest extends AbstractServerTest {
         assertThatThrownBy(future::join).hasCauseExactlyInstanceOf(OverwriteException.class);
     }
 
+    /**
+     * Test that an in-memory log unit, which doesn't store its segments in files, rejects
+     * segment file writes and installs up front, and reports no segment as complete.
+     */
+    @Test
+    public void inMemoryLogRejectsSegmentFiles() {
+        final long segment = 0L;
+        final byte[] data = "0".getBytes();
+
+        CompletableFuture<Boolean> write = sendRequest(CorfuMsgType.LOG_SEGMENT_WRITE
+                .payloadMsg(new SegmentWriteRequest(segment, 0L, data)));
+        assertThatThrownBy(write::join).hasCauseExactlyInstanceOf(UnsupportedOperationException.class);
+
+        CompletableFuture<Boolean> install = sendRequest(CorfuMsgType.LOG_SEGMENT_INSTALL
+                .payloadMsg(new SegmentInstallRequest(segment, (long) data.length)));
+        assertThatThrownBy(install::join).hasCauseExactlyInstanceOf(UnsupportedOperationException.class);
+
+        CompletableFuture<SegmentReadResponse> read = sendRequest(CorfuMsgType.LOG_SEGMENT_READ_REQUEST
+                .payloadMsg(new SegmentReadRequest(segment, 0L, data.length)));
+        assertThat(read.join().getSegmentSize()).isNegative();
+    }
+
     /**
      * Test that corfu refuses to start if the filesystem/directory is/becomes read-only
      *
@@ -2,21 +2,40 @@ package org.corfudb.infrastructure;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+
+import org.corfudb.protocols.wireprotocol.ConflictFingerprint;
+import org.corfudb.protocols.wireprotocol.CorfuMsg;
 import org.corfudb.protocols.wireprotocol.CorfuMsgType;
 import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
+import org.corfudb.protocols.wireprotocol.IChunkable;
 import org.corfudb.protocols.wireprotocol.SequencerMetrics;
 import org.corfudb.protocols.wireprotocol.SequencerRecoveryMsg;
+import org.corfudb.protocols.wireprotocol.StreamsAddressRequest;
+import org.corfudb.protocols.wireprotocol.StreamsAddressResponse;
 import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenRequest;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.protocols.wireprotocol.TokenType;
+import org.corfudb.protocols.wireprotocol.TxResolutionInfo;
 import org.corfudb.runtime.view.Address;
 import org.junit.Before;
 import org.junit.Test;
@@ -186,6 +205,53 @@ public class SequencerServerTest extends AbstractServerTest {
         }
     }
 
+    /**
+     * Verifies that the conflict keys of a conflict-set large enough to be
+     * checked in parallel are resolved like the ones of a small conflict-set.
+     */
+    @Test
+    public void largeConflictSetIsResolved() {
+        final int numKeys = 2048;
+        final int conflictingKey = 1500;
+        UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
+
+        Set<byte[]> conflictParams = new HashSet<>();
+        for (int i = 0; i < numKeys; i++) {
+            conflictParams.add(Integer.toString(i).getBytes());
+        }
+
+        CompletableFuture<TokenResponse> future = sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                new TokenRequest(0L, Collections.emptyList())));
+        Token snapshot = future.join().getToken();
+
+        // Update a single key after the snapshot
+        byte[] updatedKey = Integer.toString(conflictingKey).getBytes();
+        TxResolutionInfo update = new TxResolutionInfo(UUID.randomUUID(), snapshot,
+                Collections.emptyMap(),
+                Collections.singletonMap(streamA, Collections.singleton(updatedKey)));
+        future = sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                new TokenRequest(1L, Collections.singletonList(streamA), update)));
+        TokenResponse updateResponse = future.join();
+        assertThat(updateResponse.getRespType()).isEqualTo(TokenType.NORMAL);
+
+        TxResolutionInfo conflicting = new TxResolutionInfo(UUID.randomUUID(), snapshot,
+                Collections.singletonMap(streamA, conflictParams), Collections.emptyMap());
+        future = sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                new TokenRequest(1L, Collections.singletonList(streamA), conflicting)));
+        TokenResponse abort = future.join();
+        assertThat(abort.getRespType()).isEqualTo(TokenType.TX_ABORT_CONFLICT);
+        assertThat(abort.getConflictKey()).hasSize(ConflictFingerprint.BYTES);
+        assertThat(conflicting.getConflictParam(streamA, abort.getConflictKey())).isEqualTo(updatedKey);
+
+        TxResolutionInfo nonConflicting = new TxResolutionInfo(UUID.randomUUID(),
+                updateResponse.getToken(), Collections.singletonMap(streamA, conflictParams),
+                Collections.emptyMap());
+        future = sendRequest(new CorfuPayloadMsg<>(CorfuMsgType.TOKEN_REQ,
+                new TokenRequest(1L, Collections.singletonList(streamA), nonConflicting)));
+        TokenResponse commit = future.join();
+        assertThat(commit.getRespType()).isEqualTo(TokenType.NORMAL);
+    }
+
     @Test
     public void SequencerWillResetTails() throws Exception {
         UUID streamA = UUID.nameUUIDFromBytes("streamA".getBytes());
@@ -290,4 +356,127 @@ public class SequencerServerTest extends AbstractServerTest {
                         Collections.emptyMap(), Collections.emptyMap()));
     }
 
+    /**
+     * Verifies that token responses are flushed in bounded batches while requests
+     * keep being queued, instead of waiting for the request queue to drain.
+     */
+    @Test
+    public void tokenResponsesAreFlushedUnderLoad() throws Exception {
+        final int numRequests = SequencerServer.MAX_UNFLUSHED_RESPONSES * 4;
+        final char flushed = 'F';
+        final char deferred = 'D';
+        CountDownLatch firstResponse = new CountDownLatch(1);
+        CountDownLatch requestsQueued = new CountDownLatch(1);
+        CountDownLatch allResponses = new CountDownLatch(numRequests);
+        StringBuffer events = new StringBuffer();
+
+        // Holds the sequencer thread on the first response until all the requests are queued
+        TestServerRouter router = new TestServerRouter() {
+            private void respond(char event) {
+                events.append(event);
+                firstResponse.countDown();
+                try {
+                    requestsQueued.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                allResponses.countDown();
+            }
+
+            @Override
+            public void sendResponse(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg) {
+                respond(flushed);
+            }
+
+            @Override
+            public void sendResponseWithoutFlush(ChannelHandlerContext ctx, CorfuMsg inMsg, CorfuMsg outMsg) {
+                respond(deferred);
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                events.append(flushed);
+            }
+        };
+
+        for (int i = 0; i < numRequests; i++) {
+            server.processRequest(CorfuMsgType.TOKEN_REQ.payloadMsg(
+                    new TokenRequest(1L, Collections.emptyList())), null, router);
+            if (i == 0) {
+                firstResponse.await();
+            }
+        }
+        requestsQueued.countDown();
+        allResponses.await();
+
+        // The queue only drains at the last request, so without a bound all the responses
+        // in between would have been deferred
+        int maxDeferred = Arrays.stream(events.toString().split(String.valueOf(flushed)))
+                .mapToInt(String::length)
+                .max()
+                .orElse(0);
+        assertThat(maxDeferred).isLessThanOrEqualTo(SequencerServer.MAX_UNFLUSHED_RESPONSES);
+        // Only the first and the last responses find the queue empty
+        assertThat(events.chars().filter(event -> event == deferred).count()).isEqualTo(numRequests - 2);
+    }
+
+    /**
+     * Verifies that the chunks of an all-streams response are copies of the address spaces
+     * taken as each chunk is built, so that they can be serialized while tokens keep being
+     * allocated on the streams.
+     */
+    @Test
+    public void allStreamsResponseChunksAreSnapshots() throws Exception {
+        final int numStreams = 32;
+        List<UUID> streams = new ArrayList<>();
+        for (int i = 0; i < numStreams; i++) {
+            streams.add(UUID.randomUUID());
+            sendRequest(CorfuMsgType.TOKEN_REQ.payloadMsg(
+                    new TokenRequest(1L, Collections.singletonList(streams.get(i))))).join();
+        }
+
+        List<StreamsAddressResponse> chunks = new ArrayList<>();
+        CompletableFuture<Void> response = new CompletableFuture<>();
+        TestServerRouter chunkRouter = new TestServerRouter() {
+            @Override
+            public <T extends IChunkable<T>> void sendChunkedResponse(ChannelHandlerContext ctx, CorfuMsg inMsg,
+                                                                      CorfuMsgType type, T payload,
+                                                                      Executor chunkExecutor) {
+                // A chunk per stream, built on the chunk executor and serialized on another
+                // thread, like the Netty event loop does
+                Iterator<T> it = payload.split(1);
+                CompletableFuture.runAsync(() -> {
+                    while (it.hasNext()) {
+                        StreamsAddressResponse chunk = (StreamsAddressResponse) CompletableFuture
+                                .supplyAsync(it::next, chunkExecutor).join();
+                        // Allocate a token on every stream while the chunk is in flight
+                        sendRequest(CorfuMsgType.TOKEN_REQ.payloadMsg(new TokenRequest(1L, streams))).join();
+
+                        ByteBuf buf = Unpooled.buffer();
+                        chunk.doSerialize(buf);
+                        chunks.add(new StreamsAddressResponse(buf));
+                    }
+                }).whenComplete((r, e) -> {
+                    if (e != null) {
+                        response.completeExceptionally(e);
+                    } else {
+                        response.complete(null);
+                    }
+                });
+            }
+        };
+
+        server.processRequest(CorfuMsgType.STREAMS_ADDRESS_REQUEST.payloadMsg(
+                new StreamsAddressRequest(StreamsAddressRequest.ALL_STREAMS)), null, chunkRouter);
+        response.get(PARAMETERS.TIMEOUT_NORMAL.toMillis(), TimeUnit.MILLISECONDS);
+
+        // The k-th chunk was built after k - 1 tokens were allocated on every stream
+        assertThat(chunks).hasSize(numStreams);
+        for (int k = 1; k <= numStreams; k++) {
+            StreamsAddressResponse chunk = chunks.get(k - 1);
+            assertThat(chunk.getAddressMap()).hasSize(1);
+            assertThat(chunk.getAddressMap().values().iterator().next().getAddressMap().getLongCardinality())
+                    .isEqualTo(k);
+        }
+    }
 }
@@ -18,6 +18,7 @@ public class ServerContextBuilder {
     String logPath = null;
     boolean noVerify = false;
     boolean noSync = false;
+    boolean mmapReads = false;
 
     boolean tlsEnabled = false;
     boolean tlsMutualAuthEnabled = false;
@@ -37,6 +38,8 @@ public class ServerContextBuilder {
     String seqCache = "1000";
     String logSizeLimitPercentage = "100.0";
     String batchSize = "100";
+    String stateTransferParallelism = "4";
+    String stateTransferBandwidth = "0";
     String managementBootstrapEndpoint = null;
     IServerRouter serverRouter;
     String numThreads = "0";
@@ -61,6 +64,8 @@ public class ServerContextBuilder {
                 .put("--sequencer-cache-size", seqCache)
                 .put("--log-size-quota-percentage", logSizeLimitPercentage)
                 .put("--batch-size", batchSize)
+                .put("--state-transfer-parallelism", stateTransferParallelism)
+                .put("--state-transfer-bandwidth", stateTransferBandwidth)
                 .put("--metadata-retention", retention);
         if (logPath != null) {
          builder.put("--log-path", logPath);
@@ -71,6 +76,7 @@ public class ServerContextBuilder {
          builder
                  .put("--no-verify", noVerify)
                  .put("--no-sync", noSync)
+                 .put("--mmap-reads", mmapReads)
                  .put("--address", address)
                  .put("--cache-heap-ratio", cacheSizeHeapRatio)
                  .put("--enable-tls", tlsEnabled)
@@ -0,0 +1,90 @@
+package org.corfudb.infrastructure.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.corfudb.AbstractCorfuTest;
+import org.junit.Test;
+
+public class SegmentAddressTableTest extends AbstractCorfuTest {
+
+    private static final long FIRST_ADDRESS = 100L;
+
+    private static final int CAPACITY = 10;
+
+    @Test
+    public void testPutAndGet() {
+        SegmentAddressTable table = new SegmentAddressTable(FIRST_ADDRESS, CAPACITY);
+        assertThat(table.size()).isZero();
+        assertThat(table.get(FIRST_ADDRESS)).isNull();
+
+        table.put(FIRST_ADDRESS + 1, new AddressMetaData(1, 2, 0));
+        table.put(FIRST_ADDRESS + CAPACITY - 1, new AddressMetaData(3, 4, 5));
+
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.contains(FIRST_ADDRESS)).isFalse();
+        assertThat(table.contains(FIRST_ADDRESS + 1)).isTrue();
+
+        AddressMetaData metaData = table.get(FIRST_ADDRESS + CAPACITY - 1);
+        assertThat(metaData.checksum).isEqualTo(3);
+        assertThat(metaData.length).isEqualTo(4);
+        assertThat(metaData.offset).isEqualTo(5);
+
+        // Overwriting an address replaces its metadata without changing the size
+        table.put(FIRST_ADDRESS + 1, new AddressMetaData(6, 7, 8));
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.get(FIRST_ADDRESS + 1).offset).isEqualTo(8);
+    }
+
+    @Test
+    public void testRangesAndIteration() {
+        SegmentAddressTable table = new SegmentAddressTable(FIRST_ADDRESS, CAPACITY);
+        table.put(FIRST_ADDRESS + 7, new AddressMetaData(0, 1, 0));
+        table.put(FIRST_ADDRESS + 3, new AddressMetaData(0, 1, 1));
+
+        assertThat(table.containsAny(FIRST_ADDRESS, FIRST_ADDRESS + 2)).isFalse();
+        assertThat(table.containsAny(FIRST_ADDRESS, FIRST_ADDRESS + 3)).isTrue();
+        assertThat(table.containsAny(FIRST_ADDRESS + 4, FIRST_ADDRESS + 6)).isFalse();
+
+        List<Long> addresses = new ArrayList<>();
+        table.forEach(addresses::add);
+        assertThat(addresses).containsExactly(FIRST_ADDRESS + 3, FIRST_ADDRESS + 7);
+
+        assertThatThrownBy(() -> table.contains(FIRST_ADDRESS + CAPACITY))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> table.contains(FIRST_ADDRESS - 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Readers racing with overwrites of an address must only observe the metadata of one
+     * of the records written for it.
+     */
+    @Test
+    public void testReadsRacingWithOverwrites() throws Exception {
+        SegmentAddressTable table = new SegmentAddressTable(FIRST_ADDRESS, CAPACITY);
+        table.put(FIRST_ADDRESS, new AddressMetaData(0, 0, 0));
+        final int overwrites = 10_000;
+        final int readers = 2;
+
+        scheduleConcurrently(t -> {
+            for (int i = 1; i <= overwrites; i++) {
+                table.put(FIRST_ADDRESS, new AddressMetaData(i, i, i));
+            }
+        });
+
+        scheduleConcurrently(readers, t -> {
+            for (int i = 0; i < overwrites; i++) {
+                AddressMetaData metaData = table.get(FIRST_ADDRESS);
+                assertThat(metaData.length).isEqualTo(metaData.checksum);
+                assertThat(metaData.offset).isEqualTo(metaData.checksum);
+            }
+        });
+
+        executeScheduled(readers + 1, PARAMETERS.TIMEOUT_NORMAL);
+        assertThat(table.get(FIRST_ADDRESS).offset).isEqualTo(overwrites);
+    }
+}
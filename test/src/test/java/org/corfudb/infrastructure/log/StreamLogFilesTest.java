@@ -9,14 +9,18 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 
 import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
@@ -26,12 +30,14 @@ import org.corfudb.format.Types.Metadata;
 import org.corfudb.infrastructure.ServerContext;
 import org.corfudb.infrastructure.ServerContextBuilder;
 import org.corfudb.infrastructure.log.StreamLogFiles.Checksum;
+import org.corfudb.protocols.logprotocol.CheckpointEntry;
 import org.corfudb.protocols.wireprotocol.DataType;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
 import org.corfudb.runtime.exceptions.DataCorruptionException;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.view.Address;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
@@ -97,6 +103,328 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(writeEntries).isEqualTo(readEntries);
     }
 
+    @Test
+    public void testMappedReads() throws Exception {
+        ServerContext sc = new ServerContextBuilder()
+                .setLogPath(getDirPath())
+                .setMemory(false)
+                .setMmapReads(true)
+                .build();
+        StreamLog log = new StreamLogFiles(sc, false);
+
+        // Leave a hole in the first segment and seal it by writing into the second one
+        final long holeAddress = RECORDS_PER_LOG_FILE / 2;
+        final long tailAddress = RECORDS_PER_LOG_FILE;
+        List<LogData> writeEntries = new ArrayList<>();
+        for (long x = 0; x <= tailAddress; x++) {
+            LogData entry = getEntry(x);
+            writeEntries.add(entry);
+            if (x != holeAddress) {
+                log.append(x, entry);
+            }
+        }
+
+        assertThat(log.read(0).getPayload(null)).isEqualTo("Payload".getBytes());
+        assertThat(log.read(holeAddress)).isNull();
+
+        // Filling the hole grows the mapped segment file
+        log.append(holeAddress, writeEntries.get((int) holeAddress));
+        assertThat(readRange(0, tailAddress + 1, log)).isEqualTo(writeEntries);
+    }
+
+    @Test
+    public void testBatchReads() throws Exception {
+        StreamLog log = new StreamLogFiles(getContext(), false);
+
+        // A batch that spans two segments, with a hole and a trimmed address
+        final long holeAddress = RECORDS_PER_LOG_FILE - 2;
+        final long trimAddress = 1;
+        final long tailAddress = RECORDS_PER_LOG_FILE + 2;
+        List<Long> addresses = new ArrayList<>();
+        for (long x = 0; x <= tailAddress; x++) {
+            addresses.add(x);
+            if (x != holeAddress) {
+                log.append(x, getEntry(x));
+            }
+        }
+        log.prefixTrim(trimAddress);
+
+        Map<Long, LogData> entries = log.readAll(addresses);
+        assertThat(entries).doesNotContainKey(holeAddress);
+        assertThat(entries.get(trimAddress).isTrimmed()).isTrue();
+        for (long x = trimAddress + 1; x <= tailAddress; x++) {
+            if (x != holeAddress) {
+                assertThat(entries.get(x)).isEqualTo(log.read(x));
+                assertThat(entries.get(x).getPayload(null)).isEqualTo("Payload".getBytes());
+            }
+        }
+    }
+
+    @Test
+    public void testSparseBatchReadsAcrossSegments() throws Exception {
+        StreamLog log = new StreamLogFiles(getContext(), false);
+        final int numSegments = 3;
+        final int recordsPerSegment = 12;
+        final int payloadSize = 40 * 1024;
+
+        // Large records, written out of order, so that a batch read of every
+        // other record of a segment spans runs of records with gaps between them
+        byte[] payload = new byte[payloadSize];
+        List<Long> addresses = new ArrayList<>();
+        for (long segment = 0; segment < numSegments; segment++) {
+            for (long x = recordsPerSegment - 1; x >= 0; x--) {
+                long address = segment * RECORDS_PER_LOG_FILE + x;
+                ByteBuf b = Unpooled.buffer();
+                Serializers.CORFU.serialize(payload, b);
+                LogData ld = new LogData(DataType.DATA, b);
+                ld.setGlobalAddress(address);
+                log.append(address, ld);
+                if (x % 3 != 1) {
+                    addresses.add(address);
+                }
+            }
+        }
+
+        Map<Long, LogData> entries = log.readAll(addresses);
+        assertThat(entries).hasSize(addresses.size());
+        for (long address : addresses) {
+            assertThat(entries.get(address)).isEqualTo(log.read(address));
+            assertThat(entries.get(address).getPayload(null)).isEqualTo(payload);
+        }
+    }
+
+    @Test
+    public void testCommittedTail() throws Exception {
+        ServerContext sc = getContext();
+        StreamLog log = new StreamLogFiles(sc, false);
+        final long gapAddress = 2;
+        final long trimAddress = 5;
+        final long tailAddress = 7;
+
+        // Addresses written above a gap don't move the committed tail, until the gap is filled
+        for (long x = 0; x < trimAddress; x++) {
+            if (x != gapAddress) {
+                log.append(x, getEntry(x));
+            }
+        }
+        assertThat(log.getCommittedTail()).isEqualTo(gapAddress - 1);
+        log.append(gapAddress, getEntry(gapAddress));
+        assertThat(log.getCommittedTail()).isEqualTo(trimAddress - 1);
+
+        // Trimmed addresses count as written
+        log.append(tailAddress, getEntry(tailAddress));
+        log.prefixTrim(trimAddress);
+        assertThat(log.getCommittedTail()).isEqualTo(trimAddress);
+        log.append(tailAddress - 1, getEntry(tailAddress - 1));
+        assertThat(log.getCommittedTail()).isEqualTo(tailAddress);
+        log.sync(true);
+
+        // The committed tail is recovered on restart
+        StreamLog log2 = new StreamLogFiles(sc, false);
+        assertThat(log2.getCommittedTail()).isEqualTo(tailAddress);
+    }
+
+    @Test
+    public void testCommittedTailNotTracked() throws Exception {
+        StreamLog log = new StreamLogFiles(getContext(), false);
+        final long numStripes = 3;
+        final long tailAddress = 30;
+        final long trimAddress = 10;
+
+        // A log unit of the first stripe only gets every third address, so its gaps are never filled
+        log.setCommittedTailTracked(false);
+        for (long x = 0; x <= tailAddress; x += numStripes) {
+            log.append(x, getEntry(x));
+        }
+        assertThat(log.getCommittedTail()).isEqualTo(Address.NON_ADDRESS);
+
+        // Trimmed addresses still count as written
+        log.prefixTrim(trimAddress);
+        assertThat(log.getCommittedTail()).isEqualTo(trimAddress);
+
+        // Once tracked again, the committed tail follows the new writes above it
+        log.setCommittedTailTracked(true);
+        log.append(trimAddress + 1, getEntry(trimAddress + 1));
+        assertThat(log.getCommittedTail()).isEqualTo(trimAddress + 1);
+    }
+
+    @Test
+    public void testSegmentIndex() throws Exception {
+        ServerContext sc = getContext();
+        StreamLog log = new StreamLogFiles(sc, false);
+        String logDir = sc.getServerConfig().get("--log-path") + File.separator + "log";
+        File indexFile = new File(logDir + File.separator + "0.index");
+
+        // Leave a hole in the first segment and roll over to the second one
+        final long holeAddress = RECORDS_PER_LOG_FILE / 2;
+        final long tailAddress = RECORDS_PER_LOG_FILE;
+        List<LogData> writeEntries = new ArrayList<>();
+        for (long x = 0; x <= tailAddress; x++) {
+            LogData entry = getEntry(x);
+            writeEntries.add(entry);
+            if (x != holeAddress) {
+                log.append(x, entry);
+            }
+        }
+
+        assertThat(indexFile).exists();
+
+        // The address space of the sealed segment is loaded from its index
+        StreamLog log2 = new StreamLogFiles(sc, false);
+        assertThat(log2.read(holeAddress)).isNull();
+        assertThat(log2.getKnownAddressesInRange(0, tailAddress))
+                .hasSize((int) tailAddress);
+
+        // A late write to the sealed segment makes the index stale
+        log2.append(holeAddress, writeEntries.get((int) holeAddress));
+        log2.sync(true);
+        StreamLog log3 = new StreamLogFiles(sc, false);
+        assertThat(readRange(0, tailAddress + 1, log3)).isEqualTo(writeEntries);
+
+        // A corrupt index falls back to scanning the segment
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            long lastByte = file.length() - 1;
+            file.seek(lastByte);
+            int value = file.read();
+            file.seek(lastByte);
+            file.write(~value);
+        }
+        StreamLog log4 = new StreamLogFiles(sc, false);
+        assertThat(readRange(0, tailAddress + 1, log4)).isEqualTo(writeEntries);
+    }
+
+    private ServerContext getContext(String subDir) {
+        return new ServerContextBuilder()
+                .setLogPath(getDirPath() + File.separator + subDir)
+                .setMemory(false)
+                .build();
+    }
+
+    private void copySegmentFile(StreamLog source, StreamLog destination, long segment, long segmentSize) {
+        final int chunkSize = 64 * 1024;
+        for (long offset = 0; offset < segmentSize; offset += chunkSize) {
+            destination.writeSegmentFile(segment, offset, source.readSegmentFile(segment, offset, chunkSize));
+        }
+    }
+
+    @Test
+    public void testSegmentFileCopy() throws Exception {
+        StreamLog source = new StreamLogFiles(getContext("source"), false);
+
+        // Fill the first segment and seal it by writing into the second one
+        final long tailAddress = RECORDS_PER_LOG_FILE;
+        List<LogData> writeEntries = new ArrayList<>();
+        for (long x = 0; x <= tailAddress; x++) {
+            LogData entry = getEntry(x);
+            writeEntries.add(entry);
+            source.append(x, entry);
+        }
+
+        final long segmentSize = source.getCompleteSegmentSize(0);
+        assertThat(segmentSize).isGreaterThan(0L);
+        assertThat(source.getCompleteSegmentSize(1)).isEqualTo(-1L);
+
+        // The destination segment is already opened, but empty
+        ServerContext sc = getContext("destination");
+        StreamLogFiles destination = new StreamLogFiles(sc, false);
+        assertThat(destination.getKnownAddressesInRange(0, tailAddress - 1)).isEmpty();
+
+        copySegmentFile(source, destination, 0, segmentSize);
+        // A copy has to be verified before it is installed
+        assertThatThrownBy(() -> destination.installSegmentFile(0, segmentSize))
+                .isInstanceOf(IllegalStateException.class);
+        destination.verifySegmentFile(0, segmentSize);
+
+        // The replaced segment is only closed once its readers release it
+        SegmentHandle replaced = destination.getSegmentHandleForAddress(0);
+        destination.installSegmentFile(0, segmentSize);
+        assertThat(replaced.getReadChannel().isOpen()).isTrue();
+        replaced.release();
+        assertThat(replaced.getReadChannel().isOpen()).isFalse();
+
+        assertThat(destination.getLogTail()).isEqualTo(tailAddress - 1);
+        assertThat(readRange(0, tailAddress, destination)).isEqualTo(writeEntries.subList(0, (int) tailAddress));
+        assertThatThrownBy(() -> destination.installSegmentFile(0, segmentSize))
+                .isInstanceOf(RuntimeException.class);
+
+        StreamLog restarted = new StreamLogFiles(sc, false);
+        assertThat(readRange(0, tailAddress, restarted)).isEqualTo(writeEntries.subList(0, (int) tailAddress));
+
+        // A corrupt copy isn't installed
+        StreamLog corrupted = new StreamLogFiles(getContext("corrupted"), false);
+        copySegmentFile(source, corrupted, 0, segmentSize);
+        String copyPath = getDirPath() + File.separator + "corrupted" + File.separator + "log"
+                + File.separator + "0.copy";
+        try (RandomAccessFile file = new RandomAccessFile(copyPath, "rw")) {
+            long lastByte = file.length() - 1;
+            file.seek(lastByte);
+            int value = file.read();
+            file.seek(lastByte);
+            file.write(~value);
+        }
+
+        assertThatThrownBy(() -> corrupted.verifySegmentFile(0, segmentSize))
+                .isInstanceOf(DataCorruptionException.class);
+        assertThatThrownBy(() -> corrupted.installSegmentFile(0, segmentSize))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(corrupted.read(0)).isNull();
+        assertThat(corrupted.getLogTail()).isEqualTo(Address.NON_ADDRESS);
+    }
+
+    @Test
+    public void testSegmentIndexRebuildsLogMetadata() throws Exception {
+        ServerContext sc = getContext();
+        StreamLog log = new StreamLogFiles(sc, false);
+        String logDir = sc.getServerConfig().get("--log-path") + File.separator + "log";
+        File indexFile = new File(logDir + File.separator + "0.index");
+        final UUID streamA = UUID.randomUUID();
+        final UUID streamB = UUID.randomUUID();
+        final long checkpointAddress = 10;
+        final long checkpointedAddress = 5;
+        final long tailAddress = RECORDS_PER_LOG_FILE + 1;
+
+        // Every other record belongs to a stream, and a checkpoint END record covers another
+        // stream whose updates have all been trimmed, then roll over to the second segment
+        for (long x = 0; x <= tailAddress; x++) {
+            LogData entry = getEntry(x);
+            if (x == checkpointAddress) {
+                entry.setCheckpointType(CheckpointEntry.CheckpointEntryType.END);
+                entry.setCheckpointId(UUID.randomUUID());
+                entry.setCheckpointedStreamId(streamB);
+                entry.setCheckpointedStreamStartLogAddress(checkpointedAddress);
+            } else if (x % 2 == 0) {
+                entry.setBackpointerMap(Collections.singletonMap(streamA, x - 2));
+            }
+            log.append(x, entry);
+        }
+        log.sync(true);
+        assertThat(indexFile).exists();
+
+        // The metadata of the sealed segment is loaded from its index
+        StreamLog log2 = new StreamLogFiles(sc, false);
+        Map<UUID, Long> tails = log2.getAllTails().getStreamTails();
+        Map<UUID, StreamAddressSpace> addressSpaces = log2.getStreamsAddressSpace().getAddressMap();
+        assertThat(tails.get(streamA)).isEqualTo(tailAddress - 1);
+        assertThat(tails.get(streamB)).isEqualTo(checkpointedAddress);
+        assertThat(addressSpaces.get(streamB).getTrimMark()).isEqualTo(checkpointedAddress);
+
+        // It's the same metadata as the one rebuilt by reading every record
+        assertThat(indexFile.delete()).isTrue();
+        StreamLog log3 = new StreamLogFiles(sc, false);
+        assertThat(log3.getAllTails().getStreamTails()).isEqualTo(tails);
+        Map<UUID, StreamAddressSpace> scannedAddressSpaces = log3.getStreamsAddressSpace().getAddressMap();
+        assertThat(scannedAddressSpaces.keySet()).isEqualTo(addressSpaces.keySet());
+        for (UUID stream : addressSpaces.keySet()) {
+            assertThat(scannedAddressSpaces.get(stream).getTrimMark())
+                    .isEqualTo(addressSpaces.get(stream).getTrimMark());
+            assertThat(scannedAddressSpaces.get(stream).getAddressMap())
+                    .isEqualTo(addressSpaces.get(stream).getAddressMap());
+        }
+
+        // Reading the records rewrote the index
+        assertThat(indexFile).exists();
+    }
+
     @Test
     public void testRangeWriteTrim() throws Exception {
         StreamLog log = new StreamLogFiles(getContext(), false);
@@ -265,6 +593,37 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
                 .isInstanceOf(OverwriteException.class);
     }
 
+    @Test
+    public void testAppendGroup() throws Exception {
+        ServerContext sc = getContext();
+        StreamLog log = new StreamLogFiles(sc, false);
+
+        // A group that spans two segments
+        final int groupSize = 100;
+        final long start = RECORDS_PER_LOG_FILE - groupSize / 2;
+        List<LogData> group = new ArrayList<>();
+        for (long x = start; x < start + groupSize; x++) {
+            group.add(getEntry(x));
+        }
+
+        log.appendGroup(group);
+        log.sync(true);
+
+        StreamLog log2 = new StreamLogFiles(sc, false);
+        assertThat(readRange(start, start + groupSize, log2)).isEqualTo(group);
+
+        // A group that overlaps a single written address is rejected as a whole
+        List<LogData> overlapping = new ArrayList<>();
+        for (long x = start + groupSize - 1; x < start + groupSize * 2; x++) {
+            overlapping.add(getEntry(x));
+        }
+
+        assertThatThrownBy(() -> log2.appendGroup(overlapping))
+                .isInstanceOf(OverwriteException.class);
+        assertThat(log2.read(start + groupSize)).isNull();
+        assertThat(log2.getLogTail()).isEqualTo(start + groupSize - 1);
+    }
+
     @Test
     public void testReadingUnknownAddress() {
         StreamLog log = new StreamLogFiles(getContext(), false);
@@ -460,8 +819,9 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         }
 
         File logs = new File(logDir);
+        FilenameFilter segmentFiles = (dir, name) -> name.endsWith(".log");
 
-        assertThat((long) logs.list().length).isEqualTo(numSegments);
+        assertThat((long) logs.list(segmentFiles).length).isEqualTo(numSegments);
 
         final long endSegment = 25;
         long trimAddress = endSegment * StreamLogFiles.RECORDS_PER_LOG_FILE + 1;
@@ -481,7 +841,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         assertThat(log.getOpenSegmentHandles().size()).isEqualTo((int) endSegment);
 
         // Verify that first 25 segments have been deleted
-        String[] afterTrimFiles = logs.list();
+        String[] afterTrimFiles = logs.list(segmentFiles);
         assertThat(afterTrimFiles).hasSize((int) (numSegments - endSegment));
 
         Set<String> fileNames = new HashSet<>(Arrays.asList(afterTrimFiles));
@@ -572,7 +932,7 @@ public class StreamLogFilesTest extends AbstractCorfuTest {
         final int expectedFilesBeforeReset = (int) (numSegments - filesToBeTrimmed);
         final long globalTailBeforeReset = (RECORDS_PER_LOG_FILE * numSegments) - 1;
         final long trimMarkBeforeReset = RECORDS_PER_LOG_FILE * filesToBeTrimmed + 1;
-        assertThat(logsDir.list()).hasSize(expectedFilesBeforeReset);
+        assertThat(logsDir.list((dir, name) -> name.endsWith(".log"))).hasSize(expectedFilesBeforeReset);
         assertThat(log.getLogTail()).isEqualTo(globalTailBeforeReset);
         assertThat(log.getTrimMark()).isEqualTo(trimMarkBeforeReset);
 
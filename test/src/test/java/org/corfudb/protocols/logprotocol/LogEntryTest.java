@@ -3,12 +3,15 @@ package org.corfudb.protocols.logprotocol;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import org.corfudb.CustomSerializer;
+import org.corfudb.common.compression.ZSTDDictionaryCompression;
 import org.corfudb.runtime.exceptions.SerializerException;
 import org.corfudb.util.serializer.ISerializer;
 import org.corfudb.util.serializer.Serializers;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -155,4 +158,103 @@ public class LogEntryTest {
         multiSMREntry2.getUpdates().stream().forEach(entry -> assertThat(entry.getGlobalAddress())
                 .isEqualTo(entryAddress));
     }
+
+    @Test
+    public void compressedCheckpointEntry() {
+        // Compress the CONTINUATION record of a checkpoint with a dictionary trained on its entries
+        // and verify that its entries are restored once the dictionary is registered.
+        final int numEntries = 2000;
+        final long startAddress = 5L;
+        MultiSMREntry smrEntries = new MultiSMREntry();
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < numEntries; i++) {
+            SMREntry smrEntry = new SMREntry("put",
+                    new Object[]{"checkpoint-key-" + i, "checkpoint-value-" + i}, Serializers.PRIMITIVE);
+            smrEntries.addTo(smrEntry);
+            ByteBuf sample = Unpooled.buffer();
+            smrEntry.serialize(sample);
+            samples.add(Arrays.copyOf(sample.array(), sample.readableBytes()));
+        }
+        byte[] dictionary = ZSTDDictionaryCompression.trainDictionary(samples, 1 << 12);
+        assertThat(dictionary).isNotNull();
+
+        Map<CheckpointEntry.CheckpointDictKey, String> dict = new HashMap<>();
+        dict.put(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS, "0");
+        UUID checkpointId = UUID.randomUUID();
+        CheckpointEntry cp = new CheckpointEntry(CheckpointEntry.CheckpointEntryType.CONTINUATION,
+                "author", checkpointId, UUID.randomUUID(), dict, smrEntries);
+        cp.compressSmrEntries(new ZSTDDictionaryCompression(dictionary), startAddress);
+
+        ByteBuf buf = Unpooled.buffer();
+        cp.serialize(buf);
+        ByteBuf raw = Unpooled.buffer();
+        smrEntries.serialize(raw);
+        assertThat(cp.getSmrEntriesBytes()).isLessThan(raw.readableBytes());
+
+        // Without the dictionary, the entries can't be restored
+        CheckpointEntry deserialized = (CheckpointEntry) LogEntry.deserialize(buf.duplicate(), null);
+        assertThat(deserialized.getStartAddress()).isEqualTo(startAddress);
+        assertThatThrownBy(deserialized::getSmrEntries).isInstanceOf(IllegalStateException.class);
+
+        CheckpointEntry.registerCompressionDictionary(checkpointId, startAddress, dictionary);
+        deserialized = (CheckpointEntry) LogEntry.deserialize(buf.duplicate(), null);
+        assertThat(deserialized.getSmrEntries()).isEqualTo(smrEntries);
+
+        // A record that was never decompressed is serialized as it was read
+        deserialized = (CheckpointEntry) LogEntry.deserialize(buf.duplicate(), null);
+        ByteBuf reserialized = Unpooled.buffer();
+        deserialized.serialize(reserialized);
+        assertThat(reserialized).isEqualTo(buf);
+    }
+
+    @Test
+    public void uncompressedCheckpointEntryKeepsLegacyFormat() {
+        // A checkpoint record that isn't compressed must be serialized exactly as before
+        // compression was introduced, so that clients that predate it can still read it.
+        MultiSMREntry smrEntries = new MultiSMREntry();
+        smrEntries.addTo(new SMREntry("put", new Object[]{"key", "value"}, Serializers.PRIMITIVE));
+        Map<CheckpointEntry.CheckpointDictKey, String> dict = new HashMap<>();
+        dict.put(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS, "0");
+        UUID checkpointId = UUID.randomUUID();
+        UUID streamId = UUID.randomUUID();
+        final String author = "author";
+
+        for (MultiSMREntry entries : Arrays.asList(smrEntries, null)) {
+            CheckpointEntry cp = new CheckpointEntry(CheckpointEntry.CheckpointEntryType.CONTINUATION,
+                    author, checkpointId, streamId, dict, entries);
+            ByteBuf buf = Unpooled.buffer();
+            cp.serialize(buf);
+
+            ByteBuf legacy = Unpooled.buffer();
+            legacy.writeByte(LogEntry.LogEntryType.CHECKPOINT.asByte());
+            legacy.writeByte(CheckpointEntry.CheckpointEntryType.CONTINUATION.asByte());
+            legacy.writeLong(checkpointId.getMostSignificantBits());
+            legacy.writeLong(checkpointId.getLeastSignificantBits());
+            legacy.writeLong(streamId.getMostSignificantBits());
+            legacy.writeLong(streamId.getLeastSignificantBits());
+            legacy.writeShort(author.length());
+            legacy.writeBytes(author.getBytes());
+            legacy.writeShort(1);
+            legacy.writeByte(CheckpointEntry.CheckpointDictKey.START_LOG_ADDRESS.asByte());
+            legacy.writeShort(1);
+            legacy.writeBytes("0".getBytes());
+            if (entries != null) {
+                legacy.writeByte(1);
+                ByteBuf serialized = Unpooled.buffer();
+                entries.serialize(serialized);
+                legacy.writeBytes(serialized.duplicate());
+                legacy.writeInt(serialized.readableBytes());
+            } else {
+                legacy.writeShort(0);
+                legacy.writeInt(0);
+            }
+            assertThat(buf).isEqualTo(legacy);
+
+            CheckpointEntry deserialized = (CheckpointEntry) LogEntry.deserialize(buf.duplicate(), null);
+            assertThat(deserialized.getSmrEntries()).isEqualTo(entries);
+            ByteBuf reserialized = Unpooled.buffer();
+            deserialized.serialize(reserialized);
+            assertThat(reserialized).isEqualTo(buf);
+        }
+    }
 }
@@ -0,0 +1,181 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
+import org.corfudb.util.serializer.Serializers;
+import org.junit.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChunkedResponseTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Send the chunks of a payload through the wire and merge them back into the payload.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends IChunkable<T>> T sendChunks(CorfuMsgType type, T payload) {
+        final long requestId = 7L;
+        List<T> received = new ArrayList<>();
+        Iterator<T> chunks = payload.split(CHUNK_SIZE);
+        while (chunks.hasNext()) {
+            CorfuMsg chunk = type.payloadMsg(chunks.next());
+            chunk.setRequestID(requestId);
+            CorfuChunkMsg chunkMsg = new CorfuChunkMsg(chunk, !chunks.hasNext());
+            chunkMsg.setRequestID(requestId);
+
+            ByteBuf buf = Unpooled.buffer();
+            chunkMsg.serialize(buf);
+            CorfuChunkMsg deserialized = (CorfuChunkMsg) CorfuMsg.deserialize(buf);
+            assertThat(deserialized.getMsgType()).isEqualTo(CorfuMsgType.RESPONSE_CHUNK);
+            assertThat(deserialized.getChunk().getMsgType()).isEqualTo(type);
+            assertThat(deserialized.getChunk().getRequestID()).isEqualTo(requestId);
+            assertThat(deserialized.isLast()).isEqualTo(!chunks.hasNext());
+            received.add(((CorfuPayloadMsg<T>) deserialized.getChunk()).getPayload());
+        }
+
+        return received.get(0).merge(received.subList(1, received.size()));
+    }
+
+    @Test
+    public void readResponseIsSentInChunks() {
+        final int numEntries = 100;
+        // Two entries fill a chunk, and the empty entry takes no room
+        final int maxEntriesPerChunk = 3;
+        ReadResponse rr = new ReadResponse();
+        for (long i = 0; i < numEntries; i++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize(new byte[CHUNK_SIZE / 2], payload);
+            LogData logData = new LogData(DataType.DATA, payload);
+            logData.setGlobalAddress(i);
+            rr.put(i, logData);
+        }
+        rr.put((long) numEntries, LogData.getEmpty(numEntries));
+
+        Iterator<ReadResponse> chunks = rr.split(CHUNK_SIZE);
+        int numChunks = 0;
+        while (chunks.hasNext()) {
+            assertThat(chunks.next().getAddresses().size()).isLessThanOrEqualTo(maxEntriesPerChunk);
+            numChunks++;
+        }
+        assertThat(numChunks).isGreaterThan(1);
+
+        ReadResponse merged = sendChunks(CorfuMsgType.READ_RESPONSE, rr);
+        assertThat(merged.getAddresses()).hasSameSizeAs(rr.getAddresses());
+        merged.getAddresses().forEach((address, ld) -> {
+            assertThat(ld.getGlobalAddress()).isEqualTo(address);
+            assertThat(ld.getType()).isEqualTo(rr.getAddresses().get(address).getType());
+        });
+    }
+
+    @Test
+    public void streamsAddressResponseIsSentInChunks() {
+        final int numStreams = 50;
+        final int numAddresses = 100;
+        final long logTail = numStreams * numAddresses;
+        Map<UUID, StreamAddressSpace> addressMap = new HashMap<>();
+        for (int i = 0; i < numStreams; i++) {
+            Roaring64NavigableMap addresses = new Roaring64NavigableMap();
+            for (long j = 0; j < numAddresses; j++) {
+                addresses.addLong(j * numStreams + i);
+            }
+            addressMap.put(UUID.randomUUID(), new StreamAddressSpace(i, addresses));
+        }
+
+        StreamsAddressResponse merged = sendChunks(CorfuMsgType.STREAMS_ADDRESS_RESPONSE,
+                new StreamsAddressResponse(logTail, addressMap));
+        assertThat(merged.getLogTail()).isEqualTo(logTail);
+        assertThat(merged.getAddressMap()).hasSameSizeAs(addressMap);
+        addressMap.forEach((id, addressSpace) -> {
+            assertThat(merged.getAddressMap().get(id).getTrimMark()).isEqualTo(addressSpace.getTrimMark());
+            assertThat(merged.getAddressMap().get(id).getAddressMap()).isEqualTo(addressSpace.getAddressMap());
+        });
+    }
+
+    @Test
+    public void streamsAddressResponseChunksAreCopies() {
+        final long address = 5L;
+        Roaring64NavigableMap addresses = Roaring64NavigableMap.bitmapOf(address);
+        UUID streamId = UUID.randomUUID();
+        Map<UUID, StreamAddressSpace> addressMap = new HashMap<>();
+        addressMap.put(streamId, new StreamAddressSpace(address - 1, addresses));
+
+        StreamsAddressResponse chunk = new StreamsAddressResponse(address + 1, addressMap)
+                .split(CHUNK_SIZE).next();
+        addresses.addLong(address + 1);
+        assertThat(chunk.getAddressMap().get(streamId).getAddressMap())
+                .isEqualTo(Roaring64NavigableMap.bitmapOf(address));
+    }
+
+    @Test
+    public void emptyResponseIsOneChunk() {
+        Iterator<ReadResponse> chunks = new ReadResponse().split(CHUNK_SIZE);
+        assertThat(chunks.next().getAddresses()).isEmpty();
+        assertThat(chunks.hasNext()).isFalse();
+    }
+
+    @Test
+    public void chunkedResponsesAreOptedInByHandshake() {
+        final UUID clientId = UUID.randomUUID();
+        final UUID serverId = UUID.randomUUID();
+
+        // A client that doesn't accept chunks sends the same handshake as before
+        ByteBuf legacy = Unpooled.buffer();
+        new HandshakeMsg(clientId, serverId).doSerialize(legacy);
+        assertThat(legacy.readableBytes()).isEqualTo(2 * 2 * Long.BYTES);
+        assertThat(new HandshakeMsg(legacy).isChunkedResponses()).isFalse();
+
+        ByteBuf optedIn = Unpooled.buffer();
+        new HandshakeMsg(clientId, serverId, true).doSerialize(optedIn);
+        HandshakeMsg handshake = new HandshakeMsg(optedIn);
+        assertThat(handshake.getClientId()).isEqualTo(clientId);
+        assertThat(handshake.getServerId()).isEqualTo(serverId);
+        assertThat(handshake.isChunkedResponses()).isTrue();
+    }
+
+    @Test
+    public void responseIsOneChunkWithoutOptIn() {
+        Map<Long, LogData> addresses = new HashMap<>();
+        for (long address = 0; address < CHUNK_SIZE; address++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize(new byte[CHUNK_SIZE], payload);
+            addresses.put(address, new LogData(DataType.DATA, payload));
+        }
+
+        Iterator<ReadResponse> chunks = new ReadResponse(addresses).split(Integer.MAX_VALUE);
+        assertThat(chunks.next().getAddresses()).isEqualTo(addresses);
+        assertThat(chunks.hasNext()).isFalse();
+    }
+
+    @Test
+    public void serializedEntriesAreSizedBySerializedForm() {
+        final int numEntries = 10;
+        ReadResponse rr = new ReadResponse();
+        for (long i = 0; i < numEntries; i++) {
+            ByteBuf payload = Unpooled.buffer();
+            Serializers.CORFU.serialize(new byte[CHUNK_SIZE], payload);
+            ByteBuf serialized = Unpooled.buffer();
+            new LogData(DataType.DATA, payload).doSerialize(serialized);
+            rr.put(i, LogData.fromSerializedBuffer(serialized));
+        }
+
+        // Each entry fills a chunk on its own
+        Iterator<ReadResponse> chunks = rr.split(CHUNK_SIZE);
+        int numChunks = 0;
+        while (chunks.hasNext()) {
+            assertThat(chunks.next().getAddresses()).hasSize(1);
+            numChunks++;
+        }
+        assertThat(numChunks).isEqualTo(numEntries);
+    }
+}
@@ -0,0 +1,80 @@
+package org.corfudb.protocols.wireprotocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TxResolutionInfoTest {
+
+    @Test
+    public void conflictKeysAreSentAsFingerprints() {
+        final int numKeys = 1000;
+        final UUID readStream = UUID.nameUUIDFromBytes("read".getBytes());
+        final UUID writeStream = UUID.nameUUIDFromBytes("write".getBytes());
+
+        Set<byte[]> conflictParams = new HashSet<>();
+        for (int i = 0; i < numKeys; i++) {
+            conflictParams.add(("a long conflict key " + i).getBytes());
+        }
+
+        TxResolutionInfo txInfo = new TxResolutionInfo(UUID.randomUUID(), new Token(1L, 2L),
+                Collections.singletonMap(readStream, conflictParams),
+                Collections.singletonMap(writeStream, Collections.emptySet()));
+        txInfo.setFingerprintsEnabled(true);
+
+        ByteBuf buf = Unpooled.buffer();
+        txInfo.doSerialize(buf);
+        TxResolutionInfo deserialized = new TxResolutionInfo(buf);
+
+        // Every key is a fixed-width fingerprint, packed with the other keys of its stream
+        assertThat(buf.writerIndex()).isLessThan(numKeys * (ConflictFingerprint.BYTES + Long.BYTES));
+        assertThat(deserialized.getTXid()).isEqualTo(txInfo.getTXid());
+        assertThat(deserialized.getSnapshotTimestamp()).isEqualTo(txInfo.getSnapshotTimestamp());
+        assertThat(deserialized.getConflictSet().get(readStream))
+                .hasSize(numKeys * ConflictFingerprint.LONGS)
+                .isEqualTo(txInfo.getConflictSet().get(readStream));
+        assertThat(deserialized.getWriteConflictParams().get(writeStream)).isEmpty();
+
+        // A conflict reported by the sequencer maps back to its conflict param
+        byte[] conflictParam = conflictParams.iterator().next();
+        byte[] conflictKey = ConflictFingerprint.toBytes(
+                ConflictFingerprint.high(readStream, conflictParam),
+                ConflictFingerprint.low(readStream, conflictParam));
+        assertThat(txInfo.getConflictParam(readStream, conflictKey)).isSameAs(conflictParam);
+        assertThat(txInfo.getConflictParam(writeStream, conflictKey)).isSameAs(conflictKey);
+    }
+
+    @Test
+    public void conflictKeysAreSentAsConflictParamsByDefault() {
+        final UUID readStream = UUID.nameUUIDFromBytes("read".getBytes());
+        final byte[] conflictParam = "key".getBytes();
+
+        TxResolutionInfo txInfo = new TxResolutionInfo(UUID.randomUUID(), new Token(1L, 2L),
+                Collections.singletonMap(readStream, Collections.singleton(conflictParam)),
+                Collections.emptyMap());
+        assertThat(txInfo.isFingerprintsEnabled()).isFalse();
+
+        ByteBuf buf = Unpooled.buffer();
+        txInfo.doSerialize(buf);
+        TxResolutionInfo deserialized = new TxResolutionInfo(buf);
+
+        // The sequencer fingerprints the conflict params itself
+        assertThat(deserialized.isFingerprintsEnabled()).isFalse();
+        assertThat(deserialized.getConflictSet().get(readStream))
+                .isEqualTo(txInfo.getConflictSet().get(readStream));
+        assertThat(deserialized.getWriteConflictParams()).isEmpty();
+
+        // and reports a conflict with its conflict param, as clients without fingerprints expect
+        byte[] conflictKey = ConflictFingerprint.toBytes(
+                ConflictFingerprint.high(readStream, conflictParam),
+                ConflictFingerprint.low(readStream, conflictParam));
+        assertThat(deserialized.getConflictParam(readStream, conflictKey)).isEqualTo(conflictParam);
+    }
+}
@@ -27,6 +27,7 @@ import org.corfudb.runtime.exceptions.TransactionAbortedException;
 import org.corfudb.runtime.object.transactions.TransactionType;
 import org.corfudb.runtime.object.transactions.TransactionalContext;
 import org.corfudb.runtime.view.AbstractViewTest;
+import org.corfudb.runtime.view.Address;
 import org.corfudb.runtime.view.stream.AddressMapStreamView;
 import org.corfudb.runtime.view.stream.BackpointerStreamView;
 import org.corfudb.runtime.view.stream.IStreamView;
@@ -524,6 +525,72 @@ public class CheckpointSmokeTest extends AbstractViewTest {
         }
     }
 
+    /**
+     * Checkpoint a map large enough for its CONTINUATION records to be compressed,
+     * and verify that a new runtime rebuilds the map from them.
+     */
+    @Test
+    public void compressedCheckpointTest() throws Exception {
+        final String streamName = "mystreamCompressed";
+        final UUID streamId = CorfuRuntime.getStreamID(streamName);
+        final int numKeys = 5000;
+        final String author = "Me, myself, and I";
+
+        StreamingMap<String, Long> m = instantiateMap(streamName);
+        for (int i = 0; i < numKeys; i++) {
+            m.put("key" + i, (long) i);
+        }
+
+        List<CheckpointEntry> records = new ArrayList<>();
+        CheckpointWriter cpw = new CheckpointWriter(getRuntime(), streamId, author, (CorfuTable) m);
+        cpw.setSerializer(serializer);
+        cpw.setCompressionEnabled(true);
+        cpw.setPostAppendFunc((cp, pos) -> records.add((CheckpointEntry) cp));
+        cpw.appendCheckpoint();
+
+        assertThat(records.get(0).getCpType()).isEqualTo(CheckpointEntry.CheckpointEntryType.START);
+        assertThat(records.get(0).getCompressionDictionary()).isNotNull();
+
+        setRuntime();
+        Map<String, Long> m2 = instantiateMap(streamName);
+        assertThat(m2.size()).isEqualTo(numKeys);
+        for (int i = 0; i < numKeys; i++) {
+            assertThat(m2.get("key" + i)).isEqualTo((long) i);
+        }
+    }
+
+    /**
+     * Checkpoint a map large enough to be compressed without enabling compression, and
+     * verify that the records are written in the format that older clients can read.
+     */
+    @Test
+    public void checkpointIsUncompressedByDefault() throws Exception {
+        final String streamName = "mystreamUncompressed";
+        final UUID streamId = CorfuRuntime.getStreamID(streamName);
+        final int numKeys = 5000;
+        final String author = "Me, myself, and I";
+
+        StreamingMap<String, Long> m = instantiateMap(streamName);
+        for (int i = 0; i < numKeys; i++) {
+            m.put("key" + i, (long) i);
+        }
+
+        List<CheckpointEntry> records = new ArrayList<>();
+        CheckpointWriter cpw = new CheckpointWriter(getRuntime(), streamId, author, (CorfuTable) m);
+        cpw.setSerializer(serializer);
+        cpw.setPostAppendFunc((cp, pos) -> records.add((CheckpointEntry) cp));
+        cpw.appendCheckpoint();
+
+        for (CheckpointEntry record : records) {
+            assertThat(record.getCompressionDictionary()).isNull();
+            assertThat(record.getStartAddress()).isEqualTo(Address.NON_ADDRESS);
+        }
+
+        setRuntime();
+        Map<String, Long> m2 = instantiateMap(streamName);
+        assertThat(m2.size()).isEqualTo(numKeys);
+    }
+
     @Test
     public void MultiCheckpointWriter2Test() throws Exception {
         MultiCheckpointWriterTestInner(true);
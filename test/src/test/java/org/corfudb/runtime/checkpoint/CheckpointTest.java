@@ -679,4 +679,51 @@ public class CheckpointTest extends AbstractObjectTest {
             runtime.shutdown();
         }
     }
+
+    /**
+     * This test checkpoints several maps concurrently, with many small CONTINUATION
+     * records in flight per map, trims the log at the returned snapshot and verifies
+     * that all the maps are rebuilt from their checkpoint.
+     */
+    @Test
+    public void parallelCkpointTest() throws Exception {
+        final int numMaps = 8;
+        final int mapSize = PARAMETERS.NUM_ITERATIONS_LOW;
+        final int parallelism = 4;
+        final int batchBytes = 64;
+
+        CorfuRuntime rt = getARuntime();
+        CorfuRuntime runtime = getARuntime();
+
+        try {
+            MultiCheckpointWriter mcw = new MultiCheckpointWriter();
+            mcw.setParallelism(parallelism);
+            mcw.setBatchBytes(batchBytes);
+            for (int m = 0; m < numMaps; m++) {
+                Map<String, Long> map = openMap(rt, "parallel" + m);
+                for (int i = 0; i < mapSize; i++) {
+                    map.put(String.valueOf(i), (long) i * m);
+                }
+                mcw.addMap((CorfuTable) map);
+            }
+
+            Token checkpointAddress = mcw.appendCheckpoints(rt, author);
+
+            rt.getAddressSpaceView().prefixTrim(checkpointAddress);
+            rt.getAddressSpaceView().gc();
+            rt.getAddressSpaceView().invalidateServerCaches();
+            rt.getAddressSpaceView().invalidateClientCache();
+
+            for (int m = 0; m < numMaps; m++) {
+                Map<String, Long> localMap = openMap(runtime, "parallel" + m);
+                assertThat(localMap.size()).isEqualTo(mapSize);
+                for (int i = 0; i < mapSize; i++) {
+                    assertThat(localMap.get(String.valueOf(i))).isEqualTo((long) i * m);
+                }
+            }
+        } finally {
+            rt.shutdown();
+            runtime.shutdown();
+        }
+    }
 }
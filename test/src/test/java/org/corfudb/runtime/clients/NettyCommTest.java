@@ -24,8 +24,11 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Created by mwei on 3/28/16.
@@ -83,6 +86,38 @@ public class NettyCommTest extends AbstractCorfuTest {
             });
     }
 
+    @Test
+    public void nettyServerClientPingableBatchedTransport() throws Exception {
+        final int poolSize = 3;
+        final int numPings = 100;
+        runWithBaseServer(
+            (port) -> {
+                return new NettyServerData(ServerContextBuilder.defaultContext(port));
+            },
+            (port) -> new NettyClientRouter(
+                    NodeLocator.builder().host("localhost").port(port).build(),
+                    CorfuRuntimeParameters.builder()
+                            .nettyBatchedTransport(true)
+                            .nettyChannelPoolSize(poolSize)
+                            .build()),
+            (r, d) -> {
+                // Concurrent pings are coalesced into batches over the channels of the pool
+                List<CompletableFuture<Boolean>> pings = new ArrayList<>();
+                for (int i = 0; i < numPings; i++) {
+                    pings.add(getBaseClient(r).ping());
+                }
+                for (CompletableFuture<Boolean> ping : pings) {
+                    assertThat(ping.get()).isTrue();
+                }
+                assertThat(r.outstandingRequests).isEmpty();
+
+                d.shutdownServer();
+                d.bootstrapServer();
+
+                getBaseClient(r).pingSync();
+            });
+    }
+
     @Test
     public void nettyTlsNoMutualAuth() throws Exception {
         runWithBaseServer(
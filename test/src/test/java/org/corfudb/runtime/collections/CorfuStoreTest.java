@@ -21,7 +21,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static com.google.protobuf.DescriptorProtos.DescriptorProto;
 import static com.google.protobuf.DescriptorProtos.FileDescriptorProto;
@@ -135,6 +137,22 @@ public class CorfuStoreTest extends AbstractViewTest {
                 .hasSize(1)
                 .containsExactly(expectedValue);
 
+        // Get by a range of a sorted secondary index.
+        final long sixtyLong = 60L;
+        final long seventyLong = 70L;
+        final int pageSize = 4;
+        List<Long> eventTimes = q.getByIndexRange(tableName, "event_time", sixtyLong, seventyLong)
+                .getResult()
+                .stream()
+                .map(entry -> ((EventInfo) entry.getValue()).getEventTime())
+                .collect(Collectors.toList());
+        assertThat(eventTimes).isEqualTo(LongStream.range(sixtyLong, seventyLong)
+                .boxed().collect(Collectors.toList()));
+        assertThat(q.getByIndexRange(tableName, "event_time", sixtyLong, seventyLong,
+                pageSize * 2, pageSize).getResult()).hasSize((int) (seventyLong - sixtyLong) - pageSize * 2);
+        assertThatThrownBy(() -> q.getByIndexRange(tableName, "name", "a", "b"))
+                .isInstanceOf(IllegalArgumentException.class);
+
         // Execute Query. (Scan and filter)
         final int sixty = 60;
 
@@ -143,6 +161,80 @@ public class CorfuStoreTest extends AbstractViewTest {
         assertThat(queryResult.getResult().size())
                 .isEqualTo(count - sixty);
 
+        // Paged and streamed queries.
+        final int queryPageSize = 15;
+        QueryOptions<Uuid, EventInfo, ManagedResources, Long> eventTimeOptions =
+                QueryOptions.QueryOptionsBuilder.<Uuid, EventInfo, ManagedResources, Long>newBuilder()
+                        .setProjection(record -> record.getPayload().getEventTime())
+                        .setDistinct(true)
+                        .setComparator(Long::compare)
+                        .setOffset(queryPageSize)
+                        .setLimit(queryPageSize)
+                        .build();
+        assertThat(q.executeQuery(tableName,
+                record -> ((EventInfo) record.getPayload()).getEventTime() >= sixty,
+                eventTimeOptions).getResult())
+                .containsExactlyElementsOf(LongStream.range(sixty + queryPageSize, sixty + 2 * queryPageSize)
+                        .boxed().collect(Collectors.toList()));
+
+        // Without a comparator, pages of distinct results follow the order of the unpaged results.
+        Predicate<CorfuStoreEntry<Uuid, EventInfo, ManagedResources>> fromSixty =
+                record -> ((EventInfo) record.getPayload()).getEventTime() >= sixty;
+        QueryOptions.QueryOptionsBuilder<Uuid, EventInfo, ManagedResources, String> distinctNames =
+                QueryOptions.QueryOptionsBuilder.<Uuid, EventInfo, ManagedResources, String>newBuilder()
+                        .setProjection(record -> record.getPayload().getName())
+                        .setDistinct(true);
+        List<String> allNames = new ArrayList<>(q.executeQuery(tableName, fromSixty,
+                distinctNames.build()).getResult());
+        assertThat(q.executeQuery(tableName, fromSixty,
+                distinctNames.setOffset(queryPageSize).setLimit(queryPageSize).build()).getResult())
+                .containsExactlyElementsOf(allNames.subList(queryPageSize, 2 * queryPageSize));
+
+        QueryOptions<Uuid, EventInfo, ManagedResources, String> nameOptions =
+                QueryOptions.QueryOptionsBuilder.<Uuid, EventInfo, ManagedResources, String>newBuilder()
+                        .setProjection(record -> record.getPayload().getName())
+                        .setLimit(queryPageSize)
+                        .build();
+        assertThat(q.executeQueryStream(tableName,
+                record -> ((EventInfo) record.getPayload()).getEventTime() >= sixty,
+                nameOptions).count())
+                .isEqualTo(queryPageSize);
+
+        // Hash join of the table with itself on the event id.
+        QueryOptions<Uuid, EventInfo, ManagedResources, EventInfo> payloadOptions =
+                QueryOptions.QueryOptionsBuilder.<Uuid, EventInfo, ManagedResources, EventInfo>newBuilder()
+                        .setProjection(CorfuStoreEntry::getPayload)
+                        .build();
+        QueryResult<String> joinResult = q.executeHashJoinQuery(tableName, tableName,
+                record -> ((EventInfo) record.getPayload()).getEventTime() >= sixty,
+                record -> ((EventInfo) record.getPayload()).getEventTime() < sixty + queryPageSize,
+                payloadOptions, payloadOptions,
+                EventInfo::getId, EventInfo::getId,
+                (event1, event2) -> event1.getName() + event2.getName(),
+                null);
+        assertThat(joinResult.getResult()).hasSize(queryPageSize)
+                .contains("event_" + sixty + "event_" + sixty);
+
+        // The join queries on a key join predicate are executed as hash joins, with the results
+        // of the nested loop join on the equivalent predicate.
+        QueryResult<String> nestedLoopJoinResult = q.executeJoinQuery(tableName, tableName,
+                record -> ((EventInfo) record.getPayload()).getEventTime() >= sixty,
+                record -> ((EventInfo) record.getPayload()).getEventTime() < sixty + queryPageSize,
+                payloadOptions, payloadOptions,
+                (event1, event2) -> event1.getId() == event2.getId(),
+                (event1, event2) -> event1.getName() + event2.getName(),
+                null);
+        QueryResult<String> keyJoinResult = q.executeJoinQuery(tableName, tableName,
+                record -> ((EventInfo) record.getPayload()).getEventTime() >= sixty,
+                record -> ((EventInfo) record.getPayload()).getEventTime() < sixty + queryPageSize,
+                payloadOptions, payloadOptions,
+                Query.joinOnKeys(EventInfo::getId, EventInfo::getId),
+                (event1, event2) -> event1.getName() + event2.getName(),
+                null);
+        assertThat(keyJoinResult.getResult())
+                .containsExactlyElementsOf(nestedLoopJoinResult.getResult())
+                .containsExactlyElementsOf(joinResult.getResult());
+
         assertThat(q.count(tableName, timestamp)).isEqualTo(1);
         assertThat(q.count(tableName)).isEqualTo(count + 1);
 
@@ -162,6 +254,48 @@ public class CorfuStoreTest extends AbstractViewTest {
      *
      * @throws Exception
      */
+    /**
+     * Validates that the values of a table opened with lazy values are decoded on
+     * first access to the same records that were written.
+     */
+    @Test
+    public void lazyValuesTest() throws Exception {
+        final String nsxManager = "nsx-manager";
+        final String tableName = "EventInfo";
+        final int count = 10;
+
+        CorfuStore corfuStore = new CorfuStore(getDefaultRuntime());
+        corfuStore.openTable(nsxManager, tableName,
+                Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.builder().build());
+
+        ManagedResources metadata = ManagedResources.newBuilder().setCreateUser("MrProto").build();
+        TxBuilder tx = corfuStore.tx(nsxManager);
+        for (int i = 0; i < count; i++) {
+            tx.update(tableName,
+                    Uuid.newBuilder().setMsb(i).setLsb(i).build(),
+                    EventInfo.newBuilder().setId(i).setName("event_" + i).build(),
+                    metadata);
+        }
+        tx.commit();
+
+        // Replay the table in a new runtime, which decodes the values on first access
+        CorfuRuntime lazyRuntime = getNewRuntime(getDefaultNode()).connect();
+        Table<Uuid, EventInfo, ManagedResources> lazyTable = new CorfuStore(lazyRuntime).openTable(
+                nsxManager, tableName,
+                Uuid.class, EventInfo.class, ManagedResources.class,
+                TableOptions.builder().lazyValues(true).build());
+
+        for (int i = 0; i < count; i++) {
+            CorfuRecord<EventInfo, ManagedResources> record =
+                    lazyTable.get(Uuid.newBuilder().setMsb(i).setLsb(i).build());
+            assertThat(record.getPayload())
+                    .isEqualTo(EventInfo.newBuilder().setId(i).setName("event_" + i).build());
+            assertThat(record.getMetadata().getCreateUser()).isEqualTo("MrProto");
+        }
+        lazyRuntime.shutdown();
+    }
+
     @Test
     public void checkMetadataTransactions() throws Exception {
 
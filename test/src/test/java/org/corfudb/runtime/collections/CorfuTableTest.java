@@ -232,6 +232,62 @@ public class CorfuTableTest extends AbstractViewTest {
                 .containsExactly("a");
     }
 
+    /**
+     * Range lookups on a sorted index return the entries in index order, reflect
+     * updates and removals, and can be paged.
+     */
+    @Test
+    public void canReadRangeFromSortedIndex() {
+        CorfuTable<String, String>
+                corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer.SortedIndex())
+                .setStreamName("test")
+                .open();
+
+        corfuTable.put("k1", "d");
+        corfuTable.put("k2", "b");
+        corfuTable.put("k3", "a");
+        corfuTable.put("k4", "c");
+        corfuTable.put("k5", "e");
+
+        assertThat(project(corfuTable.getByIndexRange(StringIndexer.SortedIndex.BY_VALUE_SORTED, "b", "e")))
+                .containsExactly("b", "c", "d");
+        assertThat(project(corfuTable.getByIndexRange(StringIndexer.SortedIndex.BY_VALUE_SORTED, null, "c")))
+                .containsExactly("a", "b");
+        assertThat(project(corfuTable.getByIndexRange(StringIndexer.SortedIndex.BY_VALUE_SORTED, "d", null)))
+                .containsExactly("d", "e");
+        assertThat(corfuTable.getByIndexRange(StringIndexer.SortedIndex.BY_VALUE_SORTED, "e", "b"))
+                .isEmpty();
+
+        // Pages of the whole index
+        assertThat(project(corfuTable.getByIndexRange(StringIndexer.SortedIndex.BY_VALUE_SORTED,
+                null, null, 0, 2))).containsExactly("a", "b");
+        assertThat(project(corfuTable.getByIndexRange(StringIndexer.SortedIndex.BY_VALUE_SORTED,
+                null, null, 4, 2))).containsExactly("e");
+
+        corfuTable.put("k3", "f");
+        corfuTable.remove("k4");
+        assertThat(project(corfuTable.getByIndexRange(StringIndexer.SortedIndex.BY_VALUE_SORTED, null, null)))
+                .containsExactly("b", "d", "e", "f");
+    }
+
+    /**
+     * Verify that a range lookup fails on an index that is not sorted.
+     */
+    @Test (expected = IllegalArgumentException.class)
+    public void cannotLookupByRangeOnUnsortedIndex() {
+        CorfuTable<String, String>
+                corfuTable = getDefaultRuntime().getObjectsView().build()
+                .setTypeToken(CorfuTable.<String, String>getTableType())
+                .setArguments(new StringIndexer.SortedIndex())
+                .setStreamName("test")
+                .open();
+
+        corfuTable.put("k1", "a");
+        corfuTable.getByIndexRange(StringIndexer.BY_FIRST_LETTER, "a", "b");
+    }
+
     /**
      * Ensure that {@link StreamingMap#entryStream()} always operates on a snapshot.
      * If it does not, this test will throw {@link ConcurrentModificationException}.
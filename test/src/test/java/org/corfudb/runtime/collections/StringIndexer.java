@@ -40,6 +40,21 @@ public class StringIndexer implements Index.Registry<String, String> {
         }
     }
 
+    public static class SortedIndex extends StringIndexer {
+        public static final Index.Name BY_VALUE_SORTED = () -> "BY_VALUE_SORTED";
+
+        private static final Index.Spec<String, String, ? extends Comparable<?>> BY_VALUE_SORTED_INDEX =
+                new Index.Spec<>(
+                        BY_VALUE_SORTED,
+                        (Index.Function<String, String, String>) (key, val) -> val,
+                        true);
+
+        @Override
+        public Iterator<Index.Spec<String, String, ? extends Comparable<?>>> iterator() {
+            return Stream.of(BY_VALUE_SORTED_INDEX, BY_FIRST_LETTER_INDEX).iterator();
+        }
+    }
+
     public static class FailingIndex extends StringIndexer {
         public static final Index.Name FAILING = () -> "FAILING";
 
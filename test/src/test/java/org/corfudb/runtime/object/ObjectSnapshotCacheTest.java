@@ -0,0 +1,137 @@
+package org.corfudb.runtime.object;
+
+import com.google.common.reflect.TypeToken;
+import org.corfudb.protocols.wireprotocol.Token;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.collections.CorfuTable;
+import org.corfudb.runtime.object.transactions.TransactionType;
+import org.corfudb.runtime.view.AbstractViewTest;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that snapshot transactions read copies of past object versions rather than
+ * rolling the objects back, once a reader rolled an object back to a version.
+ */
+public class ObjectSnapshotCacheTest extends AbstractViewTest {
+
+    private <R> R readAtSnapshot(CorfuRuntime rt, long snapshot, Supplier<R> read) {
+        rt.getObjectsView().TXBuild()
+                .type(TransactionType.SNAPSHOT)
+                .snapshot(new Token(0L, snapshot))
+                .build()
+                .begin();
+        try {
+            return read.get();
+        } finally {
+            rt.getObjectsView().TXEnd();
+        }
+    }
+
+    private static final long MAX_SNAPSHOT_WEIGHT = 100_000;
+
+    private CorfuRuntime getRuntime(long maxObjectSnapshotWeight) {
+        return getNewRuntime(CorfuRuntime.CorfuRuntimeParameters.builder()
+                .maxObjectSnapshotWeight(maxObjectSnapshotWeight)
+                .build())
+                .parseConfigurationString(getDefaultConfigurationString())
+                .connect();
+    }
+
+    @Test
+    public void snapshotsAreOptIn() {
+        CorfuRuntime rt = getDefaultRuntime();
+        ObjectSnapshotCache snapshotCache = rt.getObjectsView().getSnapshotCache();
+        assertThat(snapshotCache.isEnabled()).isFalse();
+
+        Map<String, String> map = rt.getObjectsView().build()
+                .setStreamName("test")
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .open();
+        VersionLockedObject vlo = ((CorfuCompileProxy) ((ICorfuSMR) map)
+                .getCorfuSMRProxy()).getUnderlyingObject();
+
+        final int numEntries = 3;
+        for (int i = 0; i < numEntries; i++) {
+            map.put("k" + i, "v" + i);
+        }
+        assertThat(map).hasSize(numEntries);
+
+        // Without copies, every read at an older snapshot rolls the object back
+        assertThat(readAtSnapshot(rt, 0L, map::size)).isEqualTo(1);
+        assertThat(snapshotCache.size()).isZero();
+        assertThat(map).hasSize(numEntries);
+        assertThat(readAtSnapshot(rt, 0L, map::size)).isEqualTo(1);
+        assertThat(vlo.getVersionUnsafe()).isEqualTo(0L);
+    }
+
+    @Test
+    public void snapshotReadsDoNotRollBackObject() {
+        CorfuRuntime rt = getRuntime(MAX_SNAPSHOT_WEIGHT);
+        ObjectSnapshotCache snapshotCache = rt.getObjectsView().getSnapshotCache();
+
+        Map<String, String> map = rt.getObjectsView().build()
+                .setStreamName("test")
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .open();
+        VersionLockedObject vlo = ((CorfuCompileProxy) ((ICorfuSMR) map)
+                .getCorfuSMRProxy()).getUnderlyingObject();
+
+        final int numEntries = 3;
+        for (int i = 0; i < numEntries; i++) {
+            map.put("k" + i, "v" + i);
+        }
+        assertThat(map).hasSize(numEntries);
+        final long latestVersion = vlo.getVersionUnsafe();
+
+        // The first read at the oldest snapshot rolls the object back, and keeps a copy of it
+        final long misses = snapshotCache.getMissCount();
+        assertThat(readAtSnapshot(rt, 0L, map::size)).isEqualTo(1);
+        assertThat(snapshotCache.getMissCount()).isEqualTo(misses + 1);
+        assertThat(vlo.getVersionUnsafe()).isEqualTo(0L);
+
+        // A newer reader moves the object forward and updates it
+        map.put("k" + numEntries, "v" + numEntries);
+        assertThat(map).hasSize(numEntries + 1);
+
+        // The next reads at the oldest snapshot read the copy, without rolling the object back
+        final long hits = snapshotCache.getHitCount();
+        assertThat(readAtSnapshot(rt, 0L, map::size)).isEqualTo(1);
+        assertThat(readAtSnapshot(rt, 0L, () -> map.get("k0"))).isEqualTo("v0");
+        assertThat(readAtSnapshot(rt, 0L, () -> map.get("k1"))).isNull();
+        assertThat(snapshotCache.getHitCount()).isEqualTo(hits + 3);
+        assertThat(vlo.getVersionUnsafe()).isGreaterThan(latestVersion);
+
+        // A snapshot that the copy does not cover still rolls the object back
+        assertThat(readAtSnapshot(rt, 1L, map::size)).isEqualTo(2);
+        assertThat(vlo.getVersionUnsafe()).isEqualTo(1L);
+    }
+
+    @Test
+    public void snapshotsAreBounded() {
+        CorfuRuntime rt = getRuntime(1);
+        ObjectSnapshotCache snapshotCache = rt.getObjectsView().getSnapshotCache();
+
+        Map<String, String> map = rt.getObjectsView().build()
+                .setStreamName("test")
+                .setTypeToken(new TypeToken<CorfuTable<String, String>>() {})
+                .open();
+
+        final int numEntries = 3;
+        for (int i = 0; i < numEntries; i++) {
+            map.put("k" + i, "v" + i);
+        }
+        assertThat(map).hasSize(numEntries);
+
+        // A copy of a single entry fits, a copy of two entries does not
+        assertThat(readAtSnapshot(rt, 0L, map::size)).isEqualTo(1);
+        assertThat(snapshotCache.size()).isEqualTo(1L);
+        assertThat(map).hasSize(numEntries);
+        assertThat(readAtSnapshot(rt, 1L, map::size)).isEqualTo(2);
+        assertThat(snapshotCache.size()).isEqualTo(1L);
+    }
+}
@@ -2,23 +2,19 @@ package org.corfudb.runtime.object.transactions;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-import com.github.benmanes.caffeine.cache.CacheWriter;
-import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.primitives.Ints;
 import com.google.common.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.corfudb.infrastructure.SequencerServer;
 import org.corfudb.infrastructure.SequencerServerCache;
-import org.corfudb.infrastructure.SequencerServerCache.ConflictTxStream;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.runtime.collections.CorfuTable;
 import org.corfudb.runtime.object.AbstractObjectTest;
+import org.corfudb.runtime.view.Address;
 import org.junit.Test;
 
-import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Created by maithem on 7/24/17.
@@ -61,43 +57,73 @@ public class SequencerServerCacheTest extends AbstractObjectTest {
     }
 
     /**
-     * Check cache eviction algorithm (it must be atomic operation).
+     * Check cache eviction algorithm (the wildcard must be updated along with the eviction).
      * Check cache invalidation
      */
     @Test
     public void testCache() {
-        final AtomicBoolean criticalVariable = new AtomicBoolean();
+        SequencerServerCache cache = new SequencerServerCache(1);
 
-        SequencerServerCache cache = new SequencerServerCache(1, new CacheWriter<ConflictTxStream, Long>() {
-            @Override
-            public void write(@Nonnull ConflictTxStream key, @Nonnull Long value) {
-                log.info("Write: [{}, {}]. Thread: {}", key, value, Thread.currentThread().getName());
-            }
-
-            @Override
-            public void delete(@Nonnull ConflictTxStream key, @Nullable Long value, @Nonnull RemovalCause cause) {
-                log.info("Delete record: {}. Thread: {}", key, Thread.currentThread().getName());
-                criticalVariable.set(true);
-            }
-        });
-
-        final ConflictTxStream firstKey = new ConflictTxStream(UUID.randomUUID(), new byte[]{});
-        final ConflictTxStream secondKey = new ConflictTxStream(UUID.randomUUID(), new byte[]{});
-        final long firstValue = 1L;
-        final long secondValue = 2L;
+        final UUID firstStream = UUID.randomUUID();
+        final UUID secondStream = UUID.randomUUID();
+        final byte[] conflictParam = new byte[]{};
         final int iterations = 10;
 
         for (int i = 0; i < iterations; i++) {
-            criticalVariable.set(false);
+            final long firstValue = 2L * i;
+            final long secondValue = 2L * i + 1;
 
-            cache.put(firstKey, firstValue);
-            cache.put(secondKey, secondValue);
+            cache.put(firstStream, conflictParam, firstValue);
+            cache.put(secondStream, conflictParam, secondValue);
 
             assertThat(cache.size()).isOne();
-            assertThat(cache.getIfPresent(firstKey)).isNull();
+            assertThat(cache.getIfPresent(firstStream, conflictParam)).isEqualTo(Address.NON_ADDRESS);
+            assertThat(cache.getIfPresent(secondStream, conflictParam)).isEqualTo(secondValue);
+            assertThat(cache.getMaxConflictWildcard()).isEqualTo(firstValue);
 
             cache.invalidateAll();
             assertThat(cache.size()).isZero();
+            assertThat(cache.getMaxConflictWildcard()).isEqualTo(secondValue);
         }
     }
+
+    /**
+     * A full cache evicts the oldest updates first, and keeps the updated keys.
+     */
+    @Test
+    public void testCacheEvictsOldestUpdates() {
+        final int cacheSize = 100;
+        SequencerServerCache cache = new SequencerServerCache(cacheSize);
+        final UUID streamId = UUID.randomUUID();
+
+        for (int i = 0; i < cacheSize; i++) {
+            cache.put(streamId, Ints.toByteArray(i), i);
+        }
+
+        // Update the oldest key, so that it's no longer the oldest update
+        cache.put(streamId, Ints.toByteArray(0), cacheSize);
+        assertThat(cache.size()).isEqualTo(cacheSize);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(Address.NOT_FOUND);
+
+        cache.put(streamId, Ints.toByteArray(cacheSize), cacheSize + 1);
+        assertThat(cache.size()).isLessThan(cacheSize);
+        assertThat(cache.getIfPresent(streamId, Ints.toByteArray(0))).isEqualTo(cacheSize);
+        assertThat(cache.getIfPresent(streamId, Ints.toByteArray(1))).isEqualTo(Address.NON_ADDRESS);
+        assertThat(cache.getIfPresent(streamId, Ints.toByteArray(cacheSize))).isEqualTo(cacheSize + 1);
+
+        // Every evicted key is older than the wildcard, and every cached key is newer
+        long maxConflictWildcard = cache.getMaxConflictWildcard();
+        for (int i = 1; i < cacheSize; i++) {
+            long address = cache.getIfPresent(streamId, Ints.toByteArray(i));
+            if (address == Address.NON_ADDRESS) {
+                assertThat((long) i).isLessThanOrEqualTo(maxConflictWildcard);
+            } else {
+                assertThat(address).isEqualTo(i).isGreaterThan(maxConflictWildcard);
+            }
+        }
+
+        cache.invalidateUpTo(cacheSize);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getMaxConflictWildcard()).isEqualTo(cacheSize - 1);
+    }
 }
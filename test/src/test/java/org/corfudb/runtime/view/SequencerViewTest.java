@@ -5,10 +5,15 @@ import org.corfudb.protocols.wireprotocol.StreamAddressRange;
 import org.corfudb.protocols.wireprotocol.Token;
 import org.corfudb.protocols.wireprotocol.TokenResponse;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.stream.StreamAddressSpace;
 import org.junit.Test;
 import org.roaringbitmap.longlong.Roaring64NavigableMap;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -139,4 +144,36 @@ public class SequencerViewTest extends AbstractViewTest {
                 new StreamAddressRange(streamA,  tokenCount, Address.NON_ADDRESS)).getAddressMap())
                 .isEqualTo(expectedMap);
     }
+
+    /**
+     * Check that a streams wait request is held until one of its streams is allocated an
+     * address in range, and times out with an empty address space otherwise.
+     */
+    @Test
+    public void waitForStreamsAddressSpace() throws Exception {
+        CorfuRuntime r = getDefaultRuntime();
+        UUID streamA = UUID.nameUUIDFromBytes("stream A".getBytes());
+        UUID streamB = UUID.nameUUIDFromBytes("stream B".getBytes());
+
+        r.getSequencerView().next(streamA);
+        List<StreamAddressRange> ranges = Arrays.asList(
+                new StreamAddressRange(streamA, Long.MAX_VALUE, 0L),
+                new StreamAddressRange(streamB, Long.MAX_VALUE, Address.NON_ADDRESS));
+
+        // Nothing in range, the request times out with empty address spaces
+        Map<UUID, StreamAddressSpace> addressSpaces = r.getSequencerView().waitForStreamsAddressSpace(ranges);
+        assertThat(addressSpaces.get(streamA).getAddressMap().isEmpty()).isTrue();
+
+        // The request completes once a token is allocated on one of the streams
+        CompletableFuture<Map<UUID, StreamAddressSpace>> wait = CompletableFuture.supplyAsync(
+                () -> r.getSequencerView().waitForStreamsAddressSpace(ranges));
+        r.getSequencerView().next(UUID.randomUUID());
+        r.getSequencerView().next(streamB);
+
+        addressSpaces = wait.get();
+        Roaring64NavigableMap expectedMap = new Roaring64NavigableMap();
+        expectedMap.addLong(2L);
+        assertThat(addressSpaces.get(streamB).getAddressMap()).isEqualTo(expectedMap);
+        assertThat(addressSpaces.get(streamA).getAddressMap().isEmpty()).isTrue();
+    }
 }
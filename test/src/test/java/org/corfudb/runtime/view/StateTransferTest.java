@@ -761,4 +761,90 @@ public class StateTransferTest extends AbstractViewTest {
         }
 
     }
+
+    /**
+     * Verifies that the chunks of a chain replicated segment are read from all its replicas.
+     * Setup: Layout - Segment 1: 0 -> 40 (exclusive) Node 0, Node 1
+     * Segment 2: 40 -> infinity (exclusive) Node 0, Node 1, Node 2
+     * The first segment is transferred to Node 2, which should read from both Node 0 and Node 1,
+     * and end up with the same data.
+     */
+    @Test
+    public void verifyStateTransferReadsFromAllReplicas() throws Exception {
+        addServer(SERVERS.PORT_0);
+        addServer(SERVERS.PORT_1);
+        addServer(SERVERS.PORT_2);
+
+        getManagementServer(SERVERS.PORT_0).shutdown();
+        getManagementServer(SERVERS.PORT_1).shutdown();
+        getManagementServer(SERVERS.PORT_2).shutdown();
+
+        final long writtenAddressesBatch1 = 40L;
+        final long writtenAddressesBatch2 = 10L;
+
+        Layout layout = new TestLayoutBuilder()
+                .setEpoch(1L)
+                .addLayoutServer(SERVERS.PORT_0)
+                .addLayoutServer(SERVERS.PORT_1)
+                .addLayoutServer(SERVERS.PORT_2)
+                .addSequencer(SERVERS.PORT_0)
+                .buildSegment()
+                .setStart(0L)
+                .setEnd(writtenAddressesBatch1)
+                .buildStripe()
+                .addLogUnit(SERVERS.PORT_0)
+                .addLogUnit(SERVERS.PORT_1)
+                .addToSegment()
+                .addToLayout()
+                .buildSegment()
+                .setStart(writtenAddressesBatch1)
+                .setEnd(-1L)
+                .buildStripe()
+                .addLogUnit(SERVERS.PORT_0)
+                .addLogUnit(SERVERS.PORT_1)
+                .addLogUnit(SERVERS.PORT_2)
+                .addToSegment()
+                .addToLayout()
+                .build();
+        bootstrapAllServers(layout);
+
+        corfuRuntime = getNewRuntime(getDefaultNode()).connect();
+
+        IStreamView testStream = corfuRuntime.getStreamsView().get(CorfuRuntime.getStreamID("test"));
+        for (int i = 0; i < writtenAddressesBatch1 + writtenAddressesBatch2; i++) {
+            testStream.append("testPayload".getBytes());
+        }
+
+        // Count the reads served by each replica of the first segment.
+        AtomicInteger readsFromNode0 = new AtomicInteger();
+        AtomicInteger readsFromNode1 = new AtomicInteger();
+        addClientRule(corfuRuntime, SERVERS.ENDPOINT_0, new TestRule().matches(corfuMsg -> {
+            if (corfuMsg.getMsgType().equals(CorfuMsgType.MULTIPLE_READ_REQUEST)) {
+                readsFromNode0.incrementAndGet();
+            }
+            return true;
+        }));
+        addClientRule(corfuRuntime, SERVERS.ENDPOINT_1, new TestRule().matches(corfuMsg -> {
+            if (corfuMsg.getMsgType().equals(CorfuMsgType.MULTIPLE_READ_REQUEST)) {
+                readsFromNode1.incrementAndGet();
+            }
+            return true;
+        }));
+
+        new RestoreRedundancyMergeSegments().impl(corfuRuntime);
+        clearClientRules(corfuRuntime);
+
+        assertThat(readsFromNode0.get()).isPositive();
+        assertThat(readsFromNode1.get()).isPositive();
+
+        corfuRuntime.invalidateLayout();
+        assertThat(corfuRuntime.getLayoutView().getLayout().getSegments().size())
+                .isEqualTo(1);
+
+        final long lastAddress = writtenAddressesBatch1 + writtenAddressesBatch2 - 1;
+        Map<Long, LogData> map_0 = getAllNonEmptyData(corfuRuntime, SERVERS.ENDPOINT_0, lastAddress);
+        Map<Long, LogData> map_2 = getAllNonEmptyData(corfuRuntime, SERVERS.ENDPOINT_2, lastAddress);
+        assertThat(map_2).hasSameSizeAs(map_0);
+        assertThat(map_2.entrySet()).containsOnlyElementsOf(map_0.entrySet());
+    }
 }
@@ -1,15 +1,28 @@
 package org.corfudb.runtime.view.replication;
 
 import org.corfudb.infrastructure.TestLayoutBuilder;
+import org.corfudb.protocols.wireprotocol.CorfuMsgType;
+import org.corfudb.protocols.wireprotocol.CorfuPayloadMsg;
 import org.corfudb.protocols.wireprotocol.ILogData;
 import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.protocols.wireprotocol.ReadResponse;
 import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.clients.TestRule;
 import org.corfudb.runtime.exceptions.OverwriteException;
 import org.corfudb.runtime.exceptions.WrongEpochException;
 import org.corfudb.runtime.view.RuntimeLayout;
 import org.corfudb.runtime.view.Layout;
 import org.junit.Test;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.fail;
@@ -106,6 +119,113 @@ public class ChainReplicationProtocolTest extends AbstractReplicationProtocolTes
                 .isEqualTo("incomplete".getBytes());
     }
 
+    /**
+     * Check that the reads of the addresses below the committed tail are spread
+     * across the chain, and that the other reads go to the chain tail.
+     */
+    @Test
+    public void committedReadsAreSpreadAcrossChain() throws Exception {
+        setupNodes();
+        final CorfuRuntime r = getDefaultRuntime();
+        r.getParameters().setReplicaReadsEnabled(true);
+        r.getParameters().setCommittedTailRefreshInterval(Duration.ZERO);
+        final IReplicationProtocol rp = getProtocol();
+        final RuntimeLayout runtimeLayout = r.getLayoutView().getRuntimeLayout();
+        final int numWrites = 10;
+        final int numReads = numWrites * 3;
+        final long waitMs = 10;
+
+        for (long i = 0; i < numWrites; i++) {
+            rp.write(runtimeLayout, getLogData(i, ("data" + i).getBytes()));
+        }
+
+        // Wait for the committed tail of the chain to be learned
+        List<String> logServers = runtimeLayout.getLayout().getStripe(0L).getLogServers();
+        ChainReadSelector selector = runtimeLayout.getChainReadSelector();
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW
+                && selector.select(logServers, numWrites - 1, 0).equals(SERVERS.ENDPOINT_2); i++) {
+            TimeUnit.MILLISECONDS.sleep(waitMs);
+        }
+
+        Map<Integer, AtomicInteger> reads = new ConcurrentHashMap<>();
+        for (int port : new int[]{SERVERS.PORT_0, SERVERS.PORT_1, SERVERS.PORT_2}) {
+            reads.put(port, new AtomicInteger());
+            addServerRule(port, new TestRule().matches(m -> {
+                if (m.getMsgType() == CorfuMsgType.READ_REQUEST
+                        || m.getMsgType() == CorfuMsgType.MULTIPLE_READ_REQUEST) {
+                    reads.get(port).incrementAndGet();
+                }
+                return false;
+            }));
+        }
+
+        for (long i = 0; i < numReads; i++) {
+            assertThat(rp.peek(runtimeLayout, i % numWrites).getPayload(r))
+                    .isEqualTo(("data" + (i % numWrites)).getBytes());
+        }
+        assertThat(reads.values()).allMatch(count -> count.get() > 0);
+
+        List<Long> addresses = LongStream.range(0, numWrites).boxed().collect(Collectors.toList());
+        Map<Long, ILogData> readAll = rp.readAll(runtimeLayout, addresses, false, false);
+        addresses.forEach(address -> assertThat(readAll.get(address).getPayload(r))
+                .isEqualTo(("data" + address).getBytes()));
+
+        // An address above the committed tail is read from the chain tail
+        reads.values().forEach(count -> count.set(0));
+        assertThat(rp.peek(runtimeLayout, numWrites)).isNull();
+        assertThat(reads.get(SERVERS.PORT_0).get()).isZero();
+        assertThat(reads.get(SERVERS.PORT_1).get()).isZero();
+        assertThat(reads.get(SERVERS.PORT_2).get()).isEqualTo(1);
+    }
+
+    /**
+     * Check that an address missing from the read response of a unit other than the chain
+     * tail is read from the chain tail.
+     */
+    @Test
+    public void missingReplicaReadsAreReadFromTail() throws Exception {
+        setupNodes();
+        final CorfuRuntime r = getDefaultRuntime();
+        r.getParameters().setReplicaReadsEnabled(true);
+        r.getParameters().setCommittedTailRefreshInterval(Duration.ZERO);
+        final IReplicationProtocol rp = getProtocol();
+        final RuntimeLayout runtimeLayout = r.getLayoutView().getRuntimeLayout();
+        final int numWrites = 10;
+        final long waitMs = 10;
+
+        for (long i = 0; i < numWrites; i++) {
+            rp.write(runtimeLayout, getLogData(i, ("data" + i).getBytes()));
+        }
+
+        // Wait for the committed tail of the chain to be learned
+        List<String> logServers = runtimeLayout.getLayout().getStripe(0L).getLogServers();
+        ChainReadSelector selector = runtimeLayout.getChainReadSelector();
+        for (int i = 0; i < PARAMETERS.NUM_ITERATIONS_LOW
+                && selector.select(logServers, numWrites - 1, 0).equals(SERVERS.ENDPOINT_2); i++) {
+            TimeUnit.MILLISECONDS.sleep(waitMs);
+        }
+
+        // The units other than the chain tail omit every address from their read responses
+        for (int port : new int[]{SERVERS.PORT_0, SERVERS.PORT_1}) {
+            addServerRule(port, new TestRule().matches(m -> {
+                if (m.getMsgType() == CorfuMsgType.READ_RESPONSE) {
+                    ((CorfuPayloadMsg<ReadResponse>) m).getPayload().getAddresses().clear();
+                }
+                return false;
+            }));
+        }
+
+        for (long i = 0; i < numWrites; i++) {
+            assertThat(rp.peek(runtimeLayout, i).getPayload(r))
+                    .isEqualTo(("data" + i).getBytes());
+        }
+
+        List<Long> addresses = LongStream.range(0, numWrites).boxed().collect(Collectors.toList());
+        Map<Long, ILogData> readAll = rp.readAll(runtimeLayout, addresses, false, false);
+        addresses.forEach(address -> assertThat(readAll.get(address).getPayload(r))
+                .isEqualTo(("data" + address).getBytes()));
+    }
+
     private void removeLogUnit(Layout currentLayout, String endpoint) throws Exception {
         CorfuRuntime corfuRuntime = getRuntime(currentLayout).connect();
         Layout layout = new Layout(corfuRuntime.getLayoutView().getLayout());
@@ -0,0 +1,42 @@
+package org.corfudb.runtime.view.replication;
+
+import org.corfudb.protocols.wireprotocol.DataType;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.runtime.CorfuRuntime;
+import org.corfudb.runtime.view.RuntimeLayout;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Test the chain replication protocol, with writes propagated in parallel. */
+public class FanOutChainReplicationProtocolTest extends ChainReplicationProtocolTest {
+
+    /** {@inheritDoc} */
+    @Override
+    IReplicationProtocol getProtocol() {
+        return new FanOutChainReplicationProtocol(new AlwaysHoleFillPolicy());
+    }
+
+    /** Check that writes and hole fills reach every unit of the chain. */
+    @Test
+    public void writeIsPropagatedToEveryUnit() throws Exception {
+        setupNodes();
+        final CorfuRuntime r = getDefaultRuntime();
+        final IReplicationProtocol rp = getProtocol();
+        final RuntimeLayout runtimeLayout = r.getLayoutView().getRuntimeLayout();
+        final long holeAddress = 1L;
+
+        rp.write(runtimeLayout, getLogData(0, "data".getBytes()));
+        // Nothing was written at the address, so the read fills the hole
+        assertThat(rp.read(runtimeLayout, holeAddress).isHole()).isTrue();
+
+        for (String endpoint : new String[]{SERVERS.ENDPOINT_0, SERVERS.ENDPOINT_1, SERVERS.ENDPOINT_2}) {
+            LogData data = runtimeLayout.getLogUnitClient(endpoint).read(0L).get()
+                    .getAddresses().get(0L);
+            assertThat(data.getPayload(r)).isEqualTo("data".getBytes());
+            LogData hole = runtimeLayout.getLogUnitClient(endpoint).read(holeAddress).get()
+                    .getAddresses().get(holeAddress);
+            assertThat(hole.getType()).isEqualTo(DataType.HOLE);
+        }
+    }
+}
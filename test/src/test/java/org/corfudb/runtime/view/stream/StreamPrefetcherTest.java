@@ -0,0 +1,122 @@
+package org.corfudb.runtime.view.stream;
+
+import org.corfudb.protocols.wireprotocol.ILogData;
+import org.corfudb.protocols.wireprotocol.LogData;
+import org.corfudb.runtime.exceptions.TrimmedException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that the {@link StreamPrefetcher} reads ahead the batches of a queue of addresses,
+ * and returns the data of every address as it is consumed.
+ */
+public class StreamPrefetcherTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    private static final int MAX_WINDOW = 4;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(MAX_WINDOW);
+
+    private final List<List<Long>> fetchedBatches = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private Map<Long, ILogData> fetch(List<Long> addresses) {
+        fetchedBatches.add(addresses);
+        return addresses.stream()
+                .collect(Collectors.<Long, Long, ILogData>toMap(Function.identity(), LogData::getHole));
+    }
+
+    private static NavigableSet<Long> queueOf(long from, long to) {
+        return LongStream.range(from, to).boxed().collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Consume the queue the way a stream view does, polling an address before reading it.
+     */
+    private List<Long> consume(StreamPrefetcher prefetcher, NavigableSet<Long> queue) {
+        List<Long> read = new ArrayList<>();
+        Long address;
+        while ((address = queue.pollFirst()) != null) {
+            read.add(prefetcher.read(address, queue).getGlobalAddress());
+        }
+        return read;
+    }
+
+    @Test
+    public void readsEveryAddressInOrder() {
+        final int numAddresses = 1000;
+        StreamPrefetcher prefetcher = new StreamPrefetcher(this::fetch, executor, BATCH_SIZE, MAX_WINDOW);
+
+        List<Long> read = consume(prefetcher, queueOf(0, numAddresses));
+        assertThat(read).isEqualTo(LongStream.range(0, numAddresses).boxed().collect(Collectors.toList()));
+
+        // Every address was fetched once, in batches
+        assertThat(fetchedBatches.stream().mapToInt(List::size).sum()).isEqualTo(numAddresses);
+        assertThat(fetchedBatches).allMatch(batch -> batch.size() <= BATCH_SIZE);
+        assertThat(prefetcher.getWindow()).isBetween(1, MAX_WINDOW);
+    }
+
+    @Test
+    public void readsAheadOfConsumer() throws Exception {
+        CountDownLatch nextBatchFetched = new CountDownLatch(1);
+        StreamPrefetcher prefetcher = new StreamPrefetcher(addresses -> {
+            if (addresses.get(0) == BATCH_SIZE) {
+                nextBatchFetched.countDown();
+            }
+            return fetch(addresses);
+        }, executor, BATCH_SIZE, MAX_WINDOW);
+        NavigableSet<Long> queue = queueOf(0, BATCH_SIZE * MAX_WINDOW * 2);
+
+        // Reading the first address fetches its batch, and starts fetching the next one
+        assertThat(prefetcher.read(queue.pollFirst(), queue).getGlobalAddress()).isEqualTo(0L);
+        assertThat(fetchedBatches.get(0)).hasSize(BATCH_SIZE).startsWith(0L);
+        assertThat(nextBatchFetched.await(1, TimeUnit.MINUTES)).isTrue();
+
+        // A consumer which moves back reads its addresses again
+        NavigableSet<Long> newQueue = queueOf(0, BATCH_SIZE);
+        assertThat(consume(prefetcher, newQueue))
+                .isEqualTo(LongStream.range(0, BATCH_SIZE).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void failedReadsAreThrownToConsumer() {
+        final long trimmedAddress = BATCH_SIZE + 1;
+        StreamPrefetcher prefetcher = new StreamPrefetcher(addresses -> {
+            if (addresses.contains(trimmedAddress)) {
+                throw new TrimmedException(Collections.singletonList(trimmedAddress));
+            }
+            return fetch(addresses);
+        }, executor, BATCH_SIZE, MAX_WINDOW);
+        NavigableSet<Long> queue = queueOf(0, BATCH_SIZE * 2);
+
+        for (long address = 0; address < BATCH_SIZE; address++) {
+            assertThat(prefetcher.read(queue.pollFirst(), queue).getGlobalAddress()).isEqualTo(address);
+        }
+
+        // The batch read ahead failed, which is thrown once the consumer reaches it
+        assertThatThrownBy(() -> prefetcher.read(queue.pollFirst(), queue))
+                .isInstanceOf(TrimmedException.class);
+    }
+}
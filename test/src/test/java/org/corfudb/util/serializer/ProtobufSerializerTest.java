@@ -0,0 +1,166 @@
+package org.corfudb.util.serializer;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.Message;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.corfudb.runtime.CorfuStoreMetadata.Record;
+import org.corfudb.runtime.CorfuStoreMetadata.TableMetadata;
+import org.corfudb.runtime.CorfuStoreMetadata.TableName;
+import org.corfudb.runtime.CorfuStoreMetadata.Timestamp;
+import org.corfudb.runtime.collections.CorfuRecord;
+import org.corfudb.runtime.exceptions.SerializerException;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifies that the {@link ProtobufSerializer} encodes records as {@link Record} protobufs,
+ * whatever the kind of the target buffer.
+ */
+public class ProtobufSerializerTest {
+
+    private final TableName key = TableName.newBuilder()
+            .setNamespace("namespace")
+            .setTableName("table")
+            .build();
+
+    private final TableMetadata value = TableMetadata.newBuilder()
+            .setTableName(key)
+            .setDiskBased(true)
+            .build();
+
+    private final Timestamp metadata = Timestamp.newBuilder()
+            .setEpoch(1L)
+            .setSequence(2L)
+            .build();
+
+    private ProtobufSerializer newSerializer() {
+        Map<String, Class<? extends Message>> classMap = new HashMap<>();
+        for (Message message : new Message[]{key, value, metadata}) {
+            classMap.put(Any.pack(message).getTypeUrl(), message.getClass());
+        }
+        return new ProtobufSerializer(classMap);
+    }
+
+    /**
+     * Serializes an object the way the serializer did before it encoded the records itself.
+     */
+    private static byte[] serializeRecord(int type, Record record) {
+        ByteBuf b = Unpooled.buffer();
+        b.writeInt(type);
+        b.writeInt(record.getSerializedSize());
+        b.writeBytes(record.toByteArray());
+        byte[] bytes = new byte[b.readableBytes()];
+        b.readBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] serialize(ProtobufSerializer serializer, Object o, ByteBuf b) {
+        serializer.serialize(o, b);
+        byte[] bytes = new byte[b.readableBytes()];
+        b.getBytes(b.readerIndex(), bytes);
+        return bytes;
+    }
+
+    @Test
+    public void serializeAsRecord() {
+        ProtobufSerializer serializer = newSerializer();
+
+        byte[] expectedKey = serializeRecord(ProtobufSerializer.MessageType.KEY.val,
+                Record.newBuilder().setPayload(Any.pack(key)).build());
+        byte[] expectedValue = serializeRecord(ProtobufSerializer.MessageType.VALUE.val,
+                Record.newBuilder()
+                        .setPayload(Any.pack(value))
+                        .setMetadata(Any.pack(metadata))
+                        .build());
+        byte[] expectedDefaultValue = serializeRecord(ProtobufSerializer.MessageType.VALUE.val,
+                Record.newBuilder().setPayload(Any.pack(Timestamp.getDefaultInstance())).build());
+
+        ByteBuf direct = PooledByteBufAllocator.DEFAULT.directBuffer();
+        CompositeByteBuf composite = Unpooled.compositeBuffer();
+        composite.addComponent(true, Unpooled.buffer(1).writeByte(0));
+        composite.addComponent(true, Unpooled.buffer(1).writeByte(0));
+        composite.skipBytes(2);
+        try {
+            for (ByteBuf b : new ByteBuf[]{Unpooled.buffer(), direct, composite}) {
+                assertThat(serialize(serializer, key, b.clear())).isEqualTo(expectedKey);
+                assertThat(serialize(serializer, new CorfuRecord<>(value, metadata), b.clear()))
+                        .isEqualTo(expectedValue);
+                assertThat(serialize(serializer,
+                        new CorfuRecord<>(Timestamp.getDefaultInstance(), null), b.clear()))
+                        .isEqualTo(expectedDefaultValue);
+            }
+        } finally {
+            direct.release();
+            composite.release();
+        }
+    }
+
+    @Test
+    public void deserializeRecord() {
+        ProtobufSerializer serializer = newSerializer();
+        ByteBuf direct = PooledByteBufAllocator.DEFAULT.directBuffer();
+        try {
+            for (ByteBuf b : new ByteBuf[]{Unpooled.buffer(), direct}) {
+                serializer.serialize(key, b);
+                serializer.serialize(new CorfuRecord<>(value, metadata), b);
+                serializer.serialize(new CorfuRecord<>(Timestamp.getDefaultInstance(), null), b);
+
+                assertThat(serializer.deserialize(b, null)).isEqualTo(key);
+
+                CorfuRecord record = (CorfuRecord) serializer.deserialize(b, null);
+                assertThat(record.getPayload()).isEqualTo(value);
+                assertThat(record.getMetadata()).isEqualTo(metadata);
+
+                record = (CorfuRecord) serializer.deserialize(b, null);
+                assertThat(record.getPayload()).isEqualTo(Timestamp.getDefaultInstance());
+                assertThat(record.getMetadata()).isNull();
+                assertThat(b.isReadable()).isFalse();
+            }
+        } finally {
+            direct.release();
+        }
+    }
+
+    @Test
+    public void deserializeLazily() {
+        ProtobufSerializer serializer = newSerializer();
+        serializer.enableLazyDecoding(TableMetadata.class);
+
+        ByteBuf b = Unpooled.buffer();
+        serializer.serialize(new CorfuRecord<>(value, metadata), b);
+        byte[] expected = new byte[b.readableBytes()];
+        b.getBytes(b.readerIndex(), expected);
+
+        // A record that wasn't decoded is serialized as it was read
+        Object lazyRecord = serializer.deserialize(b, null);
+        assertThat(serialize(serializer, lazyRecord, Unpooled.buffer())).isEqualTo(expected);
+
+        CorfuRecord record = (CorfuRecord) lazyRecord;
+        assertThat(record.getPayload()).isEqualTo(value);
+        assertThat(record.getMetadata()).isEqualTo(metadata);
+        assertThat(record).isEqualTo(new CorfuRecord<>(value, metadata));
+        assertThat(serialize(serializer, lazyRecord, Unpooled.buffer())).isEqualTo(expected);
+
+        // Only the records of the registered types are decoded lazily
+        serializer.serialize(key, b.clear());
+        assertThat(serializer.deserialize(b, null)).isEqualTo(key);
+    }
+
+    @Test
+    public void deserializeUnknownType() {
+        ProtobufSerializer serializer = newSerializer();
+        ByteBuf b = Unpooled.wrappedBuffer(serializeRecord(ProtobufSerializer.MessageType.KEY.val,
+                Record.newBuilder().setPayload(Any.pack(Record.getDefaultInstance())).build()));
+
+        assertThatThrownBy(() -> serializer.deserialize(b, null))
+                .isInstanceOf(SerializerException.class);
+    }
+}